@@ -70,5 +70,8 @@ public class Constants {
     public static final double VT0 = BOLTZMANN * (27 + ZERO_CELSIUS) / CHARGE;
     public static final double KoverQ = BOLTZMANN / CHARGE;
     public static final double EXP_THRESHOLD = 34.0;
+    /* (h)(nu)(deltaf) noise power in mW: h = 6.626e-34, nu = 193THz,
+     * deltaf = 12.5GHz (0.1nm), the noisefigure measurement bandwidth */
+    public static final double OPTICAL_NOISE_POWER = 15991e-10;
     //  CONSTe = exp((double)1.0);
 }
@@ -1,7 +1,6 @@
 package com.tejas.eda.spice;
 
 import java.awt.List;
-import java.io.BufferedWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -16,7 +15,6 @@ import java.util.TreeSet;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
@@ -35,30 +33,18 @@ import org.w3c.dom.NodeList;
 
 import com.google.common.collect.Multiset.Entry;
 import com.tejas.eda.spice.parse.optical.LinkCard;
+import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
+import com.tejas.engine.interfaces.networkDesign.NetPlan;
 import com.tejas.engine.utils.Pair;
 import com.tejas.engine.utils.Triple;
 
 public class DWDMRouteToSpiceConverter {
 	private static int INT_TO_BE_PASSED = 0;
 
-	private static String[][] NODE_INFO = new String[1000][10]; // Consists of
-																// Node Info.;
-																// takes only
-																// 1000 Nodes
-																// Info
-	private static String[][] TOPO_INFO = new String[1000][10]; // Consists of
-																// Topology
-																// Info.; takes
-																// only 1000
-																// paths
-	private static String[][] DEMAND_INFO = new String[1000][10]; // Consists of
-																	// Traffic
-																	// Matrix
-																	// Info.;
-																	// takes
-																	// only
-																	// 1000
-																	// inputs
+	// Sized by the constructors to the number of nodes, links and demands
+	private static String[][] NODE_INFO; // Consists of Node Info.
+	private static String[][] TOPO_INFO; // Consists of Topology Info.
+	private static String[][] DEMAND_INFO; // Consists of Traffic Matrix Info.
 	static double nLoss = 0;
 	static double n2Loss = 0;
 	static double n3Loss = 0;
@@ -145,20 +131,31 @@ public class DWDMRouteToSpiceConverter {
 
 	String cirFilePath = "cirFiles";
 
-	FileWriter fw;
-	static BufferedWriter bw;
+	String xmlFilePath = "xmlFiles";
+	String title = "Linear DWDM Link";
+	// Also write the deck of each route to cirFilePath, for debugging
+	boolean exportCirFiles;
+	// Print the node degrees and the route info to the console (routes file
+	// only)
+	boolean printRouteInfo;
+
+	static OpticalNetworkBuilder net;
 
 	public static void main(String args[]) {
 		new DWDMRouteToSpiceConverter(args);
 	} // comment for debugging
 
 	public DWDMRouteToSpiceConverter(String[] args) { // comment for debugging
+		this(args, false);
+	}
+
+	public DWDMRouteToSpiceConverter(String[] args, boolean exportCirFiles) {
+		this.exportCirFiles = exportCirFiles;
+		this.printRouteInfo = true;
 		try {
 
 			String routesFileName = args[0]; // comment for debugging
 			// comment for debugging
-			String xmlFilePath = "xmlFiles";
-			String title = "Linear DWDM Link";
 			File fXmlFile = new File(routesFileName); // comment for debugg
 			// File fXmlFile = new File("D:/tejplan/inputfile_linear_dwdm.xml");
 			// // remove comment for debug
@@ -175,6 +172,9 @@ public class DWDMRouteToSpiceConverter {
 			NodeList lList = doc.getElementsByTagName("link");
 			NodeList dList = doc.getElementsByTagName("demandEntry");
 			NodeList rList = doc.getElementsByTagName("route");
+			NODE_INFO = newInfoTable(nList, "no");
+			TOPO_INFO = newInfoTable(lList, "LinkId");
+			DEMAND_INFO = newInfoTable(dList, "DemandId");
 			String nodeNum = null;
 			String nodeDegree = null;// SS
 			for (int temp = 0; temp < nList.getLength(); temp++) {
@@ -218,40 +218,7 @@ public class DWDMRouteToSpiceConverter {
 				}
 				destList[temp1] = PosNode; // *SS
 			}
-			int[] a = new int[destList.length];
-			for (int i = 0; i < a.length; i++) {
-				a[i] = Integer.parseInt(destList[i]);
-			}
-			Arrays.sort(a);
-			for (int i = 0; i < a.length; i++) {
-				destList[i] = String.valueOf(a[i]);
-			}
-			HashMap<String, Integer> repeatNames = new HashMap<String, Integer>();
-			int repeatCount = 0;
-			for (int j = 0; j < destList.length; j++) {
-				int count = 0;
-				for (int k = 0; k < destList.length; k++) {
-					if (destList[j].equals(destList[k])) {
-						count++;
-					}
-				}
-				if (!repeatNames.containsKey(destList[j])) {
-					System.out.println("Dest node " + destList[j]
-							+ ": Degree= " + count);
-					repeatNames.put(destList[j], count);
-					repeatCount += count;
-					if (count > 0 && count < 3) {
-						nodeDegree = "2";
-						NODE_INFO[Integer.parseInt(destList[j])][3] = nodeDegree;
-					} else if (count > 2 && count < 5) {
-						nodeDegree = "4";
-						NODE_INFO[Integer.parseInt(destList[j])][3] = nodeDegree;
-					} else if (count > 4 && count < 9) {
-						nodeDegree = "8";
-						NODE_INFO[Integer.parseInt(destList[j])][3] = nodeDegree;
-					}
-				}
-			} // *SS
+			setNodeDegrees();
 			for (int temp = 0; temp < dList.getLength(); temp++) {
 				Node dLink = dList.item(temp);
 				if (dLink.getNodeType() == Node.ELEMENT_NODE) {
@@ -268,471 +235,551 @@ public class DWDMRouteToSpiceConverter {
 				}
 			}
 			for (int temp = 0; temp < rList.getLength(); temp++) {
-				// comment for
-				File file = new File(cirFilePath
-						+ "/outputfile_linear_dwdm.cir"); // debugging
-				// File file = new
-				// File("D:/tejplan/outputfile_linear_dwdm.cir"); // remove
-				// comment for debug
-				file.delete();
-				if (!file.exists()) {
-					file.createNewFile();
-				}
-				fw = new FileWriter(file.getAbsoluteFile(), true);
-				bw = new BufferedWriter(fw);
-				bw.write(title);
 				Node rLink = rList.item(temp);
-				Map<String, Triple<String, String, String>> calcPointMap = new HashMap<String, Triple<String, String, String>>();
-
-				j = 0;
-				x = 0;
-				l = 0;
-				m = 0;
-				b = 0;
-				d = 0;
-				count = 0;
-				Length1 = 0;
-				Length = 0;
-				Length_Loss = 0;
-				key_previous = 0;
-				copy = 0;
-				Dispersion = 0;
-				Disp_count = 0;
 				if (rLink.getNodeType() == Node.ELEMENT_NODE) {
 					Element eElement = (Element) rLink;
-					String route = eElement.getAttribute("LinksTravelled");
-					String demId = eElement.getAttribute("demandId");
-					linkId = route.split("-");
-					// SS
-					// SS for DCF implementation (place the 80 Km DCF module DCF
-					// at the end of a link if, for the next link dispersion is
-					// going beyond 1360 ps/nm-km) calculate dispersion for
-					// individual span, then estimate the disp at the end of
-					// each link
-
-					String[] linktype = new String[linkId.length];
-					String[] linkDisp = new String[linkId.length];
-					double[] mult = new double[linkId.length];
-					double count1 = 0.0;
-					double count2 = 0.0;
-					double count3 = 0.0;
-					for (i = 0; i < linkId.length; i++) {
-						INT = Integer.parseInt(linkId[i]);
-						linktype[i] = fiberType[INT];
-						if (linktype[i].equals("SM")) {
-							linkDisp[i] = "17";
-						} else if (linktype[i].equals("NZ")) {
-							linkDisp[i] = "10";
-						}
-						mult[i] += Integer.parseInt(linkDisp[i])
-								* Double.parseDouble(TOPO_INFO[INT][3]);
-					}
-					count1 = mult[0];
-					// SS for DCF implementation (End)
-					// SS ROADM Insertion loss at Add port
-					i = 0;
-					INT = Integer.parseInt(linkId[i]);
-					INT_TO_BE_PASSED = Integer.parseInt(TOPO_INFO[INT][1]);
-
-					n3Loss = getNode3Loss(
-							NODE_INFO[INT_TO_BE_PASSED][2].toUpperCase(),
-							Integer.parseInt(NODE_INFO[INT_TO_BE_PASSED][3]));
-					bw.newLine();
-					bw.write("Ra" + " " + (count + (i + 1 + j)) + " "
-							+ (count + (i + 2 + j)) + " " + "NODE_ADD NLOSS="
-							+ n3Loss);
-					bw.newLine();
-					/*
-					 * if (mult[0] >= Disp_80Km) { bw.write("D" + (x + 1) + " "
-					 * + (count + i + 2 + j) + " " + (count + i + 3 + j) + " " +
-					 * "DISP_30Km"); bw.newLine(); count1 = mult[0] -
-					 * Disp_30KmNegLimit; x = x + 1; j = j + 1; }
-					 */
-					bw.write("Ab" + " " + (count + i + 2 + j) + " "
-							+ (count + i + 3 + j) + " " + "EDFA_BOOSTER");
-					System.out.println("\nRoute info");
-					calcPointMap.put("" + (count + i + 1 + j) + "",
-							new Triple<>((NODE_INFO[INT_TO_BE_PASSED][0]), ""
-									+ INT + "", "Tx_ADD"));
-					calcPointMap.put("" + (count + i + 2 + j) + "",
-							new Triple<>((NODE_INFO[INT_TO_BE_PASSED][0]), ""
-									+ INT + "", "Tx"));
-					key_previous = -n3Loss + Booster_gain;
-					for (i = 0; i < linkId.length; i++) // length of the route
-														// in terms of ID
-					{
-						INT = Integer.parseInt(linkId[i]);
-						INT_TO_BE_PASSED = Integer.parseInt(TOPO_INFO[INT][2]);
-						Length = Double.parseDouble(TOPO_INFO[INT][3]); // SS
-
-						System.out.println(INT_TO_BE_PASSED);
-						// if (mult[0] >= Disp_80Km)
-
-						// else
-
-						if (fiberType[INT].equals("SM")) {
-							Length_Loss = Length * Alpha_SM;
-							copy = key_previous + Length_Loss;
-							// if(copy<LineAmp_min_ip){}
-							while (copy < LineAmp_min_ip) {
-
-								Length_Loss = LineAmp_min_ip - key_previous;
-								Length1 = Length_Loss / Alpha_SM;
-								LengthArray.add(Length1);
-								bw.newLine();
-								bw.write("L" + (m + 1) + " "
-										+ (count + (i + 3 + j)) + " "
-										+ (count + (i + 4 + j)) + " "
-										+ "OPTLINK_SM LEN=" + Length1);
-								bw.newLine();
-								key_previous += Length1 * Alpha_SM;
-								bw.write("A" + (l + 1) + " "
-										+ (count + i + 4 + j) + " "
-										+ (count + i + 5 + j) + " "
-										+ "EDFA_LINE");
-
-								Dispersion += Length1 * Disp_SM;
-								copy += LineAmp_gain;
-								key_previous = LineAmp_min_ip + LineAmp_gain;
-								j++;
-								m++;
-								l++;
-								/*if (i != (linkId.length - 1))
-									Dispersion_comp();
-								else if (Dispersion > Disp_60Km)
-									Dispersion_comp();*/
-								Length -= Length1;
-								count++; 
-
-							}
-
-							bw.newLine();
-							bw.write("L" + (m + 1) + " "
-									+ (count + (i + 3 + j)) + " "
-									+ (count + (i + 4 + j)) + " "
-									+ "OPTLINK_SM LEN=" + Length);
-							LengthArray.add(Length);
-							key_previous += Length * Alpha_SM;
-							Dispersion += Length * Disp_SM;
-							m++;
-							if (Dispersion > Disp_60Km)
-								Dispersion_comp();
-
-						} // ss
-						else if (fiberType[INT].equals("NZ")) {
-							Length_Loss = Length * Alpha_NZ;
-							copy = key_previous + Length_Loss;
-							// if(copy<LineAmp_min_ip){}
-							while (copy + LineAmp_gain < LineAmp_min_ip) {
-								Length_Loss = LineAmp_min_ip - key_previous;
-								Length1 = Length_Loss / Alpha_NZ;
-								LengthArray.add(Length1);
-								bw.newLine();
-								bw.write("L" + (m + 1) + " "
-										+ (count + (i + 3 + j)) + " "
-										+ (count + (i + 4 + j)) + " "
-										+ "OPTLINK_NZ LEN=" + Length1);
-								key_previous += Length1 * Alpha_NZ;
-								bw.newLine();
-								bw.write("A" + (l + 1) + " "
-										+ (count + i + 4 + j) + " "
-										+ (count + i + 5 + j) + " "
-										+ "EDFA_LINE");
-
-								Dispersion += Length1 * Disp_NZ;
-								key_previous = LineAmp_min_ip + LineAmp_gain;
-								j++;
-								l++;
-								m++;
-								Dispersion_comp();
-								Length -= Length1;
-								count++;
-							}
-							bw.newLine();
-							bw.write("L" + (m + 1) + " "
-									+ (count + (i + 3 + j)) + " "
-									+ (count + (i + 4 + j)) + " "
-									+ "OPTLINK_NZ LEN=" + Length);
-							LengthArray.add(Length);
-							key_previous += Length * Alpha_NZ;
-							Dispersion += Length * Disp_NZ;
-							x++;
-							m++;
-
-						}
-
-						if (i != (linkId.length - 1)) {
-							if (NODE_INFO[INT_TO_BE_PASSED][2]
-									.equalsIgnoreCase("EDFA")) {
-								Dispersion_comp();
-								bw.newLine();
-								bw.write("A" + (l + 1) + " "
-										+ (count + i + 4 + j) + " "
-										+ (count + i + 5 + j) + " "
-										+ "EDFA_LINE");
-								j++;
-								l++;
-								key_previous += LineAmp_gain;
-							} else if (NODE_INFO[INT_TO_BE_PASSED][2]
-									.equalsIgnoreCase("ROADM")) {
-								Dispersion_comp();
-								nLoss = getNode1Loss(
-										NODE_INFO[INT_TO_BE_PASSED][2]
-												.toUpperCase(),
-										Integer.parseInt(NODE_INFO[INT_TO_BE_PASSED][3]));
-								nNoise = getNodeNoise(
-										NODE_INFO[INT_TO_BE_PASSED][2]
-												.toUpperCase(),
-										Integer.parseInt(NODE_INFO[INT_TO_BE_PASSED][3]));
-								if (key_previous - nLoss < LineAmp_min_ip) {
-									bw.newLine();
-									bw.write("A" + (l + 1) + " "
-											+ (count + i + 4 + j) + " "
-											+ (count + i + 5 + j) + " "
-											+ "EDFA_LINE");
-									j++;
-									l++;
-									key_previous += LineAmp_gain;
-								}
-								if (NODE_INFO[INT_TO_BE_PASSED][3] == "2")// ss
-								{
-									bw.newLine();
-									bw.write("R" + (i + 1) + " "
-											+ (count + i + 4 + j) + " "
-											+ (count + i + 5 + j) + " "
-											+ "NODE1 NLOSS=" + nLoss);
-
-								} else if (NODE_INFO[INT_TO_BE_PASSED][3] == "4")// ss
-								{
-									bw.newLine();
-									bw.write("R" + (i + 1) + " "
-											+ (count + i + 4 + j) + " "
-											+ (count + i + 5 + j) + " "
-											+ "NODE2 NLOSS=" + nLoss);
-								} else if (NODE_INFO[INT_TO_BE_PASSED][3] == "8")// ss
-								{
-									bw.newLine();
-									bw.write("R" + (i + 1) + " "
-											+ (count + i + 4 + j) + " "
-											+ (count + i + 5 + j) + " "
-											+ "NODE3 NLOSS=" + nLoss);
-								}
-								key_previous -= nLoss;
-								j++;
-								// SS
-								/*
-								 * bw.newLine(); // ss
-								 * 
-								 * bw.write("A" + (i + 2) + " " + (count + i + 5
-								 * + j) + " " + (count + i + 6 + j) + " " +
-								 * "EDFA"); j = j + 1;// ss
-								 */
-								// for now it is considered that NODE type is
-								// only ROADM
-							}
-
-							calcPointMap.put("" + (count + i + 3 + j) + "",
-									new Triple<>(
-											(NODE_INFO[INT_TO_BE_PASSED][0]),
-											"" + INT + "", "Rx"));
-							calcPointMap.put("" + (count + i + 4 + j) + "",
-									new Triple<>(
-											(NODE_INFO[INT_TO_BE_PASSED][0]),
-											"" + INT + "", "Tx"));
-						}
+					simulateRoute(doc_to_write, rootElement,
+							eElement.getAttribute("LinksTravelled"),
+							eElement.getAttribute("demandId"));
+				}
+			}
+			writeCalculations(doc_to_write);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Simulates the routes of a network plan held in memory, in place of
+	 * reading them back from the routes file it was saved to.
+	 *
+	 * @throws Net2PlanException if a link has no SM or NZ 'linktype' attribute
+	 */
+	public DWDMRouteToSpiceConverter(NetPlan netPlan, boolean exportCirFiles) {
+		this.exportCirFiles = exportCirFiles;
+		for (int linkId = 0; linkId < netPlan.getNumberOfLinks(); linkId++) {
+			String fiber = netPlan.getLinkSpecificAttributes(linkId).get(
+					"linktype");
+			if (!"SM".equals(fiber) && !"NZ".equals(fiber)) {
+				throw new Net2PlanException("Link " + linkId
+						+ " must have a 'linktype' attribute (SM or NZ), but has "
+						+ (fiber == null ? "none" : "'" + fiber + "'"));
+			}
+		}
+		try {
+			DocumentBuilder dBuilder = DocumentBuilderFactory.newInstance()
+					.newDocumentBuilder();
+			Document doc_to_write = dBuilder.newDocument();
+			Element rootElement = doc_to_write
+					.createElement("Complete_calc_Info");
+			doc_to_write.appendChild(rootElement);
+			NODE_INFO = new String[netPlan.getNumberOfNodes()][10];
+			TOPO_INFO = new String[netPlan.getNumberOfLinks()][10];
+			DEMAND_INFO = new String[netPlan.getNumberOfDemands()][10];
+			for (int nodeId = 0; nodeId < netPlan.getNumberOfNodes(); nodeId++) {
+				String nodeType = netPlan.getNodeSpecificAttributes(nodeId)
+						.get("type");
+				NODE_INFO[nodeId][0] = String.valueOf(nodeId);
+				NODE_INFO[nodeId][1] = netPlan.getNodeName(nodeId);
+				NODE_INFO[nodeId][2] = nodeType == null ? "" : nodeType;
+			}
+			int numLinks = netPlan.getNumberOfLinks();
+			destList = new String[numLinks];
+			fiberType = new String[numLinks];
+			for (int linkId = 0; linkId < numLinks; linkId++) {
+				TOPO_INFO[linkId][0] = String.valueOf(linkId);
+				TOPO_INFO[linkId][1] = String.valueOf(netPlan
+						.getLinkOriginNode(linkId));
+				TOPO_INFO[linkId][2] = String.valueOf(netPlan
+						.getLinkDestinationNode(linkId));
+				TOPO_INFO[linkId][3] = String.valueOf(netPlan
+						.getLinkLengthInKm(linkId));
+				String fiber = netPlan.getLinkSpecificAttributes(linkId).get(
+						"linktype");
+				TOPO_INFO[linkId][4] = fiber;
+				fiberType[linkId] = fiber;
+				destList[linkId] = TOPO_INFO[linkId][2];
+			}
+			setNodeDegrees();
+			for (int demandId = 0; demandId < netPlan.getNumberOfDemands(); demandId++) {
+				DEMAND_INFO[demandId][0] = String.valueOf(demandId);
+				DEMAND_INFO[demandId][1] = String.valueOf(netPlan
+						.getDemandIngressNode(demandId));
+				DEMAND_INFO[demandId][2] = String.valueOf(netPlan
+						.getDemandEgressNode(demandId));
+				DEMAND_INFO[demandId][3] = String.valueOf(netPlan
+						.getDemandOfferedTrafficInErlangs(demandId));
+			}
+			for (int routeId = 0; routeId < netPlan.getNumberOfRoutes(); routeId++) {
+				int[] seqLinks = netPlan.getRouteSequenceOfLinks(routeId);
+				StringBuilder route = new StringBuilder();
+				for (int k = 0; k < seqLinks.length; k++) {
+					if (k > 0) {
+						route.append('-');
 					}
+					route.append(seqLinks[k]);
+				}
+				simulateRoute(doc_to_write, rootElement, route.toString(),
+						String.valueOf(netPlan.getRouteDemand(routeId)));
+			}
+			writeCalculations(doc_to_write);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/*
+	 * Builds the optical network of one route, simulates it and adds the
+	 * calculation points of the route to rootElement.
+	 */
+	private void simulateRoute(Document doc_to_write, Element rootElement,
+			String route, String demId) throws IOException {
+		net = new OpticalNetworkBuilder(title);
+		Map<String, Triple<String, String, String>> calcPointMap = new HashMap<String, Triple<String, String, String>>();
+
+		j = 0;
+		x = 0;
+		l = 0;
+		m = 0;
+		b = 0;
+		d = 0;
+		count = 0;
+		Length1 = 0;
+		Length = 0;
+		Length_Loss = 0;
+		key_previous = 0;
+		copy = 0;
+		Dispersion = 0;
+		Disp_count = 0;
+		linkId = route.split("-");
+		// SS
+		// SS for DCF implementation (place the 80 Km DCF module DCF
+		// at the end of a link if, for the next link dispersion is
+		// going beyond 1360 ps/nm-km) calculate dispersion for
+		// individual span, then estimate the disp at the end of
+		// each link
+
+		String[] linktype = new String[linkId.length];
+		String[] linkDisp = new String[linkId.length];
+		double[] mult = new double[linkId.length];
+		double count1 = 0.0;
+		double count2 = 0.0;
+		double count3 = 0.0;
+		for (i = 0; i < linkId.length; i++) {
+			INT = Integer.parseInt(linkId[i]);
+			linktype[i] = fiberType[INT];
+			if (linktype[i].equals("SM")) {
+				linkDisp[i] = "17";
+			} else if (linktype[i].equals("NZ")) {
+				linkDisp[i] = "10";
+			}
+			mult[i] += Integer.parseInt(linkDisp[i])
+					* Double.parseDouble(TOPO_INFO[INT][3]);
+		}
+		count1 = mult[0];
+		// SS for DCF implementation (End)
+		// SS ROADM Insertion loss at Add port
+		i = 0;
+		INT = Integer.parseInt(linkId[i]);
+		INT_TO_BE_PASSED = Integer.parseInt(TOPO_INFO[INT][1]);
+
+		n3Loss = getNode3Loss(
+				NODE_INFO[INT_TO_BE_PASSED][2].toUpperCase(),
+				Integer.parseInt(NODE_INFO[INT_TO_BE_PASSED][3]));
+		net.addNode("Ra", "" + (count + (i + 1 + j)),
+				"" + (count + (i + 2 + j)), "NODE_ADD", n3Loss);
+		/*
+		 * if (mult[0] >= Disp_80Km) { bw.write("D" + (x + 1) + " "
+		 * + (count + i + 2 + j) + " " + (count + i + 3 + j) + " " +
+		 * "DISP_30Km"); bw.newLine(); count1 = mult[0] -
+		 * Disp_30KmNegLimit; x = x + 1; j = j + 1; }
+		 */
+		net.addEDFA("Ab", "" + (count + i + 2 + j),
+				"" + (count + i + 3 + j), "EDFA_BOOSTER");
+		if (printRouteInfo) {
+			System.out.println("\nRoute info");
+		}
+		calcPointMap.put("" + (count + i + 1 + j) + "",
+				new Triple<>((NODE_INFO[INT_TO_BE_PASSED][0]), ""
+						+ INT + "", "Tx_ADD"));
+		calcPointMap.put("" + (count + i + 2 + j) + "",
+				new Triple<>((NODE_INFO[INT_TO_BE_PASSED][0]), ""
+						+ INT + "", "Tx"));
+		key_previous = -n3Loss + Booster_gain;
+		for (i = 0; i < linkId.length; i++) // length of the route
+											// in terms of ID
+		{
+			INT = Integer.parseInt(linkId[i]);
+			INT_TO_BE_PASSED = Integer.parseInt(TOPO_INFO[INT][2]);
+			Length = Double.parseDouble(TOPO_INFO[INT][3]); // SS
+
+			if (printRouteInfo) {
+				System.out.println(INT_TO_BE_PASSED);
+			}
+			// if (mult[0] >= Disp_80Km)
+
+			// else
+
+			if (fiberType[INT].equals("SM")) {
+				Length_Loss = Length * Alpha_SM;
+				copy = key_previous + Length_Loss;
+				// if(copy<LineAmp_min_ip){}
+				while (copy < LineAmp_min_ip) {
+
+					Length_Loss = LineAmp_min_ip - key_previous;
+					Length1 = Length_Loss / Alpha_SM;
+					LengthArray.add(Length1);
+					net.addLink("L" + (m + 1), "" + (count + (i + 3 + j)),
+							"" + (count + (i + 4 + j)), "OPTLINK_SM", Length1);
+					key_previous += Length1 * Alpha_SM;
+					net.addEDFA("A" + (l + 1), "" + (count + i + 4 + j),
+							"" + (count + i + 5 + j), "EDFA_LINE");
+
+					Dispersion += Length1 * Disp_SM;
+					copy += LineAmp_gain;
+					key_previous = LineAmp_min_ip + LineAmp_gain;
+					j++;
+					m++;
+					l++;
+					/*if (i != (linkId.length - 1))
+						Dispersion_comp();
+					else if (Dispersion > Disp_60Km)
+						Dispersion_comp();*/
+					Length -= Length1;
+					count++; 
+
+				}
+
+				net.addLink("L" + (m + 1), "" + (count + (i + 3 + j)),
+						"" + (count + (i + 4 + j)), "OPTLINK_SM", Length);
+				LengthArray.add(Length);
+				key_previous += Length * Alpha_SM;
+				Dispersion += Length * Disp_SM;
+				m++;
+				if (Dispersion > Disp_60Km)
+					Dispersion_comp();
+
+			} // ss
+			else if (fiberType[INT].equals("NZ")) {
+				Length_Loss = Length * Alpha_NZ;
+				copy = key_previous + Length_Loss;
+				// if(copy<LineAmp_min_ip){}
+				while (copy + LineAmp_gain < LineAmp_min_ip) {
+					Length_Loss = LineAmp_min_ip - key_previous;
+					Length1 = Length_Loss / Alpha_NZ;
+					LengthArray.add(Length1);
+					net.addLink("L" + (m + 1), "" + (count + (i + 3 + j)),
+							"" + (count + (i + 4 + j)), "OPTLINK_NZ", Length1);
+					key_previous += Length1 * Alpha_NZ;
+					net.addEDFA("A" + (l + 1), "" + (count + i + 4 + j),
+							"" + (count + i + 5 + j), "EDFA_LINE");
+
+					Dispersion += Length1 * Disp_NZ;
+					key_previous = LineAmp_min_ip + LineAmp_gain;
+					j++;
+					l++;
+					m++;
+					Dispersion_comp();
+					Length -= Length1;
+					count++;
+				}
+				net.addLink("L" + (m + 1), "" + (count + (i + 3 + j)),
+						"" + (count + (i + 4 + j)), "OPTLINK_NZ", Length);
+				LengthArray.add(Length);
+				key_previous += Length * Alpha_NZ;
+				Dispersion += Length * Disp_NZ;
+				x++;
+				m++;
 
-					n2Loss = getNode2Loss(
-							NODE_INFO[INT_TO_BE_PASSED][2].toUpperCase(),
+			}
+
+			if (i != (linkId.length - 1)) {
+				if (NODE_INFO[INT_TO_BE_PASSED][2]
+						.equalsIgnoreCase("EDFA")) {
+					Dispersion_comp();
+					net.addEDFA("A" + (l + 1), "" + (count + i + 4 + j),
+							"" + (count + i + 5 + j), "EDFA_LINE");
+					j++;
+					l++;
+					key_previous += LineAmp_gain;
+				} else if (NODE_INFO[INT_TO_BE_PASSED][2]
+						.equalsIgnoreCase("ROADM")) {
+					Dispersion_comp();
+					nLoss = getNode1Loss(
+							NODE_INFO[INT_TO_BE_PASSED][2]
+									.toUpperCase(),
 							Integer.parseInt(NODE_INFO[INT_TO_BE_PASSED][3]));
-					bw.newLine();
-					bw.write("Ap" + " " + (count + i + 3 + j) + " "
-							+ (count + i + 4 + j) + " " + "EDFA_PRE");
-					bw.newLine();
-
-					bw.write("Rd" + " " + (count + (i + 4 + j)) + " "
-							+ (count + (i + 5 + j)) + " " + "NODE_DROP NLOSS="
-							+ n2Loss);
-					calcPointMap.put("" + (count + i + 4 + j) + "",
-							new Triple<>((NODE_INFO[INT_TO_BE_PASSED][0]), ""
-									+ INT + "", "Rx"));
-					calcPointMap.put("" + (count + i + 5 + j) + "",
-							new Triple<>((NODE_INFO[INT_TO_BE_PASSED][0]), ""
-									+ INT + "", "Rx_DROP"));
-					bw.newLine();
-					bw.newLine();
-					bw.write("Pin 1 0 0");
-
-					bw.newLine();
-					bw.write(".optqpt");
-					bw.newLine();
-					bw.newLine();
-					bw.write(".MODEL OPTLINK_SM L(ALPHA=0.27 D=-17.0)");
-					bw.newLine();
-					bw.write(".MODEL OPTLINK_NZ L(ALPHA=0.22 D=-10.0)"); // ss
-					bw.newLine();
-					bw.write(".MODEL EDFA_BOOSTER A(G=23 NF=5.5 LOSS =1)");
-					bw.newLine();
-					bw.write(".MODEL EDFA_LINE A(G=20 NF=5 LOSS =1)");
-					bw.newLine();
-					bw.write(".MODEL EDFA_PRE A(G=20 NF=6 LOSS =1)");
-					bw.newLine();
-					bw.write(".MODEL NODE_ADD R(NLOSS=" + n3Loss + ")");
-					bw.newLine();
-					bw.write(".MODEL NODE1 R(NLOSS=14)");
-					bw.newLine();
-					bw.write(".MODEL NODE2 R(NLOSS=16)");
-					bw.newLine();
-					bw.write(".MODEL NODE3 R(NLOSS=18)");
-					bw.newLine();
-					bw.write(".MODEL NODE_DROP R(NLOSS=" + n2Loss + ")");
-					bw.newLine();
-					bw.write(".MODEL DISP_30Km D(PL=4 DC=510)"); // ss
-					bw.newLine();
-					bw.write(".MODEL DISP_60Km D(PL=4 DC=1020)"); // ss
-					bw.newLine();
-					bw.write(".MODEL DISP_80Km D(PL=4 DC=1360)");
-					bw.newLine();
-					bw.write(".MODEL DISP_120Km D(PL=4 DC=2040)"); // ss// ss
-					bw.newLine();
-					bw.newLine();
-					bw.newLine();
-					bw.write(".end");
-					bw.close();
-					String arg = cirFilePath + "/outputfile_linear_dwdm.cir"; // comment
-
-					// for debugging
-					OpticalSimulator.resetSimulator();
-					OpticalSimulator optsim = OpticalSimulator.getSimulator()
-							.simulate(arg);
-
-					list = new ArrayList<String>(optsim.ModelNames.keySet());// ss
-					list.add(0, "i/p");
-					optsim.ModelNames.clear();
-
-					for (n = 0; n < list.size(); n++)
-
-						optsim.ModelNames.put(list.get(n), (10 * Math
-								.log10((double) optsim.nwk.powerMap.get(n))));
-					character = (double) (optsim.nwk.powerMap
-							.get(optsim.nwk.powerMap.size() - 1));
-					System.out.println("\n" + optsim.ModelNames);
-
-					Element optpath = doc_to_write.createElement("Path");
-					optpath.setAttribute("demandId", demId);
-					optpath.setAttribute("routeId", route);
-					optpath.setAttribute("source",
-							DEMAND_INFO[Integer.parseInt(demId)][1]);
-					optpath.setAttribute("destination",
-							DEMAND_INFO[Integer.parseInt(demId)][2]);
-
-					keySet = new ArrayList<String>(calcPointMap.keySet());
-					keySetToInt = new ArrayList<Integer>(keySet.size());
-					for (String myInt : keySet) {
-						keySetToInt.add(Integer.parseInt(myInt));
-					}
-					Collections.sort(keySetToInt);
-					ArrayList<Pair<String, String>> ListValue = new ArrayList<Pair<String, String>>();
-					int m = 0;
-					for (k = 0; k < keySetToInt.size(); k++) {
-						ListValue.add(new Pair<>((String.valueOf(keySetToInt
-								.get(k))), (String.valueOf(keySetToInt
-								.get(k + 1)))));
-						k += 1;
+					nNoise = getNodeNoise(
+							NODE_INFO[INT_TO_BE_PASSED][2]
+									.toUpperCase(),
+							Integer.parseInt(NODE_INFO[INT_TO_BE_PASSED][3]));
+					if (key_previous - nLoss < LineAmp_min_ip) {
+						net.addEDFA("A" + (l + 1), "" + (count + i + 4 + j),
+								"" + (count + i + 5 + j), "EDFA_LINE");
+						j++;
+						l++;
+						key_previous += LineAmp_gain;
 					}
+					if (NODE_INFO[INT_TO_BE_PASSED][3] == "2")// ss
+					{
+						net.addNode("R" + (i + 1), "" + (count + i + 4 + j),
+								"" + (count + i + 5 + j), "NODE1", nLoss);
 
-					for (int k = 0; k < ListValue.size(); k++) {
-						Pair dummi = ListValue.get(k);
-						optsim.Model_Node.values().remove(dummi);
+					} else if (NODE_INFO[INT_TO_BE_PASSED][3] == "4")// ss
+					{
+						net.addNode("R" + (i + 1), "" + (count + i + 4 + j),
+								"" + (count + i + 5 + j), "NODE2", nLoss);
+					} else if (NODE_INFO[INT_TO_BE_PASSED][3] == "8")// ss
+					{
+						net.addNode("R" + (i + 1), "" + (count + i + 4 + j),
+								"" + (count + i + 5 + j), "NODE3", nLoss);
 					}
-					System.out.println(optsim.Model_Node);
-					ArrayList<String> ListKey = new ArrayList<String>(
-							optsim.Model_Node.keySet());
-
-					ArrayList<Pair<String, String>> List = new ArrayList(
-							optsim.Model_Node.values());
-
-					for (k = 0; k < optsim.nwk.wrk.getSize(); k++) {
-						Element calcPoint = (Element) getInfo(doc_to_write,
-								optsim.nwk.nodeNames.get(k),
-								optsim.nwk.getPowerMap(k),
-								optsim.nwk.getNoiseMap(k),
-								optsim.nwk.getDispersionMap(k));
-						// Set keySet = calcPointMap.keySet();
-
-						if (keySet.contains(optsim.nwk.nodeNames.get(k))) {
-							Triple<String, String, String> tempTriple = calcPointMap
-									.get(optsim.nwk.nodeNames.get(k));
-							String nodeIdForXML = tempTriple.getFirst();
-							String linkIdForXML = tempTriple.getSecond();
-							String measurementTypeForXML = tempTriple
-									.getThird();
-							calcPoint.setAttribute("nodeID", nodeIdForXML);
-							calcPoint.setAttribute("linkID", linkIdForXML);
-							calcPoint.setAttribute("measurementType",
-									measurementTypeForXML);
-							calcPoint
-									.setAttribute("Customer_Defined_Node_Type",
-											NODE_INFO[Integer
-													.parseInt(nodeIdForXML)][2]);
-
-						}
-						if (!(k == optsim.nwk.wrk.getSize() - 1)) {
-							Pair<String, String> List2 = List.get(m);
-							if (k == Integer.parseInt(List2.getSecond()) - 1) {
-
-								if (ListKey.get(m).charAt(0) == 'A') {
-									calcPoint.setAttribute(
-											"Intermediate_Node_Names",
-											"Amplifier");
-									if (ListKey.get(m).charAt(1) == 'b')
-										calcPoint.setAttribute("Amp_Type",
-												"Booster");
-									else if (ListKey.get(m).charAt(1) == 'p')
-										calcPoint.setAttribute("Amp_Type",
-												"PreAmp");
-									else
-										calcPoint.setAttribute("Amp_Type",
-												"LineAmp");
-								} else if (ListKey.get(m).charAt(0) == 'L') {
-									calcPoint.setAttribute(
-											"Intermediate_Node_Names",
-											"FiberLink");
-									calcPoint.setAttribute("Link_Length",
-											String.valueOf(LengthArray.get(b)));
-									b++;
-								} else if (ListKey.get(m).charAt(0) == 'D') {
-									calcPoint.setAttribute(
-											"Intermediate_Node_Names", "DCM");
-									calcPoint.setAttribute("DCM_type",
-											DCMArray.get(d));
-									d++;
-								}
-								m++;// SS
-
-							}
-						}
-
-						optpath.appendChild(calcPoint);
-						rootElement.appendChild(optpath);
+					key_previous -= nLoss;
+					j++;
+					// SS
+					/*
+					 * bw.newLine(); // ss
+					 * 
+					 * bw.write("A" + (i + 2) + " " + (count + i + 5
+					 * + j) + " " + (count + i + 6 + j) + " " +
+					 * "EDFA"); j = j + 1;// ss
+					 */
+					// for now it is considered that NODE type is
+					// only ROADM
+				}
+
+				calcPointMap.put("" + (count + i + 3 + j) + "",
+						new Triple<>(
+								(NODE_INFO[INT_TO_BE_PASSED][0]),
+								"" + INT + "", "Rx"));
+				calcPointMap.put("" + (count + i + 4 + j) + "",
+						new Triple<>(
+								(NODE_INFO[INT_TO_BE_PASSED][0]),
+								"" + INT + "", "Tx"));
+			}
+		}
+
+		n2Loss = getNode2Loss(
+				NODE_INFO[INT_TO_BE_PASSED][2].toUpperCase(),
+				Integer.parseInt(NODE_INFO[INT_TO_BE_PASSED][3]));
+		net.addEDFA("Ap", "" + (count + i + 3 + j),
+				"" + (count + i + 4 + j), "EDFA_PRE");
+
+		net.addNode("Rd", "" + (count + (i + 4 + j)),
+				"" + (count + (i + 5 + j)), "NODE_DROP", n2Loss);
+		calcPointMap.put("" + (count + i + 4 + j) + "",
+				new Triple<>((NODE_INFO[INT_TO_BE_PASSED][0]), ""
+						+ INT + "", "Rx"));
+		calcPointMap.put("" + (count + i + 5 + j) + "",
+				new Triple<>((NODE_INFO[INT_TO_BE_PASSED][0]), ""
+						+ INT + "", "Rx_DROP"));
+		net.addPowerSource("Pin", "1", "0", 0);
+
+		net.addLinkModel("OPTLINK_SM", 0.27, -17.0);
+		net.addLinkModel("OPTLINK_NZ", 0.22, -10.0); // ss
+		net.addEDFAModel("EDFA_BOOSTER", 23, 5.5);
+		net.addEDFAModel("EDFA_LINE", 20, 5);
+		net.addEDFAModel("EDFA_PRE", 20, 6);
+		net.addNodeModel("NODE_ADD", n3Loss);
+		net.addNodeModel("NODE1", 14);
+		net.addNodeModel("NODE2", 16);
+		net.addNodeModel("NODE3", 18);
+		net.addNodeModel("NODE_DROP", n2Loss);
+		net.addDCFModel("DISP_30Km", 4, 510); // ss
+		net.addDCFModel("DISP_60Km", 4, 1020); // ss
+		net.addDCFModel("DISP_80Km", 4, 1360);
+		net.addDCFModel("DISP_120Km", 4, 2040); // ss// ss
+		if (exportCirFiles) {
+			net.writeDeck(new File(cirFilePath + "/outputfile_linear_dwdm.cir"));
+		}
+		OpticalSimulator.resetSimulator();
+		OpticalSimulator optsim = OpticalSimulator.getSimulator()
+				.simulate(net);
+
+		list = new ArrayList<String>(optsim.ModelNames.keySet());// ss
+		list.add(0, "i/p");
+		optsim.ModelNames.clear();
+
+		for (n = 0; n < list.size(); n++)
+
+			optsim.ModelNames.put(list.get(n), (10 * Math
+					.log10((double) optsim.nwk.powerMap.get(n))));
+		character = (double) (optsim.nwk.powerMap
+				.get(optsim.nwk.powerMap.size() - 1));
+		if (printRouteInfo) {
+			System.out.println("\n" + optsim.ModelNames);
+		}
+
+		Element optpath = doc_to_write.createElement("Path");
+		optpath.setAttribute("demandId", demId);
+		optpath.setAttribute("routeId", route);
+		optpath.setAttribute("source",
+				DEMAND_INFO[Integer.parseInt(demId)][1]);
+		optpath.setAttribute("destination",
+				DEMAND_INFO[Integer.parseInt(demId)][2]);
+
+		keySet = new ArrayList<String>(calcPointMap.keySet());
+		keySetToInt = new ArrayList<Integer>(keySet.size());
+		for (String myInt : keySet) {
+			keySetToInt.add(Integer.parseInt(myInt));
+		}
+		Collections.sort(keySetToInt);
+		ArrayList<Pair<String, String>> ListValue = new ArrayList<Pair<String, String>>();
+		int m = 0;
+		for (k = 0; k < keySetToInt.size(); k++) {
+			ListValue.add(new Pair<>((String.valueOf(keySetToInt
+					.get(k))), (String.valueOf(keySetToInt
+					.get(k + 1)))));
+			k += 1;
+		}
+
+		for (int k = 0; k < ListValue.size(); k++) {
+			Pair dummi = ListValue.get(k);
+			optsim.Model_Node.values().remove(dummi);
+		}
+		if (printRouteInfo) {
+			System.out.println(optsim.Model_Node);
+		}
+		ArrayList<String> ListKey = new ArrayList<String>(
+				optsim.Model_Node.keySet());
+
+		ArrayList<Pair<String, String>> List = new ArrayList(
+				optsim.Model_Node.values());
+
+		for (k = 0; k < optsim.nwk.wrk.getSize(); k++) {
+			Element calcPoint = (Element) getInfo(doc_to_write,
+					optsim.nwk.nodeNames.get(k),
+					optsim.nwk.getPowerMap(k),
+					optsim.nwk.getNoiseMap(k),
+					optsim.nwk.getDispersionMap(k));
+			// Set keySet = calcPointMap.keySet();
+
+			if (keySet.contains(optsim.nwk.nodeNames.get(k))) {
+				Triple<String, String, String> tempTriple = calcPointMap
+						.get(optsim.nwk.nodeNames.get(k));
+				String nodeIdForXML = tempTriple.getFirst();
+				String linkIdForXML = tempTriple.getSecond();
+				String measurementTypeForXML = tempTriple
+						.getThird();
+				calcPoint.setAttribute("nodeID", nodeIdForXML);
+				calcPoint.setAttribute("linkID", linkIdForXML);
+				calcPoint.setAttribute("measurementType",
+						measurementTypeForXML);
+				calcPoint
+						.setAttribute("Customer_Defined_Node_Type",
+								NODE_INFO[Integer
+										.parseInt(nodeIdForXML)][2]);
 
+			}
+			if (!(k == optsim.nwk.wrk.getSize() - 1)) {
+				Pair<String, String> List2 = List.get(m);
+				if (k == Integer.parseInt(List2.getSecond()) - 1) {
+
+					if (ListKey.get(m).charAt(0) == 'A') {
+						calcPoint.setAttribute(
+								"Intermediate_Node_Names",
+								"Amplifier");
+						if (ListKey.get(m).charAt(1) == 'b')
+							calcPoint.setAttribute("Amp_Type",
+									"Booster");
+						else if (ListKey.get(m).charAt(1) == 'p')
+							calcPoint.setAttribute("Amp_Type",
+									"PreAmp");
+						else
+							calcPoint.setAttribute("Amp_Type",
+									"LineAmp");
+					} else if (ListKey.get(m).charAt(0) == 'L') {
+						calcPoint.setAttribute(
+								"Intermediate_Node_Names",
+								"FiberLink");
+						calcPoint.setAttribute("Link_Length",
+								String.valueOf(LengthArray.get(b)));
+						b++;
+					} else if (ListKey.get(m).charAt(0) == 'D') {
+						calcPoint.setAttribute(
+								"Intermediate_Node_Names", "DCM");
+						calcPoint.setAttribute("DCM_type",
+								DCMArray.get(d));
+						d++;
 					}
+					m++;// SS
 
 				}
+			}
+
+			optpath.appendChild(calcPoint);
+			rootElement.appendChild(optpath);
 
+		}
+
+	}
+
+	// SS ROADM degree of each destination node, from the number of links
+	// ending in it
+	private void setNodeDegrees() {
+		String nodeDegree;
+		int[] a = new int[destList.length];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = Integer.parseInt(destList[i]);
+		}
+		Arrays.sort(a);
+		for (int i = 0; i < a.length; i++) {
+			destList[i] = String.valueOf(a[i]);
+		}
+		HashMap<String, Integer> repeatNames = new HashMap<String, Integer>();
+		int repeatCount = 0;
+		for (int j = 0; j < destList.length; j++) {
+			int count = 0;
+			for (int k = 0; k < destList.length; k++) {
+				if (destList[j].equals(destList[k])) {
+					count++;
+				}
+			}
+			if (!repeatNames.containsKey(destList[j])) {
+				if (printRouteInfo) {
+					System.out.println("Dest node " + destList[j]
+							+ ": Degree= " + count);
+				}
+				repeatNames.put(destList[j], count);
+				repeatCount += count;
+				if (count > 0 && count < 3) {
+					nodeDegree = "2";
+					NODE_INFO[Integer.parseInt(destList[j])][3] = nodeDegree;
+				} else if (count > 2 && count < 5) {
+					nodeDegree = "4";
+					NODE_INFO[Integer.parseInt(destList[j])][3] = nodeDegree;
+				} else if (count > 4 && count < 9) {
+					nodeDegree = "8";
+					NODE_INFO[Integer.parseInt(destList[j])][3] = nodeDegree;
+				}
+			}
+		} // *SS
+	}
+
+	// Info table with a row per id found in the given attribute of the
+	// elements of list
+	private static String[][] newInfoTable(NodeList list, String idAttribute) {
+		int numRows = 0;
+		for (int temp = 0; temp < list.getLength(); temp++) {
+			Node node = list.item(temp);
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				numRows = Math.max(numRows, Integer.parseInt(((Element) node)
+						.getAttribute(idAttribute)) + 1);
 			}
-			TransformerFactory transformerFactory = TransformerFactory
-					.newInstance();
-			javax.xml.transform.Transformer transformer = transformerFactory
-					.newTransformer();
-			transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-			DOMSource source = new DOMSource(doc_to_write);
-			StreamResult result = new StreamResult(new File(xmlFilePath
-					+ "/Calculations_Output.xml"));
-			transformer.transform(source, result);
-		} catch (Exception e) {
-			e.printStackTrace();
 		}
+		return new String[numRows][10];
+	}
+
+	private void writeCalculations(Document doc_to_write) throws Exception {
+		TransformerFactory transformerFactory = TransformerFactory
+				.newInstance();
+		javax.xml.transform.Transformer transformer = transformerFactory
+				.newTransformer();
+		transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+		DOMSource source = new DOMSource(doc_to_write);
+		StreamResult result = new StreamResult(new File(xmlFilePath
+				+ "/Calculations_Output.xml"));
+		transformer.transform(source, result);
 	}
 
 	// SS ROADM modeling (Set the Loss through ROADM nodes based on the ROADM
@@ -810,16 +857,14 @@ public class DWDMRouteToSpiceConverter {
 				Dispersion -= Disp_60Km;
 
 				if (key_previous + Disp_60_Loss < LineAmp_min_ip) {
-					bw.newLine();
-					bw.write("A" + (l + 1) + " " + (count + i + 4 + j) + " "
-							+ (count + i + 5 + j) + " " + "EDFA_LINE");
+					net.addEDFA("A" + (l + 1), "" + (count + i + 4 + j),
+							"" + (count + i + 5 + j), "EDFA_LINE");
 					key_previous += LineAmp_gain;
 					j++;
 					l++;
 				}
-				bw.newLine();
-				bw.write("D" + (x + 1) + " " + (count + i + 4 + j) + " "
-						+ (count + i + 5 + j) + " " + "DISP_60Km");
+				net.addDCF("D" + (x + 1), "" + (count + i + 4 + j),
+						"" + (count + i + 5 + j), "DISP_60Km");
 				j++;
 				x++;
 				DCMArray.add("DCM60km");
@@ -830,16 +875,14 @@ public class DWDMRouteToSpiceConverter {
 					&& Dispersion > (Disp_80Km + Disp_60Km) / 2) {
 				Dispersion -= Disp_80Km;
 				if (key_previous + Disp_80_Loss < LineAmp_min_ip) {
-					bw.newLine();
-					bw.write("A" + (l + 1) + " " + (count + i + 4 + j) + " "
-							+ (count + i + 5 + j) + " " + "EDFA_LINE");
+					net.addEDFA("A" + (l + 1), "" + (count + i + 4 + j),
+							"" + (count + i + 5 + j), "EDFA_LINE");
 					key_previous += LineAmp_gain;
 					j++;
 					l++;
 				}
-				bw.newLine();
-				bw.write("D" + (x + 1) + " " + (count + i + 4 + j) + " "
-						+ (count + i + 5 + j) + " " + "DISP_80Km");
+				net.addDCF("D" + (x + 1), "" + (count + i + 4 + j),
+						"" + (count + i + 5 + j), "DISP_80Km");
 				j++;
 				x++;
 				DCMArray.add("DCM80km");
@@ -847,24 +890,21 @@ public class DWDMRouteToSpiceConverter {
 			} else if (Dispersion >= (Disp_120Km + Disp_80Km) / 2) {
 				Dispersion -= Disp_120Km;
 				if (key_previous + Disp_120_Loss < LineAmp_min_ip) {
-					bw.newLine();
-					bw.write("A" + (l + 1) + " " + (count + i + 4 + j) + " "
-							+ (count + i + 5 + j) + " " + "EDFA_LINE");
+					net.addEDFA("A" + (l + 1), "" + (count + i + 4 + j),
+							"" + (count + i + 5 + j), "EDFA_LINE");
 					key_previous += LineAmp_gain;
 					j++;
 					l++;
 				}
-				bw.newLine();
-				bw.write("D" + (x + 1) + " " + (count + i + 4 + j) + " "
-						+ (count + i + 5 + j) + " " + "DISP_120Km");
+				net.addDCF("D" + (x + 1), "" + (count + i + 4 + j),
+						"" + (count + i + 5 + j), "DISP_120Km");
 				key_previous += Disp_120_Loss;
 				j++;
 				x++;
 				DCMArray.add("DCM120km");
 				while(!(Dispersion<= Disp_60Km)){
-					bw.newLine();
-					bw.write("D" + (x + 1) + " " + (count + i + 4 + j) + " "
-							+ (count + i + 5 + j) + " " + "DISP_120Km");
+					net.addDCF("D" + (x + 1), "" + (count + i + 4 + j),
+							"" + (count + i + 5 + j), "DISP_120Km");
 					key_previous += Disp_120_Loss;
 					Dispersion-= Disp_120Km;
 					DCMArray.add("DCM120km");
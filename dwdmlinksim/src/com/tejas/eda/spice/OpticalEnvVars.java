@@ -60,6 +60,7 @@ public class OpticalEnvVars {
     private boolean convLimitEnabled;
     private boolean rShuntEnabled;
     private boolean xspice;
+    private boolean cascadeEnabled = true;
 
     public boolean isXspice() {
         return xspice;
@@ -114,6 +115,7 @@ public class OpticalEnvVars {
     public static final String TRAN_MAX_ITER = "TranMaxIter";
     public static final String CONV_LINIT_ENABLED = "convLimitEnabled";
     public static final String RSHUNT_ENABLED = "rShuntEnabled";
+    public static final String CASCADE_ENABLED = "CascadeEnabled";
 
     /**
      * Creates a new instance of EnvVars
@@ -454,6 +456,18 @@ public class OpticalEnvVars {
         this.rShuntEnabled = rShuntEnabled;
     }
 
+    /**
+     * Whether chain networks are evaluated stage by stage instead of
+     * by solving the network matrix.
+     */
+    public boolean isCascadeEnabled() {
+        return cascadeEnabled;
+    }
+
+    public void setCascadeEnabled(boolean cascadeEnabled) {
+        this.cascadeEnabled = cascadeEnabled;
+    }
+
     public void setProperties(Properties props) {
         integMethod = INTEG.valueOf(props.getProperty(INTEG_METHOD, "TRAPEZOIDAL"));
         vT = Double.valueOf(props.getProperty(VT, "0"));
@@ -496,6 +510,7 @@ public class OpticalEnvVars {
         tranMaxIter = Integer.valueOf(props.getProperty(TRAN_MAX_ITER, "10"));
         convLimitEnabled = Boolean.valueOf(props.getProperty(CONV_LINIT_ENABLED, "false"));
         rShuntEnabled = Boolean.valueOf(props.getProperty(RSHUNT_ENABLED, "false"));
+        cascadeEnabled = Boolean.valueOf(props.getProperty(CASCADE_ENABLED, "true"));
     }
 
     public Properties getProperties() {
@@ -541,6 +556,7 @@ public class OpticalEnvVars {
         props.put(TRAN_MAX_ITER, tranMaxIter);
         props.put(CONV_LINIT_ENABLED, convLimitEnabled);
         props.put(RSHUNT_ENABLED, rShuntEnabled);
+        props.put(CASCADE_ENABLED, cascadeEnabled);
         return props;
         /*      temp = Double.valueOf(def.getProperty("", ""));
         nomTemp = def.getNomTemp();
@@ -0,0 +1,293 @@
+/*
+ * OpticalNetworkBuilder.java
+ *
+ * To change this template, choose Tools | Template Manager
+ * and open the template in the editor.
+ */
+package com.tejas.eda.spice;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import com.tejas.eda.spice.device.OpticalInstance;
+import com.tejas.eda.spice.device.optical.DCFInstance;
+import com.tejas.eda.spice.device.optical.EDFAInstance;
+import com.tejas.eda.spice.device.optical.LinkInstance;
+import com.tejas.eda.spice.device.optical.NodeInstance;
+import com.tejas.eda.spice.device.source.optical.PowerSource;
+
+import javolution.util.FastList;
+import javolution.util.FastMap;
+import javolution.util.FastTable;
+
+/**
+ * Assembles an optical network in memory, without writing a SPICE deck and
+ * parsing it back. Models and instances are added as they would appear as
+ * cards in the deck: instances take their values from the named model, with
+ * the instance parameters overriding them, and node indexes are given in
+ * order of first use with sources last, as OpticalDeck does. The equivalent
+ * deck can still be written with writeDeck for debugging.
+ *
+ * @author Kristopher T. Beck
+ */
+public class OpticalNetworkBuilder {
+
+    private static final double NONE = Double.NaN;
+    private String title;
+    private FastMap<String, Card> models = FastMap.newInstance();
+    private FastList<Card> instances = new FastList<Card>();
+    private FastList<Card> sources = new FastList<Card>();
+    private FastTable<String> nodeTable = new FastTable<String>();
+
+    public OpticalNetworkBuilder(String title) {
+        this.title = title;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public OpticalNetworkBuilder addLinkModel(String name, double alpha, double dee) {
+        models.put(name, new Card('L', name, null, null, null, alpha, dee));
+        return this;
+    }
+
+    public OpticalNetworkBuilder addEDFAModel(String name, double gain, double noiseFigure) {
+        models.put(name, new Card('A', name, null, null, null, gain, noiseFigure));
+        return this;
+    }
+
+    public OpticalNetworkBuilder addNodeModel(String name, double nLoss) {
+        models.put(name, new Card('R', name, null, null, null, nLoss));
+        return this;
+    }
+
+    public OpticalNetworkBuilder addDCFModel(String name, double pLoss, double dispComp) {
+        models.put(name, new Card('D', name, null, null, null, pLoss, dispComp));
+        return this;
+    }
+
+    /** Link of the given length in km, as "L1 3 4 OPTLINK_NZ LEN=40.0" */
+    public OpticalNetworkBuilder addLink(String instName, String posNode, String negNode,
+            String modelName, double length) {
+        instances.add(new Card('L', instName, posNode, negNode, modelName, length));
+        return this;
+    }
+
+    public OpticalNetworkBuilder addEDFA(String instName, String posNode, String negNode,
+            String modelName) {
+        instances.add(new Card('A', instName, posNode, negNode, modelName));
+        return this;
+    }
+
+    /** Node with the model loss, as "R1 4 5 NODE2" */
+    public OpticalNetworkBuilder addNode(String instName, String posNode, String negNode,
+            String modelName) {
+        return addNode(instName, posNode, negNode, modelName, NONE);
+    }
+
+    /** Node overriding the model loss in dB, as "R1 4 5 NODE2 NLOSS=16.0" */
+    public OpticalNetworkBuilder addNode(String instName, String posNode, String negNode,
+            String modelName, double nLoss) {
+        instances.add(new Card('R', instName, posNode, negNode, modelName, nLoss));
+        return this;
+    }
+
+    public OpticalNetworkBuilder addDCF(String instName, String posNode, String negNode,
+            String modelName) {
+        instances.add(new Card('D', instName, posNode, negNode, modelName));
+        return this;
+    }
+
+    /** Power source of the given power in dBm, as "Pin 1 0 0" */
+    public OpticalNetworkBuilder addPowerSource(String instName, String posNode, String negNode,
+            double power) {
+        sources.add(new Card('P', instName, posNode, negNode, null, power));
+        return this;
+    }
+
+    /**
+     * Names of the instances, other than sources, with their positive and
+     * negative node names, in the order they were added.
+     */
+    public FastMap<String, String[]> getInstanceNodes() {
+        FastMap<String, String[]> map = FastMap.newInstance();
+        for (FastList.Node<Card> n = instances.head(), end = instances.tail();
+                (n = n.getNext()) != end;) {
+            Card card = n.getValue();
+            map.put(card.name, new String[]{card.posNode, card.negNode});
+        }
+        return map;
+    }
+
+    /**
+     * Adds the instances to the network and initializes its nodes. The
+     * network must be empty.
+     */
+    public void build(Network nwk) {
+        nodeTable.clear();
+        for (FastList.Node<Card> n = instances.head(), end = instances.tail();
+                (n = n.getNext()) != end;) {
+            nwk.addInstance(createInstance(n.getValue()));
+        }
+        for (FastList.Node<Card> n = sources.head(), end = sources.tail();
+                (n = n.getNext()) != end;) {
+            nwk.addInstance(createInstance(n.getValue()));
+        }
+        nwk.initNodes(nodeTable);
+    }
+
+    public void writeDeck(File file) throws IOException {
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            writeDeck(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    public void writeDeck(Writer writer) throws IOException {
+        writer.write(title);
+        writer.write("\n");
+        for (FastList.Node<Card> n = instances.head(), end = instances.tail();
+                (n = n.getNext()) != end;) {
+            writer.write(n.getValue().toString());
+            writer.write("\n");
+        }
+        writer.write("\n");
+        for (FastList.Node<Card> n = sources.head(), end = sources.tail();
+                (n = n.getNext()) != end;) {
+            writer.write(n.getValue().toString());
+            writer.write("\n");
+        }
+        writer.write(".optqpt\n\n");
+        for (FastMap.Entry<String, Card> e = models.head(), end = models.tail();
+                (e = e.getNext()) != end;) {
+            writer.write(e.getValue().toModelString());
+            writer.write("\n");
+        }
+        writer.write("\n.end\n");
+    }
+
+    private OpticalInstance createInstance(Card card) {
+        Card model = card.type == 'P' ? null : models.get(card.modelName);
+        if (card.type != 'P' && (model == null || model.type != card.type)) {
+            throw new IllegalArgumentException("Unknown model " + card.modelName
+                    + " for " + card.name);
+        }
+        int posIndex = getNodeIndex(card.posNode);
+        int negIndex = getNodeIndex(card.negNode);
+        switch (card.type) {
+            case 'L': {
+                LinkInstance instance = new LinkInstance();
+                instance.setModelName(model.name);
+                instance.setAlpha(model.values[0]);
+                instance.setDee(model.values[1]);
+                instance.setInstName(card.name);
+                instance.setPosIndex(posIndex);
+                instance.setNegIndex(negIndex);
+                instance.setLength(card.values[0]);
+                return instance;
+            }
+            case 'A': {
+                EDFAInstance instance = new EDFAInstance();
+                instance.setModelName(model.name);
+                instance.setGain(model.values[0]);
+                instance.setNoiseFigure(model.values[1]);
+                instance.setInstName(card.name);
+                instance.setPosIndex(posIndex);
+                instance.setNegIndex(negIndex);
+                return instance;
+            }
+            case 'R': {
+                NodeInstance instance = new NodeInstance();
+                instance.setModelName(model.name);
+                instance.setnLoss(Double.isNaN(card.values[0]) ? model.values[0] : card.values[0]);
+                instance.setInstName(card.name);
+                instance.setPosIndex(posIndex);
+                instance.setNegIndex(negIndex);
+                return instance;
+            }
+            case 'D': {
+                DCFInstance instance = new DCFInstance();
+                instance.setModelName(model.name);
+                instance.setPLoss(model.values[0]);
+                instance.setDispComp(model.values[1]);
+                instance.setInstName(card.name);
+                instance.setPosIndex(posIndex);
+                instance.setNegIndex(negIndex);
+                return instance;
+            }
+            default: {
+                PowerSource instance = new PowerSource();
+                instance.setInstName(card.name);
+                instance.setPosIndex(posIndex);
+                instance.setNegIndex(negIndex);
+                instance.setPower(card.values[0]);
+                return instance;
+            }
+        }
+    }
+
+    /* Same numbering as OpticalDeck.getNodeIndex */
+    private int getNodeIndex(String name) {
+        if (name.equals("gnd") || name.equals("0")) {
+            return 0;
+        }
+        int i = nodeTable.indexOf(name);
+        if (i == -1) {
+            i = nodeTable.size();
+            nodeTable.add(name);
+        }
+        return i;
+    }
+
+    private static class Card {
+
+        char type;
+        String name;
+        String posNode;
+        String negNode;
+        String modelName;
+        double[] values;
+
+        Card(char type, String name, String posNode, String negNode,
+                String modelName, double... values) {
+            this.type = type;
+            this.name = name;
+            this.posNode = posNode;
+            this.negNode = negNode;
+            this.modelName = modelName;
+            this.values = values;
+        }
+
+        @Override
+        public String toString() {
+            String card = name + " " + posNode + " " + negNode;
+            if (type == 'P') {
+                return card + " " + values[0];
+            }
+            card += " " + modelName;
+            if (values.length > 0 && !Double.isNaN(values[0])) {
+                card += (type == 'L' ? " LEN=" : " NLOSS=") + values[0];
+            }
+            return card;
+        }
+
+        String toModelString() {
+            switch (type) {
+                case 'L':
+                    return ".MODEL " + name + " L(ALPHA=" + values[0] + " D=" + values[1] + ")";
+                case 'A':
+                    return ".MODEL " + name + " A(G=" + values[0] + " NF=" + values[1] + ")";
+                case 'R':
+                    return ".MODEL " + name + " R(NLOSS=" + values[0] + ")";
+                default:
+                    return ".MODEL " + name + " D(PL=" + values[0] + " DC=" + values[1] + ")";
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.tejas.eda.spice.analysis.Analysis;
 import com.tejas.eda.spice.analysis.DcTrCurv;
 import com.tejas.eda.spice.analysis.TransientAnalysis;
 import com.tejas.eda.spice.analysis.optical.OpticalAnalysis;
+import com.tejas.eda.spice.analysis.optical.OpticalQAnalysis;
 import com.tejas.eda.spice.device.DWDMNetwork;
 import com.tejas.eda.spice.device.SpiceCircuit;
 import com.tejas.eda.spice.device.source.optical.OpticalSourceElement;
@@ -55,6 +56,7 @@ import com.tejas.engine.utils.Triple;
 import javolution.context.Context;
 import javolution.util.FastList;
 import javolution.util.FastList.Node;
+import javolution.util.FastMap;
 import javolution.util.FastTable;
 import javolution.util.StandardLog;
 
@@ -141,6 +143,17 @@ public class OpticalSimulator {
         }
         return sim;
     }
+
+    /**
+     * Simulates a network assembled in memory instead of read from a deck.
+     */
+    public OpticalSimulator simulate(OpticalNetworkBuilder builder) {
+        if (assembleNetwork(builder)) {
+            run();
+        }
+        return this;
+    }
+
   	 //ArrayList<String> ModelNames = new ArrayList<String>();
   	
     public OpticalDeck parseFile(File file) throws ParserException {
@@ -255,6 +268,23 @@ public class OpticalSimulator {
         return true;
     }
 
+    public boolean assembleNetwork(OpticalNetworkBuilder builder) {
+        defaultOutput = new OpticalDefaultOutput(builder.getTitle());
+        FastMap<String, String[]> instNodes = builder.getInstanceNodes();
+        for (FastMap.Entry<String, String[]> e = instNodes.head(),
+                end = instNodes.tail(); (e = e.getNext()) != end;) {
+            String[] nodes = e.getValue();
+            ModelNames.put(e.getKey(), null);
+            Model_Node.put(e.getKey(), new Pair<>(nodes[0], nodes[1]));
+        }
+        builder.build(nwk);
+        OpticalAnalysis a = new OpticalQAnalysis();
+        a.addNonConverganceEventListener(defaultOutput);
+        a.addAnalysisEventListener(defaultOutput);
+        analyses.add(a);
+        return true;
+    }
+
     public void run() {
         StandardLog debugLog = new StandardLog();//Logger.getLogger(Logger.GLOBAL_LOGGER_NAME));
         StandardLog.enter(debugLog);
@@ -11,6 +11,7 @@ package com.tejas.eda.spice;
 import java.util.Arrays;
 
 import com.tejas.eda.node.ComplexNode;
+import com.tejas.eda.output.Count;
 import com.tejas.eda.output.Statistics;
 import com.tejas.eda.output.StopWatch;
 import com.tejas.math.matrix.*;
@@ -24,7 +25,7 @@ import javolution.util.FastTable;
  */
 public class OpticalWorkEnv {
 
-    private Matrix<Complex> matrix;
+    private SparseMatrix<Complex> matrix;
     public Matrix<Complex> work;
     private Matrix<Complex> factored;
     private int[] colSwaps;
@@ -37,7 +38,7 @@ public class OpticalWorkEnv {
     private double analogRampFactor = 1;
     //Xprivate double[] rhsOp;
     private int size;
-    private MatrixData<Complex> matrixData = new VectoredMatrixData<Complex>();
+    private MatrixData<Complex> matrixData = new SparseRowMatrixData<Complex>();
     public static final String SOLVE = "Solve";
     public static final String FACTOR = "Factor";
     public static final String DECOMP = "Decomp";
@@ -46,6 +47,12 @@ public class OpticalWorkEnv {
     private StopWatch factorTime;
     private StopWatch decompTime;
     private StopWatch orderTime;
+    private StopWatch refactorTime;
+    private Count factors;
+    private Count refactors;
+    /* Solve with real arithmetic over primitive arrays */
+    private boolean realValued;
+    private double[] rhsValues;
     private boolean ordered;
     private double relThreshold;
     private double absThreshold;
@@ -56,7 +63,10 @@ public class OpticalWorkEnv {
         factorTime = Statistics.addTime(FACTOR);
         decompTime = Statistics.addTime(DECOMP);
         orderTime = Statistics.addTime(ORDER);
-        matrix = DenseMatrix.newInstance(matrixData);
+        refactorTime = Statistics.addTime(WorkEnv.REFACTOR);
+        factors = Statistics.addCount(WorkEnv.FACTORS);
+        refactors = Statistics.addCount(WorkEnv.REFACTORS);
+        matrix = SparseMatrix.newInstance(matrixData);
 //        sparseData.add(size, size, Complex.zero());
     }
 
@@ -121,6 +131,21 @@ public class OpticalWorkEnv {
     @SuppressWarnings("ManualArrayToCollectionCopy")
     public void solve() {
         solveTime.start();
+        if (realValued && factored instanceof SparseMatrix) {
+            if (rhsValues == null || rhsValues.length != rhs.length) {
+                rhsValues = new double[rhs.length];
+            }
+            for (int i = 0; i < rhs.length; i++) {
+                rhsValues[i] = rhs[i].getReal();
+            }
+            matrix.solve(rhsValues, rhsValues);
+            for (int i = 0; i < rhs.length; i++) {
+                // Adding 0.0 turns -0.0 into 0.0, which is what the reports should print
+                rhs[i].set(rhsValues[i] + 0.0, 0);
+            }
+            solveTime.stop();
+            return;
+        }
         Complex[] tmp1 = new Complex[rhs.length];//Arrays.copyOfRange(rhs, 1, rhs.length);
         Complex[] tmp2 = new Complex[tmp1.length];
 //        System.out.append("rhs = {");
@@ -149,19 +174,61 @@ public class OpticalWorkEnv {
     }
 
     public boolean factor() throws MatrixException {
-        factorTime.start();
+        return factor(false);
+    }
+
+    /**
+     * Factors the matrix, refactoring only its values with the pivot order of
+     * the previous factorization when the matrix is sparse and
+     * <code>reorder</code> is not set.
+     *
+     * @see WorkEnv#factor(boolean)
+     */
+    public boolean factor(boolean reorder) throws MatrixException {
+        boolean sparse = realValued || size >= WorkEnv.SPARSE_SIZE_THRESHOLD;
+        matrix.setRealValued(realValued);
+        if (sparse && !reorder && matrix.isRefactorable()) {
+            refactorTime.start();
+            try {
+                factored = matrix.refactor();
+            } finally {
+                refactorTime.stop();
+            }
+            refactors.increment();
+        } else {
+            factorTime.start();
 //        System.out.println("before factor");
 //        System.out.println(work.toString());
-        factored = matrix.factor();
+            if (sparse) {
+                factored = matrix.factor();
+            } else {
+                factored = denseMatrix().factor();
+            }
 //        System.out.println("after factor");
 //        System.out.println(factored.toString());
-        factorTime.stop();
+            factorTime.stop();
+            factors.increment();
+        }
         if (factored == null) {
             return false;
         }
         return true;
     }
 
+    /**
+     * Selects real arithmetic over primitive arrays for factorization and
+     * solution, as all the optical passes are real valued.
+     *
+     * @see WorkEnv#setRealValued(boolean)
+     */
+    public void setRealValued(boolean realValued) {
+        this.realValued = realValued;
+    }
+
+    public boolean isRealValued() {
+        return realValued;
+    }
+
     public boolean factor(double pivTol) throws SingularException, MatrixException {
         decompTime.start();
         factored = work.factor();//luFac(pivTol);
@@ -352,6 +419,21 @@ public class OpticalWorkEnv {
         this.analogRampFactor = analogRampFactor;
     }
 
+    /* Dense copy of matrix, for systems too small to benefit from sparsity */
+    private DenseMatrix<Complex> denseMatrix() {
+        DenseMatrix<Complex> dense = DenseMatrix.newInstance(size, Complex.zero());
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (matrix.containsAt(i, j)) {
+                    dense.setAt(i, j, matrix.getAt(i, j));
+                } else {
+                    dense.setAt(i, j, Complex.zero());
+                }
+            }
+        }
+        return dense;
+    }
+
     public boolean preOrder() {
         int nsize = size - 1;
         colSwaps = new int[nsize];
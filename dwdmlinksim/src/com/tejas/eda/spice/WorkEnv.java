@@ -11,6 +11,7 @@ package com.tejas.eda.spice;
 import java.util.Arrays;
 
 import com.tejas.eda.node.ComplexNode;
+import com.tejas.eda.output.Count;
 import com.tejas.eda.output.Statistics;
 import com.tejas.eda.output.StopWatch;
 import com.tejas.math.matrix.*;
@@ -24,7 +25,7 @@ import javolution.util.FastTable;
  */
 public class WorkEnv {
 
-    private Matrix<Complex> matrix;
+    private SparseMatrix<Complex> matrix;
     public Matrix<Complex> work;
     private Matrix<Complex> factored;
     private int[] colSwaps;
@@ -37,15 +38,28 @@ public class WorkEnv {
     private double analogRampFactor = 1;
     //Xprivate double[] rhsOp;
     private int size;
-    private MatrixData<Complex> matrixData = new VectoredMatrixData<Complex>();
+    private MatrixData<Complex> matrixData = new SparseRowMatrixData<Complex>();
     public static final String SOLVE = "Solve";
     public static final String FACTOR = "Factor";
     public static final String DECOMP = "Decomp";
     public static final String ORDER = "Order";
+    public static final String REFACTOR = "Refactor";
+    public static final String FACTORS = "Factors";
+    public static final String REFACTORS = "Refactors";
+    /** Complex matrices of this size or larger are factored by a {@link SparseMatrix} */
+    public static final int SPARSE_SIZE_THRESHOLD = 64;
     private StopWatch solveTime;
     private StopWatch factorTime;
     private StopWatch decompTime;
     private StopWatch orderTime;
+    private StopWatch refactorTime;
+    private Count factors;
+    private Count refactors;
+    /* Structure of matrix when work was last built from it */
+    private int workStructureVersion = -1;
+    /* Solve with real arithmetic over primitive arrays (everything but AC) */
+    private boolean realValued;
+    private double[] rhsValues;
     private boolean ordered;
     private double relThreshold;
     private double absThreshold;
@@ -56,7 +70,10 @@ public class WorkEnv {
         factorTime = Statistics.addTime(FACTOR);
         decompTime = Statistics.addTime(DECOMP);
         orderTime = Statistics.addTime(ORDER);
-        matrix = DenseMatrix.newInstance(matrixData);
+        refactorTime = Statistics.addTime(REFACTOR);
+        factors = Statistics.addCount(FACTORS);
+        refactors = Statistics.addCount(REFACTORS);
+        matrix = SparseMatrix.newInstance(matrixData);
 //        sparseData.add(size, size, Complex.zero());
     }
 
@@ -121,6 +138,21 @@ public class WorkEnv {
     @SuppressWarnings("ManualArrayToCollectionCopy")
     public void solve() {
         solveTime.start();
+        if (realValued && factored instanceof SparseMatrix) {
+            int nsize = rhs.length - 1;
+            if (rhsValues == null || rhsValues.length != nsize) {
+                rhsValues = new double[nsize];
+            }
+            for (int i = 0; i < nsize; i++) {
+                rhsValues[i] = rhs[i + 1].getReal();
+            }
+            ((SparseMatrix<Complex>) factored).solve(rhsValues, rhsValues);
+            for (int i = 0; i < nsize; i++) {
+                rhs[colSwaps[i] + 1].set(rhsValues[i], 0);
+            }
+            solveTime.stop();
+            return;
+        }
         Complex[] tmp1 = new Complex[rhs.length - 1];//Arrays.copyOfRange(rhs, 1, rhs.length);
         Complex[] tmp2 = new Complex[tmp1.length];
 //        System.out.append("rhs = {");
@@ -149,23 +181,76 @@ public class WorkEnv {
     }
 
     public boolean factor() throws MatrixException {
-        factorTime.start();
+        return factor(false);
+    }
+
+    /**
+     * Factors the work matrix. Once a sparse work matrix has been factored, its
+     * pivot order and fill-ins are kept and later calls only refactor the
+     * values, unless <code>reorder</code> is set. A <code>SingularException</code>
+     * thrown by a refactorization means that the old pivots no longer fit, and
+     * the matrix should be factored again with <code>reorder</code> set.
+     */
+    public boolean factor(boolean reorder) throws MatrixException {
+        updateValueType();
+        if (!reorder && isRefactorable()) {
+            refactorTime.start();
+            try {
+                factored = ((SparseMatrix<Complex>) work).refactor();
+            } finally {
+                refactorTime.stop();
+            }
+            refactors.increment();
+        } else {
+            factorTime.start();
 //        System.out.println("before factor");
 //        System.out.println(work.toString());
-        factored = work.factor();
+            factored = work.factor();
 //        System.out.println("after factor");
 //        System.out.println(factored.toString());
-        factorTime.stop();
+            factorTime.stop();
+            factors.increment();
+        }
         if (factored == null) {
             return false;
         }
         return true;
     }
 
+    public boolean isRefactorable() {
+        return work instanceof SparseMatrix && ((SparseMatrix<Complex>) work).isRefactorable();
+    }
+
+    /**
+     * Selects real arithmetic for the analyses whose matrix and right-hand side
+     * have no imaginary part, that is all of them but AC. The elements are
+     * still stamped into <code>Complex</code> objects, but factorization and
+     * solution then run over <code>double</code> arrays only. Real valued
+     * systems are always solved by a {@link SparseMatrix}, whatever their size.
+     */
+    public void setRealValued(boolean realValued) {
+        this.realValued = realValued;
+    }
+
+    public boolean isRealValued() {
+        return realValued;
+    }
+
+    private void updateValueType() {
+        if (work instanceof SparseMatrix) {
+            ((SparseMatrix<Complex>) work).setRealValued(realValued);
+        }
+    }
+
     public boolean factor(double pivTol) throws SingularException, MatrixException {
+        updateValueType();
+        if (isRefactorable()) {
+            return factor(false);
+        }
         decompTime.start();
         factored = work.factor();//luFac(pivTol);
         decompTime.stop();
+        factors.increment();
         if (factored == null) {
             return false;
         }
@@ -173,10 +258,12 @@ public class WorkEnv {
     }
 
     public boolean factor(double pivTol, double gMin) throws SingularException, MatrixException {
+        updateValueType();
         decompTime.start();
         loadGMin(gMin);
         factored = work.factor();//luFac(pivTol, gMin);
         decompTime.stop();
+        factors.increment();
         if (factored == null) {
             return false;
         }
@@ -187,6 +274,7 @@ public class WorkEnv {
         orderTime.start();
         factored = orderAndFactor(pivTol, pivRel, true);
         orderTime.stop();
+        factors.increment();
         if (factored == null) {
             return false;
         }
@@ -198,6 +286,7 @@ public class WorkEnv {
         loadGMin(gMin);
         factored = orderAndFactor(pivTol, pivRel, true);
         orderTime.stop();
+        factors.increment();
         if (factored == null) {
             return false;
         }
@@ -354,7 +443,28 @@ public class WorkEnv {
 
     public boolean preOrder() {
         int nsize = size - 1;
+        if (work instanceof SparseMatrix && work.getRowSize() == nsize
+                && workStructureVersion == matrix.getStructureVersion()) {
+            // Same elements as before, so the last factorization can be reused
+            return true;
+        }
         colSwaps = new int[nsize];
+        if (realValued || nsize >= SPARSE_SIZE_THRESHOLD) {
+            // Pivoting is left to the sparse LU, so no columns are swapped
+            SparseMatrix<Complex> sparse = SparseMatrix.newInstance(nsize, Complex.zero());
+            for (int i = 0; i < nsize; i++) {
+                colSwaps[i] = i;
+                for (int k = 0; k < matrix.getRowNonZeros(i + 1); k++) {
+                    int j = matrix.getColIndexAt(i + 1, k) - 1;
+                    if (j >= 0 && j < nsize) {
+                        sparse.setAt(i, j, matrix.getValueAt(i + 1, k));
+                    }
+                }
+            }
+            work = sparse;
+            workStructureVersion = matrix.getStructureVersion();
+            return true;
+        }
         work = DenseMatrix.newInstance(nsize, Complex.zero());
         for (int i = 0; i < nsize; i++) {
             colSwaps[i] = i;
@@ -479,6 +589,12 @@ public class WorkEnv {
     public Matrix orderAndFactor(double relThreshold,
             double absThreshold, boolean diagPivoting) throws MatrixException {
         int reorderingRequired = 0;
+        if (work instanceof SparseMatrix) {
+            // A sparse matrix factors itself, so it must be refactored even if ordered
+            updateValueType();
+            ordered = true;
+            return work.factor();
+        }
         if (ordered && work.isFactored()) {
             return work;
         }
@@ -473,6 +473,7 @@ public abstract class Analysis {
             maxIter = 100;
         }
         double[] oldState0 = null;
+        wrk.setRealValued(true);
         if (mode.contains(MODE.TRANOP) && mode.isUseIC()) {
             wrk.advanceRhs();
             if (!ckt.load(mode)) {
@@ -517,7 +518,7 @@ public abstract class Analysis {
                     System.out.println("befor reorder");
                     System.out.println(wrk.work);
                      */           //         wrk.order();
-                    wrk.factor();
+                    wrk.factor(true);
                     /*                    System.out.println("after reorder");
                     System.out.println(wrk.work);
                     /*
@@ -653,6 +654,7 @@ public abstract class Analysis {
     }
 
     public boolean acIterate() {
+        wrk.setRealValued(false);
         while (true) {
             if (!ckt.acLoad(mode)) {
                 return false;
@@ -663,6 +665,7 @@ public abstract class Analysis {
                         acShouldReordered = false;
                         return false;
                     }
+                    acShouldReordered = false;
                 } catch (MatrixException ex) {
                     StandardLog.severe(ex.getLocalizedMessage());
                 }
@@ -63,6 +63,7 @@ public abstract class OpticalAnalysis {
 	protected String mode;
 	public static final String ITERATIONS = "ITERATIONS";
 	protected Count iters;
+	protected OpticalCascade cascade = new OpticalCascade();
 	//Count defaultIters = new Count();
 	protected double[] state0;
 	boolean shouldReorder;
@@ -493,6 +494,7 @@ public abstract class OpticalAnalysis {
 			maxIter = 100;
 		}
 		double[] oldState0 = null;
+		wrk.setRealValued(true);
 		if (uninitialized) {
 			if (!reInit()) {
 				StandardLog.warning("Re-init returned error");
@@ -500,6 +502,11 @@ public abstract class OpticalAnalysis {
 			}
 			uninitialized = false;
 		}
+		if (env.isCascadeEnabled() && cascade.build(nwk, wrk.getSize())) {
+			iters.increment();
+			cascade.evaluate(nwk);
+			return true;
+		}
 		while (true) {
 			nwk.setNonConverged(false);
 			if (nwk.load("power")) {
@@ -514,7 +521,7 @@ public abstract class OpticalAnalysis {
 				shouldReorder = true;
 			}
 			if (shouldReorder) {
-				wrk.factor();
+				wrk.factor(true);
 				shouldReorder = false;
 			} else {
 				try {
@@ -564,7 +571,7 @@ public abstract class OpticalAnalysis {
 				shouldReorder = true;
 			}
 			if (shouldReorder) {
-				wrk.factor();
+				wrk.factor(true);
 				shouldReorder = false;
 			} else {
 				try {
@@ -614,7 +621,7 @@ public abstract class OpticalAnalysis {
 				shouldReorder = true;
 			}
 			if (shouldReorder) {
-				wrk.factor();
+				wrk.factor(true);
 				shouldReorder = false;
 			} else {
 				try {
@@ -0,0 +1,104 @@
+/*
+ * OpticalCascade.java
+ *
+ * To change this template, choose Tools | Template Manager
+ * and open the template in the editor.
+ */
+package com.tejas.eda.spice.analysis.optical;
+
+import java.util.Arrays;
+
+import com.tejas.eda.spice.Network;
+import com.tejas.eda.spice.device.OpticalInstance;
+import com.tejas.eda.spice.device.OpticalStage;
+import com.tejas.eda.spice.device.source.optical.PowerSource;
+
+import javolution.util.FastList;
+
+/**
+ * Evaluates a network made of a single chain of stages fed by one power
+ * source, such as a route written by DWDMRouteToSpiceConverter. Power, noise
+ * and dispersion are propagated from the source node in one pass over the
+ * stages instead of factoring the network matrix once for each mode.
+ *
+ * @author Kristopher T. Beck
+ */
+public class OpticalCascade {
+
+	private PowerSource source;
+	/* Stage driven by each node, indexed by its positive node */
+	private OpticalStage[] next = new OpticalStage[0];
+
+	/**
+	 * Records the stages of the network in chain order. Returns false when
+	 * the network is not a chain and has to be solved by the matrix.
+	 */
+	public boolean build(Network nwk, int size) {
+		source = null;
+		if (next.length != size) {
+			next = new OpticalStage[size];
+		} else {
+			Arrays.fill(next, null);
+		}
+		boolean[] driven = new boolean[size];
+		FastList<OpticalInstance> instances = nwk.getModels();
+		for (FastList.Node<OpticalInstance> m = instances.head(), end = instances.tail();
+				(m = m.getNext()) != end;) {
+			OpticalInstance inst = m.getValue();
+			if (inst instanceof PowerSource && source == null) {
+				source = (PowerSource) inst;
+			} else if (inst instanceof OpticalStage) {
+				OpticalStage stage = (OpticalStage) inst;
+				int pos = stage.getPosIndex();
+				int neg = stage.getNegIndex();
+				if (pos < 0 || pos >= size || neg < 0 || neg >= size || pos == neg
+						|| next[pos] != null || driven[neg]) {
+					return false;
+				}
+				next[pos] = stage;
+				driven[neg] = true;
+			} else {
+				return false;
+			}
+		}
+		if (source == null) {
+			return false;
+		}
+		int node = source.getPosIndex();
+		if (node < 0 || node >= size || driven[node]) {
+			return false;
+		}
+		int count = 1;
+		while (next[node] != null) {
+			node = next[node].getNegIndex();
+			count++;
+		}
+		// The source equation takes the last matrix row, so the two agree only
+		// when every node is on the chain and the chain ends in that row
+		return count == size && node == size - 1;
+	}
+
+	/**
+	 * Fills the power, noise and dispersion maps of the network for the
+	 * chain recorded by the last successful build.
+	 */
+	public void evaluate(Network nwk) {
+		int node = source.getPosIndex();
+		double power = source.getPower();
+		double noise = 0;
+		double dispersion = 0;
+		while (true) {
+			nwk.setPowerMap(node, power);
+			nwk.setNoiseMap(node, noise);
+			nwk.setDispersionMap(node, dispersion);
+			OpticalStage stage = next[node];
+			if (stage == null) {
+				break;
+			}
+			power = stage.propagate("power", power);
+			noise = stage.propagate("noise", noise);
+			dispersion = stage.propagate("dispersion", dispersion);
+			node = stage.getNegIndex();
+		}
+	}
+}
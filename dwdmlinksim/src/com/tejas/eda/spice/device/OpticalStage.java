@@ -0,0 +1,28 @@
+/*
+ * OpticalStage.java
+ *
+ * To change this template, choose Tools | Template Manager
+ * and open the template in the editor.
+ */
+package com.tejas.eda.spice.device;
+
+/**
+ * Two-port optical device carrying the signal from its positive to its
+ * negative node. Each load mode stamps out = f * in - s into the row of the
+ * positive node, so a chain of stages can also be evaluated by propagating
+ * the value through them in order.
+ *
+ * @author Kristopher T. Beck
+ */
+public interface OpticalStage extends OpticalInstance {
+
+    public int getPosIndex();
+
+    public int getNegIndex();
+
+    /**
+     * Value at the negative node for the given value at the positive node,
+     * as solved from the stamp made by load(mode).
+     */
+    public double propagate(String mode, double value);
+}
@@ -13,7 +13,7 @@ import com.tejas.eda.spice.Temporal;
 import com.tejas.eda.spice.WorkEnv;
 import com.tejas.eda.spice.EnumConsts.MODE;
 import com.tejas.eda.spice.device.Instance;
-import com.tejas.eda.spice.device.OpticalInstance;
+import com.tejas.eda.spice.device.OpticalStage;
 import com.tejas.eda.spice.device.semi.mos.MOSUtils;
 import com.tejas.math.Bool;
 import com.tejas.math.numbers.Complex;
@@ -28,7 +28,7 @@ import static com.tejas.eda.spice.Constants.*;
  *
  * @author Kristopher T. Beck
  */
-public class DCFInstance extends DCFModelValues implements OpticalInstance {
+public class DCFInstance extends DCFModelValues implements OpticalStage {
 
     private Network nwk;
     private OpticalWorkEnv wrk;
@@ -101,6 +101,15 @@ return true;
     	return true;
     }
 
+    public double propagate(String mode, double value) {
+        if (mode.equals("power") || mode.equals("noise")) {
+            return (1/pLoss) * value;
+        } else if (mode.equals("dispersion")) {
+            return value - dispComp;
+        }
+        return value;
+    }
+
     public boolean pzLoad(Complex s) {
        return true;
     }
@@ -20,7 +20,7 @@ import com.tejas.eda.spice.Temporal;
 import com.tejas.eda.spice.WorkEnv;
 import com.tejas.eda.spice.EnumConsts.MODE;
 import com.tejas.eda.spice.device.Instance;
-import com.tejas.eda.spice.device.OpticalInstance;
+import com.tejas.eda.spice.device.OpticalStage;
 import com.tejas.eda.spice.device.semi.mos.MOSUtils;
 import com.tejas.math.Bool;
 import com.tejas.math.numbers.Complex;
@@ -34,7 +34,7 @@ import static com.tejas.eda.spice.Constants.*;
  *
  * @author Kristopher T. Beck
  */
-public class EDFAInstance extends EDFAModelValues implements OpticalInstance {
+public class EDFAInstance extends EDFAModelValues implements OpticalStage {
 
     private Network nwk;
     private OpticalWorkEnv wrk;
@@ -144,9 +144,7 @@ public class EDFAInstance extends EDFAModelValues implements OpticalInstance {
     		//    	negNegNode.plusEq(1/attenuation);
     		posNegNode.minusEq(1.0);
     		//    	negPosNode.minusEq(1.0);
-    		wrk.getRhsAt(posIndex).minusEq(gain*noiseFigure*Double.parseDouble("15991e-10"));   //ss earlier 15991e-10
-    		// 15991e-10: (h)(nu)(deltaf) h = planck's constant= 6.626e-34, nu = frequency = 193THz,
-    		// deltaf = bandwidth measurement for noisefigure = 12.5GHz = 0.1nm  
+    		wrk.getRhsAt(posIndex).minusEq(gain*noiseFigure*OPTICAL_NOISE_POWER);
     	} else if (mode.equals("dispersion")){
     		posPosNode.plusEq(1.0);
     		posNegNode.minusEq(1.0);
@@ -154,6 +152,15 @@ public class EDFAInstance extends EDFAModelValues implements OpticalInstance {
     	return true;
     }
 
+    public double propagate(String mode, double value) {
+        if (mode.equals("power")) {
+            return gain * value;
+        } else if (mode.equals("noise")) {
+            return gain * value + gain*noiseFigure*OPTICAL_NOISE_POWER;
+        }
+        return value;
+    }
+
     public boolean pzLoad(Complex s) {
     	//TODO Need to check - Anant
 //        double gspr = tConductance * area * m;
@@ -20,7 +20,7 @@ import com.tejas.eda.spice.Temporal;
 import com.tejas.eda.spice.WorkEnv;
 import com.tejas.eda.spice.EnumConsts.MODE;
 import com.tejas.eda.spice.device.Instance;
-import com.tejas.eda.spice.device.OpticalInstance;
+import com.tejas.eda.spice.device.OpticalStage;
 import com.tejas.eda.spice.device.semi.mos.MOSUtils;
 import com.tejas.math.Bool;
 import com.tejas.math.numbers.Complex;
@@ -34,7 +34,7 @@ import static com.tejas.eda.spice.Constants.*;
  *
  * @author Kristopher T. Beck
  */
-public class LinkInstance extends LinkModelValues implements OpticalInstance {
+public class LinkInstance extends LinkModelValues implements OpticalStage {
 
     private Network nwk;
     private OpticalWorkEnv wrk;
@@ -149,6 +149,15 @@ public class LinkInstance extends LinkModelValues implements OpticalInstance {
     	return true;
     }
 
+    public double propagate(String mode, double value) {
+        if (mode.equals("power") || mode.equals("noise")) {
+            return (1/attenuation) * value;
+        } else if (mode.equals("dispersion")) {
+            return value - dispersion;
+        }
+        return value;
+    }
+
     public boolean pzLoad(Complex s) {
     	//TODO Need to check - Anant
 //        double gspr = tConductance * area * m;
@@ -20,7 +20,7 @@ import com.tejas.eda.spice.Temporal;
 import com.tejas.eda.spice.WorkEnv;
 import com.tejas.eda.spice.EnumConsts.MODE;
 import com.tejas.eda.spice.device.Instance;
-import com.tejas.eda.spice.device.OpticalInstance;
+import com.tejas.eda.spice.device.OpticalStage;
 import com.tejas.eda.spice.device.semi.mos.MOSUtils;
 import com.tejas.math.Bool;
 import com.tejas.math.numbers.Complex;
@@ -34,7 +34,7 @@ import static com.tejas.eda.spice.Constants.*;
  *
  * @author Kristopher T. Beck
  */
-public class NodeInstance extends NodeModelValues implements OpticalInstance {
+public class NodeInstance extends NodeModelValues implements OpticalStage {
 
     private Network nwk;
     private OpticalWorkEnv wrk;
@@ -151,7 +151,7 @@ public class NodeInstance extends NodeModelValues implements OpticalInstance {
     		posNegNode.minusEq(1.0);
     		//    	negPosNode.minusEq(1.0);
 //    		wrk.getRhsAt(posIndex).minusEq(nodeLoss);
-    		wrk.getRhsAt(posIndex).minusEq((1/attenuation)*noiseFigure*Double.parseDouble("15991e-10"));
+    		wrk.getRhsAt(posIndex).minusEq((1/attenuation)*noiseFigure*OPTICAL_NOISE_POWER);
     	
     	} else if (mode.equals("dispersion")){
     		posPosNode.plusEq(1.0);
@@ -160,6 +160,15 @@ public class NodeInstance extends NodeModelValues implements OpticalInstance {
     	return true;
     }
 
+    public double propagate(String mode, double value) {
+        if (mode.equals("power")) {
+            return (1/attenuation) * value;
+        } else if (mode.equals("noise")) {
+            return (1/attenuation) * value + (1/attenuation)*noiseFigure*OPTICAL_NOISE_POWER;
+        }
+        return value;
+    }
+
     public boolean pzLoad(Complex s) {
     	//TODO Need to check - Anant
 //        double gspr = tConductance * area * m;
@@ -11,6 +11,14 @@ public abstract class OpticalSource extends DWDMNetworkDevice implements Optical
 		this.instName = instName;		
 	}
 
+	public int getPosIndex() {
+		return posIndex;
+	}
+
+	public int getNegIndex() {
+		return negIndex;
+	}
+
 	public void setPosIndex(int nodeIndex) {
 		this.posIndex = nodeIndex;
 	}
@@ -0,0 +1,656 @@
+/*
+ * SparseLU.java
+ *
+ * To change this template, choose Tools | Template Manager
+ * and open the template in the editor.
+ */
+package com.tejas.math.matrix;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sparse LU factorization of a square complex matrix, over primitive arrays.
+ * <p>
+ * The first {@link #factor factor()} chooses the pivots with the Markowitz
+ * criterion (fewest fill-ins) subject to threshold pivoting (a pivot must not be
+ * smaller than <code>relThreshold</code> times the largest element in its
+ * column), creating the fill-in elements on the way. The pivot sequence, the
+ * fill-in structure and the list of update operations are kept, so that
+ * {@link #refactor refactor()} repeats the elimination for new values of the
+ * same sparsity pattern with no search or allocation. A refactorization fails
+ * with a {@link SingularException} when a pivot no longer satisfies the
+ * thresholds, and then a new <code>factor()</code> is required.
+ * <p>
+ * Matrices with no imaginary part (DC, transient and optical analyses) should
+ * use the overloads taking only real values, which skip all the imaginary
+ * arithmetic and never read or write the imaginary arrays.
+ *
+ * @author Kristopher T. Beck
+ */
+public class SparseLU {
+
+    /* Number of columns with acceptable pivots examined in the Markowitz search */
+    private static final int MAX_SEARCHED_COLUMNS = 4;
+    private final int size;
+    private final int numOriginalElements;
+    /* Element (in the pool) of each entry of the pattern (repeated positions are summed) */
+    private final int[] entryElements;
+    /* Element pool: original elements first, then fill-ins */
+    private int numElements;
+    private int[] elemRow;
+    private int[] elemCol;
+    private double[] elemRe;
+    private double[] elemIm;
+    private int[] nextInRow;
+    private int[] nextInCol;
+    private final int[] rowHead;
+    private final int[] colHead;
+    /* Pivot sequence */
+    private final int[] pivotRow;
+    private final int[] pivotCol;
+    private final int[] pivotElement;
+    /* Column of L (below the pivot) and row of U (right of the pivot) per step */
+    private final int[] lStart;
+    private final int[] uStart;
+    private int[] lElements = new int[0];
+    private int[] uElements = new int[0];
+    /* Target element of each update a_ij -= l_i * u_j, in elimination order */
+    private int[] opTargets = new int[0];
+    private int numOps;
+    private double relThreshold = 1.0e-3;
+    private double absThreshold = 0;
+    private boolean factored;
+    private boolean symbolic;
+    /* Whether the values loaded last have no imaginary part */
+    private boolean realValued;
+    /* Scratch arrays */
+    private final double[] workRe;
+    private final double[] workIm;
+
+    /**
+     * Creates the structure for a given sparsity pattern.
+     *
+     * @param size Number of rows (and columns)
+     * @param rows Row of each entry of the pattern
+     * @param cols Column of each entry of the pattern
+     */
+    public SparseLU(int size, int[] rows, int[] cols) {
+        if (rows.length != cols.length) {
+            throw new DimensionException("Rows and columns of the pattern do not match");
+        }
+        this.size = size;
+        entryElements = new int[rows.length];
+        Map<Long, Integer> positions = new HashMap<Long, Integer>();
+        int capacity = Math.max(16, 2 * rows.length);
+        elemRow = new int[capacity];
+        elemCol = new int[capacity];
+        for (int e = 0; e < rows.length; e++) {
+            if (rows[e] < 0 || rows[e] >= size || cols[e] < 0 || cols[e] >= size) {
+                throw new IndexOutOfBoundsException("Entry (" + rows[e] + ", " + cols[e] + ") out of a " + size + "x" + size + " matrix");
+            }
+            Long key = (long) rows[e] * size + cols[e];
+            Integer element = positions.get(key);
+            if (element == null) {
+                element = numElements++;
+                positions.put(key, element);
+                elemRow[element] = rows[e];
+                elemCol[element] = cols[e];
+            }
+            entryElements[e] = element;
+        }
+        numOriginalElements = numElements;
+        elemRe = new double[capacity];
+        elemIm = new double[capacity];
+        nextInRow = new int[capacity];
+        nextInCol = new int[capacity];
+        rowHead = new int[size];
+        colHead = new int[size];
+        pivotRow = new int[size];
+        pivotCol = new int[size];
+        pivotElement = new int[size];
+        lStart = new int[size + 1];
+        uStart = new int[size + 1];
+        workRe = new double[size];
+        workIm = new double[size];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setThresholds(double relThreshold, double absThreshold) {
+        if (relThreshold <= 0 || relThreshold > 1) {
+            throw new IllegalArgumentException("Relative pivot threshold must be in (0, 1]");
+        }
+        if (absThreshold < 0) {
+            throw new IllegalArgumentException("Absolute pivot threshold must be non-negative");
+        }
+        this.relThreshold = relThreshold;
+        this.absThreshold = absThreshold;
+    }
+
+    public boolean isFactored() {
+        return factored;
+    }
+
+    /**
+     * Returns whether a pivot sequence is available for {@link #refactor refactor()}.
+     */
+    public boolean hasSymbolicFactorization() {
+        return symbolic;
+    }
+
+    /**
+     * Number of elements of the factors, including fill-ins.
+     */
+    public int getNumberOfElements() {
+        return numElements;
+    }
+
+    public int getNumberOfFillIns() {
+        return numElements - numOriginalElements;
+    }
+
+    /**
+     * Factors the matrix choosing a new pivot sequence.
+     *
+     * @param re Real part of each entry of the pattern
+     * @param im Imaginary part of each entry of the pattern
+     * @throws SingularException If no acceptable pivot is found
+     */
+    public void factor(double[] re, double[] im) throws SingularException {
+        factored = false;
+        symbolic = false;
+        numElements = numOriginalElements;
+        load(re, im);
+        factorLoaded();
+    }
+
+    /**
+     * Factors a real matrix choosing a new pivot sequence.
+     *
+     * @param re Value of each entry of the pattern
+     * @throws SingularException If no acceptable pivot is found
+     */
+    public void factor(double[] re) throws SingularException {
+        factored = false;
+        symbolic = false;
+        numElements = numOriginalElements;
+        load(re);
+        factorLoaded();
+    }
+
+    private void factorLoaded() throws SingularException {
+        int[] rowCount = new int[size];
+        int[] colCount = new int[size];
+        Arrays.fill(rowHead, -1);
+        Arrays.fill(colHead, -1);
+        for (int e = numOriginalElements - 1; e >= 0; e--) {
+            link(e);
+            rowCount[elemRow[e]]++;
+            colCount[elemCol[e]]++;
+        }
+
+        /* Columns bucketed by their number of active elements */
+        int[] bucketHead = new int[size + 1];
+        int[] nextInBucket = new int[size];
+        int[] prevInBucket = new int[size];
+        Arrays.fill(bucketHead, -1);
+        for (int col = 0; col < size; col++) {
+            addToBucket(col, colCount[col], bucketHead, nextInBucket, prevInBucket);
+        }
+
+        boolean[] rowDone = new boolean[size];
+        boolean[] colDone = new boolean[size];
+        int[] scatter = new int[size];
+        Arrays.fill(scatter, -1);
+        int numL = 0;
+        int numU = 0;
+        numOps = 0;
+
+        for (int step = 0; step < size; step++) {
+            if (bucketHead[0] != -1) {
+                throw new SingularException(bucketHead[0]);
+            }
+            int pivot = searchPivot(rowCount, rowDone, bucketHead, nextInBucket);
+            if (pivot == -1) {
+                throw new ZeroPivotException(step);
+            }
+            int row = elemRow[pivot];
+            int col = elemCol[pivot];
+            pivotRow[step] = row;
+            pivotCol[step] = col;
+            pivotElement[step] = pivot;
+            rowDone[row] = true;
+            colDone[col] = true;
+            removeFromBucket(col, colCount[col], bucketHead, nextInBucket, prevInBucket);
+
+            /* Row of U */
+            lStart[step] = numL;
+            uStart[step] = numU;
+            for (int e = rowHead[row]; e != -1; e = nextInRow[e]) {
+                int j = elemCol[e];
+                if (colDone[j]) {
+                    continue;
+                }
+                uElements = ensureCapacity(uElements, numU + 1);
+                uElements[numU++] = e;
+                removeFromBucket(j, colCount[j], bucketHead, nextInBucket, prevInBucket);
+                addToBucket(j, --colCount[j], bucketHead, nextInBucket, prevInBucket);
+            }
+
+            /* Column of L, divided by the pivot */
+            double pRe = elemRe[pivot];
+            double pIm = elemIm[pivot];
+            double pNorm = pRe * pRe + pIm * pIm;
+            for (int e = colHead[col]; e != -1; e = nextInCol[e]) {
+                int i = elemRow[e];
+                if (rowDone[i]) {
+                    continue;
+                }
+                lElements = ensureCapacity(lElements, numL + 1);
+                lElements[numL++] = e;
+                rowCount[i]--;
+                if (realValued) {
+                    elemRe[e] /= pRe;
+                } else {
+                    double re_ = elemRe[e];
+                    double im_ = elemIm[e];
+                    elemRe[e] = (re_ * pRe + im_ * pIm) / pNorm;
+                    elemIm[e] = (im_ * pRe - re_ * pIm) / pNorm;
+                }
+            }
+
+            /* Update of the active submatrix, creating fill-ins */
+            for (int l = lStart[step]; l < numL; l++) {
+                int lElem = lElements[l];
+                int i = elemRow[lElem];
+                for (int e = rowHead[i]; e != -1; e = nextInRow[e]) {
+                    scatter[elemCol[e]] = e;
+                }
+                double lRe = elemRe[lElem];
+                double lIm = elemIm[lElem];
+                for (int u = uStart[step]; u < numU; u++) {
+                    int uElem = uElements[u];
+                    int j = elemCol[uElem];
+                    int target = scatter[j];
+                    if (target == -1) {
+                        target = newElement(i, j);
+                        scatter[j] = target;
+                        rowCount[i]++;
+                        removeFromBucket(j, colCount[j], bucketHead, nextInBucket, prevInBucket);
+                        addToBucket(j, ++colCount[j], bucketHead, nextInBucket, prevInBucket);
+                    }
+                    opTargets = ensureCapacity(opTargets, numOps + 1);
+                    opTargets[numOps++] = target;
+                    if (realValued) {
+                        elemRe[target] -= lRe * elemRe[uElem];
+                    } else {
+                        double uRe = elemRe[uElem];
+                        double uIm = elemIm[uElem];
+                        elemRe[target] -= lRe * uRe - lIm * uIm;
+                        elemIm[target] -= lRe * uIm + lIm * uRe;
+                    }
+                }
+                for (int e = rowHead[i]; e != -1; e = nextInRow[e]) {
+                    scatter[elemCol[e]] = -1;
+                }
+            }
+        }
+        lStart[size] = numL;
+        uStart[size] = numU;
+        symbolic = true;
+        factored = true;
+    }
+
+    /**
+     * Factors the matrix reusing the pivot sequence and fill-in structure of
+     * the last {@link #factor factor()}.
+     *
+     * @param re Real part of each entry of the pattern
+     * @param im Imaginary part of each entry of the pattern
+     * @throws SingularException If a pivot no longer satisfies the thresholds
+     * (the pivot sequence is discarded)
+     */
+    public void refactor(double[] re, double[] im) throws SingularException {
+        if (!symbolic) {
+            throw new MatrixException("No pivot sequence is available");
+        }
+        factored = false;
+        load(re, im);
+
+        int op = 0;
+        for (int step = 0; step < size; step++) {
+            int pivot = pivotElement[step];
+            double pRe = elemRe[pivot];
+            double pIm = elemIm[pivot];
+            double pNorm = pRe * pRe + pIm * pIm;
+            double largest = pNorm;
+            for (int l = lStart[step]; l < lStart[step + 1]; l++) {
+                int e = lElements[l];
+                largest = Math.max(largest, elemRe[e] * elemRe[e] + elemIm[e] * elemIm[e]);
+            }
+            if (pNorm == 0 || pNorm <= absThreshold * absThreshold || pNorm < relThreshold * relThreshold * largest) {
+                symbolic = false;
+                throw new SingularException(pivotRow[step], pivotCol[step]);
+            }
+            for (int l = lStart[step]; l < lStart[step + 1]; l++) {
+                int e = lElements[l];
+                double re_ = elemRe[e];
+                double im_ = elemIm[e];
+                double lRe = (re_ * pRe + im_ * pIm) / pNorm;
+                double lIm = (im_ * pRe - re_ * pIm) / pNorm;
+                elemRe[e] = lRe;
+                elemIm[e] = lIm;
+                for (int u = uStart[step]; u < uStart[step + 1]; u++) {
+                    int uElem = uElements[u];
+                    int target = opTargets[op++];
+                    double uRe = elemRe[uElem];
+                    double uIm = elemIm[uElem];
+                    elemRe[target] -= lRe * uRe - lIm * uIm;
+                    elemIm[target] -= lRe * uIm + lIm * uRe;
+                }
+            }
+        }
+        factored = true;
+    }
+
+    /**
+     * Refactors a real matrix reusing the pivot sequence and fill-in structure
+     * of the last {@link #factor factor()}.
+     *
+     * @param re Value of each entry of the pattern
+     * @throws SingularException If a pivot no longer satisfies the thresholds
+     * (the pivot sequence is discarded)
+     */
+    public void refactor(double[] re) throws SingularException {
+        if (!symbolic) {
+            throw new MatrixException("No pivot sequence is available");
+        }
+        factored = false;
+        load(re);
+
+        int op = 0;
+        for (int step = 0; step < size; step++) {
+            int pivot = pivotElement[step];
+            double p = elemRe[pivot];
+            double magnitude = Math.abs(p);
+            double largest = magnitude;
+            for (int l = lStart[step]; l < lStart[step + 1]; l++) {
+                largest = Math.max(largest, Math.abs(elemRe[lElements[l]]));
+            }
+            if (magnitude == 0 || magnitude <= absThreshold || magnitude < relThreshold * largest) {
+                symbolic = false;
+                throw new SingularException(pivotRow[step], pivotCol[step]);
+            }
+            for (int l = lStart[step]; l < lStart[step + 1]; l++) {
+                int e = lElements[l];
+                double lValue = elemRe[e] / p;
+                elemRe[e] = lValue;
+                for (int u = uStart[step]; u < uStart[step + 1]; u++) {
+                    elemRe[opTargets[op++]] -= lValue * elemRe[uElements[u]];
+                }
+            }
+        }
+        factored = true;
+    }
+
+    /**
+     * Solves a real system for a right-hand side, in the original row and
+     * column order. Input and output arrays may be the same.
+     */
+    public void solve(double[] b, double[] x) {
+        if (!factored) {
+            throw new MatrixException("Matrix is not factored");
+        }
+        if (!realValued) {
+            throw new MatrixException("Matrix is not real valued");
+        }
+        System.arraycopy(b, 0, workRe, 0, size);
+
+        /* Forward substitution (L has a unit diagonal) */
+        for (int step = 0; step < size; step++) {
+            double w = workRe[pivotRow[step]];
+            if (w == 0) {
+                continue;
+            }
+            for (int l = lStart[step]; l < lStart[step + 1]; l++) {
+                int e = lElements[l];
+                workRe[elemRow[e]] -= elemRe[e] * w;
+            }
+        }
+
+        /* Backward substitution */
+        for (int step = size - 1; step >= 0; step--) {
+            double sum = workRe[pivotRow[step]];
+            for (int u = uStart[step]; u < uStart[step + 1]; u++) {
+                int e = uElements[u];
+                sum -= elemRe[e] * x[elemCol[e]];
+            }
+            x[pivotCol[step]] = sum / elemRe[pivotElement[step]];
+        }
+    }
+
+    public boolean isRealValued() {
+        return realValued;
+    }
+
+    /**
+     * Solves the system for a right-hand side, in the original row and column order.
+     * Input and output arrays may be the same.
+     */
+    public void solve(double[] bRe, double[] bIm, double[] xRe, double[] xIm) {
+        if (!factored) {
+            throw new MatrixException("Matrix is not factored");
+        }
+        System.arraycopy(bRe, 0, workRe, 0, size);
+        System.arraycopy(bIm, 0, workIm, 0, size);
+
+        /* Forward substitution (L has a unit diagonal) */
+        for (int step = 0; step < size; step++) {
+            int row = pivotRow[step];
+            double wRe = workRe[row];
+            double wIm = workIm[row];
+            if (wRe == 0 && wIm == 0) {
+                continue;
+            }
+            for (int l = lStart[step]; l < lStart[step + 1]; l++) {
+                int e = lElements[l];
+                int i = elemRow[e];
+                workRe[i] -= elemRe[e] * wRe - elemIm[e] * wIm;
+                workIm[i] -= elemRe[e] * wIm + elemIm[e] * wRe;
+            }
+        }
+
+        /* Backward substitution */
+        for (int step = size - 1; step >= 0; step--) {
+            double sRe = workRe[pivotRow[step]];
+            double sIm = workIm[pivotRow[step]];
+            for (int u = uStart[step]; u < uStart[step + 1]; u++) {
+                int e = uElements[u];
+                int j = elemCol[e];
+                sRe -= elemRe[e] * xRe[j] - elemIm[e] * xIm[j];
+                sIm -= elemRe[e] * xIm[j] + elemIm[e] * xRe[j];
+            }
+            int pivot = pivotElement[step];
+            double pRe = elemRe[pivot];
+            double pIm = elemIm[pivot];
+            double pNorm = pRe * pRe + pIm * pIm;
+            int col = pivotCol[step];
+            xRe[col] = (sRe * pRe + sIm * pIm) / pNorm;
+            xIm[col] = (sIm * pRe - sRe * pIm) / pNorm;
+        }
+    }
+
+    /**
+     * Returns the determinant as {real, imaginary}.
+     */
+    public double[] determinant() {
+        if (!factored) {
+            throw new MatrixException("Matrix is not factored");
+        }
+        double re = 1;
+        double im = 0;
+        for (int step = 0; step < size; step++) {
+            int pivot = pivotElement[step];
+            double tmp = re * elemRe[pivot] - im * elemIm[pivot];
+            im = re * elemIm[pivot] + im * elemRe[pivot];
+            re = tmp;
+        }
+        if (isOddPermutation(pivotRow) != isOddPermutation(pivotCol)) {
+            re = -re;
+            im = -im;
+        }
+        return new double[]{re, im};
+    }
+
+    private void load(double[] re, double[] im) {
+        if (re.length != entryElements.length || im.length != entryElements.length) {
+            throw new DimensionException("Values do not match the pattern");
+        }
+        realValued = false;
+        Arrays.fill(elemRe, 0, numElements, 0);
+        Arrays.fill(elemIm, 0, numElements, 0);
+        for (int e = 0; e < entryElements.length; e++) {
+            elemRe[entryElements[e]] += re[e];
+            elemIm[entryElements[e]] += im[e];
+        }
+    }
+
+    private void load(double[] re) {
+        if (re.length != entryElements.length) {
+            throw new DimensionException("Values do not match the pattern");
+        }
+        if (!realValued) {
+            // Left over from complex values, and not touched by the real arithmetic
+            Arrays.fill(elemIm, 0, numElements, 0);
+            realValued = true;
+        }
+        Arrays.fill(elemRe, 0, numElements, 0);
+        for (int e = 0; e < entryElements.length; e++) {
+            elemRe[entryElements[e]] += re[e];
+        }
+    }
+
+    /* Markowitz search over the sparsest columns, subject to threshold pivoting */
+    private int searchPivot(int[] rowCount, boolean[] rowDone, int[] bucketHead, int[] nextInBucket) {
+        int best = -1;
+        long bestProduct = Long.MAX_VALUE;
+        double bestRatio = 0;
+        int searchedColumns = 0;
+        for (int count = 1; count <= size && searchedColumns < MAX_SEARCHED_COLUMNS; count++) {
+            for (int col = bucketHead[count]; col != -1 && searchedColumns < MAX_SEARCHED_COLUMNS; col = nextInBucket[col]) {
+                double largest = 0;
+                for (int e = colHead[col]; e != -1; e = nextInCol[e]) {
+                    if (!rowDone[elemRow[e]]) {
+                        largest = Math.max(largest, abs(e));
+                    }
+                }
+                if (largest == 0 || largest <= absThreshold) {
+                    continue;
+                }
+                boolean found = false;
+                for (int e = colHead[col]; e != -1; e = nextInCol[e]) {
+                    int row = elemRow[e];
+                    if (rowDone[row]) {
+                        continue;
+                    }
+                    double magnitude = abs(e);
+                    if (magnitude < relThreshold * largest || magnitude <= absThreshold) {
+                        continue;
+                    }
+                    found = true;
+                    long product = (long) (rowCount[row] - 1) * (count - 1);
+                    double ratio = magnitude / largest;
+                    if (product < bestProduct || (product == bestProduct && ratio > bestRatio)) {
+                        best = e;
+                        bestProduct = product;
+                        bestRatio = ratio;
+                    }
+                }
+                if (found) {
+                    searchedColumns++;
+                    if (bestProduct == 0) {
+                        return best;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private double abs(int e) {
+        return realValued ? Math.abs(elemRe[e]) : Math.hypot(elemRe[e], elemIm[e]);
+    }
+
+    private int newElement(int row, int col) {
+        if (numElements == elemRow.length) {
+            int capacity = 2 * elemRow.length;
+            elemRow = Arrays.copyOf(elemRow, capacity);
+            elemCol = Arrays.copyOf(elemCol, capacity);
+            elemRe = Arrays.copyOf(elemRe, capacity);
+            elemIm = Arrays.copyOf(elemIm, capacity);
+            nextInRow = Arrays.copyOf(nextInRow, capacity);
+            nextInCol = Arrays.copyOf(nextInCol, capacity);
+        }
+        int e = numElements++;
+        elemRow[e] = row;
+        elemCol[e] = col;
+        elemRe[e] = 0;
+        elemIm[e] = 0;
+        link(e);
+        return e;
+    }
+
+    private void link(int e) {
+        nextInRow[e] = rowHead[elemRow[e]];
+        rowHead[elemRow[e]] = e;
+        nextInCol[e] = colHead[elemCol[e]];
+        colHead[elemCol[e]] = e;
+    }
+
+    private static void addToBucket(int col, int count, int[] bucketHead, int[] nextInBucket, int[] prevInBucket) {
+        prevInBucket[col] = -1;
+        nextInBucket[col] = bucketHead[count];
+        if (bucketHead[count] != -1) {
+            prevInBucket[bucketHead[count]] = col;
+        }
+        bucketHead[count] = col;
+    }
+
+    private static void removeFromBucket(int col, int count, int[] bucketHead, int[] nextInBucket, int[] prevInBucket) {
+        if (prevInBucket[col] != -1) {
+            nextInBucket[prevInBucket[col]] = nextInBucket[col];
+        } else {
+            bucketHead[count] = nextInBucket[col];
+        }
+        if (nextInBucket[col] != -1) {
+            prevInBucket[nextInBucket[col]] = prevInBucket[col];
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int length) {
+        return length <= array.length ? array : Arrays.copyOf(array, Math.max(16, 2 * array.length));
+    }
+
+    private static boolean isOddPermutation(int[] permutation) {
+        boolean[] visited = new boolean[permutation.length];
+        boolean odd = false;
+        for (int i = 0; i < permutation.length; i++) {
+            if (visited[i]) {
+                continue;
+            }
+            int length = 0;
+            for (int j = i; !visited[j]; j = permutation[j]) {
+                visited[j] = true;
+                length++;
+            }
+            if (length % 2 == 0) {
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+}
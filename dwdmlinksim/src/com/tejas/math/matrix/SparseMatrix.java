@@ -5,82 +5,491 @@
 
 package com.tejas.math.matrix;
 
+import java.util.Arrays;
+
+import com.tejas.math.numbers.Complex;
 import com.tejas.math.numbers.Numeric;
+import com.tejas.math.numbers.Real;
+
+import javolution.context.ObjectFactory;
 
 /**
+ * Sparse matrix of {@link Complex} or {@link Real} elements. Elements are kept
+ * as objects (so that they can be shared with the devices stamping them), but
+ * factorization and solution are done by a {@link SparseLU} over primitive
+ * arrays, with Markowitz ordering and threshold pivoting.
  *
  * @author Kristopher T. Beck
  */
 public class SparseMatrix<N extends Numeric<N>> extends Matrix<N>{
 
+    /* Pooled matrices have no element type until newMatrix() gives them one */
+    @SuppressWarnings("rawtypes")
+    public static final ObjectFactory<SparseMatrix> FACTORY = new ObjectFactory<SparseMatrix>() {
+
+        protected SparseMatrix create() {
+            return new SparseMatrix();
+        }
+    };
+    double relThreshold = 1.0e-3;
+    double absThreshold = 0;
+    /* Factor and solve with real arithmetic only, ignoring imaginary parts */
+    boolean realValued;
+    SparseLU lu;
+    /* Pattern given to lu, and the elements it was read from */
+    Numeric<?>[] luElements;
+    int[] luRows;
+    int[] luCols;
+    int luStructureVersion = -1;
+    double[] luRe;
+    double[] luIm;
+    double[] rhsRe;
+    double[] rhsIm;
+
+    protected SparseMatrix() {
+    }
+
+    public static <N extends Numeric<N>> SparseMatrix<N> newInstance(int size, N fill) {
+        return newInstance(size, size, fill);
+    }
+
+    public static <N extends Numeric<N>> SparseMatrix<N> newInstance(int rows, int cols, N fill) {
+        SparseMatrix<N> m = newMatrix();
+        SparseRowMatrixData<N> data = new SparseRowMatrixData<N>();
+        data.setFill(fill);
+        data.setSize(rows, cols);
+        m.data = data;
+        m.clearFactorization();
+        return m;
+    }
+
+    /**
+     * Creates a sparse matrix sharing the non-null elements of the given data.
+     */
+    public static <N extends Numeric<N>> SparseMatrix<N> newInstance(MatrixData<N> data) {
+        SparseMatrix<N> m = newInstance(data.getRowSize(), data.getColSize(), data.fill);
+        for (int i = 0; i < data.getRowSize(); i++) {
+            for (int j = 0; j < data.getColSize(); j++) {
+                N n = data.getAt(i, j);
+                if (n != null) {
+                    m.data.setAt(i, j, n);
+                }
+            }
+        }
+        return m;
+    }
+
+    public void setThresholds(double relThreshold, double absThreshold) {
+        if (relThreshold > 0 && relThreshold <= 1) {
+            this.relThreshold = relThreshold;
+        }
+        if (absThreshold >= 0) {
+            this.absThreshold = absThreshold;
+        }
+        if (lu != null) {
+            lu.setThresholds(this.relThreshold, this.absThreshold);
+        }
+    }
+
+    /**
+     * Makes factorizations ignore the imaginary part of the elements, which
+     * must then be zero, and use real arithmetic only. The pivot order of the
+     * last factorization is kept when switching.
+     */
+    public void setRealValued(boolean realValued) {
+        if (this.realValued != realValued) {
+            this.realValued = realValued;
+            factored = false;
+        }
+    }
+
+    public boolean isRealValued() {
+        return realValued;
+    }
+
+    public int getNonZeros() {
+        return sparseData().getNonZeros();
+    }
+
+    public int getRowNonZeros(int row) {
+        return row < data.getRowSize() ? sparseData().getRowNonZeros(row) : 0;
+    }
+
+    /**
+     * Column of the k-th element stored in the row.
+     */
+    public int getColIndexAt(int row, int k) {
+        return sparseData().getColIndexAt(row, k);
+    }
+
+    /**
+     * The k-th element stored in the row.
+     */
+    public N getValueAt(int row, int k) {
+        return sparseData().getValueAt(row, k);
+    }
+
+    /**
+     * Stores the element, growing the matrix if needed but never shrinking it.
+     */
+    @Override
+    public void add(int row, int col, N elem) {
+        data.setAt(row, col, elem);
+    }
+
+    /**
+     * Number of fill-ins created by the last factorization.
+     */
+    public int getFillIns() {
+        return lu == null ? 0 : lu.getNumberOfFillIns();
+    }
+
     @Override
     public int findLargestInRow(int row) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        SparseRowMatrixData<N> d = sparseData();
+        double largest = 0;
+        int index = 0;
+        for (int k = 0; k < d.getRowNonZeros(row); k++) {
+            double magnitude = d.getValueAt(row, k).abs();
+            if (magnitude > largest) {
+                largest = magnitude;
+                index = d.getColIndexAt(row, k);
+            }
+        }
+        return index;
     }
 
     @Override
     public int findLargestInCol(int col) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        double largest = 0;
+        int index = 0;
+        for (int i = 0; i < data.getRowSize(); i++) {
+            N elem = data.getAt(i, col);
+            if (elem != null && elem.abs() > largest) {
+                largest = elem.abs();
+                index = i;
+            }
+        }
+        return index;
     }
 
+    /**
+     * Factors the matrix, choosing a new pivot order. The matrix itself is not
+     * modified: factors are kept in primitive arrays, and used by
+     * {@link #solve(Numeric[], Numeric[]) solve()}.
+     */
     @Override
     public Matrix<N> factor() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        if (!isSquare()) {
+            throw new DimensionException("Matrix is not square");
+        }
+        if (lu == null || luStructureVersion != sparseData().getStructureVersion()) {
+            analyzePattern();
+        }
+        loadValues();
+        if (realValued) {
+            lu.factor(luRe);
+        } else {
+            lu.factor(luRe, luIm);
+        }
+        factored = true;
+        return this;
     }
 
-    @Override
-    public N determinant() {
-        throw new UnsupportedOperationException("Not supported yet.");
+    /**
+     * Factors the matrix reusing the pivot order and fill-in structure of the
+     * last {@link #factor()}, which must be called again if the sparsity pattern
+     * changed or a <code>SingularException</code> is thrown.
+     */
+    public Matrix<N> refactor() {
+        if (!isRefactorable()) {
+            return factor();
+        }
+        factored = false;
+        loadValues();
+        if (realValued) {
+            lu.refactor(luRe);
+        } else {
+            lu.refactor(luRe, luIm);
+        }
+        factored = true;
+        return this;
     }
-/*
-    @Override
-    public void order() {
-        throw new UnsupportedOperationException("Not supported yet.");
+
+    /**
+     * Whether {@link #refactor()} can reuse the last pivot order, which is the
+     * case until the sparsity pattern changes or a refactorization fails.
+     */
+    public boolean isRefactorable() {
+        return lu != null && lu.hasSymbolicFactorization() && luStructureVersion == sparseData().getStructureVersion();
+    }
+
+    /**
+     * Changes whenever an element is added to or removed from the matrix.
+     */
+    public int getStructureVersion() {
+        return sparseData().getStructureVersion();
     }
 
     @Override
-    public Matrix<N> orderAndFactor(double relThreshold, double absThreshold, boolean diagPivoting) throws MatrixException {
-        throw new UnsupportedOperationException("Not supported yet.");
+    public N determinant() {
+        if (!factored) {
+            factor();
+        }
+        double[] det = lu.determinant();
+        return newValue(det[0], det[1]);
     }
-*/
+
     @Override
     public boolean rowColElimination(int rowPvt, int colPvt) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        N pvtElem = getAt(rowPvt, colPvt);
+        if (pvtElem == null || pvtElem.isZero()) {
+            throw new SingularException(rowPvt, colPvt);
+        }
+        pvtElem = pvtElem.copy();
+        pvtElem.inverseEq();
+        SparseRowMatrixData<N> d = sparseData();
+        for (int i = rowPvt + 1; i < data.getRowSize(); i++) {
+            N uElem = d.getAt(i, colPvt);
+            if (uElem == null) {
+                continue;
+            }
+            uElem.timesEq(pvtElem);
+            for (int k = 0; k < d.getRowNonZeros(rowPvt); k++) {
+                int j = d.getColIndexAt(rowPvt, k);
+                if (j <= colPvt) {
+                    continue;
+                }
+                N lElem = d.getValueAt(rowPvt, k);
+                N sElem = getElementAt(i, j, true);
+                sElem.minusEq(uElem.times(lElem));
+            }
+        }
+        return true;
     }
 
     @Override
     public N[] solve(N[] rhs) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        N[] sol = Arrays.copyOf(rhs, rhs.length);
+        for (int i = 0; i < rhs.length; i++) {
+            sol[i] = rhs[i].copy();
+        }
+        solve(rhs, sol);
+        return sol;
+    }
+
+    @Override
+    public void solve(N[] rhs, N[] sol) {
+        if (!factored) {
+            throw new MatrixException("Matrix is not factored");
+        }
+        int size = lu.getSize();
+        if (rhs.length != size || sol.length != size) {
+            throw new DimensionException();
+        }
+        if (realValued) {
+            for (int i = 0; i < size; i++) {
+                rhsRe[i] = real(rhs[i]);
+            }
+            lu.solve(rhsRe, rhsRe);
+            for (int i = 0; i < size; i++) {
+                setValue(sol[i], rhsRe[i], 0);
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            rhsRe[i] = real(rhs[i]);
+            rhsIm[i] = imag(rhs[i]);
+        }
+        lu.solve(rhsRe, rhsIm, rhsRe, rhsIm);
+        for (int i = 0; i < size; i++) {
+            setValue(sol[i], rhsRe[i], rhsIm[i]);
+        }
+    }
+
+    /**
+     * Solves a real-valued system without going through element objects.
+     * Input and output arrays may be the same.
+     */
+    public void solve(double[] rhs, double[] sol) {
+        if (!factored) {
+            throw new MatrixException("Matrix is not factored");
+        }
+        if (!realValued) {
+            throw new MatrixException("Matrix is not real valued");
+        }
+        if (rhs.length != lu.getSize() || sol.length != lu.getSize()) {
+            throw new DimensionException();
+        }
+        lu.solve(rhs, sol);
     }
 
     @Override
     public Matrix<N> plus(Matrix<N> matrix) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        SparseMatrix<N> result = copy();
+        for (int i = 0; i < data.getRowSize(); i++) {
+            for (int j = 0; j < data.getColSize(); j++) {
+                N elem = matrix.getAt(i, j);
+                if (elem != null) {
+                    result.getElementAt(i, j, true).plusEq(elem);
+                }
+            }
+        }
+        return result;
     }
 
     @Override
     public Matrix<N> minus(Matrix<N> matrix) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        SparseMatrix<N> result = copy();
+        for (int i = 0; i < data.getRowSize(); i++) {
+            for (int j = 0; j < data.getColSize(); j++) {
+                N elem = matrix.getAt(i, j);
+                if (elem != null) {
+                    result.getElementAt(i, j, true).minusEq(elem);
+                }
+            }
+        }
+        return result;
     }
 
     @Override
     public Matrix<N> times(Matrix<N> matrix) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        if (data.getColSize() != matrix.getRowSize()) {
+            throw new DimensionException("This matrix's columns must equal that matrix's rows.");
+        }
+        SparseRowMatrixData<N> d = sparseData();
+        SparseMatrix<N> result = newInstance(data.getRowSize(), matrix.getColSize(), data.getFill());
+        for (int i = 0; i < data.getRowSize(); i++) {
+            for (int k = 0; k < d.getRowNonZeros(i); k++) {
+                int l = d.getColIndexAt(i, k);
+                N elem = d.getValueAt(i, k);
+                for (int j = 0; j < matrix.getColSize(); j++) {
+                    N other = matrix.getAt(l, j);
+                    if (other != null) {
+                        result.getElementAt(i, j, true).plusEq(elem.times(other));
+                    }
+                }
+            }
+        }
+        return result;
     }
 
     @Override
     public Matrix<N> transpose() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        SparseRowMatrixData<N> d = sparseData();
+        SparseMatrix<N> result = newInstance(data.getColSize(), data.getRowSize(), data.getFill());
+        for (int i = 0; i < data.getRowSize(); i++) {
+            for (int k = 0; k < d.getRowNonZeros(i); k++) {
+                result.data.setAt(d.getColIndexAt(i, k), i, d.getValueAt(i, k).copy());
+            }
+        }
+        return result;
     }
 
     @Override
-    public Matrix<N> copy() {
-        throw new UnsupportedOperationException("Not supported yet.");
+    public SparseMatrix<N> copy() {
+        SparseMatrix<N> m = newMatrix();
+        m.data = data.copy();
+        m.permutations = permutations;
+        m.relThreshold = relThreshold;
+        m.absThreshold = absThreshold;
+        m.realValued = realValued;
+        m.clearFactorization();
+        return m;
     }
 
     @Override
-    public void solve(N[] rhs, N[] sol) {
-        throw new UnsupportedOperationException("Not supported yet.");
+    public void clear() {
+        super.clear();
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        clearFactorization();
+    }
+
+    private void clearFactorization() {
+        lu = null;
+        luElements = null;
+        luStructureVersion = -1;
+        factored = false;
+    }
+
+    private SparseRowMatrixData<N> sparseData() {
+        return (SparseRowMatrixData<N>) data;
+    }
+
+    /* Pattern of the stored elements, in row order */
+    private void analyzePattern() {
+        SparseRowMatrixData<N> d = sparseData();
+        int nonZeros = d.getNonZeros();
+        luElements = new Numeric<?>[nonZeros];
+        luRows = new int[nonZeros];
+        luCols = new int[nonZeros];
+        int e = 0;
+        for (int i = 0; i < d.getRowSize(); i++) {
+            for (int k = 0; k < d.getRowNonZeros(i); k++) {
+                luElements[e] = d.getValueAt(i, k);
+                luRows[e] = i;
+                luCols[e] = d.getColIndexAt(i, k);
+                e++;
+            }
+        }
+        lu = new SparseLU(d.getRowSize(), luRows, luCols);
+        lu.setThresholds(relThreshold, absThreshold);
+        luRe = new double[nonZeros];
+        luIm = new double[nonZeros];
+        rhsRe = new double[d.getRowSize()];
+        rhsIm = new double[d.getRowSize()];
+        luStructureVersion = d.getStructureVersion();
+    }
+
+    private void loadValues() {
+        if (realValued) {
+            for (int e = 0; e < luElements.length; e++) {
+                luRe[e] = real(luElements[e]);
+            }
+            return;
+        }
+        for (int e = 0; e < luElements.length; e++) {
+            luRe[e] = real(luElements[e]);
+            luIm[e] = imag(luElements[e]);
+        }
+    }
+
+    private static double real(Numeric<?> n) {
+        if (n instanceof Complex) {
+            return ((Complex) n).getReal();
+        } else if (n instanceof Real) {
+            return ((Real) n).get();
+        }
+        throw new UnsupportedOperationException("Only complex and real elements are supported");
+    }
+
+    private static double imag(Numeric<?> n) {
+        return n instanceof Complex ? ((Complex) n).getImag() : 0;
+    }
+
+    private static void setValue(Numeric<?> n, double re, double im) {
+        if (n instanceof Complex) {
+            ((Complex) n).set(re, im);
+        } else if (n instanceof Real) {
+            ((Real) n).set(re);
+        } else {
+            throw new UnsupportedOperationException("Only complex and real elements are supported");
+        }
+    }
+
+    /* The pool is untyped, but a new or recycled matrix holds no elements yet */
+    @SuppressWarnings("unchecked")
+    private static <N extends Numeric<N>> SparseMatrix<N> newMatrix() {
+        return FACTORY.object();
+    }
+
+    private N newValue(double re, double im) {
+        N n = data.getFill().copy();
+        setValue(n, re, im);
+        return n;
+    }
 }
@@ -0,0 +1,238 @@
+/*
+ * SparseRowMatrixData.java
+ *
+ * To change this template, choose Tools | Template Manager
+ * and open the template in the editor.
+ */
+package com.tejas.math.matrix;
+
+import java.util.Arrays;
+
+import com.tejas.math.numbers.Numeric;
+
+/**
+ * Sparse storage keeping, for each row, the stored elements sorted by column.
+ * Only the elements explicitly set are stored, so that memory is proportional
+ * to the number of non-zeros.
+ *
+ * @param N
+ * @author Kristopher T. Beck
+ */
+public class SparseRowMatrixData<N extends Numeric<N>> extends SparseMatrixData<N> {
+
+    private static final int[] EMPTY_INDEXES = new int[0];
+    int[][] colIndexes = new int[0][];
+    N[][] values = newValues(0);
+    int[] rowCounts = new int[0];
+    int nonZeros;
+    /* Incremented whenever the set of stored positions changes */
+    int structureVersion;
+
+    public SparseRowMatrixData() {
+    }
+
+    public void clear() {
+        for (int i = 0; i < rows; i++) {
+            for (int k = 0; k < rowCounts[i]; k++) {
+                values[i][k].setZero();
+            }
+        }
+    }
+
+    public void reset() {
+        colIndexes = new int[0][];
+        values = newValues(0);
+        rowCounts = new int[0];
+        rows = 0;
+        cols = 0;
+        nonZeros = 0;
+        structureVersion++;
+    }
+
+    public N getAt(int row, int col) {
+        if (row >= rows) {
+            return null;
+        }
+        int k = find(row, col);
+        return k < 0 ? null : values[row][k];
+    }
+
+    public void setAt(int row, int col, N elem) {
+        if (fill == null && elem != null) {
+            fill = elem.copy();
+            fill.setZero();
+        }
+        if (elem == null) {
+            remove(row, col);
+            return;
+        }
+        if (row >= rows || col >= cols) {
+            setSize(Math.max(row + 1, rows), Math.max(col + 1, cols));
+        }
+        int k = find(row, col);
+        if (k >= 0) {
+            values[row][k] = elem;
+        } else {
+            insert(row, -k - 1, col, elem);
+        }
+    }
+
+    @Override
+    public void add(int row, int col, N elem) {
+        setAt(row, col, elem);
+    }
+
+    @Override
+    public void remove(int row, int col) {
+        if (row >= rows) {
+            return;
+        }
+        int k = find(row, col);
+        if (k < 0) {
+            return;
+        }
+        int count = rowCounts[row];
+        System.arraycopy(colIndexes[row], k + 1, colIndexes[row], k, count - k - 1);
+        System.arraycopy(values[row], k + 1, values[row], k, count - k - 1);
+        values[row][count - 1] = null;
+        rowCounts[row]--;
+        nonZeros--;
+        structureVersion++;
+    }
+
+    public void setSize(int rows, int cols) {
+        if (rows != this.rows) {
+            for (int i = rows; i < this.rows; i++) {
+                nonZeros -= rowCounts[i];
+            }
+            colIndexes = Arrays.copyOf(colIndexes, rows);
+            values = Arrays.copyOf(values, rows);
+            rowCounts = Arrays.copyOf(rowCounts, rows);
+            for (int i = this.rows; i < rows; i++) {
+                colIndexes[i] = EMPTY_INDEXES;
+                values[i] = newRow(0);
+            }
+            structureVersion++;
+        }
+        if (cols < this.cols) {
+            for (int i = 0; i < rows; i++) {
+                while (rowCounts[i] > 0 && colIndexes[i][rowCounts[i] - 1] >= cols) {
+                    values[i][--rowCounts[i]] = null;
+                    nonZeros--;
+                }
+            }
+            structureVersion++;
+        }
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    public void setSize(int size) {
+        setSize(size, size);
+    }
+
+    public int getNonZeros() {
+        return nonZeros;
+    }
+
+    public int getRowNonZeros(int row) {
+        return rowCounts[row];
+    }
+
+    public int getColIndexAt(int row, int k) {
+        return colIndexes[row][k];
+    }
+
+    public N getValueAt(int row, int k) {
+        return values[row][k];
+    }
+
+    public int getStructureVersion() {
+        return structureVersion;
+    }
+
+    public MatrixData<N> copy() {
+        SparseRowMatrixData<N> data = new SparseRowMatrixData<N>();
+        data.rows = rows;
+        data.cols = cols;
+        data.fill = fill;
+        data.nonZeros = nonZeros;
+        data.rowCounts = Arrays.copyOf(rowCounts, rows);
+        data.colIndexes = new int[rows][];
+        data.values = data.newValues(rows);
+        for (int i = 0; i < rows; i++) {
+            data.colIndexes[i] = Arrays.copyOf(colIndexes[i], rowCounts[i]);
+            data.values[i] = data.newRow(rowCounts[i]);
+            for (int k = 0; k < rowCounts[i]; k++) {
+                data.values[i][k] = values[i][k].copy();
+            }
+        }
+        return data;
+    }
+
+    @Override
+    public void swapRows(int row1, int row2) {
+        int[] tmpIndexes = colIndexes[row1];
+        colIndexes[row1] = colIndexes[row2];
+        colIndexes[row2] = tmpIndexes;
+        N[] tmpValues = values[row1];
+        values[row1] = values[row2];
+        values[row2] = tmpValues;
+        int tmpCount = rowCounts[row1];
+        rowCounts[row1] = rowCounts[row2];
+        rowCounts[row2] = tmpCount;
+        structureVersion++;
+    }
+
+    @Override
+    public void swapCols(int col1, int col2) {
+        for (int i = 0; i < rows; i++) {
+            N elem1 = getAt(i, col1);
+            N elem2 = getAt(i, col2);
+            if (elem1 == null && elem2 == null) {
+                continue;
+            }
+            remove(i, col1);
+            remove(i, col2);
+            if (elem2 != null) {
+                setAt(i, col1, elem2);
+            }
+            if (elem1 != null) {
+                setAt(i, col2, elem1);
+            }
+        }
+        structureVersion++;
+    }
+
+    /* N erases to Numeric, so arrays of Numeric can hold any N (they never leave this class) */
+    @SuppressWarnings("unchecked")
+    private N[][] newValues(int rows) {
+        return (N[][]) new Numeric<?>[rows][];
+    }
+
+    @SuppressWarnings("unchecked")
+    private N[] newRow(int length) {
+        return (N[]) new Numeric<?>[length];
+    }
+
+    /* Position of the column in the row, or (-(insertion point) - 1) if missing */
+    private int find(int row, int col) {
+        return Arrays.binarySearch(colIndexes[row], 0, rowCounts[row], col);
+    }
+
+    private void insert(int row, int k, int col, N elem) {
+        int count = rowCounts[row];
+        if (count == colIndexes[row].length) {
+            int capacity = Math.max(4, 2 * count);
+            colIndexes[row] = Arrays.copyOf(colIndexes[row], capacity);
+            values[row] = Arrays.copyOf(values[row], capacity);
+        }
+        System.arraycopy(colIndexes[row], k, colIndexes[row], k + 1, count - k);
+        System.arraycopy(values[row], k, values[row], k + 1, count - k);
+        colIndexes[row][k] = col;
+        values[row][k] = elem;
+        rowCounts[row]++;
+        nonZeros++;
+        structureVersion++;
+    }
+}
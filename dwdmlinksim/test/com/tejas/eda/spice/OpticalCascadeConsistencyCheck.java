@@ -0,0 +1,123 @@
+/*
+ * OpticalCascadeConsistencyCheck.java
+ *
+ * To change this template, choose Tools | Template Manager
+ * and open the template in the editor.
+ */
+package com.tejas.eda.spice;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.tejas.eda.spice.analysis.optical.OpticalCascade;
+import com.tejas.eda.spice.parse.OpticalDeck;
+import com.tejas.eda.spice.parse.ParserException;
+
+/**
+ * <p>Simulates optical decks with CascadeEnabled=false (network matrix) and
+ * CascadeEnabled=true (single pass over the stages of a chain, see
+ * {@link OpticalCascade}), and checks that both give the same power, noise
+ * and dispersion at every node. Decks which are not a chain are solved by the
+ * matrix in both runs, which checks the fallback.</p>
+ *
+ * <p>Usage: <code>java com.tejas.eda.spice.OpticalCascadeConsistencyCheck [deck1.cir deck2.cir ...]</code></p>
+ *
+ * <p>By default, linear-dwdm.cir and midfed-dwdm.cir (fed in the middle of the
+ * link, so not a chain) in dwdmlinksim/test, and the last route deck written
+ * to cirFiles, are evaluated (paths relative to the working directory). The
+ * exit status is 1 if any value differs by more than a relative tolerance of
+ * 1E-9. The time of both runs is printed for reference.</p>
+ *
+ * @author Kristopher T. Beck
+ */
+public class OpticalCascadeConsistencyCheck {
+
+	private final static double TOLERANCE = 1E-9;
+
+	public static void main(String[] args) throws Exception {
+		String[] decks = args.length > 0 ? args : new String[] {
+				"dwdmlinksim/test/linear-dwdm.cir",
+				"dwdmlinksim/test/midfed-dwdm.cir",
+				"cirFiles/outputfile_linear_dwdm.cir" };
+
+		System.out.println(String.format(Locale.ENGLISH, "%-40s %6s %6s %14s %14s %10s",
+				"Deck", "Nodes", "Chain", "Matrix (ms)", "Cascade (ms)", "Result"));
+
+		int numMismatches = 0;
+		for (String deck : decks) {
+			simulate(deck, false); // warm-up
+			long start = System.nanoTime();
+			Network matrix = simulate(deck, false);
+			double matrixTime = (System.nanoTime() - start) / 1E6;
+
+			start = System.nanoTime();
+			Network cascade = simulate(deck, true);
+			double cascadeTime = (System.nanoTime() - start) / 1E6;
+
+			boolean isChain = new OpticalCascade().build(cascade, cascade.wrk.getSize());
+			int mismatches = compare(deck, "power", matrix.powerMap, cascade.powerMap)
+					+ compare(deck, "noise", matrix.noiseMap, cascade.noiseMap)
+					+ compare(deck, "dispersion", matrix.dispersionMap, cascade.dispersionMap);
+			numMismatches += mismatches;
+
+			System.out.println(String.format(Locale.ENGLISH, "%-40s %6d %6s %14.3f %14.3f %10s",
+					new File(deck).getName(), matrix.powerMap.size(), isChain ? "yes" : "no",
+					matrixTime, cascadeTime, mismatches == 0 ? "OK" : mismatches + " diff"));
+		}
+
+		if (numMismatches > 0) {
+			System.out.println("Cascade and matrix results differ");
+			System.exit(1);
+		}
+	}
+
+	/* Simulates a deck, without its console output, and returns its network */
+	private static Network simulate(String deck, boolean cascadeEnabled) throws ParserException {
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+		}));
+		try {
+			OpticalSimulator.resetSimulator();
+			OpticalSimulator sim = OpticalSimulator.getSimulator();
+			OpticalDeck opticalDeck = sim.parseFile(new File(deck));
+			sim.assembleDeck(opticalDeck);
+			sim.nwk.getEnv().setCascadeEnabled(cascadeEnabled);
+			sim.run();
+			return sim.nwk;
+		} finally {
+			System.setOut(out);
+		}
+	}
+
+	/* Prints and counts the nodes whose values differ in both maps */
+	private static int compare(String deck, String mode, Map<?, ?> expected, Map<?, ?> actual) {
+		int mismatches = 0;
+		TreeSet<Object> keys = new TreeSet<Object>(expected.keySet());
+		keys.addAll(actual.keySet());
+		for (Object key : keys) {
+			Object expectedValue = expected.get(key);
+			Object actualValue = actual.get(key);
+			if (expectedValue == null || actualValue == null
+					|| !agree(((Number) expectedValue).doubleValue(), ((Number) actualValue).doubleValue())) {
+				System.out.println(String.format(Locale.ENGLISH, "%s: %s at node %s differs (matrix %s, cascade %s)",
+						deck, mode, key, expectedValue, actualValue));
+				mismatches++;
+			}
+		}
+		return mismatches;
+	}
+
+	private static boolean agree(double expected, double actual) {
+		if (Double.isNaN(expected) || Double.isNaN(actual)) {
+			return Double.isNaN(expected) && Double.isNaN(actual);
+		}
+		return Math.abs(expected - actual) <= TOLERANCE * Math.max(Math.abs(expected), Math.abs(actual));
+	}
+}
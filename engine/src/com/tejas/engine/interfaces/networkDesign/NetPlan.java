@@ -12,11 +12,14 @@
 package com.tejas.engine.interfaces.networkDesign;
 
 import cern.colt.list.tint.IntArrayList;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tint.IntFactory1D;
+import cern.colt.matrix.tint.IntMatrix1D;
 
 import com.tejas.engine.interfaces.networkDesign.Configuration;
 import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
 import com.tejas.engine.internal.NetState;
+import com.tejas.engine.internal.NetworkElement;
 import com.tejas.engine.internal.NetworkElement.Demand;
 import com.tejas.engine.internal.NetworkElement.Link;
 import com.tejas.engine.internal.NetworkElement.Network;
@@ -25,6 +28,8 @@ import com.tejas.engine.internal.NetworkElement.PathElement;
 import com.tejas.engine.internal.NetworkElement.Route;
 import com.tejas.engine.internal.NetworkElement.SRG;
 import com.tejas.engine.internal.NetworkElement.Segment;
+import com.tejas.engine.internal.ReadOnlyDoubleMatrix1D;
+import com.tejas.engine.internal.ReadOnlyIntMatrix1D;
 import com.tejas.engine.libraries.CandidatePathList;
 import com.tejas.engine.libraries.GraphUtils;
 import com.tejas.engine.utils.Constants;
@@ -36,6 +41,8 @@ import java.awt.geom.Point2D;
 import java.io.*;
 import java.util.Map.Entry;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.*;
@@ -65,6 +72,13 @@ public final class NetPlan extends NetState
 	private List<Segment> segments;
 	private List<SRG> srgs;
 	private Network networkElement;
+	private AtomicReference<Columns> columns;
+	private AtomicInteger sharedElements;
+
+	/* Parts of the plan whose elements may be shared with copies (see copySharedElements) */
+	private final static int SHARED_GRAPH = 1;
+	private final static int SHARED_SRGS = 2;
+	private final static int SHARED_ALL = 3;
 
 	/**
 	 * Returns the identifier of the ingress node of the route.
@@ -205,11 +219,17 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodePairRoutes(int node1, int node2)
 	{
-		Set<Integer> routeSet = new TreeSet<Integer>();
-		routeSet.addAll(IntUtils.toList(getNodeOutgoingRoutes(node1)));
-		routeSet.retainAll(IntUtils.toList(getNodeIncomingRoutes(node2)));
+		Node egressNode = getNode(node2);
 
-		return IntUtils.toArray(routeSet);
+		List<Route> routeList = new ArrayList<Route>();
+		for(Demand demand : getNode(node1).outgoingDemands)
+			if (demand.egressNode == egressNode)
+				routeList.addAll(demand.routes);
+
+		int[] routeIds = toIdArray(routeList);
+		Arrays.sort(routeIds);
+
+		return routeIds;
 	}
 
 	/**
@@ -238,11 +258,14 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodePairLinks(int node1, int node2)
 	{
-		Set<Integer> linkSet = new TreeSet<Integer>();
-		linkSet.addAll(IntUtils.toList(getNodeOutgoingLinks(node1)));
-		linkSet.retainAll(IntUtils.toList(getNodeIncomingLinks(node2)));
+		Node destinationNode = getNode(node2);
 
-		return IntUtils.toArray(linkSet);
+		List<Link> linkList = new ArrayList<Link>();
+		for(Link link : getNode(node1).outgoingLinks)
+			if (link.destinationNode == destinationNode)
+				linkList.add(link);
+
+		return toIdArray(linkList);
 	}
 
 	/**
@@ -344,19 +367,12 @@ public final class NetPlan extends NetState
 	 */
 	public boolean[] getProtectionSegmentIsDedicatedVector()
 	{
-		int R = getNumberOfRoutes();
 		int S = getNumberOfProtectionSegments();
 
-		int[] counter = new int[S];
-
-		for(int routeId = 0; routeId < R; routeId++)
-			for(int segmentId : getRouteBackupSegmentList(routeId))
-				counter[segmentId]++;
-
 		boolean[] isDedicated = new boolean[S];
 		for(int segmentId = 0; segmentId < S; segmentId++)
 		{
-			isDedicated[segmentId] = counter[segmentId] == 1 ? true : false;
+			isDedicated[segmentId] = isDedicated(getSegment(segmentId));
 		}
 
 		return isDedicated;
@@ -371,18 +387,16 @@ public final class NetPlan extends NetState
 	 */
 	public boolean getProtectionSegmentIsDedicated(int segmentId)
 	{
-		int R = getNumberOfRoutes();
+		return isDedicated(getSegment(segmentId));
+	}
 
-		int counter = 0;
-		for(int routeId = 0; routeId < R; routeId++)
-		{
-			int[] segmentIds_thisRoute = getRouteBackupSegmentList(routeId);
-			if (IntUtils.contains(segmentIds_thisRoute, segmentId))
-			{
-				counter++;
-				if (counter > 1) return false;
-			}
-		}
+	/* A segment is dedicated if it is not shared by different routes (a route may be listed more than once) */
+	private static boolean isDedicated(Segment segment)
+	{
+		List<Route> segmentRoutes = segment.routes;
+		for(Route route : segmentRoutes)
+			if (route != segmentRoutes.get(0))
+				return false;
 
 		return true;
 	}
@@ -455,11 +469,15 @@ public final class NetPlan extends NetState
 	public double[] getLinkUtilizationVector()
 	{
 		int E = getNumberOfLinks();
+		double[] u_e = getLinkCapacityInErlangsVector();
+		double[] y_e = getLinkCarriedTrafficInErlangsVector();
+		double[] r_e = getLinkCapacityReservedForProtectionInErlangsVector();
 		double[] p_e = new double[E];
 
 		for(int linkId = 0; linkId < E; linkId++)
 		{
-			p_e[linkId] = getLinkUtilization(linkId);
+			p_e[linkId] = (y_e[linkId] + r_e[linkId]) / u_e[linkId];
+			if (Double.isNaN(p_e[linkId])) p_e[linkId] = 0;
 		}
 
 		return p_e;
@@ -475,11 +493,13 @@ public final class NetPlan extends NetState
 	public double[] getLinkUtilizationWithoutConsiderReservedBandwidthForProtectionVector()
 	{
 		int E = getNumberOfLinks();
+		double[] u_e = getLinkCapacityInErlangsVector();
+		double[] y_e = getLinkCarriedTrafficInErlangsVector();
 		double[] p_e = new double[E];
 
 		for(int linkId = 0; linkId < E; linkId++)
 		{
-			p_e[linkId] = getLinkUtilizationWithoutConsiderReservedBandwidthForProtection(linkId);
+			p_e[linkId] = y_e[linkId] == 0 ? 0 : y_e[linkId] / u_e[linkId];
 		}
 
 		return p_e;
@@ -497,6 +517,8 @@ public final class NetPlan extends NetState
 		newNetPlan.routes = routes;
 		newNetPlan.segments = segments;
 		newNetPlan.srgs = srgs;
+		newNetPlan.columns = columns;
+		newNetPlan.sharedElements = sharedElements;
 
 		return newNetPlan;
 	}
@@ -511,11 +533,14 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodePairDemands(int ingressNode, int egressNode)
 	{
-		Set<Integer> demandSet = new TreeSet<Integer>();
-		demandSet.addAll(IntUtils.toList(getNodeOutgoingDemands(ingressNode)));
-		demandSet.retainAll(IntUtils.toList(getNodeIncomingDemands(egressNode)));
+		Node node2 = getNode(egressNode);
 
-		return IntUtils.toArray(demandSet);
+		List<Demand> demandList = new ArrayList<Demand>();
+		for(Demand demand : getNode(ingressNode).outgoingDemands)
+			if (demand.egressNode == node2)
+				demandList.add(demand);
+
+		return toIdArray(demandList);
 	}
 
 	/**
@@ -567,16 +592,19 @@ public final class NetPlan extends NetState
 	public double[] getLinkCarriedTrafficInErlangsVector()
 	{
 		int E = getNumberOfLinks();
-		int R = getNumberOfRoutes();
+		double[] x_p = getRouteCarriedTrafficColumn();
+		int[][] routeLinks = getRouteLinksColumn();
+		int[] offsets = routeLinks[0];
+		int[] linkIds = routeLinks[1];
+		int R = x_p.length;
 
 		double[] y_e = new double[E];
 
 		for (int routeId = 0; routeId < R; routeId++)
 		{
-			int[] sequenceOfLinks = getRouteSequenceOfLinks(routeId);
-			for (int linkId : sequenceOfLinks)
+			for (int i = offsets[routeId]; i < offsets[routeId + 1]; i++)
 			{
-				y_e[linkId] += getRouteCarriedTrafficInErlangs(routeId);
+				y_e[linkIds[i]] += x_p[routeId];
 			}
 		}
 
@@ -610,14 +638,15 @@ public final class NetPlan extends NetState
 	public double[] getDemandCarriedTrafficInErlangsVector()
 	{
 		int D = getNumberOfDemands();
-		int R = getNumberOfRoutes();
+		int[] d_p = getRouteDemandColumn();
+		double[] x_p = getRouteCarriedTrafficColumn();
+		int R = x_p.length;
 
 		double[] carriedTraffic = new double[D];
 
 		for (int routeId = 0; routeId < R; routeId++)
 		{
-			int demandId = getRouteDemand(routeId);
-			carriedTraffic[demandId] += getRouteCarriedTrafficInErlangs(routeId);
+			carriedTraffic[d_p[routeId]] += x_p[routeId];
 		}
 
 		return carriedTraffic;
@@ -632,14 +661,17 @@ public final class NetPlan extends NetState
 	public double[] getNodeEgressTrafficInErlangsVector()
 	{
 		int N = getNumberOfNodes();
-		int R = getNumberOfRoutes();
+		double[] x_p = getRouteCarriedTrafficColumn();
+		int[][] routeLinks = getRouteLinksColumn();
+		int[] linkDestinationNode = getLinkDestinationNodeColumn();
+		int R = x_p.length;
 
 		double[] egressTraffic = new double[N];
 		for (int routeId = 0; routeId < R; routeId++)
 		{
-			int[] sequenceOfNodes = getRouteSequenceOfNodes(routeId);
+			int lastLinkId = routeLinks[1][routeLinks[0][routeId + 1] - 1];
 
-			egressTraffic[sequenceOfNodes[sequenceOfNodes.length - 1]] += getRouteCarriedTrafficInErlangs(routeId);
+			egressTraffic[linkDestinationNode[lastLinkId]] += x_p[routeId];
 		}
 
 		return egressTraffic;
@@ -654,14 +686,17 @@ public final class NetPlan extends NetState
 	public double[] getNodeIngressTrafficInErlangsVector()
 	{
 		int N = getNumberOfNodes();
-		int R = getNumberOfRoutes();
+		double[] x_p = getRouteCarriedTrafficColumn();
+		int[][] routeLinks = getRouteLinksColumn();
+		int[] linkOriginNode = getLinkOriginNodeColumn();
+		int R = x_p.length;
 
 		double[] ingressTraffic = new double[N];
 		for (int routeId = 0; routeId < R; routeId++)
 		{
-			int[] sequenceOfNodes = getRouteSequenceOfNodes(routeId);
+			int firstLinkId = routeLinks[1][routeLinks[0][routeId]];
 
-			ingressTraffic[sequenceOfNodes[0]] += getRouteCarriedTrafficInErlangs(routeId);
+			ingressTraffic[linkOriginNode[firstLinkId]] += x_p[routeId];
 		}
 
 		return ingressTraffic;
@@ -676,17 +711,21 @@ public final class NetPlan extends NetState
 	public double[] getNodeTraversingTrafficInErlangsVector()
 	{
 		int N = getNumberOfNodes();
-		int R = getNumberOfRoutes();
+		double[] x_p = getRouteCarriedTrafficColumn();
+		int[][] routeLinks = getRouteLinksColumn();
+		int[] offsets = routeLinks[0];
+		int[] linkIds = routeLinks[1];
+		int[] linkDestinationNode = getLinkDestinationNodeColumn();
+		int R = x_p.length;
 
 		double[] traversingTraffic = new double[N];
 		for (int routeId = 0; routeId < R; routeId++)
 		{
-			int[] sequenceOfNodes = getRouteSequenceOfNodes(routeId);
-			double carriedTraffic = getRouteCarriedTrafficInErlangs(routeId);
+			double carriedTraffic = x_p[routeId];
 
-			for (int seqId = 1; seqId < sequenceOfNodes.length - 1; seqId++)
+			for (int i = offsets[routeId]; i < offsets[routeId + 1] - 1; i++)
 			{
-				traversingTraffic[sequenceOfNodes[seqId]] += carriedTraffic;
+				traversingTraffic[linkDestinationNode[linkIds[i]]] += carriedTraffic;
 			}
 		}
 
@@ -701,6 +740,9 @@ public final class NetPlan extends NetState
 	@Override
 	public void reset()
 	{
+		/* Current elements are discarded, so there is no need to copy them */
+		if (isModifiable) sharedElements.set(0);
+
 		checkIsModifiable();
 
 		nodes.clear();
@@ -709,6 +751,7 @@ public final class NetPlan extends NetState
 		routes.clear();
 		segments.clear();
 		srgs.clear();
+		columns.set(new Columns());
 
 		networkElement.name = "";
 		networkElement.description = "";
@@ -730,6 +773,17 @@ public final class NetPlan extends NetState
 		links.clear();
 		routes.clear();
 		segments.clear();
+		columns.get().clearLinks();
+		columns.get().clearRoutes();
+
+		for(Node node : nodes)
+		{
+			node.outgoingLinks.clear();
+			node.incomingLinks.clear();
+		}
+
+		for(Demand demand : demands)
+			demand.routes.clear();
 
 		for(SRG srg : srgs)
 			srg.links.clear();
@@ -752,6 +806,7 @@ public final class NetPlan extends NetState
 		demands.clear();
 		routes.clear();
 		segments.clear();
+		columns.set(new Columns());
 
 		for(SRG srg : srgs)
 			srg.nodes.clear();
@@ -779,6 +834,9 @@ public final class NetPlan extends NetState
 		}
 
 		segments.clear();
+
+		for(Link link : links)
+			link.traversingSegments.clear();
 	}
 
 	/**
@@ -827,6 +885,8 @@ public final class NetPlan extends NetState
 		srgs = new ArrayList<SRG>();
 
 		networkElement = new Network();
+		columns = new AtomicReference<Columns>(new Columns());
+		sharedElements = new AtomicInteger(0);
 
 		isModifiable = true;
 
@@ -1256,7 +1316,13 @@ public final class NetPlan extends NetState
 	}
 
 	/**
-	 * Returns a deep copy of the current design.
+	 * <p>Returns a deep copy of the current design.</p>
+	 * 
+	 * <p>The copy is made in a copy-on-write fashion: both network plans share
+	 * the same nodes, links, demands, routes, protection segments and SRGs until
+	 * any of them is modified for the first time. Then, the modified one makes
+	 * its own copy of the elements before applying the change. Therefore, the cost of
+	 * the copy is only paid by network plans that are actually modified.</p>
 	 * 
 	 * @return Deep copy of the current design
 	 * @since 0.2.0
@@ -1271,58 +1337,226 @@ public final class NetPlan extends NetState
 	}
 
 	/**
-	 * Removes all the current information from the <code>NetPlan</code> object and copy the 
-	 * information from the input <code>NetPlan</code>.
+	 * Makes a private copy of the elements shared with other network plans 
+	 * (see {@link #copy()}) before they are modified. Element lists are 
+	 * updated in-place, so that unmodifiable views keep tracking this 
+	 * network plan.
 	 * 
-	 * @param netPlan Network plan to be copied
 	 * @since 0.2.3
 	 */
-	public void copyFrom(NetPlan netPlan)
+	@Override
+	protected void beforeModification()
 	{
-		if (netPlan == this) return;
+		copySharedElements(SHARED_ALL);
+	}
 
-		checkIsModifiable();
-		reset();
+	/* Like checkIsModifiable(), but only copies the given shared elements (SHARED_* flags) */
+	private void checkIsModifiable(int elements)
+	{
+		if (!isModifiable) throw new UnsupportedOperationException(UNMODIFIABLE_EXCEPTION_STRING);
 
-		setNetworkAttributes(netPlan.getNetworkAttributes());
-		setNetworkDescription(netPlan.getNetworkDescription());
-		setNetworkName(netPlan.getNetworkName());
+		copySharedElements(elements);
+	}
 
-		int N = netPlan.getNumberOfNodes();
-		int E = netPlan.getNumberOfLinks();
-		int D = netPlan.getNumberOfDemands();
-		int R = netPlan.getNumberOfRoutes();
-		int S = netPlan.getNumberOfProtectionSegments();
-		int numSRGs = netPlan.getNumberOfSRGs();
+	/*
+	 * Nodes, links, demands, routes and protection segments refer to each 
+	 * other, so they are copied together. SRGs only refer to nodes and links,
+	 * so they are copied on their own when only SRGs are modified, and 
+	 * re-pointed (or copied, if still shared) when the rest is copied
+	 */
+	private void copySharedElements(int elements)
+	{
+		boolean copyGraph = unshareElements(elements & SHARED_GRAPH);
+		boolean copySRGs = unshareElements(copyGraph ? SHARED_SRGS : elements & SHARED_SRGS);
 
-		// Copy node information
-		for (int nodeId = 0; nodeId < N; nodeId++)
-			addNode(netPlan.getNodeXYPosition(nodeId)[0], netPlan.getNodeXYPosition(nodeId)[1], netPlan.getNodeName(nodeId), netPlan.getNodeSpecificAttributes(nodeId));
+		if (copyGraph) copyGraph();
 
-		// Copy link information
-		for (int linkId = 0; linkId < E; linkId++)
-			addLink(netPlan.getLinkOriginNode(linkId), netPlan.getLinkDestinationNode(linkId), netPlan.getLinkCapacityInErlangs(linkId), netPlan.getLinkLengthInKm(linkId), netPlan.getSubLink(linkId),netPlan.getLinkSpecificAttributes(linkId));
+		if (copySRGs)
+		{
+			for (ListIterator<SRG> it = srgs.listIterator(); it.hasNext(); )
+			{
+				SRG srg = it.next();
+				SRG newSRG = new SRG();
+				newSRG.index = srg.index;
+				newSRG.mttf = srg.mttf;
+				newSRG.mttr = srg.mttr;
+				newSRG.nodes = new HashSet<Node>();
+				newSRG.links = new HashSet<Link>();
+				for (Node node : srg.nodes) newSRG.nodes.add(nodes.get(node.index));
+				for (Link link : srg.links) newSRG.links.add(links.get(link.index));
+				newSRG.shareAttributes(srg);
+				it.set(newSRG);
+			}
+		}
+		else if (copyGraph)
+		{
+			for (SRG srg : srgs)
+			{
+				Set<Node> srgNodes = new HashSet<Node>();
+				Set<Link> srgLinks = new HashSet<Link>();
+				for (Node node : srg.nodes) srgNodes.add(nodes.get(node.index));
+				for (Link link : srg.links) srgLinks.add(links.get(link.index));
+				srg.nodes = srgNodes;
+				srg.links = srgLinks;
+			}
+		}
+	}
 
-		// Copy demand information
-		for (int demandId = 0; demandId < D; demandId++)
-			addDemand(netPlan.getDemandIngressNode(demandId), netPlan.getDemandEgressNode(demandId), netPlan.getDemandOfferedTrafficInErlangs(demandId), netPlan.getDemandSpecificAttributes(demandId));
+	/* Clears the given shared flags, returning whether any of them was set */
+	private boolean unshareElements(int elements)
+	{
+		int current;
+		do
+		{
+			current = sharedElements.get();
+			if ((current & elements) == 0) return false;
+		} while (!sharedElements.compareAndSet(current, current & ~elements));
 
-		// Copy segment information
-		for (int segmentId = 0; segmentId < S; segmentId++)
-			addProtectionSegment(netPlan.getProtectionSegmentSequenceOfLinks(segmentId), netPlan.getProtectionSegmentReservedBandwidthInErlangs(segmentId), netPlan.getProtectionSegmentSpecificAttributes(segmentId));
+		return true;
+	}
 
-		// Copy route information
-		for (int routeId = 0; routeId < R; routeId++)
+	private void copyGraph()
+	{
+		/* Link capacities and lengths, offered and carried traffic may have been updated in the columns only (see setLinkCapacityInErlangs) */
+		Columns c = columns.get();
+		double[] u_e = c.linkCapacityInErlangs;
+		double[] l_e = c.linkLengthInKm;
+		double[] h_d = c.demandOfferedTrafficInErlangs;
+		double[] x_p = c.routeCarriedTrafficInErlangs;
+
+		/* First, replace each element by a copy whose references still point to old elements. Attribute maps are shared until modified */
+		for (ListIterator<Node> it = nodes.listIterator(); it.hasNext(); )
+		{
+			Node node = it.next();
+			Node newNode = new Node();
+			newNode.index = node.index;
+			newNode.name = node.name;
+			newNode.position = new Point2D.Double(node.position.getX(), node.position.getY());
+			newNode.outgoingLinks.addAll(node.outgoingLinks);
+			newNode.incomingLinks.addAll(node.incomingLinks);
+			newNode.outgoingDemands.addAll(node.outgoingDemands);
+			newNode.incomingDemands.addAll(node.incomingDemands);
+			newNode.shareAttributes(node);
+			it.set(newNode);
+		}
+
+		for (ListIterator<Link> it = links.listIterator(); it.hasNext(); )
+		{
+			Link link = it.next();
+			Link newLink = new Link(link.originNode, link.destinationNode);
+			newLink.index = link.index;
+			newLink.linkCapacityInErlangs = u_e == null ? link.linkCapacityInErlangs : u_e[link.index];
+			newLink.linkLengthInKm = l_e == null ? link.linkLengthInKm : l_e[link.index];
+			newLink.sublink = link.sublink;
+			newLink.traversingRoutes.addAll(link.traversingRoutes);
+			newLink.traversingSegments.addAll(link.traversingSegments);
+			newLink.shareAttributes(link);
+			it.set(newLink);
+		}
+
+		for (ListIterator<Demand> it = demands.listIterator(); it.hasNext(); )
+		{
+			Demand demand = it.next();
+			Demand newDemand = new Demand(demand.ingressNode, demand.egressNode);
+			newDemand.index = demand.index;
+			newDemand.offeredTrafficInErlangs = h_d == null ? demand.offeredTrafficInErlangs : h_d[demand.index];
+			newDemand.routes.addAll(demand.routes);
+			newDemand.shareAttributes(demand);
+			it.set(newDemand);
+		}
+
+		for (ListIterator<Segment> it = segments.listIterator(); it.hasNext(); )
+		{
+			Segment segment = it.next();
+			Segment newSegment = new Segment(new ArrayList<Link>(segment.route), segment.reservedBandwithInErlangs);
+			newSegment.index = segment.index;
+			newSegment.routes.addAll(segment.routes);
+			newSegment.shareAttributes(segment);
+			it.set(newSegment);
+		}
+
+		for (ListIterator<Route> it = routes.listIterator(); it.hasNext(); )
+		{
+			Route route = it.next();
+			Route newRoute = new Route(route.demand, new ArrayList<Link>(route.plannedRoute), x_p == null ? route.carriedTrafficInErlangs : x_p[route.index]);
+			newRoute.index = route.index;
+			newRoute.backupSegments.addAll(route.backupSegments);
+			newRoute.shareAttributes(route);
+			it.set(newRoute);
+		}
+
+		/* Then, make references point to the new elements */
+		for (Node node : nodes)
 		{
-			addRoute(netPlan.getRouteDemand(routeId), netPlan.getRouteCarriedTrafficInErlangs(routeId), IntUtils.copy(netPlan.getRouteSequenceOfLinks(routeId)), null, netPlan.getRouteSpecificAttributes(routeId));
+			remap(node.outgoingLinks, links);
+			remap(node.incomingLinks, links);
+			remap(node.outgoingDemands, demands);
+			remap(node.incomingDemands, demands);
+		}
 
-			int[] segmentList = netPlan.getRouteBackupSegmentList(routeId);
-			for (int segmentId : segmentList)
-				addProtectionSegmentToRouteBackupSegmentList(segmentId, routeId);
+		for (Link link : links)
+		{
+			link.originNode = nodes.get(link.originNode.index);
+			link.destinationNode = nodes.get(link.destinationNode.index);
+			remap(link.traversingRoutes, routes);
+			remap(link.traversingSegments, segments);
+		}
+
+		for (Demand demand : demands)
+		{
+			demand.ingressNode = nodes.get(demand.ingressNode.index);
+			demand.egressNode = nodes.get(demand.egressNode.index);
+			remap(demand.routes, routes);
+		}
+
+		for (Segment segment : segments)
+		{
+			remap(segment.route, links);
+			remap(segment.routes, routes);
 		}
 
-		for (int srgId = 0; srgId < numSRGs; srgId++)
-			addSRG(netPlan.getSRGNodes(srgId), netPlan.getSRGLinks(srgId), netPlan.getSRGMeanTimeToFailInHours(srgId), netPlan.getSRGMeanTimeToRepairInHours(srgId), netPlan.getSRGSpecificAttributes(srgId));
+		for (Route route : routes)
+		{
+			route.demand = demands.get(route.demand.index);
+			remap(route.plannedRoute, links);
+			remap(route.backupSegments, segments);
+		}
+	}
+
+	private static <T extends NetworkElement> void remap(List<T> list, List<T> elements)
+	{
+		for (ListIterator<T> it = list.listIterator(); it.hasNext(); )
+			it.set(elements.get(it.next().index));
+	}
+
+	/**
+	 * Removes all the current information from the <code>NetPlan</code> object and copy the 
+	 * information from the input <code>NetPlan</code>. Elements are shared between both
+	 * network plans until any of them is modified (see {@link #copy()}).
+	 * 
+	 * @param netPlan Network plan to be copied
+	 * @since 0.2.3
+	 */
+	public void copyFrom(NetPlan netPlan)
+	{
+		if (netPlan == this) return;
+
+		reset();
+
+		networkElement.name = netPlan.networkElement.name;
+		networkElement.description = netPlan.networkElement.description;
+		networkElement.setAttributes(netPlan.networkElement.getAttributes());
+
+		nodes.addAll(netPlan.nodes);
+		links.addAll(netPlan.links);
+		demands.addAll(netPlan.demands);
+		routes.addAll(netPlan.routes);
+		segments.addAll(netPlan.segments);
+		srgs.addAll(netPlan.srgs);
+		columns.set(netPlan.columns.get().share());
+
+		sharedElements.set(SHARED_ALL);
+		netPlan.sharedElements.set(SHARED_ALL);
 	}
 
 	/**
@@ -1352,7 +1586,10 @@ public final class NetPlan extends NetState
 		demand.offeredTrafficInErlangs = offeredTrafficInErlangs;
 
 		demand.setAttributes(attributes);
-		demands.add(demand);
+		addElement(demands, demand);
+
+		ingressNode.outgoingDemands.add(demand);
+		egressNode.incomingDemands.add(demand);
 
 		return getNumberOfDemands() - 1;
 	}
@@ -1388,7 +1625,10 @@ public final class NetPlan extends NetState
 		link.linkLengthInKm = linkLengthInKm;
 		link.setAttributes(attributes);
 		link.sublink = subLink ;
-		links.add(link);
+		addElement(links, link);
+
+		originNode.outgoingLinks.add(link);
+		destinationNode.incomingLinks.add(link);
 
 		return getNumberOfLinks() - 1;
 	}
@@ -1411,7 +1651,7 @@ public final class NetPlan extends NetState
 		node.position = new Point2D.Double(x, y);
 		node.name = name == null ? "Node " + getNumberOfNodes() : name;
 		node.setAttributes(attributes);
-		nodes.add(node);
+		addElement(nodes, node);
 
 		return getNumberOfNodes() - 1;
 	}
@@ -1469,7 +1709,7 @@ public final class NetPlan extends NetState
 
 		checkRouteValidityForDemand(sequenceOfLinks, demandId);
 
-		List<Link> plannedRoute = new LinkedList<Link>();
+		List<Link> plannedRoute = new ArrayList<Link>(sequenceOfLinks.length);
 		for (int linkId : sequenceOfLinks) plannedRoute.add(getLink(linkId));
 
 		Route route = new Route(demand, plannedRoute, carriedTrafficInErlangs);
@@ -1483,7 +1723,13 @@ public final class NetPlan extends NetState
 		}
 		route.setAttributes(attributes);
 
-		routes.add(route);
+		addElement(routes, route);
+
+		demand.routes.add(route);
+
+		/* Routes traversing a link more than once are indexed only once */
+		for (Link link : new LinkedHashSet<Link>(plannedRoute))
+			link.traversingRoutes.add(route);
 
 		return getNumberOfRoutes() - 1;
 	}
@@ -1601,12 +1847,21 @@ public final class NetPlan extends NetState
 	 */
 	public void setRouteCarriedTrafficInErlangs(int routeId, double carriedTrafficInErlangs)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		if (carriedTrafficInErlangs < 0) throw new Net2PlanException("Carried traffic must be greater or equal than zero");
 
 		Route route = getRoute(routeId);
-		route.carriedTrafficInErlangs = carriedTrafficInErlangs;
+		boolean sharesGraph = (sharedElements.get() & SHARED_GRAPH) != 0;
+		if (!sharesGraph) route.carriedTrafficInErlangs = carriedTrafficInErlangs;
+
+		Columns c = columns.get();
+		double[] x_p = sharesGraph ? getRouteCarriedTrafficColumn() : c.routeCarriedTrafficInErlangs;
+		if (x_p != null)
+		{
+			if (c.unshare(Columns.ROUTE_CARRIED_TRAFFIC)) c.routeCarriedTrafficInErlangs = x_p = x_p.clone();
+			x_p[routeId] = carriedTrafficInErlangs;
+		}
 	}
 
 	private void assignProtectionSegmentToRoute(Segment segment, Route route)
@@ -1617,6 +1872,7 @@ public final class NetPlan extends NetState
 			throw new Net2PlanException("Segment is not applicable to route");
 
 		route.backupSegments.add(segment);
+		segment.routes.add(route);
 	}
 
 	/**
@@ -1637,14 +1893,18 @@ public final class NetPlan extends NetState
 		int[][] linkTable = getLinkTable();
 		GraphUtils.checkRouteContinuity(linkTable, sequenceOfLinks, GraphUtils.CheckRoutingCycleType.NO_CHECK);
 
-		List<Link> linkList = new LinkedList<Link>();
+		List<Link> linkList = new ArrayList<Link>(sequenceOfLinks.length);
 		for (int linkId : sequenceOfLinks) linkList.add(getLink(linkId));
 
 		if (reservedBandwidthInErlangs < 0) throw new Net2PlanException("Reserved bandwidth must be greater or equal than zero");
 
 		Segment segment = new Segment(linkList, reservedBandwidthInErlangs);
 		segment.setAttributes(attributes);
-		segments.add(segment);
+		addElement(segments, segment);
+
+		/* Segments traversing a link more than once are indexed only once */
+		for (Link link : new LinkedHashSet<Link>(linkList))
+			link.traversingSegments.add(segment);
 
 		return segments.size() - 1;
 	}
@@ -1869,12 +2129,21 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getDemandEgressNodeVector()
 	{
-		int D = getNumberOfDemands();
-		int[] b_d = new int[D];
-		for(int demandId = 0; demandId < D; demandId++)
-			b_d[demandId] = getDemandEgressNode(demandId);
+		return getDemandEgressNodeColumn().clone();
+	}
 
-		return b_d;
+	/**
+	 * <p>Returns a read-only view of the identifier of the egress node for every demand.</p>
+	 *
+	 * <p>Unlike {@link #getDemandEgressNodeVector getDemandEgressNodeVector()}, the vector is not copied, and it is
+	 * not affected by later changes of the network plan.</p>
+	 *
+	 * @return Identifier of the egress node for every demand
+	 * @since 0.2.3
+	 */
+	public IntMatrix1D getDemandEgressNodeVectorView()
+	{
+		return new ReadOnlyIntMatrix1D(getDemandEgressNodeColumn());
 	}
 
 	/**
@@ -1898,12 +2167,21 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getDemandIngressNodeVector()
 	{
-		int D = getNumberOfDemands();
-		int[] a_d = new int[D];
-		for(int demandId = 0; demandId < D; demandId++)
-			a_d[demandId] = getDemandIngressNode(demandId);
+		return getDemandIngressNodeColumn().clone();
+	}
 
-		return a_d;
+	/**
+	 * <p>Returns a read-only view of the identifier of the ingress node for every demand.</p>
+	 *
+	 * <p>Unlike {@link #getDemandIngressNodeVector getDemandIngressNodeVector()}, the vector is not copied, and it is
+	 * not affected by later changes of the network plan.</p>
+	 *
+	 * @return Identifier of the ingress node for every demand
+	 * @since 0.2.3
+	 */
+	public IntMatrix1D getDemandIngressNodeVectorView()
+	{
+		return new ReadOnlyIntMatrix1D(getDemandIngressNodeColumn());
 	}
 
 	/**
@@ -1916,7 +2194,8 @@ public final class NetPlan extends NetState
 	public double getDemandOfferedTrafficInErlangs(int demandId)
 	{
 		Demand demand = getDemand(demandId);
-		return demand.offeredTrafficInErlangs;
+		double[] h_d = columns.get().demandOfferedTrafficInErlangs;
+		return h_d == null ? demand.offeredTrafficInErlangs : h_d[demandId];
 	}
 
 	/**
@@ -1927,15 +2206,25 @@ public final class NetPlan extends NetState
 	 */
 	public double[] getDemandOfferedTrafficInErlangsVector()
 	{
-		int D = getNumberOfDemands();
-		double[] h_d = new double[D];
+		return getDemandOfferedTrafficColumn().clone();
+	}
 
-		for (int demandId = 0; demandId < D; demandId++)
-		{
-			h_d[demandId] = getDemandOfferedTrafficInErlangs(demandId);
-		}
+	/**
+	 * <p>Returns a read-only view of the offered traffic per demand.</p>
+	 *
+	 * <p>Unlike {@link #getDemandOfferedTrafficInErlangsVector getDemandOfferedTrafficInErlangsVector()}, the vector is not copied, and it is
+	 * not affected by later changes of the network plan.</p>
+	 *
+	 * @return Offered traffic per demand
+	 * @since 0.2.3
+	 */
+	public DoubleMatrix1D getDemandOfferedTrafficInErlangsVectorView()
+	{
+		Columns c = columns.get();
+		double[] column = getDemandOfferedTrafficColumn();
+		c.markShared(Columns.DEMAND_OFFERED_TRAFFIC);
 
-		return h_d;
+		return new ReadOnlyDoubleMatrix1D(column);
 	}
 
 	/**
@@ -1946,13 +2235,15 @@ public final class NetPlan extends NetState
 	 */
 	public int[][] getDemandTable()
 	{
-		int D = getNumberOfDemands();
+		int[] a_d = getDemandIngressNodeColumn();
+		int[] b_d = getDemandEgressNodeColumn();
+		int D = a_d.length;
 		int[][] demandTable = new int[D][2];
 
 		for (int demandId = 0; demandId < D; demandId++)
 		{
-			demandTable[demandId][0] = getDemandIngressNode(demandId);
-			demandTable[demandId][1] = getDemandEgressNode(demandId);
+			demandTable[demandId][0] = a_d[demandId];
+			demandTable[demandId][1] = b_d[demandId];
 		}
 
 		return demandTable;
@@ -1984,12 +2275,7 @@ public final class NetPlan extends NetState
 
 	private int getId(Object elem)
 	{
-		if (elem instanceof Node) return nodes.indexOf(elem);
-		else if (elem instanceof Link) return links.indexOf(elem);
-		else if (elem instanceof Demand) return demands.indexOf(elem);
-		else if (elem instanceof Route) return routes.indexOf(elem);
-		else if (elem instanceof Segment) return segments.indexOf(elem);
-		else if (elem instanceof SRG) return srgs.indexOf(elem);
+		if (elem instanceof NetworkElement) return ((NetworkElement) elem).index;
 
 		throw new RuntimeException("Bad");
 	}
@@ -2003,6 +2289,214 @@ public final class NetPlan extends NetState
 		return ids;
 	}
 
+	private static int[] toIdArray(Collection<? extends NetworkElement> list)
+	{
+		int[] ids = new int[list.size()];
+		int i = 0;
+		for (NetworkElement elem : list) ids[i++] = elem.index;
+
+		return ids;
+	}
+
+	private <T extends NetworkElement> void addElement(List<T> list, T elem)
+	{
+		elem.index = list.size();
+		list.add(elem);
+		invalidateColumns(list, false);
+	}
+
+	private <T extends NetworkElement> void removeElement(List<T> list, T elem)
+	{
+		int index = elem.index;
+		list.remove(index);
+
+		int size = list.size();
+		for (int i = index; i < size; i++) list.get(i).index = i;
+
+		elem.index = -1;
+		invalidateColumns(list, true);
+	}
+
+	/* Drops the columns affected by adding or removing an element of the given list */
+	private void invalidateColumns(List<? extends NetworkElement> list, boolean isRemoval)
+	{
+		Columns c = columns.get();
+		if (list == links)
+		{
+			c.clearLinks();
+			if (isRemoval) c.routeLinks = null;
+		}
+		else if (list == demands)
+		{
+			c.clearDemands();
+			if (isRemoval) c.routeDemand = null;
+		}
+		else if (list == routes)
+		{
+			c.clearRoutes();
+		}
+		else if (list == nodes && isRemoval)
+		{
+			c.linkOriginNode = null;
+			c.linkDestinationNode = null;
+			c.demandIngressNode = null;
+			c.demandEgressNode = null;
+		}
+	}
+
+	private int[] getLinkOriginNodeColumn()
+	{
+		Columns c = columns.get();
+		int[] column = c.linkOriginNode;
+		if (column == null)
+		{
+			column = new int[links.size()];
+			for (Link link : links) column[link.index] = link.originNode.index;
+			c.linkOriginNode = column;
+		}
+
+		return column;
+	}
+
+	private int[] getLinkDestinationNodeColumn()
+	{
+		Columns c = columns.get();
+		int[] column = c.linkDestinationNode;
+		if (column == null)
+		{
+			column = new int[links.size()];
+			for (Link link : links) column[link.index] = link.destinationNode.index;
+			c.linkDestinationNode = column;
+		}
+
+		return column;
+	}
+
+	private double[] getLinkCapacityColumn()
+	{
+		Columns c = columns.get();
+		double[] column = c.linkCapacityInErlangs;
+		if (column == null)
+		{
+			column = new double[links.size()];
+			for (Link link : links) column[link.index] = link.linkCapacityInErlangs;
+			c.linkCapacityInErlangs = column;
+		}
+
+		return column;
+	}
+
+	private double[] getLinkLengthColumn()
+	{
+		Columns c = columns.get();
+		double[] column = c.linkLengthInKm;
+		if (column == null)
+		{
+			column = new double[links.size()];
+			for (Link link : links) column[link.index] = link.linkLengthInKm;
+			c.linkLengthInKm = column;
+		}
+
+		return column;
+	}
+
+	private int[] getDemandIngressNodeColumn()
+	{
+		Columns c = columns.get();
+		int[] column = c.demandIngressNode;
+		if (column == null)
+		{
+			column = new int[demands.size()];
+			for (Demand demand : demands) column[demand.index] = demand.ingressNode.index;
+			c.demandIngressNode = column;
+		}
+
+		return column;
+	}
+
+	private int[] getDemandEgressNodeColumn()
+	{
+		Columns c = columns.get();
+		int[] column = c.demandEgressNode;
+		if (column == null)
+		{
+			column = new int[demands.size()];
+			for (Demand demand : demands) column[demand.index] = demand.egressNode.index;
+			c.demandEgressNode = column;
+		}
+
+		return column;
+	}
+
+	private double[] getDemandOfferedTrafficColumn()
+	{
+		Columns c = columns.get();
+		double[] column = c.demandOfferedTrafficInErlangs;
+		if (column == null)
+		{
+			column = new double[demands.size()];
+			for (Demand demand : demands) column[demand.index] = demand.offeredTrafficInErlangs;
+			c.demandOfferedTrafficInErlangs = column;
+		}
+
+		return column;
+	}
+
+	private int[] getRouteDemandColumn()
+	{
+		Columns c = columns.get();
+		int[] column = c.routeDemand;
+		if (column == null)
+		{
+			column = new int[routes.size()];
+			for (Route route : routes) column[route.index] = route.demand.index;
+			c.routeDemand = column;
+		}
+
+		return column;
+	}
+
+	private double[] getRouteCarriedTrafficColumn()
+	{
+		Columns c = columns.get();
+		double[] column = c.routeCarriedTrafficInErlangs;
+		if (column == null)
+		{
+			column = new double[routes.size()];
+			for (Route route : routes) column[route.index] = route.carriedTrafficInErlangs;
+			c.routeCarriedTrafficInErlangs = column;
+		}
+
+		return column;
+	}
+
+	/* Offsets (position 0) and link identifiers (position 1), see Columns */
+	private int[][] getRouteLinksColumn()
+	{
+		Columns c = columns.get();
+		int[][] column = c.routeLinks;
+		if (column == null)
+		{
+			int R = routes.size();
+			int[] offsets = new int[R + 1];
+			for (int routeId = 0; routeId < R; routeId++)
+				offsets[routeId + 1] = offsets[routeId] + routes.get(routeId).plannedRoute.size();
+
+			int[] linkIds = new int[offsets[R]];
+			for (int routeId = 0; routeId < R; routeId++)
+			{
+				int i = offsets[routeId];
+				for (Link link : routes.get(routeId).plannedRoute)
+					linkIds[i++] = link.index;
+			}
+
+			column = new int[][] { offsets, linkIds };
+			c.routeLinks = column;
+		}
+
+		return column;
+	}
+
 	private Link getLink(int linkId)
 	{
 		try
@@ -2082,7 +2576,8 @@ public final class NetPlan extends NetState
 	public double getLinkCapacityInErlangs(int linkId)
 	{
 		Link link = getLink(linkId);
-		return link.linkCapacityInErlangs;
+		double[] u_e = columns.get().linkCapacityInErlangs;
+		return u_e == null ? link.linkCapacityInErlangs : u_e[linkId];
 	}
 
 	/**
@@ -2116,7 +2611,8 @@ public final class NetPlan extends NetState
 		double[] u_e = new double[E];
 		for (int linkId = 0; linkId < E; linkId++)
 		{
-			u_e[linkId] = getLinkCapacityReservedForProtectionInErlangs(linkId);
+			for (Segment segment : links.get(linkId).traversingSegments)
+				u_e[linkId] += segment.reservedBandwithInErlangs;
 		}
 
 		return u_e;
@@ -2142,14 +2638,7 @@ public final class NetPlan extends NetState
 	 */
 	public double[] getLinkCapacityNotReservedForProtectionInErlangsVector()
 	{
-		int E = getNumberOfLinks();
-		double[] u_e = new double[E];
-		for (int linkId = 0; linkId < E; linkId++)
-		{
-			u_e[linkId] = getLinkCapacityNotReservedForProtectionInErlangs(linkId);
-		}
-
-		return u_e;
+		return DoubleUtils.substract(getLinkCapacityInErlangsVector(), getLinkCapacityReservedForProtectionInErlangsVector());
 	}
 
 	/**
@@ -2160,15 +2649,25 @@ public final class NetPlan extends NetState
 	 */
 	public double[] getLinkCapacityInErlangsVector()
 	{
-		int E = getNumberOfLinks();
-		double[] u_e = new double[E];
+		return getLinkCapacityColumn().clone();
+	}
 
-		for (int linkId = 0; linkId < E; linkId++)
-		{
-			u_e[linkId] = getLinkCapacityInErlangs(linkId);
-		}
+	/**
+	 * <p>Returns a read-only view of the link capacity for each link.</p>
+	 *
+	 * <p>Unlike {@link #getLinkCapacityInErlangsVector getLinkCapacityInErlangsVector()}, the vector is not copied, and it is
+	 * not affected by later changes of the network plan.</p>
+	 *
+	 * @return Link capacity for each link
+	 * @since 0.2.3
+	 */
+	public DoubleMatrix1D getLinkCapacityInErlangsVectorView()
+	{
+		Columns c = columns.get();
+		double[] column = getLinkCapacityColumn();
+		c.markShared(Columns.LINK_CAPACITY);
 
-		return u_e;
+		return new ReadOnlyDoubleMatrix1D(column);
 	}
 
 	/**
@@ -2194,7 +2693,8 @@ public final class NetPlan extends NetState
 	public double getLinkLengthInKm(int linkId)
 	{
 		Link link = getLink(linkId);
-		return link.linkLengthInKm;
+		double[] l_e = columns.get().linkLengthInKm;
+		return l_e == null ? link.linkLengthInKm : l_e[linkId];
 	}
 
 	/**
@@ -2203,17 +2703,27 @@ public final class NetPlan extends NetState
 	 * @return Link lengths (measured in km)
 	 * @since 0.2.0
 	 */
-	public double[] getLinkLengthInKmVector()
+	public double[] getLinkLengthInKmVector()
+	{
+		return getLinkLengthColumn().clone();
+	}
+
+	/**
+	 * <p>Returns a read-only view of the length for each link.</p>
+	 *
+	 * <p>Unlike {@link #getLinkLengthInKmVector getLinkLengthInKmVector()}, the vector is not copied, and it is
+	 * not affected by later changes of the network plan.</p>
+	 *
+	 * @return Length for each link
+	 * @since 0.2.3
+	 */
+	public DoubleMatrix1D getLinkLengthInKmVectorView()
 	{
-		int E = getNumberOfLinks();
-		double[] l_e = new double[E];
-
-		for (int linkId = 0; linkId < E; linkId++)
-		{
-			l_e[linkId] = getLinkLengthInKm(linkId);
-		}
+		Columns c = columns.get();
+		double[] column = getLinkLengthColumn();
+		c.markShared(Columns.LINK_LENGTH);
 
-		return l_e;
+		return new ReadOnlyDoubleMatrix1D(column);
 	}
 
 	/**
@@ -2237,18 +2747,46 @@ public final class NetPlan extends NetState
 	 */
 	public int[][] getLinkTable()
 	{
-		int E = getNumberOfLinks();
+		int[] originNode = getLinkOriginNodeColumn();
+		int[] destinationNode = getLinkDestinationNodeColumn();
+		int E = originNode.length;
 		int[][] linkTable = new int[E][2];
 
 		for (int linkId = 0; linkId < E; linkId++)
 		{
-			linkTable[linkId][0] = getLinkOriginNode(linkId);
-			linkTable[linkId][1] = getLinkDestinationNode(linkId);
+			linkTable[linkId][0] = originNode[linkId];
+			linkTable[linkId][1] = destinationNode[linkId];
 		}
 
 		return linkTable;
 	}
 
+	/**
+	 * <p>Returns a read-only view of the identifier of the origin node for every link.</p>
+	 *
+	 * <p>The vector is not affected by later changes of the network plan.</p>
+	 *
+	 * @return Identifier of the origin node for every link
+	 * @since 0.2.3
+	 */
+	public IntMatrix1D getLinkOriginNodeVectorView()
+	{
+		return new ReadOnlyIntMatrix1D(getLinkOriginNodeColumn());
+	}
+
+	/**
+	 * <p>Returns a read-only view of the identifier of the destination node for every link.</p>
+	 *
+	 * <p>The vector is not affected by later changes of the network plan.</p>
+	 *
+	 * @return Identifier of the destination node for every link
+	 * @since 0.2.3
+	 */
+	public IntMatrix1D getLinkDestinationNodeVectorView()
+	{
+		return new ReadOnlyIntMatrix1D(getLinkDestinationNodeColumn());
+	}
+
 	/**
 	 * Returns the value of a network attribute.
 	 *
@@ -2356,18 +2894,11 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodeOutgoingRoutes(int nodeId)
 	{
-		List<Integer> outgoingRouteIds = new LinkedList<Integer>();
-		int[] demandIds = getNodeOutgoingDemands(nodeId);
-		for(int demandId : demandIds)
-		{
-			int[] routeIds = getDemandRoutes(demandId);
-			for(int routeId : routeIds)
-			{
-				outgoingRouteIds.add(routeId);
-			}
-		}
+		List<Route> outgoingRoutes = new ArrayList<Route>();
+		for(Demand demand : getNode(nodeId).outgoingDemands)
+			outgoingRoutes.addAll(demand.routes);
 
-		return IntUtils.toArray(outgoingRouteIds);
+		return toIdArray(outgoingRoutes);
 	}
 
 	/**
@@ -2379,18 +2910,11 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodeIncomingRoutes(int nodeId)
 	{
-		List<Integer> incomingRouteIds = new LinkedList<Integer>();
-		int[] demandIds = getNodeIncomingDemands(nodeId);
-		for(int demandId : demandIds)
-		{
-			int[] routeIds = getDemandRoutes(demandId);
-			for(int routeId : routeIds)
-			{
-				incomingRouteIds.add(routeId);
-			}
-		}
+		List<Route> incomingRoutes = new ArrayList<Route>();
+		for(Demand demand : getNode(nodeId).incomingDemands)
+			incomingRoutes.addAll(demand.routes);
 
-		return IntUtils.toArray(incomingRouteIds);
+		return toIdArray(incomingRoutes);
 	}
 
 	/**
@@ -2402,18 +2926,7 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodeIncomingDemands(int nodeId)
 	{
-		List<Integer> egressDemandIds = new LinkedList<Integer>();
-
-		int D = getNumberOfDemands();
-		for (int demandId = 0; demandId < D; demandId++)
-		{
-			if (getDemandEgressNode(demandId) == nodeId)
-			{
-				egressDemandIds.add(demandId);
-			}
-		}
-
-		return IntUtils.toArray(egressDemandIds);
+		return toIdArray(getNode(nodeId).incomingDemands);
 	}
 
 	/**
@@ -2425,18 +2938,7 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodeIncomingLinks(int nodeId)
 	{
-		List<Integer> incomingLinkIds = new LinkedList<Integer>();
-
-		int E = getNumberOfLinks();
-		for (int linkId = 0; linkId < E; linkId++)
-		{
-			if (getLinkDestinationNode(linkId) == nodeId)
-			{
-				incomingLinkIds.add(linkId);
-			}
-		}
-
-		return IntUtils.toArray(incomingLinkIds);
+		return toIdArray(getNode(nodeId).incomingLinks);
 	}
 
 	/**
@@ -2448,18 +2950,7 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodeOutgoingDemands(int nodeId)
 	{
-		List<Integer> ingressDemandIds = new LinkedList<Integer>();
-
-		int D = getNumberOfDemands();
-		for (int demandId = 0; demandId < D; demandId++)
-		{
-			if (getDemandIngressNode(demandId) == nodeId)
-			{
-				ingressDemandIds.add(demandId);
-			}
-		}
-
-		return IntUtils.toArray(ingressDemandIds);
+		return toIdArray(getNode(nodeId).outgoingDemands);
 	}
 
 	/**
@@ -2517,18 +3008,7 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodeOutgoingLinks(int nodeId)
 	{
-		List<Integer> outgoingLinkIds = new LinkedList<Integer>();
-
-		int E = getNumberOfLinks();
-		for (int linkId = 0; linkId < E; linkId++)
-		{
-			if (getLinkOriginNode(linkId) == nodeId)
-			{
-				outgoingLinkIds.add(linkId);
-			}
-		}
-
-		return IntUtils.toArray(outgoingLinkIds);
+		return toIdArray(getNode(nodeId).outgoingLinks);
 	}
 
 	/**
@@ -2718,14 +3198,21 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getRouteDemandVector()
 	{
-		int R = getNumberOfRoutes();
-
-		int[] d_p = new int[R];
-
-		for(int routeId = 0; routeId < R; routeId++)
-			d_p[routeId] = getRouteDemand(routeId);
+		return getRouteDemandColumn().clone();
+	}
 
-		return d_p;
+	/**
+	 * <p>Returns a read-only view of the demand associated to each route.</p>
+	 *
+	 * <p>Unlike {@link #getRouteDemandVector getRouteDemandVector()}, the vector is not copied, and it is
+	 * not affected by later changes of the network plan.</p>
+	 *
+	 * @return Demand associated to each route
+	 * @since 0.2.3
+	 */
+	public IntMatrix1D getRouteDemandVectorView()
+	{
+		return new ReadOnlyIntMatrix1D(getRouteDemandColumn());
 	}
 
 	/**
@@ -2738,25 +3225,7 @@ public final class NetPlan extends NetState
 	public int[] getDemandRoutes(int demandId)
 	{
 		Demand demand = getDemand(demandId);
-		List<Integer> routeList = getIds(getRoutesFromDemand(demand));
-		return IntUtils.toArray(routeList);
-	}
-
-	private Set<Route> getRoutesFromDemand(Demand demand)
-	{
-		Set<Route> routesTraversingDemand = new HashSet<Route>();
-
-		Iterator<Route> it = routes.iterator();
-		while (it.hasNext())
-		{
-			Route route = it.next();
-			if (route.demand == demand)
-			{
-				routesTraversingDemand.add(route);
-			}
-		}
-
-		return routesTraversingDemand;
+		return toIdArray(demand.routes);
 	}
 
 	/**
@@ -2769,7 +3238,8 @@ public final class NetPlan extends NetState
 	public double getRouteCarriedTrafficInErlangs(int routeId)
 	{
 		Route route = getRoute(routeId);
-		return route.carriedTrafficInErlangs;
+		double[] x_p = columns.get().routeCarriedTrafficInErlangs;
+		return x_p == null ? route.carriedTrafficInErlangs : x_p[routeId];
 	}
 
 	/**
@@ -2860,10 +3330,15 @@ public final class NetPlan extends NetState
 	 */
 	public double[] getRouteLengthInKmVector()
 	{
-		int R = getNumberOfRoutes();
+		int[][] routeLinks = getRouteLinksColumn();
+		int[] offsets = routeLinks[0];
+		int[] linkIds = routeLinks[1];
+		double[] l_e = getLinkLengthColumn();
+		int R = offsets.length - 1;
 		double[] routeLength = new double[R];
 		for(int routeId = 0; routeId < R; routeId++)
-			routeLength[routeId] = getRouteLengthInKm(routeId);
+			for(int i = offsets[routeId]; i < offsets[routeId + 1]; i++)
+				routeLength[routeId] += l_e[linkIds[i]];
 
 		return routeLength;
 	}
@@ -2888,11 +3363,12 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getRouteNumberOfHopsVector()
 	{
-		int R = getNumberOfRoutes();
+		int[] offsets = getRouteLinksColumn()[0];
+		int R = offsets.length - 1;
 		int[] numHops = new int[R];
 		for(int routeId = 0; routeId < R; routeId++)
 		{
-			numHops[routeId] = getRouteNumberOfHops(routeId);
+			numHops[routeId] = offsets[routeId + 1] - offsets[routeId];
 		}
 
 		return numHops;
@@ -2933,15 +3409,25 @@ public final class NetPlan extends NetState
 	 */
 	public double[] getRouteCarriedTrafficInErlangsVector()
 	{
-		int R = getNumberOfRoutes();
-		double[] x_p = new double[R];
+		return getRouteCarriedTrafficColumn().clone();
+	}
 
-		for (int routeId = 0; routeId < R; routeId++)
-		{
-			x_p[routeId] = getRouteCarriedTrafficInErlangs(routeId);
-		}
+	/**
+	 * <p>Returns a read-only view of the carried traffic for each route.</p>
+	 *
+	 * <p>Unlike {@link #getRouteCarriedTrafficInErlangsVector getRouteCarriedTrafficInErlangsVector()}, the vector is not copied, and it is
+	 * not affected by later changes of the network plan.</p>
+	 *
+	 * @return Carried traffic for each route
+	 * @since 0.2.3
+	 */
+	public DoubleMatrix1D getRouteCarriedTrafficInErlangsVectorView()
+	{
+		Columns c = columns.get();
+		double[] column = getRouteCarriedTrafficColumn();
+		c.markShared(Columns.ROUTE_CARRIED_TRAFFIC);
 
-		return x_p;
+		return new ReadOnlyDoubleMatrix1D(column);
 	}
 
 	// Returns sub Link name 
@@ -2978,8 +3464,7 @@ public final class NetPlan extends NetState
 	public int[] getRouteSequenceOfLinks(int routeId)
 	{
 		Route route = getRoute(routeId);
-		List<Integer> sequenceOfLinks = getIds(getRoutePlannedSequenceOfLinks(route));
-		return IntUtils.toArray(sequenceOfLinks);
+		return toIdArray(route.plannedRoute);
 	}
 
 	private List<Link> getRoutePlannedSequenceOfLinks(Route route)
@@ -2997,13 +3482,15 @@ public final class NetPlan extends NetState
 	public int[] getRouteSequenceOfNodes(int routeId)
 	{
 		Route route = getRoute(routeId);
-		List<Integer> sequenceOfNodes = getIds(getRoutePlannedSequenceOfNodes(route));
-		return IntUtils.toArray(sequenceOfNodes);
-	}
+		List<Link> plannedRoute = route.plannedRoute;
 
-	private List<Node> getRoutePlannedSequenceOfNodes(Route route)
-	{
-		return sequenceOfPathElements2sequenceOfNodes(getRoutePlannedSequenceOfLinks(route));
+		int[] sequenceOfNodes = new int[plannedRoute.size() + 1];
+		sequenceOfNodes[0] = plannedRoute.get(0).originNode.index;
+
+		int i = 1;
+		for (Link link : plannedRoute) sequenceOfNodes[i++] = link.destinationNode.index;
+
+		return sequenceOfNodes;
 	}
 
 	/**
@@ -3015,15 +3502,25 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getLinkTraversingRoutes(int linkId)
 	{
-		IntArrayList routeIds = new IntArrayList();
+		Link link = getLink(linkId);
+		return toIdArray(link.traversingRoutes);
+	}
+
+	/**
+	 * Returns the routes traversing each link.
+	 *
+	 * @return Route identifiers per link
+	 * @since 0.2.3
+	 */
+	public int[][] getLinkTraversingRoutesVector()
+	{
+		int E = getNumberOfLinks();
+		int[][] out = new int[E][];
 
-		int R = getNumberOfRoutes();
-		for(int routeId = 0; routeId < R; routeId++)
-			if (IntUtils.contains(getRouteSequenceOfLinks(routeId), linkId))
-				routeIds.add(routeId);
+		for(int linkId = 0; linkId < E; linkId++)
+			out[linkId] = toIdArray(links.get(linkId).traversingRoutes);
 
-		routeIds.trimToSize();
-		return routeIds.elements();
+		return out;
 	}
 
 	private Segment getSegment(int segmentId)
@@ -3152,19 +3649,13 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getProtectionSegmentRoutes(int segmentId)
 	{
-		int R = getNumberOfRoutes();
-		IntArrayList routeIds = new IntArrayList();
-
-		for (int routeId = 0; routeId < R; routeId++)
-		{
-			int[] backupSegments = getRouteBackupSegmentList(routeId);
-			if (IntUtils.find(backupSegments, segmentId, Constants.SearchType.FIRST).length != 0)
-				routeIds.add(routeId);
-		}
+		Segment segment = getSegment(segmentId);
 
-		routeIds.trimToSize();
+		Set<Integer> routeIds = new TreeSet<Integer>();
+		for (Route route : segment.routes)
+			routeIds.add(route.index);
 
-		return routeIds.elements();
+		return IntUtils.toArray(routeIds);
 	}
 
 	/**
@@ -3216,8 +3707,24 @@ public final class NetPlan extends NetState
 	public int[] getLinkTraversingProtectionSegments(int linkId)
 	{
 		Link link = getLink(linkId);
-		List<Integer> segmentList = getIds(getSegmentsTraversingLink(link));
-		return IntUtils.toArray(segmentList);
+		return toIdArray(link.traversingSegments);
+	}
+
+	/**
+	 * Returns the protection segments traversing each link.
+	 *
+	 * @return Protection segment identifiers per link
+	 * @since 0.2.3
+	 */
+	public int[][] getLinkTraversingProtectionSegmentsVector()
+	{
+		int E = getNumberOfLinks();
+		int[][] out = new int[E][];
+
+		for(int linkId = 0; linkId < E; linkId++)
+			out[linkId] = toIdArray(links.get(linkId).traversingSegments);
+
+		return out;
 	}
 
 	/**
@@ -3229,18 +3736,18 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodeTraversingRoutes(int nodeId)
 	{
-		int R = getNumberOfRoutes();
+		Node node = getNode(nodeId);
 
-		List<Integer> routeList = new LinkedList<Integer>();
+		Set<Integer> routeSet = new TreeSet<Integer>();
+		for(Link link : node.outgoingLinks)
+			for(Route route : link.traversingRoutes)
+				routeSet.add(route.index);
 
-		for(int routeId = 0; routeId < R; routeId++)
-		{
-			int[] seqNodes = getRouteSequenceOfNodes(routeId);
-			if (IntUtils.contains(seqNodes, nodeId))
-				routeList.add(routeId);
-		}
+		for(Link link : node.incomingLinks)
+			for(Route route : link.traversingRoutes)
+				routeSet.add(route.index);
 
-		return IntUtils.toArray(routeList);
+		return IntUtils.toArray(routeSet);
 	}
 
 	/**
@@ -3252,32 +3759,18 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getNodeTraversingProtectionSegments(int nodeId)
 	{
-		int S = getNumberOfProtectionSegments();
-
-		List<Integer> segmentList = new LinkedList<Integer>();
-
-		for(int segmentId = 0; segmentId < S; segmentId++)
-		{
-			int[] seqNodes = getProtectionSegmentSequenceOfNodes(segmentId);
-			if (IntUtils.contains(seqNodes, nodeId))
-				segmentList.add(segmentId);
-		}
+		Node node = getNode(nodeId);
 
-		return IntUtils.toArray(segmentList);
-	}
+		Set<Integer> segmentSet = new TreeSet<Integer>();
+		for(Link link : node.outgoingLinks)
+			for(Segment segment : link.traversingSegments)
+				segmentSet.add(segment.index);
 
-	private Set<Segment> getSegmentsTraversingLink(Link link)
-	{
-		Set<Segment> segmentsTraversingLink = new HashSet<Segment>();
-		for (Segment segment : segments)
-		{
-			if (segment.route.contains(link))
-			{
-				segmentsTraversingLink.add(segment);
-			}
-		}
+		for(Link link : node.incomingLinks)
+			for(Segment segment : link.traversingSegments)
+				segmentSet.add(segment.index);
 
-		return segmentsTraversingLink;
+		return IntUtils.toArray(segmentSet);
 	}
 
 	/**
@@ -3382,6 +3875,13 @@ public final class NetPlan extends NetState
 
 		removeAllRoutes();
 		demands.clear();
+		columns.get().clearDemands();
+
+		for(Node node : nodes)
+		{
+			node.outgoingDemands.clear();
+			node.incomingDemands.clear();
+		}
 	}
 
 	/**
@@ -3395,6 +3895,16 @@ public final class NetPlan extends NetState
 		checkIsModifiable();
 
 		routes.clear();
+		columns.get().clearRoutes();
+
+		for(Demand demand : demands)
+			demand.routes.clear();
+
+		for(Link link : links)
+			link.traversingRoutes.clear();
+
+		for(Segment segment : segments)
+			segment.routes.clear();
 	}
 
 	/**
@@ -3411,7 +3921,8 @@ public final class NetPlan extends NetState
 		Route route = getRoute(routeId);
 		Segment segment = getSegment(segmentId);
 
-		route.backupSegments.remove(segment);
+		if (route.backupSegments.remove(segment))
+			segment.routes.remove(route);
 	}
 
 	/**
@@ -3431,7 +3942,9 @@ public final class NetPlan extends NetState
 		int[] routesToRemove = getDemandRoutes(demandId);
 		removeRoutes(routesToRemove);
 
-		demands.remove(demand);
+		demand.ingressNode.outgoingDemands.remove(demand);
+		demand.egressNode.incomingDemands.remove(demand);
+		removeElement(demands, demand);
 	}
 
 	/**
@@ -3473,7 +3986,9 @@ public final class NetPlan extends NetState
 		for(int srgId : aux_srgs)
 			removeLinkFromSRG(linkId, srgId);
 
-		links.remove(link);
+		link.originNode.outgoingLinks.remove(link);
+		link.destinationNode.incomingLinks.remove(link);
+		removeElement(links, link);
 	}
 
 	/**
@@ -3501,7 +4016,7 @@ public final class NetPlan extends NetState
 	 */
 	public void removeNetworkAttribute(String key)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		networkElement.removeAttribute(key);
 	}
@@ -3531,7 +4046,7 @@ public final class NetPlan extends NetState
 		for(int srgId : aux_srgs)
 			removeNodeFromSRG(nodeId, srgId);
 
-		nodes.remove(node);
+		removeElement(nodes, node);
 	}
 
 	/**
@@ -3562,7 +4077,15 @@ public final class NetPlan extends NetState
 		checkIsModifiable();
 
 		Route route = getRoute(routeId);
-		routes.remove(route);
+
+		route.demand.routes.remove(route);
+		for(Link link : route.plannedRoute)
+			link.traversingRoutes.remove(route);
+
+		for(Segment segment : route.backupSegments)
+			segment.routes.remove(route);
+
+		removeElement(routes, route);
 	}
 
 	/**
@@ -3596,11 +4119,15 @@ public final class NetPlan extends NetState
 
 		Segment segment = getSegment(segmentId);
 
-		int R = getNumberOfRoutes();
-		for(int routeId = 0; routeId < R; routeId++)
-			removeProtectionSegmentFromRouteBackupSegmentList(segmentId, routeId);
+		for(Route route : segment.routes)
+			while (route.backupSegments.remove(segment));
+
+		segment.routes.clear();
+
+		for(Link link : segment.route)
+			link.traversingSegments.remove(segment);
 
-		segments.remove(segment);
+		removeElement(segments, segment);
 	}
 
 	/**
@@ -3961,12 +4488,21 @@ public final class NetPlan extends NetState
 	 */
 	public void setDemandOfferedTrafficInErlangs(int demandId, double offeredTrafficInErlangs)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		if (offeredTrafficInErlangs < 0) throw new Net2PlanException("Offered traffic must be greater or equal than zero");
 
 		Demand demand = getDemand(demandId);
-		demand.offeredTrafficInErlangs = offeredTrafficInErlangs;
+		boolean sharesGraph = (sharedElements.get() & SHARED_GRAPH) != 0;
+		if (!sharesGraph) demand.offeredTrafficInErlangs = offeredTrafficInErlangs;
+
+		Columns c = columns.get();
+		double[] h_d = sharesGraph ? getDemandOfferedTrafficColumn() : c.demandOfferedTrafficInErlangs;
+		if (h_d != null)
+		{
+			if (c.unshare(Columns.DEMAND_OFFERED_TRAFFIC)) c.demandOfferedTrafficInErlangs = h_d = h_d.clone();
+			h_d[demandId] = offeredTrafficInErlangs;
+		}
 	}
 
 	/**
@@ -3978,7 +4514,7 @@ public final class NetPlan extends NetState
 	 */
 	public void setDemandOfferedTrafficInErlangsVector(double[] offeredTrafficInErlangs)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		int D = getNumberOfDemands();
 
@@ -4029,14 +4565,24 @@ public final class NetPlan extends NetState
 	 */
 	public void setLinkCapacityInErlangs(int linkId, double linkCapacity)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		if (Double.isNaN(linkCapacity)) linkCapacity = 0;
 
 		if (linkCapacity < 0) throw new Net2PlanException("Link capacity must be greater or equal than zero");
 
 		Link link = getLink(linkId);
-		link.linkCapacityInErlangs = linkCapacity;
+		/* While elements are shared with copies (see copy()), they are not modified, and the column is the only up-to-date place. The same holds for link lengths, offered and carried traffic */
+		boolean sharesGraph = (sharedElements.get() & SHARED_GRAPH) != 0;
+		if (!sharesGraph) link.linkCapacityInErlangs = linkCapacity;
+
+		Columns c = columns.get();
+		double[] u_e = sharesGraph ? getLinkCapacityColumn() : c.linkCapacityInErlangs;
+		if (u_e != null)
+		{
+			if (c.unshare(Columns.LINK_CAPACITY)) c.linkCapacityInErlangs = u_e = u_e.clone();
+			u_e[linkId] = linkCapacity;
+		}
 	}
 
 	/**
@@ -4049,12 +4595,21 @@ public final class NetPlan extends NetState
 	 */
 	public void setLinkLengthInKm(int linkId, double linkLengthInKm)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		if (linkLengthInKm < 0) throw new Net2PlanException("Link length must be greater or equal than zero");
 
 		Link link = getLink(linkId);
-		link.linkLengthInKm = linkLengthInKm;
+		boolean sharesGraph = (sharedElements.get() & SHARED_GRAPH) != 0;
+		if (!sharesGraph) link.linkLengthInKm = linkLengthInKm;
+
+		Columns c = columns.get();
+		double[] l_e = sharesGraph ? getLinkLengthColumn() : c.linkLengthInKm;
+		if (l_e != null)
+		{
+			if (c.unshare(Columns.LINK_LENGTH)) c.linkLengthInKm = l_e = l_e.clone();
+			l_e[linkId] = linkLengthInKm;
+		}
 	}
 
 	/**
@@ -4067,7 +4622,7 @@ public final class NetPlan extends NetState
 	 */
 	public void setNetworkAttribute(String key, String value)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		networkElement.setAttribute(key, value);
 	}
@@ -4081,7 +4636,7 @@ public final class NetPlan extends NetState
 	 */
 	public void setNetworkAttributes(Map<String, String> attributes)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		networkElement.setAttributes(attributes);
 	}
@@ -4094,7 +4649,7 @@ public final class NetPlan extends NetState
 	 */
 	public void setNetworkDescription(String description)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		networkElement.description = description == null ? "" : description;
 	}
@@ -4107,7 +4662,7 @@ public final class NetPlan extends NetState
 	 */
 	public void setNetworkName(String name)
 	{
-		checkIsModifiable();
+		checkIsModifiable(0);
 
 		networkElement.name = name == null ? "" : name;
 	}
@@ -4270,7 +4825,7 @@ public final class NetPlan extends NetState
 	 */
 	public void addLinkToSRG(int linkId, int srgId)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		getSRG(srgId).links.add(getLink(linkId));
 	}
@@ -4284,7 +4839,7 @@ public final class NetPlan extends NetState
 	 */
 	public void addNodeToSRG(int nodeId, int srgId)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		getSRG(srgId).nodes.add(getNode(nodeId));
 	}
@@ -4302,7 +4857,7 @@ public final class NetPlan extends NetState
 	 */
 	public int addSRG(int[] nodeIds, int[] linkIds, double mttf, double mttr, Map<String, String> attributes)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		SRG srg = new SRG();
 
@@ -4325,7 +4880,7 @@ public final class NetPlan extends NetState
 		srg.mttr = mttr;
 		srg.setAttributes(attributes);
 
-		srgs.add(srg);
+		addElement(srgs, srg);
 
 		int srgId = getNumberOfSRGs() - 1;
 		return srgId;
@@ -4662,21 +5217,16 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getSRGProtectionSegments(int srgId)
 	{
-		int[] nodeIds = getSRGNodes(srgId);
-		int[] linkIds = getSRGLinks(srgId);
+		SRG srg = getSRG(srgId);
 
 		Set<Integer> segmentIds = new TreeSet<Integer>();
-		int S = getNumberOfProtectionSegments();
-		for(int segmentId = 0; segmentId < S; segmentId++)
-		{
-			int[] sequenceOfLinks = getProtectionSegmentSequenceOfLinks(segmentId);
-			if (IntUtils.containsAny(sequenceOfLinks, linkIds))
-				segmentIds.add(segmentId);
+		for(Link link : srg.links)
+			for(Segment segment : link.traversingSegments)
+				segmentIds.add(segment.index);
 
-			int[] sequenceOfNodes = getProtectionSegmentSequenceOfNodes(segmentId);
-			if (IntUtils.containsAny(sequenceOfNodes, nodeIds))
+		for(Node node : srg.nodes)
+			for(int segmentId : getNodeTraversingProtectionSegments(node.index))
 				segmentIds.add(segmentId);
-		}
 
 		return IntUtils.toArray(segmentIds);
 	}
@@ -4690,21 +5240,16 @@ public final class NetPlan extends NetState
 	 */
 	public int[] getSRGRoutes(int srgId)
 	{
-		int[] nodeIds = getSRGNodes(srgId);
-		int[] linkIds = getSRGLinks(srgId);
+		SRG srg = getSRG(srgId);
 
-		Set<Integer> routeIds = new HashSet<Integer>();
-		int R = getNumberOfRoutes();
-		for(int routeId = 0; routeId < R; routeId++)
-		{
-			int[] sequenceOfLinks = getRouteSequenceOfLinks(routeId);
-			if (IntUtils.containsAny(sequenceOfLinks, linkIds))
-				routeIds.add(routeId);
+		Set<Integer> routeIds = new TreeSet<Integer>();
+		for(Link link : srg.links)
+			for(Route route : link.traversingRoutes)
+				routeIds.add(route.index);
 
-			int[] sequenceOfNodes = getRouteSequenceOfNodes(routeId);
-			if (IntUtils.containsAny(sequenceOfNodes, nodeIds))
+		for(Node node : srg.nodes)
+			for(int routeId : getNodeTraversingRoutes(node.index))
 				routeIds.add(routeId);
-		}
 
 		return IntUtils.toArray(routeIds);
 	}
@@ -4740,7 +5285,7 @@ public final class NetPlan extends NetState
 	 */
 	public void removeLinkFromSRG(int linkId, int srgId)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		getSRG(srgId).links.remove(getLink(linkId));
 	}
@@ -4754,7 +5299,7 @@ public final class NetPlan extends NetState
 	 */
 	public void removeNodeFromSRG(int nodeId, int srgId)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		getSRG(srgId).nodes.remove(getNode(nodeId));
 	}
@@ -4767,9 +5312,9 @@ public final class NetPlan extends NetState
 	 */
 	public void removeSRG(int srgId)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
-		srgs.remove(srgId);
+		removeElement(srgs, getSRG(srgId));
 	}
 
 	/**
@@ -4780,7 +5325,7 @@ public final class NetPlan extends NetState
 	 */
 	public void removeSRGs(int[] srgIds)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		int[] aux = IntUtils.copy(srgIds);
 		IntUtils.sort(aux, Constants.OrderingType.DESCENDING);
@@ -4797,7 +5342,7 @@ public final class NetPlan extends NetState
 	 */
 	public void removeSRGAttribute(int srgId, String key)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		SRG srg = getSRG(srgId);
 		srg.removeAttribute(key);
@@ -4810,7 +5355,7 @@ public final class NetPlan extends NetState
 	 */
 	public void removeAllSRGs()
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		srgs.clear();
 	}
@@ -4825,7 +5370,7 @@ public final class NetPlan extends NetState
 	 */
 	public void setSRGAttribute(int srgId, String key, String value)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		SRG srg = getSRG(srgId);
 		srg.setAttribute(key, value);
@@ -4840,7 +5385,7 @@ public final class NetPlan extends NetState
 	 */
 	public void setSRGAttributes(int srgId, Map<String, String> attributes)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		SRG srg = getSRG(srgId);
 		srg.setAttributes(attributes);
@@ -4855,7 +5400,7 @@ public final class NetPlan extends NetState
 	 */
 	public void setSRGMeanTimeToFailInHours(int srgId, double mttf)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		SRG srg = getSRG(srgId);
 		if (mttf <= 0) mttf = Double.MAX_VALUE;
@@ -4872,7 +5417,7 @@ public final class NetPlan extends NetState
 	 */
 	public void setSRGMeanTimeToRepairInHours(int srgId, double mttr)
 	{
-		checkIsModifiable();
+		checkIsModifiable(SHARED_SRGS);
 
 		SRG srg = getSRG(srgId);
 		if (mttr <= 0) throw new Net2PlanException("'mttr' must be greater than zero");
@@ -5081,4 +5626,110 @@ public final class NetPlan extends NetState
 
 		return netPlanInformation.toString();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Most frequently accessed link, demand and route fields, stored in
+	 * primitive arrays (columns). Sequences of links of the routes are stored
+	 * in compressed form: links of route <i>p</i> are those in
+	 * <code>routeLinks[1]</code> from position <code>routeLinks[0][p]</code>
+	 * (inclusive) to <code>routeLinks[0][p+1]</code> (exclusive).
+	 * 
+	 * <p>Each column is built on demand and kept up-to-date by the setters of
+	 * its field. Additions and removals of elements only drop the columns
+	 * which depend on the affected element type or identifiers.</p>
+	 * 
+	 * <p>Columns handed out as read-only views, or shared with copies of the
+	 * network plan, are flagged as shared, and setters copy them before
+	 * updating them in place.</p>
+	 *
+	 * @since 0.2.3
+	 */
+	private final static class Columns
+	{
+		private final static int LINK_CAPACITY = 1;
+		private final static int LINK_LENGTH = 2;
+		private final static int DEMAND_OFFERED_TRAFFIC = 4;
+		private final static int ROUTE_CARRIED_TRAFFIC = 8;
+		private final static int ALL = 15;
+
+		private volatile int[] linkOriginNode;
+		private volatile int[] linkDestinationNode;
+		private volatile double[] linkCapacityInErlangs;
+		private volatile double[] linkLengthInKm;
+		private volatile int[] demandIngressNode;
+		private volatile int[] demandEgressNode;
+		private volatile double[] demandOfferedTrafficInErlangs;
+		private volatile int[] routeDemand;
+		private volatile double[] routeCarriedTrafficInErlangs;
+		private volatile int[][] routeLinks;
+		private final AtomicInteger shared = new AtomicInteger();
+
+		/* Returns a copy referring to the same columns, which are flagged as shared in both */
+		private Columns share()
+		{
+			shared.set(ALL);
+
+			Columns out = new Columns();
+			out.linkOriginNode = linkOriginNode;
+			out.linkDestinationNode = linkDestinationNode;
+			out.linkCapacityInErlangs = linkCapacityInErlangs;
+			out.linkLengthInKm = linkLengthInKm;
+			out.demandIngressNode = demandIngressNode;
+			out.demandEgressNode = demandEgressNode;
+			out.demandOfferedTrafficInErlangs = demandOfferedTrafficInErlangs;
+			out.routeDemand = routeDemand;
+			out.routeCarriedTrafficInErlangs = routeCarriedTrafficInErlangs;
+			out.routeLinks = routeLinks;
+			out.shared.set(ALL);
+
+			return out;
+		}
+
+		private void markShared(int column)
+		{
+			int current;
+			do
+			{
+				current = shared.get();
+			} while ((current & column) == 0 && !shared.compareAndSet(current, current | column));
+		}
+
+		/* Clears the shared flag of the column, returning its previous value */
+		private boolean unshare(int column)
+		{
+			int current;
+			do
+			{
+				current = shared.get();
+				if ((current & column) == 0) return false;
+			} while (!shared.compareAndSet(current, current & ~column));
+
+			return true;
+		}
+
+		private void clearLinks()
+		{
+			linkOriginNode = null;
+			linkDestinationNode = null;
+			linkCapacityInErlangs = null;
+			linkLengthInKm = null;
+			unshare(LINK_CAPACITY | LINK_LENGTH);
+		}
+
+		private void clearDemands()
+		{
+			demandIngressNode = null;
+			demandEgressNode = null;
+			demandOfferedTrafficInErlangs = null;
+			unshare(DEMAND_OFFERED_TRAFFIC);
+		}
+
+		private void clearRoutes()
+		{
+			routeDemand = null;
+			routeCarriedTrafficInErlangs = null;
+			routeLinks = null;
+			unshare(ROUTE_CARRIED_TRAFFIC);
+		}
+	}
+}
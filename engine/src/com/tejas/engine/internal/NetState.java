@@ -58,5 +58,18 @@ public abstract class NetState
      */
     public abstract NetState unmodifiableView();
     
-    protected final void checkIsModifiable() { if (!isModifiable) throw new UnsupportedOperationException(UNMODIFIABLE_EXCEPTION_STRING); }
+    protected final void checkIsModifiable()
+    {
+        if (!isModifiable) throw new UnsupportedOperationException(UNMODIFIABLE_EXCEPTION_STRING);
+
+        beforeModification();
+    }
+
+    /**
+     * Called right before any change of the network state (once it has been
+     * checked that the state is modifiable). By default, it does nothing.
+     * 
+     * @since 0.2.3
+     */
+    protected void beforeModification() { }
 }
@@ -14,6 +14,7 @@ package com.tejas.engine.internal;
 import com.tejas.engine.utils.StringUtils;
 
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -30,6 +31,16 @@ import java.util.Set;
 public class NetworkElement
 {
     private Map<String, String> attributes;
+    private volatile boolean sharesAttributes;
+
+    /**
+     * Position of the element within its container (i.e. its identifier in a
+     * <code>NetPlan</code>). It is kept up-to-date by the container on every
+     * addition and removal.
+     * 
+     * @since 0.2.3
+     */
+    public int index = -1;
 
     /**
      * Default constructor.
@@ -60,6 +71,30 @@ public class NetworkElement
     public final void setAttributes(Map<String, String> attributes)
     {
         this.attributes = new AttributeMap(attributes);
+        sharesAttributes = false;
+    }
+
+    /**
+     * Sets the attributes of the element to those of the input one. The map
+     * is shared by both elements, and copied by the first of them which 
+     * modifies it.
+     * 
+     * @param element Element whose attributes are taken
+     * @since 0.2.3
+     */
+    public final void shareAttributes(NetworkElement element)
+    {
+        element.sharesAttributes = true;
+        attributes = element.attributes;
+        sharesAttributes = true;
+    }
+
+    private void unshareAttributes()
+    {
+        if (!sharesAttributes) return;
+
+        attributes = new AttributeMap(attributes);
+        sharesAttributes = false;
     }
 
     /**
@@ -70,7 +105,11 @@ public class NetworkElement
      * @param value Attribute value (it may be null)
      * @since 0.2.3
      */
-    public final void setAttribute(String key, String value) { attributes.put(key, value); }
+    public final void setAttribute(String key, String value)
+    {
+        unshareAttributes();
+        attributes.put(key, value);
+    }
 
     /**
      * Returns the value of the given attribute (or <code>null</code>, if 
@@ -96,7 +135,11 @@ public class NetworkElement
      * @param key Attribute name
      * @since 0.2.3
      */
-    public final void removeAttribute(String key) { attributes.remove(key); }
+    public final void removeAttribute(String key)
+    {
+        unshareAttributes();
+        attributes.remove(key);
+    }
 
     /**
      * Extends <code>HashMap</code> to allow only key values that can be saved
@@ -169,6 +212,7 @@ public class NetworkElement
 	public Node ingressNode;
 	public Node egressNode;
 	public double offeredTrafficInErlangs;
+	public List<Route> routes;
 
 	public Demand(Node ingressNode, Node egressNode)
 	{
@@ -176,6 +220,7 @@ public class NetworkElement
 	    this.ingressNode = ingressNode;
 	    this.egressNode = egressNode;
 	    this.offeredTrafficInErlangs = 0;
+	    routes = new ArrayList<Route>();
 	}
     }
 
@@ -186,7 +231,8 @@ public class NetworkElement
 	public double linkCapacityInErlangs;
 	public double linkLengthInKm;
 	public String sublink ;
-     
+	public List<Route> traversingRoutes;
+	public List<Segment> traversingSegments;
 	
 	public Link(Node originNode, Node destinationNode)
 	{
@@ -195,6 +241,8 @@ public class NetworkElement
 
 	    linkCapacityInErlangs = 0;
 	    linkLengthInKm = 0;
+	    traversingRoutes = new ArrayList<Route>();
+	    traversingSegments = new ArrayList<Segment>();
 	}
 
 	@Override
@@ -227,6 +275,10 @@ public class NetworkElement
     {
 	public Point2D position;
 	public String name;
+	public List<Link> outgoingLinks;
+	public List<Link> incomingLinks;
+	public List<Demand> outgoingDemands;
+	public List<Demand> incomingDemands;
 
 	public Node()
         {
@@ -234,6 +286,10 @@ public class NetworkElement
             
             position = new Point2D.Double();
             name = "";
+            outgoingLinks = new ArrayList<Link>();
+            incomingLinks = new ArrayList<Link>();
+            outgoingDemands = new ArrayList<Demand>();
+            incomingDemands = new ArrayList<Demand>();
         }
     }
 
@@ -294,11 +350,13 @@ public class NetworkElement
     {
 	public List<Link> route;
 	public double reservedBandwithInErlangs;
+	public List<Route> routes;
 
 	public Segment(List<Link> route, double reservedBandwithInErlangs)
 	{
 	    this.route = route;
 	    this.reservedBandwithInErlangs = reservedBandwithInErlangs;
+	    routes = new ArrayList<Route>();
 	}
 
 	@Override
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.DoubleMatrix3D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+
+/**
+ * Read-only vector backed by an array which is not copied. Any attempt to
+ * change a cell throws an <code>UnsupportedOperationException</code>, also
+ * through views (e.g. <code>viewPart()</code>). Methods creating new matrices
+ * (e.g. <code>copy()</code> or <code>like()</code>) return modifiable dense ones.
+ * 
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public final class ReadOnlyDoubleMatrix1D extends DoubleMatrix1D
+{
+    private static final long serialVersionUID = 1L;
+    private final double[] elements;
+
+    /**
+     * Default constructor.
+     * 
+     * @param elements Cell values. They must not be modified afterwards
+     * @since 0.2.3
+     */
+    public ReadOnlyDoubleMatrix1D(double[] elements)
+    {
+        setUp(elements.length);
+        this.elements = elements;
+    }
+
+    @Override
+    public Object elements()
+    {
+        return toArray();
+    }
+
+    @Override
+    public double getQuick(int index)
+    {
+        return elements[zero + index * stride];
+    }
+
+    @Override
+    public DoubleMatrix1D like(int size)
+    {
+        return new DenseDoubleMatrix1D(size);
+    }
+
+    @Override
+    public DoubleMatrix2D like2D(int rows, int columns)
+    {
+        return new DenseDoubleMatrix2D(rows, columns);
+    }
+
+    @Override
+    public DoubleMatrix2D reshape(int rows, int columns)
+    {
+        return copy().reshape(rows, columns);
+    }
+
+    @Override
+    public DoubleMatrix3D reshape(int slices, int rows, int columns)
+    {
+        return copy().reshape(slices, rows, columns);
+    }
+
+    @Override
+    public void setQuick(int index, double value)
+    {
+        throw new UnsupportedOperationException("Read-only vector - can't be changed");
+    }
+
+    @Override
+    protected DoubleMatrix1D viewSelectionLike(int[] offsets)
+    {
+        double[] selection = new double[offsets.length];
+        for (int i = 0; i < offsets.length; i++) selection[i] = elements[offsets[i]];
+
+        return new ReadOnlyDoubleMatrix1D(selection);
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal;
+
+import cern.colt.matrix.tint.IntMatrix1D;
+import cern.colt.matrix.tint.IntMatrix2D;
+import cern.colt.matrix.tint.IntMatrix3D;
+import cern.colt.matrix.tint.impl.DenseIntMatrix1D;
+import cern.colt.matrix.tint.impl.DenseIntMatrix2D;
+
+/**
+ * Read-only vector backed by an array which is not copied. Any attempt to
+ * change a cell throws an <code>UnsupportedOperationException</code>, also
+ * through views (e.g. <code>viewPart()</code>). Methods creating new matrices
+ * (e.g. <code>copy()</code> or <code>like()</code>) return modifiable dense ones.
+ * 
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public final class ReadOnlyIntMatrix1D extends IntMatrix1D
+{
+    private static final long serialVersionUID = 1L;
+    private final int[] elements;
+
+    /**
+     * Default constructor.
+     * 
+     * @param elements Cell values. They must not be modified afterwards
+     * @since 0.2.3
+     */
+    public ReadOnlyIntMatrix1D(int[] elements)
+    {
+        setUp(elements.length);
+        this.elements = elements;
+    }
+
+    @Override
+    public Object elements()
+    {
+        return toArray();
+    }
+
+    @Override
+    public int getQuick(int index)
+    {
+        return elements[zero + index * stride];
+    }
+
+    @Override
+    public IntMatrix1D like(int size)
+    {
+        return new DenseIntMatrix1D(size);
+    }
+
+    @Override
+    public IntMatrix2D like2D(int rows, int columns)
+    {
+        return new DenseIntMatrix2D(rows, columns);
+    }
+
+    @Override
+    public IntMatrix2D reshape(int rows, int columns)
+    {
+        return copy().reshape(rows, columns);
+    }
+
+    @Override
+    public IntMatrix3D reshape(int slices, int rows, int columns)
+    {
+        return copy().reshape(slices, rows, columns);
+    }
+
+    @Override
+    public void setQuick(int index, int value)
+    {
+        throw new UnsupportedOperationException("Read-only vector - can't be changed");
+    }
+
+    @Override
+    protected IntMatrix1D viewSelectionLike(int[] offsets)
+    {
+        int[] selection = new int[offsets.length];
+        for (int i = 0; i < offsets.length; i++) selection[i] = elements[offsets[i]];
+
+        return new ReadOnlyIntMatrix1D(selection);
+    }
+}
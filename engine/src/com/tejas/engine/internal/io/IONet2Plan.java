@@ -30,13 +30,13 @@ public class IONet2Plan extends __IOImporterExporter
     @Override
     public NetPlan loadNetworkDesign(File file)
     {
-	return new NetPlan(file);
+	return NetPlanXMLStream.readNetPlan(file);
     }
 
     @Override
     public void saveNetworkDesign(File file, NetPlan netPlan)
     {
-	netPlan.saveToFile(file);
+	NetPlanXMLStream.writeNetPlan(file, netPlan);
     }
 
     @Override
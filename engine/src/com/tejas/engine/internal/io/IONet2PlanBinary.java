@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.io;
+
+import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
+import com.tejas.engine.interfaces.networkDesign.NetPlan;
+import com.tejas.engine.utils.Pair;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * <p>Compact binary snapshot format for network plans (<code>.n2pb</code>).</p>
+ *
+ * <p>The file starts with a magic number and a format version, followed by
+ * a dictionary with every distinct string (names, descriptions, attribute keys
+ * and values), and then the network elements (network, nodes, links, demands,
+ * protection segments, routes and SRGs, in this order), where strings are
+ * referred by their position in the dictionary. All values are big-endian.</p>
+ *
+ * <p>Files are memory-mapped on loading, so the plan is built in a single
+ * pass without any text parsing.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public class IONet2PlanBinary extends __IOImporterExporter
+{
+    private final static int MAGIC_NUMBER = 0x4E325042; /* "N2PB" */
+    private final static int VERSION = 1;
+    private final static int NULL_STRING = -1;
+
+    @Override
+    public NetPlan loadNetworkDesign(File file)
+    {
+	try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel())
+	{
+	    ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+	    if (in.remaining() < 8 || in.getInt() != MAGIC_NUMBER) throw new Net2PlanException("Bad file format: not a binary network plan");
+	    int version = in.getInt();
+	    if (version != VERSION) throw new Net2PlanException("Unsupported binary network plan version: " + version);
+
+	    int numStrings = in.getInt();
+	    String[] dictionary = new String[numStrings];
+	    for (int stringId = 0; stringId < numStrings; stringId++)
+	    {
+		byte[] bytes = new byte[in.getInt()];
+		in.get(bytes);
+		dictionary[stringId] = new String(bytes, StandardCharsets.UTF_8);
+	    }
+
+	    NetPlan netPlan = new NetPlan();
+
+	    netPlan.setNetworkName(readString(in, dictionary));
+	    netPlan.setNetworkDescription(readString(in, dictionary));
+	    netPlan.setNetworkAttributes(readAttributes(in, dictionary));
+
+	    int N = in.getInt();
+	    for (int nodeId = 0; nodeId < N; nodeId++)
+	    {
+		String name = readString(in, dictionary);
+		double x = in.getDouble();
+		double y = in.getDouble();
+		netPlan.addNode(x, y, name, readAttributes(in, dictionary));
+	    }
+
+	    int E = in.getInt();
+	    for (int linkId = 0; linkId < E; linkId++)
+	    {
+		int originNodeId = in.getInt();
+		int destinationNodeId = in.getInt();
+		double linkCapacityInErlangs = in.getDouble();
+		double linkLengthInKm = in.getDouble();
+		String subLink = readString(in, dictionary);
+		netPlan.addLink(originNodeId, destinationNodeId, linkCapacityInErlangs, linkLengthInKm, subLink, readAttributes(in, dictionary));
+	    }
+
+	    int D = in.getInt();
+	    for (int demandId = 0; demandId < D; demandId++)
+	    {
+		int ingressNodeId = in.getInt();
+		int egressNodeId = in.getInt();
+		double offeredTrafficInErlangs = in.getDouble();
+		netPlan.addDemand(ingressNodeId, egressNodeId, offeredTrafficInErlangs, readAttributes(in, dictionary));
+	    }
+
+	    int S = in.getInt();
+	    for (int segmentId = 0; segmentId < S; segmentId++)
+	    {
+		double reservedBandwidthInErlangs = in.getDouble();
+		int[] seqLinks = readIntArray(in);
+		netPlan.addProtectionSegment(seqLinks, reservedBandwidthInErlangs, readAttributes(in, dictionary));
+	    }
+
+	    int R = in.getInt();
+	    for (int routeId = 0; routeId < R; routeId++)
+	    {
+		int demandId = in.getInt();
+		double carriedTrafficInErlangs = in.getDouble();
+		int[] seqLinks = readIntArray(in);
+		int[] backupSegments = readIntArray(in);
+		netPlan.addRoute(demandId, carriedTrafficInErlangs, seqLinks, backupSegments, readAttributes(in, dictionary));
+	    }
+
+	    int numSRGs = in.getInt();
+	    for (int srgId = 0; srgId < numSRGs; srgId++)
+	    {
+		double mttf = in.getDouble();
+		double mttr = in.getDouble();
+		int[] nodeIds = readIntArray(in);
+		int[] linkIds = readIntArray(in);
+		netPlan.addSRG(nodeIds, linkIds, mttf, mttr, readAttributes(in, dictionary));
+	    }
+
+	    return netPlan;
+	}
+	catch (Net2PlanException e)
+	{
+	    throw e;
+	}
+	catch (Throwable e)
+	{
+	    throw new RuntimeException(e);
+	}
+    }
+
+    @Override
+    public void saveNetworkDesign(File file, NetPlan netPlan)
+    {
+	String filePath = file.getPath();
+	if (!filePath.toLowerCase(Locale.getDefault()).endsWith(".n2pb")) file = new File(filePath + ".n2pb");
+
+	if (netPlan.isEmpty()) throw new Net2PlanException("Empty network structure");
+
+	/* Elements are written first, so that the dictionary is complete before writing it */
+	Map<String, Integer> dictionary = new HashMap<String, Integer>();
+	List<String> strings = new ArrayList<String>();
+	ByteArrayOutputStream elements = new ByteArrayOutputStream();
+
+	try
+	{
+	    DataOutputStream out = new DataOutputStream(elements);
+
+	    writeString(out, netPlan.getNetworkName(), dictionary, strings);
+	    writeString(out, netPlan.getNetworkDescription(), dictionary, strings);
+	    writeAttributes(out, netPlan.getNetworkAttributes(), dictionary, strings);
+
+	    int N = netPlan.getNumberOfNodes();
+	    out.writeInt(N);
+	    for (int nodeId = 0; nodeId < N; nodeId++)
+	    {
+		double[] xy = netPlan.getNodeXYPosition(nodeId);
+		writeString(out, netPlan.getNodeName(nodeId), dictionary, strings);
+		out.writeDouble(xy[0]);
+		out.writeDouble(xy[1]);
+		writeAttributes(out, netPlan.getNodeSpecificAttributes(nodeId), dictionary, strings);
+	    }
+
+	    int E = netPlan.getNumberOfLinks();
+	    out.writeInt(E);
+	    for (int linkId = 0; linkId < E; linkId++)
+	    {
+		out.writeInt(netPlan.getLinkOriginNode(linkId));
+		out.writeInt(netPlan.getLinkDestinationNode(linkId));
+		out.writeDouble(netPlan.getLinkCapacityInErlangs(linkId));
+		out.writeDouble(netPlan.getLinkLengthInKm(linkId));
+		writeString(out, netPlan.getSubLink(linkId), dictionary, strings);
+		writeAttributes(out, netPlan.getLinkSpecificAttributes(linkId), dictionary, strings);
+	    }
+
+	    int D = netPlan.getNumberOfDemands();
+	    out.writeInt(D);
+	    for (int demandId = 0; demandId < D; demandId++)
+	    {
+		out.writeInt(netPlan.getDemandIngressNode(demandId));
+		out.writeInt(netPlan.getDemandEgressNode(demandId));
+		out.writeDouble(netPlan.getDemandOfferedTrafficInErlangs(demandId));
+		writeAttributes(out, netPlan.getDemandSpecificAttributes(demandId), dictionary, strings);
+	    }
+
+	    int S = netPlan.getNumberOfProtectionSegments();
+	    out.writeInt(S);
+	    for (int segmentId = 0; segmentId < S; segmentId++)
+	    {
+		out.writeDouble(netPlan.getProtectionSegmentReservedBandwidthInErlangs(segmentId));
+		writeIntArray(out, netPlan.getProtectionSegmentSequenceOfLinks(segmentId));
+		writeAttributes(out, netPlan.getProtectionSegmentSpecificAttributes(segmentId), dictionary, strings);
+	    }
+
+	    int R = netPlan.getNumberOfRoutes();
+	    out.writeInt(R);
+	    for (int routeId = 0; routeId < R; routeId++)
+	    {
+		out.writeInt(netPlan.getRouteDemand(routeId));
+		out.writeDouble(netPlan.getRouteCarriedTrafficInErlangs(routeId));
+		writeIntArray(out, netPlan.getRouteSequenceOfLinks(routeId));
+		writeIntArray(out, netPlan.getRouteBackupSegmentList(routeId));
+		writeAttributes(out, netPlan.getRouteSpecificAttributes(routeId), dictionary, strings);
+	    }
+
+	    int numSRGs = netPlan.getNumberOfSRGs();
+	    out.writeInt(numSRGs);
+	    for (int srgId = 0; srgId < numSRGs; srgId++)
+	    {
+		out.writeDouble(netPlan.getSRGMeanTimeToFailInHours(srgId));
+		out.writeDouble(netPlan.getSRGMeanTimeToRepairInHours(srgId));
+		writeIntArray(out, netPlan.getSRGNodes(srgId));
+		writeIntArray(out, netPlan.getSRGLinks(srgId));
+		writeAttributes(out, netPlan.getSRGSpecificAttributes(srgId), dictionary, strings);
+	    }
+
+	    out.flush();
+	}
+	catch (IOException e)
+	{
+	    throw new RuntimeException(e);
+	}
+
+	try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+	{
+	    out.writeInt(MAGIC_NUMBER);
+	    out.writeInt(VERSION);
+
+	    out.writeInt(strings.size());
+	    for (String string : strings)
+	    {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	    }
+
+	    elements.writeTo(out);
+	}
+	catch (IOException e)
+	{
+	    throw new RuntimeException(e);
+	}
+    }
+
+    @Override
+    public Pair<String, Set<String>> getDefaultExtensions()
+    {
+	Set<String> extensions = new HashSet<String>();
+	extensions.add("n2pb");
+
+	return Pair.of("Net2Plan binary snapshot (*.n2pb)", extensions);
+    }
+
+    private static String readString(ByteBuffer in, String[] dictionary)
+    {
+	int stringId = in.getInt();
+	return stringId == NULL_STRING ? null : dictionary[stringId];
+    }
+
+    private static Map<String, String> readAttributes(ByteBuffer in, String[] dictionary)
+    {
+	int numAttributes = in.getInt();
+	Map<String, String> attributes = new HashMap<String, String>();
+	for (int attribId = 0; attribId < numAttributes; attribId++)
+	{
+	    String key = readString(in, dictionary);
+	    String value = readString(in, dictionary);
+	    attributes.put(key, value);
+	}
+
+	return attributes;
+    }
+
+    private static int[] readIntArray(ByteBuffer in)
+    {
+	int[] array = new int[in.getInt()];
+	in.asIntBuffer().get(array);
+	in.position(in.position() + 4 * array.length);
+
+	return array;
+    }
+
+    private static void writeString(DataOutputStream out, String string, Map<String, Integer> dictionary, List<String> strings) throws IOException
+    {
+	if (string == null)
+	{
+	    out.writeInt(NULL_STRING);
+	    return;
+	}
+
+	Integer stringId = dictionary.get(string);
+	if (stringId == null)
+	{
+	    stringId = strings.size();
+	    dictionary.put(string, stringId);
+	    strings.add(string);
+	}
+
+	out.writeInt(stringId);
+    }
+
+    private static void writeAttributes(DataOutputStream out, Map<String, String> attributes, Map<String, Integer> dictionary, List<String> strings) throws IOException
+    {
+	out.writeInt(attributes.size());
+	for (Entry<String, String> entry : attributes.entrySet())
+	{
+	    writeString(out, entry.getKey(), dictionary, strings);
+	    writeString(out, entry.getValue(), dictionary, strings);
+	}
+    }
+
+    private static void writeIntArray(DataOutputStream out, int[] array) throws IOException
+    {
+	out.writeInt(array.length);
+	for (int value : array) out.writeInt(value);
+    }
+}
@@ -0,0 +1,573 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.io;
+
+import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
+import com.tejas.engine.interfaces.networkDesign.NetPlan;
+import com.tejas.engine.utils.StringUtils;
+
+import cern.colt.list.tint.IntArrayList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * <p>Streaming (StAX) reader and writer for <code>.n2p</code> files.</p>
+ *
+ * <p>The format is the same one handled by {@link NetPlan#NetPlan(File) NetPlan(File)}
+ * and {@link NetPlan#saveToFile(File) saveToFile(File)}, but no DOM tree is
+ * built: the network plan is filled while the file is parsed (and written
+ * while the plan is traversed), so memory usage does not depend on the size
+ * of the file, apart from the network plan itself.</p>
+ *
+ * <p><b>Important</b>: Elements are added in document order, thus nodes must
+ * appear before links and demands, links before protection segments, routes and
+ * SRGs, and protection segments before routes, as <code>saveToFile</code> does.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public final class NetPlanXMLStream
+{
+    private final static String INDENT = "    ";
+
+    private NetPlanXMLStream() { }
+
+    /**
+     * Loads a network plan from a <code>.n2p</code> file.
+     *
+     * @param file .n2p file
+     * @return Network plan
+     * @since 0.2.3
+     */
+    public static NetPlan readNetPlan(File file)
+    {
+	try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file)))
+	{
+	    return readNetPlan(inputStream);
+	}
+	catch (IOException e)
+	{
+	    throw new RuntimeException(e);
+	}
+    }
+
+    /**
+     * Loads a network plan from an input stream in <code>.n2p</code> format.
+     * The stream is not closed.
+     *
+     * @param inputStream Input stream
+     * @return Network plan
+     * @since 0.2.3
+     */
+    public static NetPlan readNetPlan(InputStream inputStream)
+    {
+	NetPlan netPlan = new NetPlan();
+
+	try
+	{
+	    Reader reader = new InputStreamReader(inputStream, "UTF-8");
+
+	    XMLInputFactory factory = XMLInputFactory.newInstance();
+	    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+
+	    XMLStreamReader xml = factory.createXMLStreamReader(reader);
+	    try
+	    {
+		xml.nextTag();
+		if (!xml.getLocalName().equals("network")) throw new Exception("Root element must be 'network'");
+
+		for (int attribId = 0; attribId < xml.getAttributeCount(); attribId++)
+		{
+		    String attribName = xml.getAttributeLocalName(attribId);
+		    String attribValue = xml.getAttributeValue(attribId);
+
+		    switch (attribName)
+		    {
+			case "name":
+			    netPlan.setNetworkName(attribValue);
+			    break;
+			case "description":
+			    netPlan.setNetworkDescription(attribValue);
+			    break;
+			default:
+			    netPlan.setNetworkAttribute(attribName, attribValue);
+			    break;
+		    }
+		}
+
+		boolean hasPhysicalTopology = false;
+		boolean hasDemandSet = false;
+		boolean hasProtectionInfo = false;
+		boolean hasRoutingInfo = false;
+		boolean hasSRGInfo = false;
+
+		while (xml.nextTag() == XMLStreamConstants.START_ELEMENT)
+		{
+		    String section = xml.getLocalName();
+		    switch (section)
+		    {
+			case "physicalTopology":
+			    if (hasPhysicalTopology) throw new Exception("Only one physical topology per n2p file must be present");
+			    hasPhysicalTopology = true;
+			    break;
+			case "demandSet":
+			    if (hasDemandSet) throw new Exception("Only one demand set per n2p file must be present");
+			    hasDemandSet = true;
+			    break;
+			case "protectionInfo":
+			    if (hasProtectionInfo) throw new Exception("Only one proctection segment set per n2p file must be present");
+			    hasProtectionInfo = true;
+			    break;
+			case "routingInfo":
+			    if (hasRoutingInfo) throw new Exception("Only one route set per n2p file must be present");
+			    hasRoutingInfo = true;
+			    break;
+			case "srgInfo":
+			    if (hasSRGInfo) throw new Exception("Only one SRG set per n2p file must be present");
+			    hasSRGInfo = true;
+			    break;
+			default:
+			    skipElement(xml);
+			    continue;
+		    }
+
+		    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT)
+		    {
+			String element = xml.getLocalName();
+			if (section.equals("physicalTopology") && element.equals("node")) readNode(xml, netPlan);
+			else if (section.equals("physicalTopology") && element.equals("link")) readLink(xml, netPlan);
+			else if (section.equals("demandSet") && element.equals("demandEntry")) readDemand(xml, netPlan);
+			else if (section.equals("protectionInfo") && element.equals("protectionSegment")) readProtectionSegment(xml, netPlan);
+			else if (section.equals("routingInfo") && element.equals("route")) readRoute(xml, netPlan);
+			else if (section.equals("srgInfo") && element.equals("srg")) readSRG(xml, netPlan);
+			else skipElement(xml);
+		    }
+		}
+	    }
+	    finally
+	    {
+		xml.close();
+	    }
+	}
+	catch (Throwable e)
+	{
+	    throw new RuntimeException(e);
+	}
+
+	return netPlan;
+    }
+
+    /**
+     * Saves a network plan to a <code>.n2p</code> file. If the file name
+     * has no <code>.n2p</code> extension, it is appended.
+     *
+     * @param file .n2p file
+     * @param netPlan Network plan
+     * @since 0.2.3
+     */
+    public static void writeNetPlan(File file, NetPlan netPlan)
+    {
+	String filePath = file.getPath();
+	if (!filePath.toLowerCase(Locale.getDefault()).endsWith(".n2p")) file = new File(filePath + ".n2p");
+
+	if (netPlan.isEmpty()) throw new Net2PlanException("Empty network structure");
+
+	try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file)))
+	{
+	    writeNetPlan(outputStream, netPlan);
+	}
+	catch (IOException e)
+	{
+	    throw new RuntimeException(e);
+	}
+    }
+
+    /**
+     * Writes a network plan to an output stream in <code>.n2p</code> format.
+     * The stream is flushed, but not closed.
+     *
+     * @param outputStream Output stream
+     * @param netPlan Network plan
+     * @since 0.2.3
+     */
+    public static void writeNetPlan(OutputStream outputStream, NetPlan netPlan)
+    {
+	if (netPlan.isEmpty()) throw new Net2PlanException("Empty network structure");
+
+	int N = netPlan.getNumberOfNodes();
+	int E = netPlan.getNumberOfLinks();
+	int D = netPlan.getNumberOfDemands();
+	int R = netPlan.getNumberOfRoutes();
+	int S = netPlan.getNumberOfProtectionSegments();
+	int numSRGs = netPlan.getNumberOfSRGs();
+
+	try
+	{
+	    Writer writer = new OutputStreamWriter(outputStream, "UTF-8");
+	    XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+
+	    xml.writeStartDocument("UTF-8", "1.0");
+	    newLine(xml, 0);
+	    xml.writeStartElement("network");
+	    xml.writeAttribute("name", netPlan.getNetworkName());
+	    xml.writeAttribute("description", netPlan.getNetworkDescription());
+	    writeAttributes(xml, netPlan.getNetworkAttributes());
+
+	    if (N > 0)
+	    {
+		newLine(xml, 1);
+		xml.writeStartElement("physicalTopology");
+
+		for (int nodeId = 0; nodeId < N; nodeId++)
+		{
+		    newLine(xml, 2);
+		    xml.writeEmptyElement("node");
+		    xml.writeAttribute("name", netPlan.getNodeName(nodeId));
+		    writeAttributes(xml, netPlan.getNodeSpecificAttributes(nodeId));
+		}
+
+		for (int linkId = 0; linkId < E; linkId++)
+		{
+		    Map<String, String> attributes = new HashMap<String, String>();
+		    attributes.put("originNodeId", Integer.toString(netPlan.getLinkOriginNode(linkId)));
+		    attributes.put("destinationNodeId", Integer.toString(netPlan.getLinkDestinationNode(linkId)));
+		    attributes.put("linkCapacityInErlangs", Double.toString(netPlan.getLinkCapacityInErlangs(linkId)));
+		    attributes.put("linkLengthInKm", Double.toString(netPlan.getLinkLengthInKm(linkId)));
+		    attributes.put("LinkId", Integer.toString(linkId));
+		    attributes.putAll(netPlan.getLinkSpecificAttributes(linkId));
+
+		    newLine(xml, 2);
+		    xml.writeEmptyElement("link");
+		    writeAttributes(xml, attributes);
+		}
+
+		newLine(xml, 1);
+		xml.writeEndElement();
+	    }
+
+	    if (D > 0)
+	    {
+		newLine(xml, 1);
+		xml.writeStartElement("demandSet");
+
+		for (int demandId = 0; demandId < D; demandId++)
+		{
+		    Map<String, String> attributes = new HashMap<String, String>();
+		    attributes.put("DemandId", Integer.toString(demandId));
+		    attributes.put("ingressNodeId", Integer.toString(netPlan.getDemandIngressNode(demandId)));
+		    attributes.put("egressNodeId", Integer.toString(netPlan.getDemandEgressNode(demandId)));
+		    attributes.put("offeredTrafficInErlangs", Double.toString(netPlan.getDemandOfferedTrafficInErlangs(demandId)));
+		    attributes.putAll(netPlan.getDemandSpecificAttributes(demandId));
+
+		    newLine(xml, 2);
+		    xml.writeEmptyElement("demandEntry");
+		    writeAttributes(xml, attributes);
+		}
+
+		newLine(xml, 1);
+		xml.writeEndElement();
+	    }
+
+	    if (S > 0)
+	    {
+		newLine(xml, 1);
+		xml.writeStartElement("protectionInfo");
+
+		for (int segmentId = 0; segmentId < S; segmentId++)
+		{
+		    Map<String, String> attributes = new HashMap<String, String>();
+		    attributes.put("reservedBandwidthInErlangs", Double.toString(netPlan.getProtectionSegmentReservedBandwidthInErlangs(segmentId)));
+		    attributes.putAll(netPlan.getProtectionSegmentSpecificAttributes(segmentId));
+
+		    newLine(xml, 2);
+		    xml.writeStartElement("protectionSegment");
+		    writeAttributes(xml, attributes);
+		    writeIdEntries(xml, "linkEntry", netPlan.getProtectionSegmentSequenceOfLinks(segmentId), 3);
+		    newLine(xml, 2);
+		    xml.writeEndElement();
+		}
+
+		newLine(xml, 1);
+		xml.writeEndElement();
+	    }
+
+	    if (R > 0)
+	    {
+		newLine(xml, 1);
+		xml.writeStartElement("routingInfo");
+
+		for (int routeId = 0; routeId < R; routeId++)
+		{
+		    int[] sequenceOfLinks = netPlan.getRouteSequenceOfLinks(routeId);
+		    String[] linkEntries = new String[sequenceOfLinks.length];
+		    for (int i = 0; i < sequenceOfLinks.length; i++) linkEntries[i] = Integer.toString(sequenceOfLinks[i]);
+
+		    Map<String, String> attributes = new HashMap<String, String>(netPlan.getRouteSpecificAttributes(routeId));
+		    attributes.put("demandId", Integer.toString(netPlan.getRouteDemand(routeId)));
+		    attributes.put("carriedTrafficInErlangs", Double.toString(netPlan.getRouteCarriedTrafficInErlangs(routeId)));
+		    attributes.put("LinksTravelled", StringUtils.join(linkEntries, "-"));
+
+		    int[] backupSegments = netPlan.getRouteBackupSegmentList(routeId);
+
+		    newLine(xml, 2);
+		    if (backupSegments.length == 0)
+		    {
+			xml.writeEmptyElement("route");
+			writeAttributes(xml, attributes);
+		    }
+		    else
+		    {
+			xml.writeStartElement("route");
+			writeAttributes(xml, attributes);
+			writeIdEntries(xml, "protectionSegmentEntry", backupSegments, 3);
+			newLine(xml, 2);
+			xml.writeEndElement();
+		    }
+		}
+
+		newLine(xml, 1);
+		xml.writeEndElement();
+	    }
+
+	    if (numSRGs > 0)
+	    {
+		newLine(xml, 1);
+		xml.writeStartElement("srgInfo");
+
+		for (int srgId = 0; srgId < numSRGs; srgId++)
+		{
+		    Map<String, String> attributes = new HashMap<String, String>();
+		    attributes.put("mttf", Double.toString(netPlan.getSRGMeanTimeToFailInHours(srgId)));
+		    attributes.put("mttr", Double.toString(netPlan.getSRGMeanTimeToRepairInHours(srgId)));
+		    attributes.putAll(netPlan.getSRGSpecificAttributes(srgId));
+
+		    newLine(xml, 2);
+		    xml.writeStartElement("srg");
+		    writeAttributes(xml, attributes);
+		    writeIdEntries(xml, "nodeEntry", netPlan.getSRGNodes(srgId), 3);
+		    writeIdEntries(xml, "linkEntry", netPlan.getSRGLinks(srgId), 3);
+		    newLine(xml, 2);
+		    xml.writeEndElement();
+		}
+
+		newLine(xml, 1);
+		xml.writeEndElement();
+	    }
+
+	    newLine(xml, 0);
+	    xml.writeEndElement();
+	    xml.writeEndDocument();
+	    newLine(xml, 0);
+
+	    xml.flush();
+	    xml.close();
+	    writer.flush();
+	}
+	catch (XMLStreamException | IOException e)
+	{
+	    throw new RuntimeException(e);
+	}
+    }
+
+    private static Map<String, String> readAttributes(XMLStreamReader xml)
+    {
+	int numAttributes = xml.getAttributeCount();
+	Map<String, String> attributes = new HashMap<String, String>();
+	for (int attribId = 0; attribId < numAttributes; attribId++)
+	    attributes.put(xml.getAttributeLocalName(attribId), xml.getAttributeValue(attribId));
+
+	return attributes;
+    }
+
+    private static IntArrayList readIdEntries(XMLStreamReader xml, String entryName, IntArrayList entries, String otherEntryName, IntArrayList otherEntries) throws XMLStreamException
+    {
+	while (xml.nextTag() == XMLStreamConstants.START_ELEMENT)
+	{
+	    String element = xml.getLocalName();
+	    if (element.equals(entryName)) entries.add(Integer.parseInt(xml.getAttributeValue(null, "id")));
+	    else if (otherEntryName != null && element.equals(otherEntryName)) otherEntries.add(Integer.parseInt(xml.getAttributeValue(null, "id")));
+
+	    skipElement(xml);
+	}
+
+	return entries;
+    }
+
+    private static void readNode(XMLStreamReader xml, NetPlan netPlan) throws XMLStreamException
+    {
+	Map<String, String> nodeAttributes = readAttributes(xml);
+	String nodeName = "Node " + netPlan.getNumberOfNodes();
+	double xCoord = 0;
+	double yCoord = 0;
+
+	String value;
+	if ((value = nodeAttributes.remove("name")) != null) nodeName = value;
+	if ((value = nodeAttributes.remove("xCoord")) != null) xCoord = Double.parseDouble(value);
+	if ((value = nodeAttributes.remove("yCoord")) != null) yCoord = Double.parseDouble(value);
+
+	skipElement(xml);
+
+	netPlan.addNode(xCoord, yCoord, nodeName, nodeAttributes);
+    }
+
+    private static void readLink(XMLStreamReader xml, NetPlan netPlan) throws XMLStreamException
+    {
+	Map<String, String> linkAttributes = readAttributes(xml);
+	int originNodeId = -1;
+	int destinationNodeId = -1;
+	double linkCapacityInErlangs = 0;
+	double linkLengthInKm = 0;
+
+	String value;
+	if ((value = linkAttributes.remove("originNodeId")) != null) originNodeId = Integer.parseInt(value);
+	if ((value = linkAttributes.remove("destinationNodeId")) != null) destinationNodeId = Integer.parseInt(value);
+	if ((value = linkAttributes.remove("linkCapacityInErlangs")) != null) linkCapacityInErlangs = Double.parseDouble(value);
+	if ((value = linkAttributes.remove("linkLengthInKm")) != null) linkLengthInKm = Double.parseDouble(value);
+
+	/* As in NetPlan(File), sublink is also kept as a user-defined attribute */
+	String subLink = linkAttributes.get("subLink");
+
+	skipElement(xml);
+
+	netPlan.addLink(originNodeId, destinationNodeId, linkCapacityInErlangs, linkLengthInKm, subLink, linkAttributes);
+    }
+
+    private static void readDemand(XMLStreamReader xml, NetPlan netPlan) throws XMLStreamException
+    {
+	Map<String, String> demandAttributes = readAttributes(xml);
+	int ingressNodeId = -1;
+	int egressNodeId = -1;
+	double offeredTrafficInErlangs = 0;
+
+	String value;
+	if ((value = demandAttributes.remove("ingressNodeId")) != null) ingressNodeId = Integer.parseInt(value);
+	if ((value = demandAttributes.remove("egressNodeId")) != null) egressNodeId = Integer.parseInt(value);
+	if ((value = demandAttributes.remove("offeredTrafficInErlangs")) != null) offeredTrafficInErlangs = Double.parseDouble(value);
+
+	skipElement(xml);
+
+	netPlan.addDemand(ingressNodeId, egressNodeId, offeredTrafficInErlangs, demandAttributes);
+    }
+
+    private static void readProtectionSegment(XMLStreamReader xml, NetPlan netPlan) throws XMLStreamException
+    {
+	Map<String, String> segmentAttributes = readAttributes(xml);
+	double reservedBandwidthInErlangs = 0;
+
+	String value;
+	if ((value = segmentAttributes.remove("reservedBandwidthInErlangs")) != null) reservedBandwidthInErlangs = Double.parseDouble(value);
+
+	IntArrayList seqLinks = readIdEntries(xml, "linkEntry", new IntArrayList(), null, null);
+
+	netPlan.addProtectionSegment(toArray(seqLinks), reservedBandwidthInErlangs, segmentAttributes);
+    }
+
+    private static void readRoute(XMLStreamReader xml, NetPlan netPlan) throws XMLStreamException
+    {
+	Map<String, String> routeAttributes = readAttributes(xml);
+	int demandId = -1;
+	double carriedTrafficInErlangs = 0;
+
+	String value;
+	if ((value = routeAttributes.remove("demandId")) != null) demandId = Integer.parseInt(value);
+	if ((value = routeAttributes.remove("carriedTrafficInErlangs")) != null) carriedTrafficInErlangs = Double.parseDouble(value);
+
+	IntArrayList backupSegments = new IntArrayList();
+	IntArrayList seqLinks = readIdEntries(xml, "linkEntry", new IntArrayList(), "protectionSegmentEntry", backupSegments);
+
+	/* saveToFile() stores the sequence of links as a dash-separated attribute */
+	String linksTravelled = routeAttributes.remove("LinksTravelled");
+	if (seqLinks.isEmpty() && linksTravelled != null && !linksTravelled.isEmpty())
+	    for (int linkId : StringUtils.toIntArray(StringUtils.split(linksTravelled, "-"))) seqLinks.add(linkId);
+
+	netPlan.addRoute(demandId, carriedTrafficInErlangs, toArray(seqLinks), toArray(backupSegments), routeAttributes);
+    }
+
+    private static void readSRG(XMLStreamReader xml, NetPlan netPlan) throws XMLStreamException
+    {
+	Map<String, String> srgAttributes = readAttributes(xml);
+	double mttf = 0;
+	double mttr = 0;
+
+	String value;
+	if ((value = srgAttributes.remove("mttf")) != null) mttf = Double.parseDouble(value);
+	if ((value = srgAttributes.remove("mttr")) != null) mttr = Double.parseDouble(value);
+
+	IntArrayList srgLinks = new IntArrayList();
+	IntArrayList srgNodes = readIdEntries(xml, "nodeEntry", new IntArrayList(), "linkEntry", srgLinks);
+
+	netPlan.addSRG(toArray(srgNodes), toArray(srgLinks), mttf, mttr, srgAttributes);
+    }
+
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException
+    {
+	int depth = 1;
+	while (depth > 0)
+	{
+	    int event = xml.next();
+	    if (event == XMLStreamConstants.START_ELEMENT) depth++;
+	    else if (event == XMLStreamConstants.END_ELEMENT) depth--;
+	}
+    }
+
+    private static int[] toArray(IntArrayList list)
+    {
+	list.trimToSize();
+	return list.elements();
+    }
+
+    private static void newLine(XMLStreamWriter xml, int indentLevel) throws XMLStreamException
+    {
+	StringBuilder sb = new StringBuilder("\n");
+	for (int i = 0; i < indentLevel; i++) sb.append(INDENT);
+
+	xml.writeCharacters(sb.toString());
+    }
+
+    private static void writeAttributes(XMLStreamWriter xml, Map<String, String> attributes) throws XMLStreamException
+    {
+	for (Entry<String, String> entry : attributes.entrySet())
+	    xml.writeAttribute(entry.getKey(), entry.getValue());
+    }
+
+    private static void writeIdEntries(XMLStreamWriter xml, String entryName, int[] ids, int indentLevel) throws XMLStreamException
+    {
+	for (int id : ids)
+	{
+	    newLine(xml, indentLevel);
+	    xml.writeEmptyElement(entryName);
+	    xml.writeAttribute("id", Integer.toString(id));
+	}
+    }
+}
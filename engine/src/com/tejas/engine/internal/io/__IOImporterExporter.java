@@ -12,6 +12,7 @@
 package com.tejas.engine.internal.io;
 
 import com.tejas.engine.internal.io.IONet2Plan;
+import com.tejas.engine.internal.io.IONet2PlanBinary;
 import com.tejas.engine.interfaces.networkDesign.NetPlan;
 import com.tejas.engine.utils.Pair;
 
@@ -40,6 +41,7 @@ public abstract class __IOImporterExporter extends FileFilter
     {
 	implementingClasses = new LinkedHashSet<Class<? extends __IOImporterExporter>>();
 	implementingClasses.add(IONet2Plan.class);
+	implementingClasses.add(IONet2PlanBinary.class);
     }
 
     @Override
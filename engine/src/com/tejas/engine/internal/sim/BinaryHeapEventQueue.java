@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Future event list structure based on a binary heap, where each event
+ * stores its position in the heap. Adding, retrieving and removing events
+ * take <i>O</i>(log <i>n</i>) time.
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+final class BinaryHeapEventQueue extends EventQueue
+{
+    private final static int INITIAL_CAPACITY = 64;
+
+    private SimEvent[] heap;
+    private int numEvents;
+
+    BinaryHeapEventQueue()
+    {
+	heap = new SimEvent[INITIAL_CAPACITY];
+	numEvents = 0;
+    }
+
+    @Override
+    void add(SimEvent event)
+    {
+	if (numEvents == heap.length) heap = Arrays.copyOf(heap, 2 * heap.length);
+
+	event.felLocation = this;
+	event.felIndex = numEvents;
+	heap[numEvents++] = event;
+	siftUp(event.felIndex);
+    }
+
+    @Override
+    SimEvent peek()
+    {
+	return numEvents == 0 ? null : heap[0];
+    }
+
+    @Override
+    SimEvent poll()
+    {
+	if (numEvents == 0) return null;
+
+	SimEvent event = heap[0];
+	removeAt(0);
+
+	return event;
+    }
+
+    @Override
+    void remove(SimEvent event)
+    {
+	removeAt(event.felIndex);
+    }
+
+    @Override
+    int size()
+    {
+	return numEvents;
+    }
+
+    @Override
+    void clear()
+    {
+	for (int i = 0; i < numEvents; i++)
+	{
+	    release(heap[i]);
+	    heap[i] = null;
+	}
+
+	numEvents = 0;
+    }
+
+    @Override
+    List<SimEvent> getEvents()
+    {
+	return new ArrayList<SimEvent>(Arrays.asList(heap).subList(0, numEvents));
+    }
+
+    private void removeAt(int index)
+    {
+	release(heap[index]);
+
+	numEvents--;
+	SimEvent last = heap[numEvents];
+	heap[numEvents] = null;
+
+	if (index == numEvents) return;
+
+	heap[index] = last;
+	last.felIndex = index;
+	siftDown(index);
+	if (heap[index] == last) siftUp(index);
+    }
+
+    private void siftUp(int index)
+    {
+	SimEvent event = heap[index];
+	while (index > 0)
+	{
+	    int parent = (index - 1) >>> 1;
+	    if (FutureEventList.compare(event, heap[parent]) >= 0) break;
+
+	    heap[index] = heap[parent];
+	    heap[index].felIndex = index;
+	    index = parent;
+	}
+
+	heap[index] = event;
+	event.felIndex = index;
+    }
+
+    private void siftDown(int index)
+    {
+	SimEvent event = heap[index];
+	int half = numEvents >>> 1;
+	while (index < half)
+	{
+	    int child = 2 * index + 1;
+	    int right = child + 1;
+	    if (right < numEvents && FutureEventList.compare(heap[right], heap[child]) < 0) child = right;
+	    if (FutureEventList.compare(event, heap[child]) <= 0) break;
+
+	    heap[index] = heap[child];
+	    heap[index].felIndex = index;
+	    index = child;
+	}
+
+	heap[index] = event;
+	event.felIndex = index;
+    }
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Future event list structure based on a calendar queue. Events are
+ * spread over an array of "days" (buckets) of a given width, each one kept
+ * sorted, which wraps around as a yearly calendar does. The number of days
+ * is doubled (halved) when the number of events is two times higher (lower)
+ * than it, and then the day width is re-estimated from the separation between
+ * the closest events. Adding and retrieving events take <i>O</i>(1)
+ * amortized time when event times are well spread.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ * @see R. Brown, "Calendar queues: a fast O(1) priority queue implementation for the simulation event set problem," <i>Communications of the ACM</i>, vol. 31, no. 10, pp. 1220-1227, October 1988
+ */
+final class CalendarEventQueue extends EventQueue
+{
+    private final static int MIN_BUCKETS = 2;
+    private final static int WIDTH_SAMPLE_SIZE = 25;
+
+    /* Later days (e.g. infinite event times) are merged into this one, which leaves room to move the calendar forward without overflowing */
+    private final static long MAX_DAY = Long.MAX_VALUE / 2;
+
+    private List<SimEvent>[] buckets;
+    private int mask;
+    private double width;
+    private long currentDay;
+    private double lastTime;
+    private int numEvents;
+
+    CalendarEventQueue()
+    {
+	lastTime = 0;
+	numEvents = 0;
+	createCalendar(MIN_BUCKETS, 1);
+    }
+
+    @Override
+    void add(SimEvent event)
+    {
+	long day = getDay(event.getEventTime());
+	insert(event, day);
+	if (day < currentDay) currentDay = day;
+
+	numEvents++;
+	if (numEvents > 2 * buckets.length) resize(2 * buckets.length);
+    }
+
+    @Override
+    SimEvent peek()
+    {
+	int bucketId = findNextBucket();
+	return bucketId == -1 ? null : buckets[bucketId].get(0);
+    }
+
+    @Override
+    SimEvent poll()
+    {
+	int bucketId = findNextBucket();
+	if (bucketId == -1) return null;
+
+	SimEvent event = buckets[bucketId].remove(0);
+	release(event);
+	lastTime = event.getEventTime();
+
+	numEvents--;
+	if (numEvents < buckets.length / 2 && buckets.length > MIN_BUCKETS) resize(buckets.length / 2);
+
+	return event;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void remove(SimEvent event)
+    {
+	List<SimEvent> bucket = (List<SimEvent>) event.felLocation;
+	bucket.remove(Collections.binarySearch(bucket, event, FutureEventList.EVENT_ORDER));
+	release(event);
+
+	numEvents--;
+	if (numEvents < buckets.length / 2 && buckets.length > MIN_BUCKETS) resize(buckets.length / 2);
+    }
+
+    @Override
+    int size()
+    {
+	return numEvents;
+    }
+
+    @Override
+    void clear()
+    {
+	for (List<SimEvent> bucket : buckets)
+	    for (SimEvent event : bucket)
+		release(event);
+
+	lastTime = 0;
+	numEvents = 0;
+	createCalendar(MIN_BUCKETS, 1);
+    }
+
+    @Override
+    List<SimEvent> getEvents()
+    {
+	List<SimEvent> events = new ArrayList<SimEvent>(numEvents);
+	for (List<SimEvent> bucket : buckets) events.addAll(bucket);
+
+	return events;
+    }
+
+    private void createCalendar(int numBuckets, double width)
+    {
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	List<SimEvent>[] newBuckets = new List[numBuckets];
+	buckets = newBuckets;
+	for (int bucketId = 0; bucketId < numBuckets; bucketId++)
+	    buckets[bucketId] = new ArrayList<SimEvent>();
+
+	this.mask = numBuckets - 1;
+	this.width = width;
+	currentDay = getDay(lastTime);
+    }
+
+    /* Looks for the bucket containing the next event, and moves the calendar up to its day */
+    private int findNextBucket()
+    {
+	if (numEvents == 0) return -1;
+
+	for (int i = 0; i < buckets.length; i++)
+	{
+	    int bucketId = (int) (currentDay & mask);
+	    List<SimEvent> bucket = buckets[bucketId];
+	    if (!bucket.isEmpty() && getDay(bucket.get(0).getEventTime()) <= currentDay) return bucketId;
+
+	    currentDay++;
+	}
+
+	/* No event in the next year, direct search */
+	int nextBucketId = -1;
+	for (int bucketId = 0; bucketId < buckets.length; bucketId++)
+	{
+	    List<SimEvent> bucket = buckets[bucketId];
+	    if (bucket.isEmpty()) continue;
+
+	    if (nextBucketId == -1 || FutureEventList.compare(bucket.get(0), buckets[nextBucketId].get(0)) < 0)
+		nextBucketId = bucketId;
+	}
+
+	currentDay = getDay(buckets[nextBucketId].get(0).getEventTime());
+	return nextBucketId;
+    }
+
+    private long getDay(double time)
+    {
+	double day = time / width;
+	if (day >= MAX_DAY) return MAX_DAY;
+	if (day <= -MAX_DAY) return -MAX_DAY;
+
+	return (long) day;
+    }
+
+    private void insert(SimEvent event, long day)
+    {
+	List<SimEvent> bucket = buckets[(int) (day & mask)];
+
+	/* Events tend to be added at the end, so check it first */
+	int size = bucket.size();
+	if (size == 0 || FutureEventList.compare(bucket.get(size - 1), event) < 0)
+	    bucket.add(event);
+	else
+	    bucket.add(-Collections.binarySearch(bucket, event, FutureEventList.EVENT_ORDER) - 1, event);
+
+	event.felLocation = bucket;
+    }
+
+    private void resize(int numBuckets)
+    {
+	List<SimEvent> events = getEvents();
+	createCalendar(numBuckets, estimateWidth(events));
+
+	for (SimEvent event : events) insert(event, getDay(event.getEventTime()));
+    }
+
+    /* Three times the average separation between the earliest events, discarding outliers */
+    private double estimateWidth(List<SimEvent> events)
+    {
+	double[] sample = new double[Math.min(WIDTH_SAMPLE_SIZE, events.size())];
+	if (sample.length < 2) return width;
+
+	int sampleSize = 0;
+	for (SimEvent event : events)
+	{
+	    double time = event.getEventTime();
+	    if (sampleSize == sample.length && time >= sample[sampleSize - 1]) continue;
+
+	    int pos = Arrays.binarySearch(sample, 0, sampleSize, time);
+	    if (pos < 0) pos = -pos - 1;
+	    if (sampleSize < sample.length) sampleSize++;
+	    System.arraycopy(sample, pos, sample, pos + 1, sampleSize - pos - 1);
+	    sample[pos] = time;
+	}
+
+	double averageSeparation = (sample[sampleSize - 1] - sample[0]) / (sampleSize - 1);
+
+	double sum = 0;
+	int count = 0;
+	for (int i = 1; i < sampleSize; i++)
+	{
+	    double separation = sample[i] - sample[i - 1];
+	    if (separation <= 2 * averageSeparation)
+	    {
+		sum += separation;
+		count++;
+	    }
+	}
+
+	double newWidth = count == 0 ? 0 : 3 * sum / count;
+	return newWidth > 0 && !Double.isInfinite(newWidth) ? newWidth : width;
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.sim;
+
+import java.util.List;
+
+/**
+ * <p>Data structure storing the pending events of a {@link FutureEventList}.</p>
+ *
+ * <p>Implementations must return events according to
+ * {@link FutureEventList#EVENT_ORDER}. They may use the <code>felLocation</code>
+ * and <code>felIndex</code> fields of {@link SimEvent} to locate events on
+ * removal, and must reset them (to <code>null</code> and -1, respectively)
+ * once an event leaves the structure.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+abstract class EventQueue
+{
+    /**
+     * Adds an event.
+     *
+     * @param event Event (not currently stored)
+     * @since 0.2.3
+     */
+    abstract void add(SimEvent event);
+
+    /**
+     * Returns the next event, without removing it.
+     *
+     * @return Next event (or <code>null</code>, if empty)
+     * @since 0.2.3
+     */
+    abstract SimEvent peek();
+
+    /**
+     * Removes and returns the next event.
+     *
+     * @return Next event (or <code>null</code>, if empty)
+     * @since 0.2.3
+     */
+    abstract SimEvent poll();
+
+    /**
+     * Removes a given event.
+     *
+     * @param event Event (currently stored)
+     * @since 0.2.3
+     */
+    abstract void remove(SimEvent event);
+
+    /**
+     * Returns the number of stored events.
+     *
+     * @return Number of stored events
+     * @since 0.2.3
+     */
+    abstract int size();
+
+    /**
+     * Removes all the events.
+     *
+     * @since 0.2.3
+     */
+    abstract void clear();
+
+    /**
+     * Returns the stored events, in no particular order.
+     *
+     * @return Stored events
+     * @since 0.2.3
+     */
+    abstract List<SimEvent> getEvents();
+
+    static void release(SimEvent event)
+    {
+	event.felLocation = null;
+	event.felIndex = -1;
+    }
+}
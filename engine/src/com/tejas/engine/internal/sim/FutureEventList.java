@@ -16,7 +16,9 @@ import com.tejas.engine.interfaces.cacSimulation.CACEvent;
 import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
 
 import java.util.Collection;
-import java.util.PriorityQueue;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * <p>Class in charge of dealing with the future event list (FEL) of the
@@ -29,6 +31,11 @@ import java.util.PriorityQueue;
  * <li>3. Insertion order (first in, first out)</li>
  * </ul>
  *
+ * <p>Pending events are stored in one of the structures given by {@link QueueType}
+ * (a binary heap by default), in all cases with the same event order. Events
+ * know their own position within the structure, so the event object itself acts
+ * as the handle to cancel it.</p>
+ *
  * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
  * @since 0.2.0
  */
@@ -44,8 +51,79 @@ public final class FutureEventList
         fel.addEvent(event2);
     }
     
-//    private TreeSet<SimEvent> futureEventList;
-    private PriorityQueue<SimEvent> futureEventList;
+    /**
+     * Comparator implementing the event order of the future event list.
+     *
+     * @since 0.2.3
+     */
+    public final static Comparator<SimEvent> EVENT_ORDER = new Comparator<SimEvent>()
+    {
+	@Override
+	public int compare(SimEvent e1, SimEvent e2)
+	{
+	    return FutureEventList.compare(e1, e2);
+	}
+    };
+
+    /**
+     * Data structures available to store pending events.
+     *
+     * @since 0.2.3
+     */
+    public enum QueueType
+    {
+	/**
+	 * Binary heap: <i>O</i>(log <i>n</i>) time per operation, regardless of the event time distribution.
+	 *
+	 * @since 0.2.3
+	 */
+	BINARY_HEAP("binaryHeap"),
+
+	/**
+	 * Calendar queue: <i>O</i>(1) amortized time per operation when event times are well spread (i.e. Poisson arrivals).
+	 *
+	 * @since 0.2.3
+	 */
+	CALENDAR_QUEUE("calendarQueue"),
+
+	/**
+	 * Ladder queue: <i>O</i>(1) amortized time per operation, also for skewed event time distributions.
+	 *
+	 * @since 0.2.3
+	 */
+	LADDER_QUEUE("ladderQueue");
+
+	private final String name;
+
+	private QueueType(String name) { this.name = name; }
+
+	/**
+	 * Returns the name of the structure, as used in the 'futureEventList' simulation parameter.
+	 *
+	 * @return Name
+	 * @since 0.2.3
+	 */
+	public String getName() { return name; }
+
+	/**
+	 * Returns the structure corresponding to a given name.
+	 *
+	 * @param name Name (as returned by {@link #getName() getName})
+	 * @return Structure type
+	 * @since 0.2.3
+	 */
+	public static QueueType fromName(String name)
+	{
+	    for (QueueType type : values())
+		if (type.name.equals(name)) return type;
+
+	    throw new Net2PlanException("Unknown future event list type: '" + name + "'");
+	}
+    }
+
+    private QueueType queueType;
+    private EventQueue queue;
+    private long insertionCounter;
     private double currentTime;
     private long eventsProcessed;
 
@@ -56,10 +134,61 @@ public final class FutureEventList
      */
     public FutureEventList()
     {
-//	futureEventList = new TreeSet<SimEvent>();
-	futureEventList = new PriorityQueue<SimEvent>();
+	this(QueueType.BINARY_HEAP);
+    }
+
+    /**
+     * Constructor that allows to choose the structure storing pending events.
+     *
+     * @param queueType Structure type
+     * @since 0.2.3
+     */
+    public FutureEventList(QueueType queueType)
+    {
+	setQueueType(queueType);
 	reset();
     }
+
+    /**
+     * Returns the structure storing pending events.
+     *
+     * @return Structure type
+     * @since 0.2.3
+     */
+    public QueueType getQueueType() { return queueType; }
+
+    /**
+     * Changes the structure storing pending events. It can only be changed
+     * while there are no pending events.
+     *
+     * @param queueType Structure type
+     * @since 0.2.3
+     */
+    public void setQueueType(QueueType queueType)
+    {
+	if (queue != null && queue.size() > 0)
+	    throw new Net2PlanException("Future event list type cannot be changed while there are pending events");
+
+	switch (queueType)
+	{
+	    case BINARY_HEAP:
+		queue = new BinaryHeapEventQueue();
+		break;
+
+	    case CALENDAR_QUEUE:
+		queue = new CalendarEventQueue();
+		break;
+
+	    case LADDER_QUEUE:
+		queue = new LadderEventQueue();
+		break;
+
+	    default:
+		throw new RuntimeException("Bad");
+	}
+
+	this.queueType = queueType;
+    }
     
 //    /**
 //     * Searches an event in the future event list and returns all the events
@@ -129,7 +258,8 @@ public final class FutureEventList
      * <ul>
      * <li>Event time must be positive, and greater (or equal) than the current
      * simulation time</li>
-     * <li>Event object must not be currently in the future event list</li>
+     * <li>Event object must not be currently in the future event list (in this
+     * or any other future event list)</li>
      * </ul>
      *
      * @param event Event to be added
@@ -145,16 +275,12 @@ public final class FutureEventList
 	    throw new Net2PlanException(String.format("Event cannot be scheduled before the current simulation time (sim. time = %s, event time = %s)", SimEvent.secondsToYearsDaysHoursMinutesSeconds(currentTime), SimEvent.secondsToYearsDaysHoursMinutesSeconds(event.getEventTime())));
         }
 
-	if (futureEventList.contains(event))
-        {
-            for(Object o : futureEventList.toArray())
-                System.out.println(o);
-                
-            System.out.println("--> " + event);
+	if (event.isScheduled())
 	    throw new IllegalArgumentException("This event was already scheduled");
-        }
 
-	futureEventList.add(event);
+	event.felOwner = this;
+	event.felSequence = insertionCounter++;
+	queue.add(event);
     }
 
     /**
@@ -174,7 +300,13 @@ public final class FutureEventList
      *
      * @since 0.2.0
      */
-    public void clear() { futureEventList.clear(); }
+    public void clear()
+    {
+	for (SimEvent event : queue.getEvents()) event.felOwner = null;
+
+	queue.clear();
+	insertionCounter = 0;
+    }
 
     /**
      * Returns the current simulation time (time of the last processed event).
@@ -194,8 +326,7 @@ public final class FutureEventList
     {
         if (!hasMoreEvents()) return -1;
         
-//        return futureEventList.first().getEventTime();
-        return futureEventList.peek().getEventTime();
+        return queue.peek().getEventTime();
     }
 
     /**
@@ -207,10 +338,10 @@ public final class FutureEventList
      */
     public SimEvent getNextEvent()
     {
-	if (futureEventList.isEmpty()) return null;
+	SimEvent nextEvent = queue.poll();
+	if (nextEvent == null) return null;
 
-//	SimEvent nextEvent = futureEventList.pollFirst();
-	SimEvent nextEvent = futureEventList.poll();
+	nextEvent.felOwner = null;
 	currentTime = nextEvent.getEventTime();
 	eventsProcessed++;
 
@@ -223,7 +354,7 @@ public final class FutureEventList
      * @return Number of pending events
      * @since 0.2.0
      */
-    public int getNumberOfPendingEvents() { return futureEventList.size(); }
+    public int getNumberOfPendingEvents() { return queue.size(); }
 
     /**
      * Returns the number of processed events.
@@ -234,16 +365,19 @@ public final class FutureEventList
     public long getNumberOfProcessedEvents() { return eventsProcessed; }
 
     /**
-     * <p>Returns the whole future event list.</p>
-     *
-     * <p><b>Important</b>: It is the original future event list, changes by user
-     * are not checked, so it is discouraged at all.</p>
+     * Returns the pending events, sorted in processing order. The returned list
+     * is an unmodifiable snapshot of the future event list.
      *
-     * @return Future event list
+     * @return Pending events
      * @since 0.2.0
      */
-//    public Collection<SimEvent> getPendingEvents() { return Collections.unmodifiableCollection(futureEventList); }
-    public PriorityQueue<SimEvent> getPendingEvents() { return futureEventList; }
+    public List<SimEvent> getPendingEvents()
+    {
+	List<SimEvent> out = queue.getEvents();
+	Collections.sort(out, EVENT_ORDER);
+
+	return Collections.unmodifiableList(out);
+    }
 
     /**
      * Returns <code>true</code> if the future event list has more events scheduled.
@@ -251,15 +385,33 @@ public final class FutureEventList
      * @return <code>true</code> if there are more events in the future event list, <code>false</code> otherwise
      * @since 0.2.0
      */
-    public boolean hasMoreEvents() { return !futureEventList.isEmpty(); }
+    public boolean hasMoreEvents() { return queue.size() > 0; }
 
     /**
-     * <p>Removes an event from the future event list.</p>
+     * <p>Removes an event from the future event list. If the event is not
+     * scheduled in this future event list, nothing happens.</p>
      *
      * @param event Event to be removed
      * @since 0.2.0
      */
-    public void remove(SimEvent event) { futureEventList.remove(event); }
+    public void remove(SimEvent event) { cancelEvent(event); }
+
+    /**
+     * Cancels a scheduled event, so that it will not be processed.
+     *
+     * @param event Event to be cancelled (the same object passed to {@link #addEvent(SimEvent) addEvent})
+     * @return <code>true</code> if the event was pending in this future event list, <code>false</code> otherwise
+     * @since 0.2.3
+     */
+    public boolean cancelEvent(SimEvent event)
+    {
+	if (event.felOwner != this) return false;
+
+	queue.remove(event);
+	event.felOwner = null;
+
+	return true;
+    }
 
     /**
      * Resets the future event list.
@@ -272,4 +424,14 @@ public final class FutureEventList
 	eventsProcessed = 0;
 	clear();
     }
-}
\ No newline at end of file
+
+    static int compare(SimEvent e1, SimEvent e2)
+    {
+	if (e1.getEventTime() < e2.getEventTime()) return -1;
+	if (e1.getEventTime() > e2.getEventTime()) return 1;
+	if (e1.getEventPriority() > e2.getEventPriority()) return -1;
+	if (e1.getEventPriority() < e2.getEventPriority()) return 1;
+
+	return Long.compare(e1.felSequence, e2.felSequence);
+    }
+}
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.sim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>Future event list structure based on a ladder queue. Events are stored
+ * in three tiers:</p>
+ * <ul>
+ * <li><i>Top</i>: Unsorted list with events far in the future (time greater
+ * or equal than <code>topStart</code>)</li>
+ * <li><i>Ladder</i>: Sequence of rungs, each one an array of unsorted buckets
+ * of equal width. Each rung splits a single bucket of the previous one (the
+ * first one splits the top tier)</li>
+ * <li><i>Bottom</i>: Sorted list with the events to be processed next</li>
+ * </ul>
+ *
+ * <p>The bottom is refilled from the first non-empty bucket of the last rung,
+ * which is split into a new rung if it has too many events. Since events are
+ * only sorted when they reach the bottom, adding and retrieving events take
+ * <i>O</i>(1) amortized time, even for skewed event time distributions.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ * @see W. T. Tang, R. S. M. Goh, I. L.-J. Thng, "Ladder queue: an O(1) priority queue structure for large-scale discrete event simulation," <i>ACM Transactions on Modeling and Computer Simulation</i>, vol. 15, no. 3, pp. 175-204, July 2005
+ */
+final class LadderEventQueue extends EventQueue
+{
+    private final static int THRESHOLD = 50;
+    private final static int MAX_RUNGS = 8;
+    private final static Comparator<SimEvent> REVERSE_EVENT_ORDER = Collections.reverseOrder(FutureEventList.EVENT_ORDER);
+
+    private final List<SimEvent> top;
+    private double topMin;
+    private double topMax;
+    private double topStart;
+    private final List<Rung> rungs;
+    private final List<SimEvent> bottom; /* Sorted in reverse order, so that the next event is the last one */
+    private int numEvents;
+
+    LadderEventQueue()
+    {
+	top = new ArrayList<SimEvent>();
+	rungs = new ArrayList<Rung>();
+	bottom = new ArrayList<SimEvent>();
+	clear();
+    }
+
+    @Override
+    void add(SimEvent event)
+    {
+	numEvents++;
+
+	double time = event.getEventTime();
+	if (time >= topStart)
+	{
+	    if (top.isEmpty())
+	    {
+		topMin = time;
+		topMax = time;
+	    }
+	    else
+	    {
+		topMin = Math.min(topMin, time);
+		topMax = Math.max(topMax, time);
+	    }
+
+	    addUnsorted(top, event);
+	    return;
+	}
+
+	for (Rung rung : rungs)
+	{
+	    int bucketId = rung.getBucket(time);
+	    if (bucketId >= rung.currentBucket)
+	    {
+		addUnsorted(rung.getOrCreateBucket(bucketId), event);
+		return;
+	    }
+	}
+
+	addToBottom(event);
+    }
+
+    @Override
+    SimEvent peek()
+    {
+	if (bottom.isEmpty()) refillBottom();
+
+	return bottom.isEmpty() ? null : bottom.get(bottom.size() - 1);
+    }
+
+    @Override
+    SimEvent poll()
+    {
+	if (bottom.isEmpty()) refillBottom();
+	if (bottom.isEmpty()) return null;
+
+	SimEvent event = bottom.remove(bottom.size() - 1);
+	release(event);
+	numEvents--;
+
+	return event;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void remove(SimEvent event)
+    {
+	List<SimEvent> list = (List<SimEvent>) event.felLocation;
+	if (list == bottom)
+	{
+	    bottom.remove(Collections.binarySearch(bottom, event, REVERSE_EVENT_ORDER));
+	}
+	else
+	{
+	    int index = event.felIndex;
+	    SimEvent last = list.remove(list.size() - 1);
+	    if (last != event)
+	    {
+		list.set(index, last);
+		last.felIndex = index;
+	    }
+	}
+
+	release(event);
+	numEvents--;
+    }
+
+    @Override
+    int size()
+    {
+	return numEvents;
+    }
+
+    @Override
+    void clear()
+    {
+	for (SimEvent event : getEvents()) release(event);
+
+	top.clear();
+	rungs.clear();
+	bottom.clear();
+	topStart = Double.NEGATIVE_INFINITY;
+	numEvents = 0;
+    }
+
+    @Override
+    List<SimEvent> getEvents()
+    {
+	List<SimEvent> events = new ArrayList<SimEvent>(numEvents);
+	events.addAll(top);
+	for (Rung rung : rungs)
+	    for (List<SimEvent> bucket : rung.buckets)
+		if (bucket != null) events.addAll(bucket);
+
+	events.addAll(bottom);
+
+	return events;
+    }
+
+    private void refillBottom()
+    {
+	while (bottom.isEmpty())
+	{
+	    if (rungs.isEmpty())
+	    {
+		if (top.isEmpty()) return;
+
+		List<SimEvent> events = new ArrayList<SimEvent>(top);
+		top.clear();
+
+		/* Events in the range of the new rung (or bottom) are no longer added to top */
+		Rung rung = events.size() > THRESHOLD ? Rung.create(events, topMin, topMax) : null;
+		if (rung == null)
+		{
+		    topStart = Math.nextUp(topMax);
+		    moveToBottom(events);
+		}
+		else
+		{
+		    topStart = Math.max(rung.getEnd(), Math.nextUp(topMax));
+		    rungs.add(rung);
+		}
+
+		continue;
+	    }
+
+	    Rung rung = rungs.get(rungs.size() - 1);
+	    while (rung.currentBucket < rung.buckets.length && (rung.buckets[rung.currentBucket] == null || rung.buckets[rung.currentBucket].isEmpty()))
+		rung.currentBucket++;
+
+	    if (rung.currentBucket == rung.buckets.length)
+	    {
+		rungs.remove(rungs.size() - 1);
+		continue;
+	    }
+
+	    List<SimEvent> events = rung.buckets[rung.currentBucket];
+	    rung.buckets[rung.currentBucket] = null;
+	    rung.currentBucket++;
+
+	    if (events.size() > THRESHOLD && rungs.size() < MAX_RUNGS)
+	    {
+		double min = Double.MAX_VALUE;
+		double max = -Double.MAX_VALUE;
+		for (SimEvent event : events)
+		{
+		    min = Math.min(min, event.getEventTime());
+		    max = Math.max(max, event.getEventTime());
+		}
+
+		Rung childRung = Rung.create(events, min, max);
+		if (childRung != null)
+		{
+		    rungs.add(childRung);
+		    continue;
+		}
+	    }
+
+	    moveToBottom(events);
+	}
+    }
+
+    private void addToBottom(SimEvent event)
+    {
+	int size = bottom.size();
+	if (size == 0 || FutureEventList.compare(event, bottom.get(size - 1)) < 0)
+	    bottom.add(event);
+	else
+	    bottom.add(-Collections.binarySearch(bottom, event, REVERSE_EVENT_ORDER) - 1, event);
+
+	event.felLocation = bottom;
+	event.felIndex = -1;
+    }
+
+    private void moveToBottom(List<SimEvent> events)
+    {
+	Collections.sort(events, REVERSE_EVENT_ORDER);
+	for (SimEvent event : events)
+	{
+	    event.felLocation = bottom;
+	    event.felIndex = -1;
+	}
+
+	bottom.addAll(events);
+    }
+
+    private static void addUnsorted(List<SimEvent> list, SimEvent event)
+    {
+	event.felLocation = list;
+	event.felIndex = list.size();
+	list.add(event);
+    }
+
+    private final static class Rung
+    {
+	private final double start;
+	private final double width;
+	private final List<SimEvent>[] buckets;
+	private int currentBucket;
+
+	private Rung(double start, double width, int numBuckets)
+	{
+	    @SuppressWarnings({ "unchecked", "rawtypes" })
+	    List<SimEvent>[] newBuckets = new List[numBuckets];
+
+	    this.start = start;
+	    this.width = width;
+	    buckets = newBuckets;
+	    currentBucket = 0;
+	}
+
+	/* Returns null if events cannot be split (e.g. all of them have the same time) */
+	private static Rung create(List<SimEvent> events, double min, double max)
+	{
+	    double width = (max - min) / events.size();
+	    if (!(width > 0) || Double.isInfinite(width)) return null;
+
+	    Rung rung = new Rung(min, width, events.size() + 1);
+	    for (SimEvent event : events)
+		addUnsorted(rung.getOrCreateBucket(rung.getBucket(event.getEventTime())), event);
+
+	    return rung;
+	}
+
+	/* Monotonic in time, so that bucket order matches event order */
+	private int getBucket(double time)
+	{
+	    double bucketId = (time - start) / width;
+	    if (!(bucketId > 0)) return 0;
+	    if (bucketId >= buckets.length - 1) return buckets.length - 1;
+
+	    return (int) bucketId;
+	}
+
+	private List<SimEvent> getOrCreateBucket(int bucketId)
+	{
+	    if (buckets[bucketId] == null) buckets[bucketId] = new ArrayList<SimEvent>();
+	    return buckets[bucketId];
+	}
+
+	private double getEnd()
+	{
+	    return start + buckets.length * width;
+	}
+    }
+}
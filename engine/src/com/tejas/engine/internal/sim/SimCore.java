@@ -42,6 +42,7 @@ public final class SimCore implements Runnable
     private double totalTransitoryTime;
     
     private boolean isInTransitory;
+    private double transitoryEndTime;
 
     public enum SimState {NOT_STARTED, RUNNING, STEP, PAUSED, STOPPED};
     private SimState simulationState;
@@ -104,6 +105,19 @@ public final class SimCore implements Runnable
         this.totalTransitoryEvents = totalTransitoryEvents;
     }
 
+    /**
+     * Sets the data structure used for the future event list.
+     *
+     * @param queueType Structure type
+     * @since 0.2.3
+     */
+    public void setFutureEventListType(FutureEventList.QueueType queueType)
+    {
+        checkSimulationNotStartedYet();
+        
+        futureEventList.setQueueType(queueType);
+    }
+
     public void setRefreshTimeInSeconds(double refreshTimeInSeconds)
     {
         checkSimulationNotStartedYet();
@@ -164,12 +178,44 @@ public final class SimCore implements Runnable
         totalSimTime = -1;
         totalTransitoryTime = -1;
         isInTransitory = true;
+        transitoryEndTime = 0;
 
         processingEvent = false;
 
         setSimulationState(SimState.NOT_STARTED);
     }
 
+    /**
+     * Finishes the transitory period, so that statistics are collected from
+     * the given simulation time.
+     *
+     * @param currentSimTime Current simulation time
+     * @since 0.2.3
+     */
+    public void finishTransitory(double currentSimTime)
+    {
+        callback.endOfTransitory(currentSimTime);
+        isInTransitory = false;
+        transitoryEndTime = currentSimTime;
+    }
+
+    /**
+     * Returns the simulation time at which the transitory period finished
+     * (zero if there was no transitory period, or it did not finish yet).
+     *
+     * @return Simulation time at which the transitory period finished
+     * @since 0.2.3
+     */
+    public double getTransitoryEndTime() { return transitoryEndTime; }
+
+    /**
+     * Indicates whether the simulation is in the transitory period.
+     *
+     * @return <code>true</code> if the simulation is in the transitory period, and <code>false</code> otherwise
+     * @since 0.2.3
+     */
+    public boolean isInTransitory() { return isInTransitory; }
+
     @Override
     public void run()
     {
@@ -191,15 +237,9 @@ public final class SimCore implements Runnable
                     if (isInTransitory)
                     {
                         if (totalTransitoryTime != -1 && nextEventTime >= totalTransitoryTime)
-                        {
-                            callback.endOfTransitory(totalTransitoryTime);
-                            isInTransitory = false;
-                        }
+                            finishTransitory(totalTransitoryTime);
                         else if (totalTransitoryEvents != -1 && futureEventList.getNumberOfProcessedEvents() == totalTransitoryEvents)
-                        {
-                            callback.endOfTransitory(futureEventList.getCurrentSimulationTime());
-                            isInTransitory = false;
-                        }
+                            finishTransitory(futureEventList.getCurrentSimulationTime());
                     }
                     
                     if (totalSimTime != -1 && nextEventTime >= totalSimTime)
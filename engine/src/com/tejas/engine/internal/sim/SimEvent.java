@@ -28,6 +28,12 @@ public class SimEvent implements Comparable<SimEvent>
 
     private final double eventTime;
     private final int priority;
+
+    /* Future event list where the event is scheduled (if any), position within its data structure, and insertion order to break ties */
+    FutureEventList felOwner;
+    Object felLocation;
+    int felIndex = -1;
+    long felSequence;
     
     /**
      * Default constructor.
@@ -110,6 +116,18 @@ public class SimEvent implements Comparable<SimEvent>
         return hash;
     }
 
+    /**
+     * Returns <code>true</code> if the event is currently scheduled in a
+     * future event list (it was added and has been neither processed nor removed).
+     * 
+     * @return <code>true</code> if the event is pending, <code>false</code> otherwise
+     * @since 0.2.3
+     */
+    public final boolean isScheduled()
+    {
+	return felOwner != null;
+    }
+
     @Override
     public final int compareTo(SimEvent e)
     {
@@ -24,6 +24,8 @@ import com.tejas.engine.internal.CommandLineParser;
 import com.tejas.engine.internal.ICLIModule;
 import com.tejas.engine.internal.IExternal;
 import com.tejas.engine.internal.NetState;
+import com.tejas.engine.internal.sim.stats.BatchMeans;
+import com.tejas.engine.internal.sim.stats.ReplicationStats;
 import com.tejas.engine.utils.ClassLoaderUtils;
 import com.tejas.engine.utils.HTMLUtils;
 import com.tejas.engine.utils.StringUtils;
@@ -34,9 +36,15 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.Options;
@@ -64,6 +72,16 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
     protected IGUISimulationListener guiListener;
     
     protected Throwable lastReason = null;
+    
+    private boolean isReplication = false;
+    
+    private BatchMeans batchMeans;
+    private long batchSize, eventsInCurrentBatch;
+    private double relativePrecision;
+    private int minBatches;
+    private boolean automaticTransitory;
+    private double currentBatchStartTime, currentBatchTransitoryEndTime;
+    private Map<String, double[]> currentBatchStartTotals;
         
     /**
      * Default constructor.
@@ -232,6 +250,7 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
         }
         
         lastReason = null;
+        batchMeans = null;
         
         resetModule();
     }
@@ -327,6 +346,16 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
 	    .withDescription("Output HTML file with the simulation report")
 	    .withType(PatternOptionBuilder.FILE_VALUE)
 	    .hasArg().withArgName("file").isRequired().create());
+
+	options.addOption(OptionBuilder.withLongOpt("replications")
+	    .withDescription("(Optional) number of independent replications (default: 1). Replication i (i = 0, 1...) adds i to the 'randomSeed' parameter of the " + generatorLabel.toLowerCase() + " and the " + processorLabel.toLowerCase() + ", unless it is -1 (random seed). With more than one replication, the output file reports the mean and the 95% confidence interval of the simulation metrics")
+	    .withType(PatternOptionBuilder.NUMBER_VALUE)
+	    .hasArg().withArgName("number").create());
+
+	options.addOption(OptionBuilder.withLongOpt("threads")
+	    .withDescription("(Optional) number of replications executed in parallel (default: number of available processors)")
+	    .withType(PatternOptionBuilder.NUMBER_VALUE)
+	    .hasArg().withArgName("number").create());
 	return options;
     }
 
@@ -341,11 +370,18 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
 	List<Triple<String, String, String>> parameters = new LinkedList<Triple<String, String, String>>();
 	parameters.add(Triple.of("disableStatistics", "false", "Disable compilation of simulation statistics (only simulation information, and optionally algorithm-specific information, is collected)"));
 	parameters.add(Triple.of("refreshTime", "10", "Refresh time (in seconds)"));
+	parameters.add(Triple.of("futureEventList", FutureEventList.QueueType.BINARY_HEAP.getName(), "Data structure for the future event list: 'binaryHeap', 'calendarQueue' or 'ladderQueue'"));
 	parameters.add(Triple.of("omitProtectionSegments", "false", "Remove protection segments from the network plan to free their reserved bandwidth"));
 	parameters.add(Triple.of("simEvents", "-1", "Total simulation events (including transitory period) (-1 means no limit). In case that 'simTime' and 'simEvents' are specified, the transitory period will finish when one of the previous values is reached"));
 	parameters.add(Triple.of("transitoryEvents", "-1", "Number of events for transitory period (-1 means no transitory period). In case that 'transitoryTime' and 'transitoryEvents' are specified, the transitory period will finish when one of the previous values is reached"));
 	parameters.add(Triple.of("simTime", "-1", "Total simulation time (in seconds, including transitory period) (-1 means no limit). In case that 'simTime' and 'simEvents' are specified, the transitory period will finish when one of the previous values is reached"));
 	parameters.add(Triple.of("transitoryTime", "-1", "Transitory time (in seconds) (-1 means no transitory period). In case that 'transitoryTime' and 'transitoryEvents' are specified, the transitory period will finish when one of the previous values is reached"));
+        parameters.add(Triple.of("batchSize", "-1", "Number of events per batch for batch-means estimation of the metrics in 'batchMetrics' (-1 means no batch-means estimation)"));
+        parameters.add(Triple.of("batchMetrics", "", "Comma-separated list of the metric names estimated by batch means"));
+        parameters.add(Triple.of("minBatches", "10", "Minimum number of batches before applying the sequential stopping rule"));
+        parameters.add(Triple.of("confidenceLevel", "0.95", "Confidence level for batch-means confidence intervals"));
+        parameters.add(Triple.of("relativePrecision", "-1", "The simulation stops once the confidence interval half-width of every metric in 'batchMetrics', relative to its mean, is below this value (-1 means no sequential stopping). Requires batch-means estimation"));
+        parameters.add(Triple.of("automaticTransitory", "false", "Detects the end of the transitory period applying the MSER-5 rule to the batch means, instead of using 'transitoryEvents' and 'transitoryTime'. Requires batch-means estimation"));
         parameters.add(Triple.of("allowLinkOversubscription","true","Indicates whether or not links may carry more traffic than their capacity"));
         parameters.add(Triple.of("allowExcessCarriedTraffic","true","Indicates whether or not carried traffic may be greater than the offered one for some demand"));
 
@@ -420,36 +456,31 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
         File outputFile = (File) cli.getParsedOptionValue("output-file");
 
         NetPlan aux_netPlan = new NetPlan(inputFile);
+        
+        int numReplications = cli.hasOption("replications") ? ((Number) cli.getParsedOptionValue("replications")).intValue() : 1;
+        if (numReplications < 1) throw new Net2PlanException("Number of replications must be greater or equal than one");
+        
+        if (numReplications > 1)
+        {
+            int numThreads = cli.hasOption("threads") ? ((Number) cli.getParsedOptionValue("threads")).intValue() : Runtime.getRuntime().availableProcessors();
+            if (numThreads < 1) throw new Net2PlanException("Number of threads must be greater or equal than one");
+            
+            executeReplications(numReplications, numThreads, aux_netPlan, outputFile, aux_simulationParameters, aux_net2planParameters, generatorClassFile, generatorClassName, aux_eventGeneratorParameters, provisioningClassFile, provisioningClassName, aux_eventProcessorParameters);
+            return;
+        }
+        
         setNetPlan(aux_netPlan);
         
         // 5. Initialize simulation
         simCore.reset();
         configureSimulation(aux_simulationParameters, aux_net2planParameters, aux_eventGenerator, aux_eventGeneratorParameters, aux_eventProcessor, aux_eventProcessorParameters);
-        long simEvents = Long.parseLong(simulationParameters.get("simEvents"));
-        double simTime = Double.parseDouble(simulationParameters.get("simTime"));
-        if (simEvents <= 0 && simTime <= 0)
-            throw new Net2PlanException("In the command-line interface the number of total simulated events, or the total simulation time, must be a positive number");
+        checkCommandLineStopCondition(simulationParameters);
         
 	List<? extends SimEvent> events = initialize();
         events = checkEvents(events);
         simCore.getFutureEventList().addEvents(events);
         
-        System.out.println("Net2Plan parameters");
-        System.out.println("-----------------------------");
-        System.out.println(StringUtils.mapToString(net2planParameters, "=", String.format("%n")));
-        System.out.println();
-        System.out.println("Simulation parameters");
-        System.out.println("-----------------------------");
-        System.out.println(StringUtils.mapToString(simulationParameters, "=", String.format("%n")));
-        System.out.println();
-        System.out.println(getEventGeneratorLabel() + " parameters");
-        System.out.println("-----------------------------");
-        System.out.println(eventGeneratorParameters.isEmpty() ? "None" : StringUtils.mapToString(eventGeneratorParameters, "=", String.format("%n")));
-        System.out.println();
-        System.out.println(getEventProcessorLabel() + " parameters");
-        System.out.println("-----------------------------");
-        System.out.println(eventProcessorParameters.isEmpty() ? "None" : StringUtils.mapToString(eventProcessorParameters, "=", String.format("%n")));
-        System.out.println();
+        printParameters();
         System.out.println("Simulation started...");
         System.out.println();
 
@@ -468,6 +499,144 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
         System.out.println(String.format("%n%nSimulation finished successfully in %f seconds", (end - init) / 1e9));
     }
     
+    private void executeReplications(int numReplications, int numThreads, NetPlan aux_netPlan, File outputFile, Map<String, String> aux_simulationParameters, Map<String, String> aux_net2planParameters, File generatorClassFile, String generatorClassName, Map<String, String> aux_eventGeneratorParameters, File processorClassFile, String processorClassName, Map<String, String> aux_eventProcessorParameters)
+    {
+        /* Each replication runs on its own kernel, network plan and event generator/processor instances */
+        List<SimKernel> replications = new ArrayList<SimKernel>(numReplications);
+        for (int replicationId = 0; replicationId < numReplications; replicationId++)
+        {
+            SimKernel replication;
+            try { replication = getClass().getDeclaredConstructor().newInstance(); }
+            catch (ReflectiveOperationException e) { throw new RuntimeException(e); }
+            
+            IExternal aux_eventGenerator = ClassLoaderUtils.getInstance(generatorClassFile, generatorClassName, getEventGeneratorClass());
+            IExternal aux_eventProcessor = ClassLoaderUtils.getInstance(processorClassFile, processorClassName, getEventProcessorClass());
+            
+            replication.isReplication = true;
+            replication.setNetPlan(aux_netPlan);
+            replication.simCore.reset();
+            replication.configureSimulation(aux_simulationParameters, aux_net2planParameters, aux_eventGenerator, getReplicationParameters(aux_eventGeneratorParameters, replicationId), aux_eventProcessor, getReplicationParameters(aux_eventProcessorParameters, replicationId));
+            replications.add(replication);
+        }
+        
+        checkCommandLineStopCondition(aux_simulationParameters);
+        replications.get(0).printParameters();
+        System.out.println(String.format("Simulation started (%d replications, %d threads)...", numReplications, Math.min(numThreads, numReplications)));
+        System.out.println();
+        
+        long init = System.nanoTime();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(numThreads, numReplications));
+        List<Future<Map<String, Double>>> results = new ArrayList<Future<Map<String, Double>>>(numReplications);
+        for (final SimKernel replication : replications)
+        {
+            results.add(executor.submit(new Callable<Map<String, Double>>()
+            {
+                @Override
+                public Map<String, Double> call() { return replication.runReplication(); }
+            }));
+        }
+        
+        executor.shutdown();
+        
+        ReplicationStats stats = new ReplicationStats(0.95);
+        try
+        {
+            for (int replicationId = 0; replicationId < numReplications; replicationId++)
+            {
+                try { stats.addReplication(results.get(replicationId).get()); }
+                catch (ExecutionException e)
+                {
+                    Throwable reason = e.getCause();
+                    if (reason instanceof Net2PlanException || reason instanceof JOMException)
+                        throw new Net2PlanException(String.format("Error executing replication %d: %s", replicationId, reason.getMessage()));
+                    
+                    throw new RuntimeException(String.format("Fatal error executing replication %d", replicationId), reason);
+                }
+                
+                System.out.println(String.format("Replication %d finished", replicationId));
+            }
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        
+        long end = System.nanoTime();
+        
+        StringBuilder html = new StringBuilder();
+	html.append("<html><head><title>Simulation report</title></head>");
+	html.append("<body>");
+	html.append("<h1>Results</h1>");
+        html.append(stats.getResults());
+	html.append("</body></html>");
+        HTMLUtils.exportToHTML(outputFile, html.toString());
+        
+        System.out.println(String.format("%n%nSimulation finished successfully in %f seconds", (end - init) / 1e9));
+    }
+    
+    private Map<String, Double> runReplication()
+    {
+	List<? extends SimEvent> events = initialize();
+        events = checkEvents(events);
+        simCore.getFutureEventList().addEvents(events);
+        
+	simCore.setSimulationState(SimCore.SimState.RUNNING);
+        simCore.run();
+        
+        if (lastReason != null && !(lastReason instanceof EndSimulationException))
+        {
+            if (lastReason instanceof RuntimeException) throw (RuntimeException) lastReason;
+            throw new RuntimeException(lastReason);
+        }
+        
+        return getSimulationMetrics();
+    }
+    
+    private static Map<String, String> getReplicationParameters(Map<String, String> parameters, int replicationId)
+    {
+        Map<String, String> out = new HashMap<String, String>(parameters);
+        if (out.containsKey("randomSeed"))
+        {
+            long seed = Long.parseLong(out.get("randomSeed"));
+            if (seed != -1) out.put("randomSeed", Long.toString(seed + replicationId));
+        }
+        
+        return out;
+    }
+    
+    private static void checkCommandLineStopCondition(Map<String, String> simulationParameters)
+    {
+        long simEvents = Long.parseLong(simulationParameters.get("simEvents"));
+        double simTime = Double.parseDouble(simulationParameters.get("simTime"));
+        if (simEvents <= 0 && simTime <= 0)
+            throw new Net2PlanException("In the command-line interface the number of total simulated events, or the total simulation time, must be a positive number");
+    }
+    
+    private void printParameters()
+    {
+        System.out.println("Net2Plan parameters");
+        System.out.println("-----------------------------");
+        System.out.println(StringUtils.mapToString(net2planParameters, "=", String.format("%n")));
+        System.out.println();
+        System.out.println("Simulation parameters");
+        System.out.println("-----------------------------");
+        System.out.println(StringUtils.mapToString(simulationParameters, "=", String.format("%n")));
+        System.out.println();
+        System.out.println(getEventGeneratorLabel() + " parameters");
+        System.out.println("-----------------------------");
+        System.out.println(eventGeneratorParameters.isEmpty() ? "None" : StringUtils.mapToString(eventGeneratorParameters, "=", String.format("%n")));
+        System.out.println();
+        System.out.println(getEventProcessorLabel() + " parameters");
+        System.out.println("-----------------------------");
+        System.out.println(eventProcessorParameters.isEmpty() ? "None" : StringUtils.mapToString(eventProcessorParameters, "=", String.format("%n")));
+        System.out.println();
+    }
+    
     /**
      * Configures the simulation.
      * 
@@ -507,6 +676,9 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
         if (!simulationParameters.containsKey("refreshTime")) throw new Net2PlanException("'refreshTime' parameter is not configured");
         double refreshTimeInSeconds = Double.parseDouble(simulationParameters.get("refreshTime"));
         simCore.setRefreshTimeInSeconds(refreshTimeInSeconds);
+
+        String futureEventList = simulationParameters.containsKey("futureEventList") ? simulationParameters.get("futureEventList") : FutureEventList.QueueType.BINARY_HEAP.getName();
+        simCore.setFutureEventListType(FutureEventList.QueueType.fromName(futureEventList));
             
         if (!simulationParameters.containsKey("simEvents")) throw new Net2PlanException("'simEvents' parameter is not configured");
         long simEvents = Long.parseLong(simulationParameters.get("simEvents"));
@@ -523,6 +695,8 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
         if (!simulationParameters.containsKey("simTime")) throw new Net2PlanException("'simTime' parameter is not configured");
         double simTime = Double.parseDouble(simulationParameters.get("simTime"));
         simCore.setTotalSimulationTime(simTime);
+        
+        configureBatchMeans(simulationParameters, transitoryEvents, transitoryTime);
 
         this.net2planParameters = new HashMap<String, String>(net2planParameters);
         this.eventGenerator = eventGenerator;
@@ -531,15 +705,87 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
         this.eventProcessorParameters = new HashMap<String, String>(eventProcessorParameters);
     }
 
+    private void configureBatchMeans(Map<String, String> simulationParameters, long transitoryEvents, double transitoryTime)
+    {
+        batchMeans = null;
+        eventsInCurrentBatch = 0;
+        currentBatchStartTime = 0;
+        currentBatchTransitoryEndTime = 0;
+        currentBatchStartTotals = null;
+        
+        batchSize = simulationParameters.containsKey("batchSize") ? Long.parseLong(simulationParameters.get("batchSize")) : -1;
+        relativePrecision = simulationParameters.containsKey("relativePrecision") ? Double.parseDouble(simulationParameters.get("relativePrecision")) : -1;
+        automaticTransitory = simulationParameters.containsKey("automaticTransitory") && Boolean.parseBoolean(simulationParameters.get("automaticTransitory"));
+        
+        if (batchSize <= 0 && batchSize != -1) throw new Net2PlanException("'batchSize' must be in range [1, Long.MAX_VALUE], or -1 for no batch-means estimation");
+        if (relativePrecision <= 0 && relativePrecision != -1) throw new Net2PlanException("'relativePrecision' must be greater than zero, or -1 for no sequential stopping");
+        
+        if (batchSize == -1)
+        {
+            if (relativePrecision != -1) throw new Net2PlanException("Sequential stopping ('relativePrecision') requires batch-means estimation ('batchSize')");
+            if (automaticTransitory) throw new Net2PlanException("Automatic transitory detection ('automaticTransitory') requires batch-means estimation ('batchSize')");
+            return;
+        }
+        
+        if (automaticTransitory && (transitoryEvents != -1 || transitoryTime != -1))
+            throw new Net2PlanException("'transitoryEvents' and 'transitoryTime' must be -1 when 'automaticTransitory' is enabled");
+        
+        minBatches = simulationParameters.containsKey("minBatches") ? Integer.parseInt(simulationParameters.get("minBatches")) : 10;
+        if (minBatches < 2) throw new Net2PlanException("'minBatches' must be greater or equal than two");
+        
+        double confidenceLevel = simulationParameters.containsKey("confidenceLevel") ? Double.parseDouble(simulationParameters.get("confidenceLevel")) : 0.95;
+        
+        List<String> metricNames = new LinkedList<String>();
+        if (simulationParameters.containsKey("batchMetrics"))
+        {
+            for (String metricName : StringUtils.split(simulationParameters.get("batchMetrics"), ","))
+            {
+                metricName = metricName.trim();
+                if (!metricName.isEmpty()) metricNames.add(metricName);
+            }
+        }
+        
+        if (metricNames.isEmpty()) throw new Net2PlanException("'batchMetrics' cannot be empty for batch-means estimation");
+        
+        batchMeans = new BatchMeans(metricNames, confidenceLevel);
+    }
+
     @Override
     public void refresh(boolean forceRefresh)
     {
         if (guiListener != null)
             guiListener.refresh(forceRefresh);
-        else
+        else if (!isReplication)
             System.out.println(getSimulationInfo());
     }
     
+    /**
+     * Returns the main network-wide statistics of the simulation as a
+     * name-value map, used to aggregate independent replications. By default,
+     * an empty map is returned.
+     * 
+     * @return Network-wide statistics (insertion-ordered)
+     * @since 0.2.3
+     */
+    public Map<String, Double> getSimulationMetrics()
+    {
+        return new LinkedHashMap<String, Double>();
+    }
+
+    /**
+     * Returns the numerator and denominator accumulated since the end of the
+     * transitory period of the simulation metrics which can be estimated by
+     * batch means (see {@link com.tejas.engine.internal.sim.stats.SimStats#getMetricTotals(double) SimStats.getMetricTotals}).
+     * By default, an empty map is returned.
+     * 
+     * @return Numerator and denominator of each metric (insertion-ordered)
+     * @since 0.2.3
+     */
+    public Map<String, double[]> getSimulationMetricTotals()
+    {
+        return new LinkedHashMap<String, double[]>();
+    }
+
     /**
      * Returns a reference to the simulation core.
      * 
@@ -613,10 +859,86 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
 	List<SimEvent> newEvents = new ArrayList<SimEvent>();
 
         simulationLoop(event, newEvents);
+        
+        if (batchMeans != null && ++eventsInCurrentBatch == batchSize)
+            finishBatch();
 
         return newEvents;
     }
     
+    private void finishBatch()
+    {
+        eventsInCurrentBatch = 0;
+        
+        if (simCore.isInTransitory()) return;
+        
+        double currentSimTime = simCore.getFutureEventList().getCurrentSimulationTime();
+        double transitoryEndTime = simCore.getTransitoryEndTime();
+        
+        /* Metrics are ratios of quantities accumulated since the end of the
+         * transitory period (e.g. lost and offered traffic), so the value within
+         * the batch is the ratio of their increments along the batch */
+        if (currentBatchStartTotals == null || currentBatchTransitoryEndTime != transitoryEndTime)
+        {
+            currentBatchStartTime = transitoryEndTime;
+            currentBatchTransitoryEndTime = transitoryEndTime;
+            currentBatchStartTotals = new HashMap<String, double[]>();
+            for (String metricName : batchMeans.getMetricNames())
+                currentBatchStartTotals.put(metricName, new double[2]);
+        }
+        
+        /* Zero-length batches are merged with the next one */
+        if (currentSimTime == currentBatchStartTime) return;
+        
+        Map<String, double[]> totals = getSimulationMetricTotals();
+        Map<String, Double> batchValues = new HashMap<String, Double>();
+        for (String metricName : batchMeans.getMetricNames())
+        {
+            double[] total = totals.get(metricName);
+            if (total == null) throw new Net2PlanException(String.format("Metric '%s' is not available for batch-means estimation (check 'batchMetrics' and 'disableStatistics' parameters)", metricName));
+            
+            double[] startTotal = currentBatchStartTotals.get(metricName);
+            double denominator = total[1] - startTotal[1];
+            
+            /* Batches where the metric is undefined (e.g. no offered traffic) are merged with the next one */
+            if (denominator == 0) return;
+            
+            batchValues.put(metricName, (total[0] - startTotal[0]) / denominator);
+        }
+        
+        batchMeans.addBatch(batchValues);
+        currentBatchStartTime = currentSimTime;
+        currentBatchStartTotals = totals;
+        
+        if (automaticTransitory && transitoryEndTime == 0)
+        {
+            int warmUpBatches = batchMeans.getWarmUpBatches();
+            if (warmUpBatches == -1) return;
+            
+            /* Batches after the truncation point are kept for the estimation,
+             * while statistics are restarted from now on */
+            batchMeans.removeFirstBatches(warmUpBatches);
+            simCore.finishTransitory(currentSimTime);
+            return;
+        }
+        
+        if (relativePrecision != -1 && batchMeans.isPrecisionReached(relativePrecision, minBatches))
+            throw new EndSimulationException();
+    }
+    
+    /**
+     * Returns a HTML <code>String</code> with the batch-means estimation of
+     * the simulation metrics, or an empty <code>String</code> if batch-means
+     * estimation is disabled.
+     * 
+     * @return Batch-means estimation in HTML format
+     * @since 0.2.3
+     */
+    protected String getBatchMeansResults()
+    {
+        return batchMeans == null ? "" : batchMeans.getResults();
+    }
+    
     @Override
     public void simulationStateChanged(SimCore.SimState simulationState, Throwable reason)
     {
@@ -628,7 +950,7 @@ public abstract class SimKernel implements IEventCallback, ICLIModule
         }
         else
         {
-            if (reason == null || reason instanceof EndSimulationException) return;
+            if (reason == null || reason instanceof EndSimulationException || isReplication) return;
             
             if (reason instanceof Net2PlanException || reason instanceof JOMException)
             {
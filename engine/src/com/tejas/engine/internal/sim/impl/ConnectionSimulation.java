@@ -166,6 +166,8 @@ public class ConnectionSimulation extends SimKernel
 
 	for (SimStats stat : stats)
 	    info.append(stat.getResults(getSimCore().getFutureEventList().getCurrentSimulationTime()));
+        
+        info.append(getBatchMeansResults());
 
 	StringBuilder html = new StringBuilder();
 	String out = ((ICACAlgorithm) eventProcessor).finish(html, simTime);
@@ -334,6 +336,30 @@ public class ConnectionSimulation extends SimKernel
     {
     }
 
+    @Override
+    public Map<String, Double> getSimulationMetrics()
+    {
+        Map<String, Double> metrics = super.getSimulationMetrics();
+        metrics.put("Number of accepted connections", (double) acceptedConnections);
+        metrics.put("Number of blocked connections", (double) blockedConnections);
+        
+	for (SimStats stat : stats)
+	    metrics.putAll(stat.getMetrics(getSimCore().getFutureEventList().getCurrentSimulationTime()));
+        
+        return metrics;
+    }
+
+    @Override
+    public Map<String, double[]> getSimulationMetricTotals()
+    {
+        Map<String, double[]> totals = super.getSimulationMetricTotals();
+        
+	for (SimStats stat : stats)
+	    totals.putAll(stat.getMetricTotals(getSimCore().getFutureEventList().getCurrentSimulationTime()));
+        
+        return totals;
+    }
+
     @Override
     public NetPlan getCurrentNetPlan() { return netState.convertToNetPlan(); }
     
@@ -364,6 +390,7 @@ public class ConnectionSimulation extends SimKernel
 	List<Triple<String, String, String>> defaultParameters = new LinkedList<Triple<String, String, String>>();
         defaultParameters.add(Triple.of("allowExcessCarriedTraffic","true","Indicates whether or not carried traffic may be greater than the offered one for some connection"));
         defaultParameters.add(Triple.of("incrementalModel", "false", "In the incremental model the simulation stops after the first connection request blocking event"));
+        defaultParameters.add(Triple.of("batchMetrics", "Traffic blocking probability (%)", "Comma-separated list of the metric names estimated by batch means"));
 
 	return defaultParameters;
     }
@@ -151,6 +151,8 @@ public class ResilienceSimulation extends SimKernel
 
         for (SimStats stat : stats)
             info.append(stat.getResults(getSimCore().getFutureEventList().getCurrentSimulationTime()));
+        
+        info.append(getBatchMeansResults());
 
         StringBuilder html = new StringBuilder();
         String out = ((IProvisioningAlgorithm) eventProcessor).finish(html, simTime);
@@ -363,6 +365,30 @@ public class ResilienceSimulation extends SimKernel
 //        }
     }
 
+    @Override
+    public Map<String, Double> getSimulationMetrics()
+    {
+        Map<String, Double> metrics = super.getSimulationMetrics();
+        metrics.put("Number of processed failure events", (double) processedFailureEvents);
+        metrics.put("Number of processed repair events", (double) processedRepairEvents);
+        
+	for (SimStats stat : stats)
+	    metrics.putAll(stat.getMetrics(getSimCore().getFutureEventList().getCurrentSimulationTime()));
+        
+        return metrics;
+    }
+
+    @Override
+    public Map<String, double[]> getSimulationMetricTotals()
+    {
+        Map<String, double[]> totals = super.getSimulationMetricTotals();
+        
+	for (SimStats stat : stats)
+	    totals.putAll(stat.getMetricTotals(getSimCore().getFutureEventList().getCurrentSimulationTime()));
+        
+        return totals;
+    }
+
     @Override
     public NetPlan getCurrentNetPlan()
     {
@@ -405,6 +431,7 @@ public class ResilienceSimulation extends SimKernel
 	parameters.add(Triple.of("defaultMTTFInHours", "8748", "Default value for Mean Time To Fail (hours)"));
 	parameters.add(Triple.of("defaultMTTRInHours", "12", "Default value for Mean Time To Repair (hours)"));
 	parameters.add(Triple.of("failureModel", "perBidirectionalLinkBundle", "Failure model selection: SRGfromNetPlan, perNode, perLink, perDirectionalLinkBundle, perBidirectionalLinkBundle"));
+        parameters.add(Triple.of("batchMetrics", "Network availability (weighted)", "Comma-separated list of the metric names estimated by batch means"));
         
         return parameters;
     }
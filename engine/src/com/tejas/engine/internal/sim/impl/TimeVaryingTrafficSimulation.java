@@ -31,6 +31,7 @@ import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Simulates the network operation, where traffic demand volumes vary with time
@@ -132,6 +133,7 @@ public class TimeVaryingTrafficSimulation extends SimKernel
         if (stats.isEmpty()) info.append("No results available since 'disableStatistics' was set to 'true'");
 
         for (SimStats stat : stats) info.append(stat.getResults(getSimCore().getFutureEventList().getCurrentSimulationTime()));
+        info.append(getBatchMeansResults());
         
 	StringBuilder html = new StringBuilder();
 	String out = ((ITrafficAllocationAlgorithm) eventProcessor).finish(html, currentDate);
@@ -242,6 +244,28 @@ public class TimeVaryingTrafficSimulation extends SimKernel
      */
     public void checkActions(TrafficChangeEvent event, List<TrafficAllocationAction> actions) { }
 
+    @Override
+    public Map<String, Double> getSimulationMetrics()
+    {
+        Map<String, Double> metrics = super.getSimulationMetrics();
+        
+	for (SimStats stat : stats)
+	    metrics.putAll(stat.getMetrics(getSimCore().getFutureEventList().getCurrentSimulationTime()));
+        
+        return metrics;
+    }
+
+    @Override
+    public Map<String, double[]> getSimulationMetricTotals()
+    {
+        Map<String, double[]> totals = super.getSimulationMetricTotals();
+        
+	for (SimStats stat : stats)
+	    totals.putAll(stat.getMetricTotals(getSimCore().getFutureEventList().getCurrentSimulationTime()));
+        
+        return totals;
+    }
+
     @Override
     public NetPlan getCurrentNetPlan()
     {
@@ -269,6 +293,7 @@ public class TimeVaryingTrafficSimulation extends SimKernel
 	defaultParameters.add(Triple.of("startWeekDay", "1", "Week day at the start of the simulation (1 = Monday, ... 7 = Sunday)"));
 	defaultParameters.add(Triple.of("startTime", "12:00", "Time (in 24-hour hh:mm format) at the start of the simulation"));
 	defaultParameters.add(Triple.of("timeGranularityInSeconds", "300", "Minimum time between traffic changes"));
+	defaultParameters.add(Triple.of("batchMetrics", "Avg. blocked traffic (%)", "Comma-separated list of the metric names estimated by batch means"));
 
 	return defaultParameters;
     }
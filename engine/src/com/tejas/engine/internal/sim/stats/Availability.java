@@ -23,6 +23,7 @@ import com.tejas.engine.utils.IntUtils;
 import com.tejas.engine.utils.Pair;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -262,6 +263,41 @@ public class Availability extends SimStats
 	lastEventTime = currentSimTime;
     }
 
+    @Override
+    public Map<String, Double> getMetrics(double currentSimTime)
+    {
+        Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+        
+        double tObservation = currentSimTime - timeAtTransitory;
+        if (currentSimTime == 0 || tObservation == 0) return metrics;
+        
+        double tObservation_lastPeriod = currentSimTime - lastEventTime;
+        double[] A_D = getCurrentAvailability(currentSimTime).getSecond();
+        
+        metrics.put("Network availability (classic)", A_D[0]);
+        metrics.put("Network availability (weighted)", A_D[1]);
+        metrics.put("Avg. over-subscribed link capacity (%)", 100.0 * (accum_oversubscribed_e + tObservation_lastPeriod * previousState_oversubscribed_e) / tObservation);
+        metrics.put("Avg. excess carried traffic (%)", 100.0 * (accum_oversubscribed_d + tObservation_lastPeriod * previousState_oversubscribed_d) / tObservation);
+        
+        return metrics;
+    }
+
+    @Override
+    public Map<String, double[]> getMetricTotals(double currentSimTime)
+    {
+        Map<String, double[]> totals = new LinkedHashMap<String, double[]>();
+        
+        double tObservation = currentSimTime - timeAtTransitory;
+        double tObservation_lastPeriod = currentSimTime - lastEventTime;
+        
+        totals.put("Network availability (classic)", new double[] { A_D_1, tObservation });
+        totals.put("Network availability (weighted)", new double[] { A_D_2, tObservation });
+        totals.put("Avg. over-subscribed link capacity (%)", new double[] { 100.0 * (accum_oversubscribed_e + tObservation_lastPeriod * previousState_oversubscribed_e), tObservation });
+        totals.put("Avg. excess carried traffic (%)", new double[] { 100.0 * (accum_oversubscribed_d + tObservation_lastPeriod * previousState_oversubscribed_d), tObservation });
+        
+        return totals;
+    }
+
     @Override
     public String getResults(double currentSimTime)
     {
@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.sim.stats;
+
+import cern.colt.list.tdouble.DoubleArrayList;
+import cern.jet.stat.tdouble.Probability;
+import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Batch-means estimator for a set of metrics within a single (long)
+ * simulation run. The simulation is divided into consecutive batches, and
+ * the mean of each metric within each batch is treated as an (approximately)
+ * independent observation, so that confidence intervals can be computed using
+ * the Student's t-distribution.</p>
+ *
+ * <p>It also implements the MSER-5 rule (White, 1997) to detect the end of the
+ * warm-up period: batches are grouped in blocks of five, and the truncation
+ * point is the one minimizing the marginal standard error of the remaining
+ * blocks.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public class BatchMeans
+{
+    /**
+     * Number of batches averaged in each block of the MSER rule.
+     *
+     * @since 0.2.3
+     */
+    public final static int MSER_BLOCK_SIZE = 5;
+
+    private final static int MSER_MIN_BLOCKS = 10;
+
+    private final double confidenceLevel;
+    private final Map<String, DoubleArrayList> batches;
+
+    /**
+     * Default constructor.
+     *
+     * @param metricNames Names of the estimated metrics
+     * @param confidenceLevel Confidence level for intervals (i.e. 0.95)
+     * @since 0.2.3
+     */
+    public BatchMeans(Collection<String> metricNames, double confidenceLevel)
+    {
+	if (metricNames.isEmpty()) throw new Net2PlanException("At least one metric is required for batch-means estimation");
+	if (confidenceLevel <= 0 || confidenceLevel >= 1) throw new Net2PlanException("Confidence level must be in range (0, 1)");
+
+	this.confidenceLevel = confidenceLevel;
+
+	batches = new LinkedHashMap<String, DoubleArrayList>();
+	for (String metricName : metricNames) batches.put(metricName, new DoubleArrayList());
+    }
+
+    /**
+     * Adds a new batch.
+     *
+     * @param batchValues Mean of each metric within the batch
+     * @since 0.2.3
+     */
+    public void addBatch(Map<String, Double> batchValues)
+    {
+	for (String metricName : batches.keySet())
+	    if (!batchValues.containsKey(metricName))
+		throw new Net2PlanException(String.format("Metric '%s' is not available for batch-means estimation", metricName));
+
+	for (Map.Entry<String, DoubleArrayList> entry : batches.entrySet())
+	    entry.getValue().add(batchValues.get(entry.getKey()));
+    }
+
+    /**
+     * Returns the names of the estimated metrics.
+     *
+     * @return Metric names
+     * @since 0.2.3
+     */
+    public Set<String> getMetricNames() { return batches.keySet(); }
+
+    /**
+     * Returns the number of batches.
+     *
+     * @return Number of batches
+     * @since 0.2.3
+     */
+    public int getNumberOfBatches() { return batches.values().iterator().next().size(); }
+
+    /**
+     * Returns the mean of a metric across batches.
+     *
+     * @param metricName Metric name
+     * @return Mean value, or <code>NaN</code> if there are no batches
+     * @since 0.2.3
+     */
+    public double getMean(String metricName)
+    {
+	DoubleArrayList values = getBatches(metricName);
+	int n = values.size();
+	if (n == 0) return Double.NaN;
+
+	double sum = 0;
+	for (int i = 0; i < n; i++) sum += values.getQuick(i);
+
+	return sum / n;
+    }
+
+    /**
+     * Returns the half-width of the confidence interval for the mean of a metric.
+     *
+     * @param metricName Metric name
+     * @return Half-width of the confidence interval, or <code>NaN</code> if there are less than two batches
+     * @since 0.2.3
+     */
+    public double getConfidenceIntervalHalfWidth(String metricName)
+    {
+	DoubleArrayList values = getBatches(metricName);
+	int n = values.size();
+	if (n < 2) return Double.NaN;
+
+	double mean = getMean(metricName);
+	double sumSquares = 0;
+	for (int i = 0; i < n; i++) sumSquares += (values.getQuick(i) - mean) * (values.getQuick(i) - mean);
+
+	return Probability.studentTInverse(1 - confidenceLevel, n - 1) * Math.sqrt(sumSquares / (n - 1)) / Math.sqrt(n);
+    }
+
+    /**
+     * Returns the half-width of the confidence interval for the mean of a
+     * metric, relative to the mean. When both the mean and the half-width are
+     * zero, zero is returned.
+     *
+     * @param metricName Metric name
+     * @return Relative half-width of the confidence interval, or <code>NaN</code> if there are less than two batches
+     * @since 0.2.3
+     */
+    public double getRelativeConfidenceIntervalHalfWidth(String metricName)
+    {
+	double halfWidth = getConfidenceIntervalHalfWidth(metricName);
+	double mean = Math.abs(getMean(metricName));
+
+	if (halfWidth == 0) return 0;
+	return mean == 0 ? Double.POSITIVE_INFINITY : halfWidth / mean;
+    }
+
+    /**
+     * Indicates whether the relative half-width of the confidence interval of
+     * every metric is below a given target.
+     *
+     * @param relativePrecision Target relative half-width
+     * @param minBatches Minimum number of batches
+     * @return <code>true</code> if the target precision was reached, and <code>false</code> otherwise
+     * @since 0.2.3
+     */
+    public boolean isPrecisionReached(double relativePrecision, int minBatches)
+    {
+	if (getNumberOfBatches() < Math.max(2, minBatches)) return false;
+
+	for (String metricName : batches.keySet())
+	    if (!(getRelativeConfidenceIntervalHalfWidth(metricName) <= relativePrecision))
+		return false;
+
+	return true;
+    }
+
+    /**
+     * Returns the number of initial batches belonging to the warm-up period,
+     * according to the MSER-5 rule applied to every metric (the largest
+     * truncation point is returned).
+     *
+     * @return Number of warm-up batches, or -1 if the end of the warm-up period cannot be determined yet
+     * @since 0.2.3
+     */
+    public int getWarmUpBatches()
+    {
+	int warmUpBatches = 0;
+	for (DoubleArrayList values : batches.values())
+	{
+	    int truncationPoint = getMSERTruncationPoint(values.elements(), values.size(), MSER_BLOCK_SIZE);
+	    if (truncationPoint == -1) return -1;
+
+	    warmUpBatches = Math.max(warmUpBatches, truncationPoint);
+	}
+
+	return warmUpBatches;
+    }
+
+    /**
+     * Removes the first batches (i.e. those belonging to the warm-up period).
+     *
+     * @param numBatches Number of batches to remove
+     * @since 0.2.3
+     */
+    public void removeFirstBatches(int numBatches)
+    {
+	if (numBatches <= 0) return;
+
+	for (DoubleArrayList values : batches.values())
+	    values.removeFromTo(0, numBatches - 1);
+    }
+
+    /**
+     * Returns a HTML <code>String</code> with the estimated metrics.
+     *
+     * @return Batch-means estimation in HTML format
+     * @since 0.2.3
+     */
+    public String getResults()
+    {
+	StringBuilder html = new StringBuilder();
+
+	html.append("<h2>Batch-means estimation</h2>");
+	html.append(String.format("<p>Mean and %.1f%% confidence interval half-width across %d batches</p>", 100 * confidenceLevel, getNumberOfBatches()));
+	html.append("<table border='1'><tr><th>Metric</th><th>Mean</th><th>CI half-width</th><th>Relative CI half-width</th></tr>");
+	for (String metricName : batches.keySet())
+	    html.append(String.format("<tr><td>%s</td><td>%.6g</td><td>%.6g</td><td>%.6g</td></tr>", metricName, getMean(metricName), getConfidenceIntervalHalfWidth(metricName), getRelativeConfidenceIntervalHalfWidth(metricName)));
+	html.append("</table>");
+
+	return html.toString();
+    }
+
+    /**
+     * Returns the truncation point of a series of observations according to
+     * the MSER-<i>m</i> rule. Observations are averaged in blocks of <i>m</i>,
+     * and the truncation point <i>d</i> (in blocks) minimizes the marginal
+     * standard error of the remaining <i>k-d</i> blocks, for <i>d</i> &le; <i>k</i>/2.
+     *
+     * @param series Observations
+     * @param length Number of valid observations in <code>series</code>
+     * @param blockSize Number of observations per block (<i>m</i>)
+     * @return Number of observations to truncate, or -1 if there are not enough observations, or the minimum lies in the second half of the series (the warm-up period did not finish yet)
+     * @since 0.2.3
+     */
+    public static int getMSERTruncationPoint(double[] series, int length, int blockSize)
+    {
+	int k = length / blockSize;
+	if (k < MSER_MIN_BLOCKS) return -1;
+
+	double[] blockMeans = new double[k];
+	for (int blockId = 0; blockId < k; blockId++)
+	{
+	    double sum = 0;
+	    for (int i = 0; i < blockSize; i++) sum += series[blockId * blockSize + i];
+	    blockMeans[blockId] = sum / blockSize;
+	}
+
+	/* Suffix sums, traversing the blocks backwards */
+	double sum = 0;
+	double sumSquares = 0;
+	double bestMSER = Double.MAX_VALUE;
+	int bestD = -1;
+	for (int d = k - 1; d >= 0; d--)
+	{
+	    sum += blockMeans[d];
+	    sumSquares += blockMeans[d] * blockMeans[d];
+
+	    if (d > k / 2) continue;
+
+	    int n = k - d;
+	    double mser = Math.max(0, sumSquares - sum * sum / n) / ((double) n * n);
+	    if (mser <= bestMSER)
+	    {
+		bestMSER = mser;
+		bestD = d;
+	    }
+	}
+
+	return bestD == k / 2 ? -1 : bestD * blockSize;
+    }
+
+    private DoubleArrayList getBatches(String metricName)
+    {
+	DoubleArrayList values = batches.get(metricName);
+	if (values == null) throw new Net2PlanException(String.format("Metric '%s' is not estimated", metricName));
+
+	return values;
+    }
+}
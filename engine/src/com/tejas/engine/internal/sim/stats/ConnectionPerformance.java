@@ -29,6 +29,7 @@ import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -365,6 +366,47 @@ public class ConnectionPerformance extends SimStats
         updatePreviousState();
     }
 
+    @Override
+    public Map<String, Double> getMetrics(double currentSimTime)
+    {
+        Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+        
+        double tObservation = currentSimTime - timeAtTransitory;
+        if (currentSimTime == 0 || tObservation == 0) return metrics;
+        
+        double total_offeredNumConnections_d = DoubleUtils.sum(accum_connBP_offeredNumConnections_d);
+        double total_offeredTraffic_d = DoubleUtils.sum(accum_connBP_offeredTraffic_d);
+        double avg_offeredTraffic = DoubleUtils.sum(accum_h_d) / tObservation;
+        
+        metrics.put("Connection blocking probability (%)", total_offeredNumConnections_d == 0 ? 0 : 100.0 * DoubleUtils.sum(accum_connBP_blockedNumConnections_d) / total_offeredNumConnections_d);
+        metrics.put("Weighted connection blocking probability (%)", total_offeredTraffic_d == 0 ? 0 : 100.0 * DoubleUtils.sum(accum_connBP_blockedTraffic_d) / total_offeredTraffic_d);
+        metrics.put("Traffic blocking probability (%)", avg_offeredTraffic == 0 ? 0 : 100.0 * DoubleUtils.sum(accum_lostTraffic_d) / tObservation / avg_offeredTraffic);
+        metrics.put("Avg. number of active connections", DoubleUtils.sum(accum_numActiveConnections_d) / tObservation);
+        metrics.put("Avg. carried traffic (Erlangs)", DoubleUtils.sum(accum_r_d) / tObservation);
+        metrics.put("Avg. over-subscribed link capacity (%)", 100.0 * DoubleUtils.sum(accum_overSubscribed_e) / tObservation);
+        metrics.put("Avg. excess carried traffic (%)", 100.0 * DoubleUtils.sum(accum_overSubscribed_d) / tObservation);
+        
+        return metrics;
+    }
+
+    @Override
+    public Map<String, double[]> getMetricTotals(double currentSimTime)
+    {
+        Map<String, double[]> totals = new LinkedHashMap<String, double[]>();
+        
+        double tObservation = currentSimTime - timeAtTransitory;
+        
+        totals.put("Connection blocking probability (%)", new double[] { 100.0 * DoubleUtils.sum(accum_connBP_blockedNumConnections_d), DoubleUtils.sum(accum_connBP_offeredNumConnections_d) });
+        totals.put("Weighted connection blocking probability (%)", new double[] { 100.0 * DoubleUtils.sum(accum_connBP_blockedTraffic_d), DoubleUtils.sum(accum_connBP_offeredTraffic_d) });
+        totals.put("Traffic blocking probability (%)", new double[] { 100.0 * DoubleUtils.sum(accum_lostTraffic_d), DoubleUtils.sum(accum_h_d) });
+        totals.put("Avg. number of active connections", new double[] { DoubleUtils.sum(accum_numActiveConnections_d), tObservation });
+        totals.put("Avg. carried traffic (Erlangs)", new double[] { DoubleUtils.sum(accum_r_d), tObservation });
+        totals.put("Avg. over-subscribed link capacity (%)", new double[] { 100.0 * DoubleUtils.sum(accum_overSubscribed_e), tObservation });
+        totals.put("Avg. excess carried traffic (%)", new double[] { 100.0 * DoubleUtils.sum(accum_overSubscribed_d), tObservation });
+        
+        return totals;
+    }
+
     @Override
     public String getResults(double currentSimTime)
     {
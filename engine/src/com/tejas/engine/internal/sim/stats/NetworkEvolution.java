@@ -24,6 +24,7 @@ import com.tejas.engine.utils.IntUtils;
 
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -220,6 +221,43 @@ public final class NetworkEvolution extends SimStats
         updatePreviousState();
     }
 
+    @Override
+    public Map<String, Double> getMetrics(double currentSimTime)
+    {
+        Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+        if (currentSimTime == 0) return metrics;
+        
+        double tObservation = currentSimTime - timeAtTransitory;
+        double tObservation_lastPeriod = currentSimTime - lastEventTime;
+        
+        metrics.put("Avg. total offered traffic (Erlangs)", (accum_H_d + tObservation_lastPeriod * previousState_H_d) / tObservation);
+        metrics.put("Avg. blocked traffic (%)", (accum_blockedTraffic + tObservation_lastPeriod * previousState_blockedTraffic) / tObservation);
+        metrics.put("Avg. over-subscribed traffic (%)", (accum_oversubscribedTraffic + tObservation_lastPeriod * previousState_oversubscribedTraffic) / tObservation);
+        metrics.put("Avg. bottleneck utilization", (accum_max_rho_e + tObservation_lastPeriod * previousState_max_rho_e) / tObservation);
+        metrics.put("Avg. route length (hops)", (accum_averageRouteLength_hops + tObservation_lastPeriod * previousState_averageRouteLength_hops) / tObservation);
+        
+        return metrics;
+    }
+
+    @Override
+    public Map<String, double[]> getMetricTotals(double currentSimTime)
+    {
+        Map<String, double[]> totals = new LinkedHashMap<String, double[]>();
+        if (currentSimTime == 0) return totals;
+        
+        double tObservation = currentSimTime - timeAtTransitory;
+        double tObservation_lastPeriod = currentSimTime - lastEventTime;
+        
+        /* Time averages of the value in each state */
+        totals.put("Avg. total offered traffic (Erlangs)", new double[] { accum_H_d + tObservation_lastPeriod * previousState_H_d, tObservation });
+        totals.put("Avg. blocked traffic (%)", new double[] { accum_blockedTraffic + tObservation_lastPeriod * previousState_blockedTraffic, tObservation });
+        totals.put("Avg. over-subscribed traffic (%)", new double[] { accum_oversubscribedTraffic + tObservation_lastPeriod * previousState_oversubscribedTraffic, tObservation });
+        totals.put("Avg. bottleneck utilization", new double[] { accum_max_rho_e + tObservation_lastPeriod * previousState_max_rho_e, tObservation });
+        totals.put("Avg. route length (hops)", new double[] { accum_averageRouteLength_hops + tObservation_lastPeriod * previousState_averageRouteLength_hops, tObservation });
+        
+        return totals;
+    }
+
     @Override
     public String getResults(double currentSimTime)
     {
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.sim.stats;
+
+import cern.jet.stat.tdouble.Probability;
+import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Aggregates the network-wide metrics ({@link SimStats#getMetrics(double) getMetrics})
+ * obtained from independent replications of the same simulation, using the
+ * Student's t-distribution to compute confidence intervals for the mean.
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public class ReplicationStats
+{
+    private final double confidenceLevel;
+    private final List<Map<String, Double>> replications;
+    private final Set<String> metricNames;
+
+    /**
+     * Default constructor.
+     *
+     * @param confidenceLevel Confidence level for intervals (i.e. 0.95)
+     * @since 0.2.3
+     */
+    public ReplicationStats(double confidenceLevel)
+    {
+	if (confidenceLevel <= 0 || confidenceLevel >= 1) throw new Net2PlanException("Confidence level must be in range (0, 1)");
+
+	this.confidenceLevel = confidenceLevel;
+	replications = new ArrayList<Map<String, Double>>();
+	metricNames = new LinkedHashSet<String>();
+    }
+
+    /**
+     * Adds the metrics of a new replication.
+     *
+     * @param metrics Name-value map of metrics
+     * @since 0.2.3
+     */
+    public void addReplication(Map<String, Double> metrics)
+    {
+	replications.add(new LinkedHashMap<String, Double>(metrics));
+	metricNames.addAll(metrics.keySet());
+    }
+
+    /**
+     * Returns the number of replications.
+     *
+     * @return Number of replications
+     * @since 0.2.3
+     */
+    public int getNumberOfReplications() { return replications.size(); }
+
+    /**
+     * Returns the names of the metrics, in order of appearance.
+     *
+     * @return Metric names
+     * @since 0.2.3
+     */
+    public Set<String> getMetricNames() { return metricNames; }
+
+    /**
+     * Returns the sample mean of a metric across replications.
+     *
+     * @param metricName Metric name
+     * @return Sample mean, or <code>NaN</code> if no replication reported the metric
+     * @since 0.2.3
+     */
+    public double getMean(String metricName)
+    {
+	double[] values = getValues(metricName);
+	if (values.length == 0) return Double.NaN;
+
+	double sum = 0;
+	for (double value : values) sum += value;
+
+	return sum / values.length;
+    }
+
+    /**
+     * Returns the half-width of the confidence interval for the mean of a metric.
+     *
+     * @param metricName Metric name
+     * @return Half-width of the confidence interval, or <code>NaN</code> if less than two replications reported the metric
+     * @since 0.2.3
+     */
+    public double getConfidenceIntervalHalfWidth(String metricName)
+    {
+	double[] values = getValues(metricName);
+	int n = values.length;
+	if (n < 2) return Double.NaN;
+
+	double mean = getMean(metricName);
+	double sumSquares = 0;
+	for (double value : values) sumSquares += (value - mean) * (value - mean);
+
+	double standardDeviation = Math.sqrt(sumSquares / (n - 1));
+	return Probability.studentTInverse(1 - confidenceLevel, n - 1) * standardDeviation / Math.sqrt(n);
+    }
+
+    /**
+     * Returns a HTML <code>String</code> with the aggregated statistics.
+     *
+     * @return Aggregated statistics in HTML format
+     * @since 0.2.3
+     */
+    public String getResults()
+    {
+	StringBuilder html = new StringBuilder();
+
+	html.append("<h2>Aggregated results</h2>");
+	html.append(String.format("<p>Mean and %.1f%% confidence interval half-width across %d independent replications</p>", 100 * confidenceLevel, replications.size()));
+
+	if (metricNames.isEmpty())
+	{
+	    html.append("<p>No information available</p>");
+	    return html.toString();
+	}
+
+	html.append("<table border='1'><tr><th>Metric</th><th>Mean</th><th>CI half-width</th></tr>");
+	for (String metricName : metricNames)
+	    html.append(String.format("<tr><td>%s</td><td>%.6g</td><td>%.6g</td></tr>", metricName, getMean(metricName), getConfidenceIntervalHalfWidth(metricName)));
+	html.append("</table>");
+
+	html.append("<h2>Per-replication results</h2>");
+	html.append("<table border='1'><tr><th>Replication</th>");
+	for (String metricName : metricNames) html.append("<th>").append(metricName).append("</th>");
+	html.append("</tr>");
+
+	for (int replicationId = 0; replicationId < replications.size(); replicationId++)
+	{
+	    Map<String, Double> metrics = replications.get(replicationId);
+	    html.append("<tr><td>").append(replicationId).append("</td>");
+	    for (String metricName : metricNames)
+		html.append("<td>").append(metrics.containsKey(metricName) ? String.format("%.6g", metrics.get(metricName)) : "-").append("</td>");
+	    html.append("</tr>");
+	}
+	html.append("</table>");
+
+	return html.toString();
+    }
+
+    private double[] getValues(String metricName)
+    {
+	List<Double> values = new ArrayList<Double>();
+	for (Map<String, Double> metrics : replications)
+	{
+	    Double value = metrics.get(metricName);
+	    if (value != null) values.add(value);
+	}
+
+	double[] out = new double[values.size()];
+	for (int i = 0; i < out.length; i++) out[i] = values.get(i);
+
+	return out;
+    }
+}
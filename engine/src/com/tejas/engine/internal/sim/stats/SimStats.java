@@ -15,6 +15,7 @@ import com.tejas.engine.interfaces.networkDesign.NetPlan;
 import com.tejas.engine.internal.sim.SimEvent;
 import com.tejas.engine.internal.sim.SimState;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -88,6 +89,39 @@ public abstract class SimStats
      */
     public abstract void reset(double currentSimTime);
 
+    /**
+     * Returns the main network-wide statistics as a name-value map, so that
+     * results from independent replications can be aggregated. By default,
+     * an empty map is returned.
+     *
+     * @param currentSimTime Current simulation time
+     * @return Network-wide statistics (insertion-ordered)
+     * @since 0.2.3
+     */
+    public Map<String, Double> getMetrics(double currentSimTime)
+    {
+	return new LinkedHashMap<String, Double>();
+    }
+
+    /**
+     * Returns, for the metrics in {@link #getMetrics(double) getMetrics} which
+     * are the ratio of two quantities accumulated since the last reset, the
+     * pair {numerator, denominator} (e.g. lost and offered traffic for a traffic
+     * blocking probability, or the integral of a quantity along time and the
+     * observation time for a time average). Multiplying factors (e.g. 100 for
+     * percentages) are applied to the numerator. The value of a metric over
+     * a period of the simulation (e.g. a batch) is the ratio of the increments
+     * of both quantities. By default, an empty map is returned.
+     *
+     * @param currentSimTime Current simulation time
+     * @return Numerator and denominator of each metric (insertion-ordered)
+     * @since 0.2.3
+     */
+    public Map<String, double[]> getMetricTotals(double currentSimTime)
+    {
+	return new LinkedHashMap<String, double[]>();
+    }
+
     /**
      * Returns a HTML <code>String</code> with statistics.
      * 
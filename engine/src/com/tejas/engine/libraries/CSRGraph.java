@@ -0,0 +1,701 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.libraries;
+
+import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * <p>Immutable directed multigraph stored in compressed sparse row (CSR) form,
+ * built once from a link table. Nodes and links are identified by their
+ * integer identifiers, so that no boxing is required.</p>
+ *
+ * <p>Path computations are carried out by {@link PathFinder} objects, which
+ * receive the link weights on each call and reuse their scratch arrays among
+ * calls. Links with weight equal to <code>Double.MAX_VALUE</code> are forbidden.
+ * The graph itself can be safely shared among threads, while each thread
+ * should use its own path finder.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public class CSRGraph
+{
+    private final int N;
+    private final int E;
+
+    /* Package-private, so that other algorithms in this package can traverse rows without copying them */
+    final int[] linkOriginNode;
+    final int[] linkDestinationNode;
+    final int[] outOffset;
+    final int[] outLinks;
+    final int[] inOffset;
+    final int[] inLinks;
+
+    /**
+     * Default constructor.
+     *
+     * @param linkTable Set of installed links (first column: origin node, second column: destination node)
+     * @param N Number of nodes (it is enlarged, if required, to include every node in <code>linkTable</code>)
+     * @since 0.2.3
+     */
+    public CSRGraph(int[][] linkTable, int N)
+    {
+	if (N < 0) throw new Net2PlanException("Number of nodes must be non-negative");
+
+	E = linkTable.length;
+	linkOriginNode = new int[E];
+	linkDestinationNode = new int[E];
+
+	int maxNodeId = N - 1;
+	for (int linkId = 0; linkId < E; linkId++)
+	{
+	    linkOriginNode[linkId] = linkTable[linkId][0];
+	    linkDestinationNode[linkId] = linkTable[linkId][1];
+
+	    if (linkOriginNode[linkId] < 0 || linkDestinationNode[linkId] < 0) throw new Net2PlanException("Node identifiers must be non-negative");
+	    maxNodeId = Math.max(maxNodeId, Math.max(linkOriginNode[linkId], linkDestinationNode[linkId]));
+	}
+
+	this.N = maxNodeId + 1;
+
+	outOffset = new int[this.N + 1];
+	inOffset = new int[this.N + 1];
+	for (int linkId = 0; linkId < E; linkId++)
+	{
+	    outOffset[linkOriginNode[linkId] + 1]++;
+	    inOffset[linkDestinationNode[linkId] + 1]++;
+	}
+
+	for (int nodeId = 0; nodeId < this.N; nodeId++)
+	{
+	    outOffset[nodeId + 1] += outOffset[nodeId];
+	    inOffset[nodeId + 1] += inOffset[nodeId];
+	}
+
+	/* Links are stored in increasing order of identifier within each row */
+	outLinks = new int[E];
+	inLinks = new int[E];
+	int[] outFill = Arrays.copyOf(outOffset, this.N);
+	int[] inFill = Arrays.copyOf(inOffset, this.N);
+	for (int linkId = 0; linkId < E; linkId++)
+	{
+	    outLinks[outFill[linkOriginNode[linkId]]++] = linkId;
+	    inLinks[inFill[linkDestinationNode[linkId]]++] = linkId;
+	}
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return Number of nodes
+     * @since 0.2.3
+     */
+    public int getNumberOfNodes() { return N; }
+
+    /**
+     * Returns the number of links.
+     *
+     * @return Number of links
+     * @since 0.2.3
+     */
+    public int getNumberOfLinks() { return E; }
+
+    /**
+     * Returns the origin node of a link.
+     *
+     * @param linkId Link identifier
+     * @return Origin node
+     * @since 0.2.3
+     */
+    public int getLinkOriginNode(int linkId) { return linkOriginNode[linkId]; }
+
+    /**
+     * Returns the destination node of a link.
+     *
+     * @param linkId Link identifier
+     * @return Destination node
+     * @since 0.2.3
+     */
+    public int getLinkDestinationNode(int linkId) { return linkDestinationNode[linkId]; }
+
+    /**
+     * Returns the outgoing links of a node.
+     *
+     * @param nodeId Node identifier
+     * @return Outgoing links, in increasing order of identifier
+     * @since 0.2.3
+     */
+    public int[] getOutgoingLinks(int nodeId) { return Arrays.copyOfRange(outLinks, outOffset[nodeId], outOffset[nodeId + 1]); }
+
+    /**
+     * Returns the incoming links of a node.
+     *
+     * @param nodeId Node identifier
+     * @return Incoming links, in increasing order of identifier
+     * @since 0.2.3
+     */
+    public int[] getIncomingLinks(int nodeId) { return Arrays.copyOfRange(inLinks, inOffset[nodeId], inOffset[nodeId + 1]); }
+
+    /**
+     * Returns a new path finder over this graph.
+     *
+     * @return Path finder
+     * @since 0.2.3
+     */
+    public PathFinder getPathFinder() { return new PathFinder(this); }
+
+    /**
+     * <p>Computes shortest paths (Dijkstra's algorithm, or breadth-first search
+     * when all the allowed links have the same weight) and loopless
+     * <i>k</i>-shortest paths (Yen's algorithm [1]) over a {@link CSRGraph}.
+     * Scratch arrays are allocated once and reused among calls, so that
+     * objects of this class are not thread-safe.</p>
+     *
+     * <p>Paths found by Yen's algorithm can be filtered overriding the methods
+     * {@link #acceptPath acceptPath()} and {@link #compareCandidateToShortestPath compareCandidateToShortestPath()}.</p>
+     *
+     * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+     * @since 0.2.3
+     * @see <code>[1] J.Y. Yen, "Finding the K Shortest Loopless Paths in a Network", <i>Management Science</i>, vol. 17, no. 11, pp. 712-716, Jul. 1971</code>
+     */
+    public static class PathFinder
+    {
+	private final CSRGraph graph;
+
+	/* Search state, valid for a node only if its stamp is equal to the current one */
+	private final double[] distance;
+	private final int[] numHops;
+	private final int[] previousLink;
+	private final int[] reachedStamp;
+	private int searchStamp;
+
+	/* Indexed binary heap (Dijkstra) or FIFO queue (breadth-first search) */
+	private final int[] heap;
+	private final int[] heapPosition;
+	private int heapSize;
+
+	/* Blocked nodes and links, valid only if its stamp is equal to the current one */
+	private final int[] blockedNodeStamp;
+	private final int[] blockedLinkStamp;
+	private int blockStamp;
+
+	private double[] weights;
+	private boolean uniformWeights;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param graph Graph on which paths are searched
+	 * @since 0.2.3
+	 */
+	public PathFinder(CSRGraph graph)
+	{
+	    this.graph = graph;
+
+	    distance = new double[graph.N];
+	    numHops = new int[graph.N];
+	    previousLink = new int[graph.N];
+	    reachedStamp = new int[graph.N];
+	    heap = new int[graph.N];
+	    heapPosition = new int[graph.N];
+	    blockedNodeStamp = new int[graph.N];
+	    blockedLinkStamp = new int[graph.E];
+	}
+
+	/**
+	 * Returns the graph on which paths are searched.
+	 *
+	 * @return Graph
+	 * @since 0.2.3
+	 */
+	public CSRGraph getGraph() { return graph; }
+
+	/**
+	 * Returns the shortest path between two nodes.
+	 *
+	 * @param originNodeId Origin node
+	 * @param destinationNodeId Destination node
+	 * @param weights Link weights (links with weight equal to <code>Double.MAX_VALUE</code> are forbidden)
+	 * @return Sequence of links in the shortest path (empty, if destination not reachable from origin, or origin and destination are the same)
+	 * @since 0.2.3
+	 */
+	public int[] getShortestPath(int originNodeId, int destinationNodeId, double[] weights)
+	{
+	    checkNode(originNodeId);
+	    checkNode(destinationNodeId);
+
+	    setWeights(weights);
+	    nextBlockStamp();
+
+	    return search(originNodeId, destinationNodeId) ? getPathTo(destinationNodeId) : new int[0];
+	}
+
+	/**
+	 * Returns the minimum-hop path between two nodes, using a breadth-first search.
+	 *
+	 * @param originNodeId Origin node
+	 * @param destinationNodeId Destination node
+	 * @param weights Link weights (links with weight equal to <code>Double.MAX_VALUE</code> are forbidden, the rest are considered of unit weight). If <code>null</code>, every link is allowed
+	 * @return Sequence of links in the minimum-hop path (empty, if destination not reachable from origin, or origin and destination are the same)
+	 * @since 0.2.3
+	 */
+	public int[] getMinimumHopPath(int originNodeId, int destinationNodeId, double[] weights)
+	{
+	    checkNode(originNodeId);
+	    checkNode(destinationNodeId);
+
+	    this.weights = weights;
+	    uniformWeights = true;
+	    nextBlockStamp();
+
+	    return search(originNodeId, destinationNodeId) ? getPathTo(destinationNodeId) : new int[0];
+	}
+
+	/**
+	 * Returns the distance of the shortest path from a given node to every node.
+	 *
+	 * @param originNodeId Origin node
+	 * @param weights Link weights (links with weight equal to <code>Double.MAX_VALUE</code> are forbidden)
+	 * @return Shortest-path distance to each node (<code>Double.MAX_VALUE</code> for non-reachable nodes)
+	 * @since 0.2.3
+	 */
+	public double[] getShortestPathDistances(int originNodeId, double[] weights)
+	{
+	    checkNode(originNodeId);
+
+	    setWeights(weights);
+	    nextBlockStamp();
+
+	    /* Distances are summed link by link, so do not use the hop count here */
+	    initializeSearch(originNodeId);
+	    dijkstra(originNodeId, -1, false);
+
+	    return getDistances();
+	}
+
+	/**
+	 * Returns the distance of the shortest path from every node to a given node.
+	 *
+	 * @param destinationNodeId Destination node
+	 * @param weights Link weights (links with weight equal to <code>Double.MAX_VALUE</code> are forbidden)
+	 * @return Shortest-path distance from each node (<code>Double.MAX_VALUE</code> for nodes not reaching the destination node)
+	 * @since 0.2.3
+	 */
+	public double[] getShortestPathDistancesTo(int destinationNodeId, double[] weights)
+	{
+	    checkNode(destinationNodeId);
+
+	    setWeights(weights);
+	    nextBlockStamp();
+
+	    initializeSearch(destinationNodeId);
+	    dijkstra(destinationNodeId, -1, true);
+
+	    return getDistances();
+	}
+
+	/**
+	 * <p>Returns the (loopless) <i>k</i>-shortest simple paths in increasing order of weight.
+	 * Paths with the same weight are returned in decreasing order of number of hops, and then
+	 * in lexicographical order of their sequence of links.</p>
+	 * <p><b>Important</b>: If only <i>n</i> < <i>k</i> paths can be found, only that <i>n</i> paths will be returned.</p>
+	 *
+	 * @param originNodeId Origin node
+	 * @param destinationNodeId Destination node
+	 * @param k Number of paths to be computed
+	 * @param weights Link weights (links with weight equal to <code>Double.MAX_VALUE</code> are forbidden)
+	 * @return List of paths in increasing order of weight
+	 * @since 0.2.3
+	 */
+	public List<int[]> getKLooplessShortestPaths(int originNodeId, int destinationNodeId, int k, double[] weights)
+	{
+	    checkNode(originNodeId);
+	    checkNode(destinationNodeId);
+
+	    LinkedList<int[]> paths = new LinkedList<int[]>();
+	    if (originNodeId == destinationNodeId || k <= 0) return paths;
+
+	    setWeights(weights);
+	    nextBlockStamp();
+
+	    if (!search(originNodeId, destinationNodeId)) return paths;
+
+	    int[] shortestPath = getPathTo(destinationNodeId);
+	    double shortestPathWeight = getPathWeight(shortestPath);
+	    if (!acceptPath(shortestPath, shortestPathWeight)) return paths;
+
+	    paths.add(shortestPath);
+
+	    PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>(11, CANDIDATE_ORDER);
+	    Set<Candidate> candidateSet = new HashSet<Candidate>();
+
+	    while (paths.size() < k)
+	    {
+		int[] curShortestPath = paths.getLast();
+
+		for (int deviationId = 0; deviationId < curShortestPath.length; deviationId++)
+		{
+		    int deviationNodeId = deviationId == 0 ? originNodeId : graph.linkDestinationNode[curShortestPath[deviationId - 1]];
+
+		    /* 1. Block the nodes in the head, and the links leaving the deviation node in paths sharing the same head */
+		    nextBlockStamp();
+		    for (int hopId = 0; hopId < deviationId; hopId++)
+			blockedNodeStamp[graph.linkOriginNode[curShortestPath[hopId]]] = blockStamp;
+
+		    for (int[] path : paths)
+			if (path.length > deviationId && hasSameHead(path, curShortestPath, deviationId))
+			    blockedLinkStamp[path[deviationId]] = blockStamp;
+
+		    /* 2. Shortest path from the deviation node */
+		    if (!search(deviationNodeId, destinationNodeId)) continue;
+
+		    /* 3. Combine head and tail into a new path */
+		    int tailLength = numHops[destinationNodeId];
+		    int[] candidatePath = new int[deviationId + tailLength];
+		    System.arraycopy(curShortestPath, 0, candidatePath, 0, deviationId);
+		    fillPathTo(destinationNodeId, candidatePath, deviationId + tailLength);
+
+		    Candidate candidate = new Candidate(candidatePath, getPathWeight(candidatePath));
+		    if (candidateSet.contains(candidate)) continue;
+
+		    if (!acceptPath(candidatePath, candidate.weight) || !compareCandidateToShortestPath(candidatePath, candidate.weight, shortestPathWeight)) continue;
+
+		    candidates.add(candidate);
+		    candidateSet.add(candidate);
+		}
+
+		if (candidates.isEmpty()) break;
+
+		Candidate next = candidates.poll();
+		candidateSet.remove(next);
+		paths.add(next.path);
+	    }
+
+	    return paths;
+	}
+
+	/**
+	 * Indicates whether a path found by Yen's algorithm is acceptable. By
+	 * default, every path is accepted. If the shortest path is not accepted,
+	 * no path is returned.
+	 *
+	 * @param seqLinks Sequence of links
+	 * @param pathWeight Path weight
+	 * @return <code>true</code> if the path is accepted, and <code>false</code> otherwise
+	 * @since 0.2.3
+	 */
+	public boolean acceptPath(int[] seqLinks, double pathWeight)
+	{
+	    return true;
+	}
+
+	/**
+	 * Indicates whether a candidate path found by Yen's algorithm is acceptable,
+	 * with respect to the shortest path. By default, every path is accepted.
+	 *
+	 * @param seqLinks Sequence of links of the candidate path
+	 * @param pathWeight Weight of the candidate path
+	 * @param shortestPathWeight Weight of the shortest path
+	 * @return <code>true</code> if the path is accepted, and <code>false</code> otherwise
+	 * @since 0.2.3
+	 */
+	public boolean compareCandidateToShortestPath(int[] seqLinks, double pathWeight, double shortestPathWeight)
+	{
+	    return true;
+	}
+
+	private void checkNode(int nodeId)
+	{
+	    if (nodeId < 0 || nodeId >= graph.N) throw new Net2PlanException(String.format("Node %d is not within the graph", nodeId));
+	}
+
+	private void setWeights(double[] weights)
+	{
+	    if (weights.length < graph.E) throw new Net2PlanException("Link weight vector does not match the number of links");
+
+	    this.weights = weights;
+
+	    uniformWeights = true;
+	    double firstWeight = -1;
+	    for (double weight : weights)
+	    {
+		if (weight == Double.MAX_VALUE) continue;
+		if (weight < 0) throw new Net2PlanException("Link weights must be non-negative");
+
+		if (firstWeight == -1) firstWeight = weight;
+		else if (weight != firstWeight) uniformWeights = false;
+	    }
+	}
+
+	private void nextBlockStamp()
+	{
+	    if (++blockStamp == Integer.MAX_VALUE)
+	    {
+		Arrays.fill(blockedNodeStamp, 0);
+		Arrays.fill(blockedLinkStamp, 0);
+		blockStamp = 1;
+	    }
+	}
+
+	private boolean isAllowed(int linkId, int nextNodeId)
+	{
+	    return (weights == null || weights[linkId] != Double.MAX_VALUE) && blockedLinkStamp[linkId] != blockStamp && blockedNodeStamp[nextNodeId] != blockStamp;
+	}
+
+	/* Searches from the origin node until the destination node (or every node, if -1) is settled */
+	private boolean search(int originNodeId, int destinationNodeId)
+	{
+	    initializeSearch(originNodeId);
+	    return uniformWeights ? breadthFirstSearch(originNodeId, destinationNodeId) : dijkstra(originNodeId, destinationNodeId, false);
+	}
+
+	private void initializeSearch(int originNodeId)
+	{
+	    if (++searchStamp == Integer.MAX_VALUE)
+	    {
+		Arrays.fill(reachedStamp, 0);
+		searchStamp = 1;
+	    }
+
+	    reachedStamp[originNodeId] = searchStamp;
+	    distance[originNodeId] = 0;
+	    numHops[originNodeId] = 0;
+	    previousLink[originNodeId] = -1;
+	}
+
+	private boolean breadthFirstSearch(int originNodeId, int destinationNodeId)
+	{
+	    if (originNodeId == destinationNodeId) return true;
+
+	    int head = 0;
+	    int tail = 0;
+	    heap[tail++] = originNodeId;
+
+	    while (head < tail)
+	    {
+		int nodeId = heap[head++];
+
+		for (int i = graph.outOffset[nodeId]; i < graph.outOffset[nodeId + 1]; i++)
+		{
+		    int linkId = graph.outLinks[i];
+		    int nextNodeId = graph.linkDestinationNode[linkId];
+		    if (!isAllowed(linkId, nextNodeId) || reachedStamp[nextNodeId] == searchStamp) continue;
+
+		    reachedStamp[nextNodeId] = searchStamp;
+		    numHops[nextNodeId] = numHops[nodeId] + 1;
+		    distance[nextNodeId] = numHops[nextNodeId];
+		    previousLink[nextNodeId] = linkId;
+
+		    if (nextNodeId == destinationNodeId) return true;
+		    heap[tail++] = nextNodeId;
+		}
+	    }
+
+	    return false;
+	}
+
+	/* In reverse mode, links are traversed backwards (from destination node to origin node) */
+	private boolean dijkstra(int originNodeId, int destinationNodeId, boolean reverse)
+	{
+	    int[] offset = reverse ? graph.inOffset : graph.outOffset;
+	    int[] links = reverse ? graph.inLinks : graph.outLinks;
+	    int[] nextNode = reverse ? graph.linkOriginNode : graph.linkDestinationNode;
+
+	    heapSize = 0;
+	    heapPush(originNodeId);
+
+	    while (heapSize > 0)
+	    {
+		int nodeId = heapPop();
+		if (nodeId == destinationNodeId) return true;
+
+		for (int i = offset[nodeId]; i < offset[nodeId + 1]; i++)
+		{
+		    int linkId = links[i];
+		    int nextNodeId = nextNode[linkId];
+		    if (!isAllowed(linkId, nextNodeId)) continue;
+
+		    double newDistance = distance[nodeId] + weights[linkId];
+
+		    if (reachedStamp[nextNodeId] != searchStamp)
+		    {
+			reachedStamp[nextNodeId] = searchStamp;
+			distance[nextNodeId] = newDistance;
+			numHops[nextNodeId] = numHops[nodeId] + 1;
+			previousLink[nextNodeId] = linkId;
+			heapPush(nextNodeId);
+		    }
+		    else if (heapPosition[nextNodeId] >= 0 && newDistance < distance[nextNodeId])
+		    {
+			distance[nextNodeId] = newDistance;
+			numHops[nextNodeId] = numHops[nodeId] + 1;
+			previousLink[nextNodeId] = linkId;
+			heapSiftUp(heapPosition[nextNodeId]);
+		    }
+		}
+	    }
+
+	    return destinationNodeId == -1;
+	}
+
+	private void heapPush(int nodeId)
+	{
+	    heap[heapSize] = nodeId;
+	    heapPosition[nodeId] = heapSize;
+	    heapSiftUp(heapSize++);
+	}
+
+	private int heapPop()
+	{
+	    int nodeId = heap[0];
+	    heapPosition[nodeId] = -1;
+
+	    if (--heapSize > 0)
+	    {
+		heap[0] = heap[heapSize];
+		heapPosition[heap[0]] = 0;
+		heapSiftDown(0);
+	    }
+
+	    return nodeId;
+	}
+
+	private void heapSiftUp(int position)
+	{
+	    int nodeId = heap[position];
+	    while (position > 0)
+	    {
+		int parent = (position - 1) >>> 1;
+		if (distance[heap[parent]] <= distance[nodeId]) break;
+
+		heap[position] = heap[parent];
+		heapPosition[heap[position]] = position;
+		position = parent;
+	    }
+
+	    heap[position] = nodeId;
+	    heapPosition[nodeId] = position;
+	}
+
+	private void heapSiftDown(int position)
+	{
+	    int nodeId = heap[position];
+	    while (true)
+	    {
+		int child = 2 * position + 1;
+		if (child >= heapSize) break;
+		if (child + 1 < heapSize && distance[heap[child + 1]] < distance[heap[child]]) child++;
+		if (distance[nodeId] <= distance[heap[child]]) break;
+
+		heap[position] = heap[child];
+		heapPosition[heap[position]] = position;
+		position = child;
+	    }
+
+	    heap[position] = nodeId;
+	    heapPosition[nodeId] = position;
+	}
+
+	private double[] getDistances()
+	{
+	    double[] out = new double[graph.N];
+	    for (int nodeId = 0; nodeId < graph.N; nodeId++)
+		out[nodeId] = reachedStamp[nodeId] == searchStamp ? distance[nodeId] : Double.MAX_VALUE;
+
+	    return out;
+	}
+
+	private int[] getPathTo(int destinationNodeId)
+	{
+	    int[] seqLinks = new int[numHops[destinationNodeId]];
+	    fillPathTo(destinationNodeId, seqLinks, seqLinks.length);
+	    return seqLinks;
+	}
+
+	/* Writes the links of the current search tree ending at the destination node, backwards from position 'end' */
+	private void fillPathTo(int destinationNodeId, int[] seqLinks, int end)
+	{
+	    int nodeId = destinationNodeId;
+	    for (int position = end - 1; previousLink[nodeId] != -1; position--)
+	    {
+		int linkId = previousLink[nodeId];
+		seqLinks[position] = linkId;
+		nodeId = graph.linkOriginNode[linkId];
+	    }
+	}
+
+	private double getPathWeight(int[] seqLinks)
+	{
+	    double pathWeight = 0;
+	    for (int linkId : seqLinks) pathWeight += weights[linkId];
+
+	    return pathWeight;
+	}
+
+	private static boolean hasSameHead(int[] path1, int[] path2, int headLength)
+	{
+	    for (int i = 0; i < headLength; i++)
+		if (path1[i] != path2[i])
+		    return false;
+
+	    return true;
+	}
+    }
+
+    private final static Comparator<Candidate> CANDIDATE_ORDER = new Comparator<Candidate>()
+    {
+	@Override
+	public int compare(Candidate c1, Candidate c2)
+	{
+	    if (c1.weight < c2.weight) return -1;
+	    if (c1.weight > c2.weight) return 1;
+	    if (c1.path.length != c2.path.length) return c1.path.length > c2.path.length ? -1 : 1;
+
+	    for (int i = 0; i < c1.path.length; i++)
+		if (c1.path[i] != c2.path[i])
+		    return c1.path[i] < c2.path[i] ? -1 : 1;
+
+	    return 0;
+	}
+    };
+
+    private final static class Candidate
+    {
+	private final int[] path;
+	private final double weight;
+	private final int hash;
+
+	private Candidate(int[] path, double weight)
+	{
+	    this.path = path;
+	    this.weight = weight;
+	    hash = Arrays.hashCode(path);
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+	    return o instanceof Candidate && Arrays.equals(path, ((Candidate) o).path);
+	}
+
+	@Override
+	public int hashCode() { return hash; }
+    }
+}
@@ -19,21 +19,17 @@ import cern.jet.math.tdouble.DoubleFunctions;
 import com.jom.DoubleMatrixND;
 import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
 import com.tejas.engine.interfaces.networkDesign.NetPlan;
-import com.tejas.engine.libraries.GraphUtils.JUNGUtils;
-import com.tejas.engine.libraries.GraphUtils.JUNGUtils.GraphPath;
 import com.tejas.engine.utils.DoubleUtils;
 import com.tejas.engine.utils.IntUtils;
 import com.tejas.engine.utils.StringUtils;
 
-import edu.uci.ics.jung.algorithms.filters.EdgePredicateFilter;
-import edu.uci.ics.jung.algorithms.shortestpath.DijkstraShortestPath;
-import edu.uci.ics.jung.graph.Graph;
 import java.io.*;
 import java.util.Map.Entry;
 import java.util.*;
-import org.apache.commons.collections15.ListUtils;
-import org.apache.commons.collections15.Predicate;
-import org.apache.commons.collections15.Transformer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * <p>A candidate path list is an object containing a set of paths computed for
@@ -56,8 +52,14 @@ import org.apache.commons.collections15.Transformer;
  * <li><code>maxWeightFactorRespectToShortestPath</code>: Maximum path weight factor with respect to the shortest path weight (default: Double.MAX_VALUE)</li>
  * <li><code>maxWeightRespectToShortestPath</code>: Maximum path weight with respect to the shortest path weight (default: Double.MAX_VALUE). While the previous one is a multiplicative factor, this one is an additive factor</li>
  * <li><code>weights</code>: Link weight vector (default: vector of 1s, which corresponds to a shortest path algorithm using number of hops as metric)</li>
+ * <li><code>numThreads</code>: Number of threads used to compute paths from different origin nodes in parallel (default: number of available processors)</li>
  * </ul>
  *
+ * <p>Paths computed for each node pair are kept in a cache shared by all candidate path lists, keyed by the
+ * topology (link table and link lengths), the link weights and the previous options (except <code>numThreads</code>),
+ * so that building again a candidate path list for the same network and options does not run Yen's algorithm again.
+ * The cache holds the most recently used configurations, and it can be emptied using {@link #clearCache()}.</p>
+ *
  * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
  * @since 0.2.0
  */
@@ -78,6 +80,17 @@ public class CandidatePathList
 	private double maxWeightFactorRespectToShortestPath;
 	private double maxWeightRespectToShortestPath;
 	private double[] weights;
+	private int numThreads;
+
+	private final static int PATH_CACHE_SIZE = 4;
+	private final static Map<PathCacheKey, int[][][]> pathCache = new LinkedHashMap<PathCacheKey, int[][][]>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<PathCacheKey, int[][][]> eldest)
+		{
+			return size() > PATH_CACHE_SIZE;
+		}
+	};
 
 	/**
 	 * Initializes the candidate path list, previously stored in a system file.</p>
@@ -290,6 +303,7 @@ public class CandidatePathList
 		maxWeightFactorRespectToShortestPath = Double.MAX_VALUE;
 		maxWeightRespectToShortestPath = Double.MAX_VALUE;
 		this.weights = DoubleUtils.copy(weights);
+		numThreads = Runtime.getRuntime().availableProcessors();
 
 		if (useRoutesWithinNetPlan)
 		{
@@ -338,59 +352,176 @@ public class CandidatePathList
 				maxWeightRespectToShortestPath = Double.parseDouble(value);
 				if (maxWeightRespectToShortestPath < 0) throw new RuntimeException("'maxWeightRespectToShortestPath' parameter must be greater or equal than zero");
 			}
+			else if (parameter.equalsIgnoreCase("numThreads"))
+			{
+				numThreads = Integer.parseInt(value);
+				if (numThreads <= 0) throw new RuntimeException("'numThreads' parameter must be greater than zero");
+			}
 			else
 			{
 				throw new RuntimeException("Unknown parameter " + parameter);
 			}
 		}
 
-		Graph<Integer, Integer> g = JUNGUtils.getPhysicalLayerGraph(netPlan);
+		/* Paths are computed only for node pairs with demands, and stored in the cache for later constructions */
+		int[][] linkTable = netPlan.getLinkTable();
+		double[] linkLengthInKm = netPlan.getLinkLengthInKmVector();
+		CSRGraph graph = new CSRGraph(linkTable, N);
+
+		PathCacheKey key = new PathCacheKey(linkTable, N, linkLengthInKm, this.weights, K, maxLengthInKm, maxNumHops, maxWeight, maxWeightFactorRespectToShortestPath, maxWeightRespectToShortestPath);
+		int[][][] pathsPerNodePair;
+		synchronized (pathCache)
+		{
+			pathsPerNodePair = pathCache.get(key);
+			if (pathsPerNodePair == null)
+			{
+				pathsPerNodePair = new int[N * N][][];
+				pathCache.put(key, pathsPerNodePair);
+			}
+		}
+
+		synchronized (pathsPerNodePair)
+		{
+			computePaths(graph, linkLengthInKm, pathsPerNodePair);
 
-		YenLoopLessKShortestPathsAlgorithm<Integer, Integer> paths = new YenLoopLessKShortestPathsAlgorithm<Integer, Integer>(g, JUNGUtils.getEdgeWeightTransformer(weights))
+			for (int a_p = 0; a_p < N; a_p++)
+			{
+				for (int b_p = 0; b_p < N; b_p++)
 				{
+					if (a_p == b_p) continue;
+
+					int[] demandIdsThisNodePair = netPlan.getNodePairDemands(a_p, b_p);
+					if (demandIdsThisNodePair.length == 0) continue;
+
+					for (int[] seqLinks : pathsPerNodePair[a_p * N + b_p])
+					{
+						List<Integer> seqLinksList = IntUtils.toList(seqLinks);
+						for (int cont = 0; cont < demandIdsThisNodePair.length; cont++)
+						{
+							int dId = demandIdsThisNodePair[cont];
+							addPath(dId, seqLinksList);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes every entry from the cache of paths shared by all candidate path
+	 * lists. Entries are also discarded automatically (least-recently used
+	 * first) when the cache is full.
+	 *
+	 * @since 0.2.3
+	 */
+	public static void clearCache()
+	{
+		synchronized (pathCache)
+		{
+			pathCache.clear();
+		}
+	}
+
+	/* Computes the missing paths for node pairs with demands, in a separate task per origin node */
+	private void computePaths(final CSRGraph graph, final double[] linkLengthInKm, final int[][][] pathsPerNodePair)
+	{
+		final IntArrayList[] destinationNodeIds = new IntArrayList[N];
+		IntArrayList originNodeIds = new IntArrayList();
+		for (int a_p = 0; a_p < N; a_p++)
+		{
+			destinationNodeIds[a_p] = new IntArrayList();
+			for (int b_p = 0; b_p < N; b_p++)
+				if (a_p != b_p && pathsPerNodePair[a_p * N + b_p] == null && netPlan.getNodePairDemands(a_p, b_p).length > 0)
+					destinationNodeIds[a_p].add(b_p);
+
+			if (!destinationNodeIds[a_p].isEmpty()) originNodeIds.add(a_p);
+		}
+
+		if (originNodeIds.isEmpty()) return;
+
+		if (numThreads == 1 || originNodeIds.size() == 1)
+		{
+			CSRGraph.PathFinder paths = getPathFinder(graph, linkLengthInKm);
+			for (int i = 0; i < originNodeIds.size(); i++)
+				computePaths(paths, originNodeIds.getQuick(i), destinationNodeIds[originNodeIds.getQuick(i)], pathsPerNodePair);
+
+			return;
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(originNodeIds.size());
+		for (int i = 0; i < originNodeIds.size(); i++)
+		{
+			final int originNodeId = originNodeIds.getQuick(i);
+			tasks.add(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					computePaths(getPathFinder(graph, linkLengthInKm), originNodeId, destinationNodeIds[originNodeId], pathsPerNodePair);
+					return null;
+				}
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(Math.min(numThreads, tasks.size()));
+		try
+		{
+			for (Future<Void> result : pool.invokeAll(tasks))
+				result.get();
+		}
+		catch (ExecutionException e)
+		{
+			Throwable reason = e.getCause();
+			if (reason instanceof RuntimeException) throw (RuntimeException) reason;
+
+			throw new RuntimeException(reason);
+		}
+		catch (InterruptedException e)
+		{
+			throw new RuntimeException(e);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	private void computePaths(CSRGraph.PathFinder paths, int originNodeId, IntArrayList destinationNodeIds, int[][][] pathsPerNodePair)
+	{
+		for (int i = 0; i < destinationNodeIds.size(); i++)
+		{
+			int destinationNodeId = destinationNodeIds.getQuick(i);
+			List<int[]> pathsThisNodePair = paths.getKLooplessShortestPaths(originNodeId, destinationNodeId, K, weights);
+			pathsPerNodePair[originNodeId * N + destinationNodeId] = pathsThisNodePair.toArray(new int[pathsThisNodePair.size()][]);
+		}
+	}
+
+	private CSRGraph.PathFinder getPathFinder(CSRGraph graph, final double[] linkLengthInKm)
+	{
+		return new CSRGraph.PathFinder(graph)
+		{
 			@Override
-			public boolean acceptPath(GraphPath<Integer> candidate)
+			public boolean acceptPath(int[] seqLinks, double pathWeight)
 			{
 				double pathLengthInKm = 0;
-				for (int linkId : candidate.getPath()) pathLengthInKm += netPlan.getLinkLengthInKm(linkId);
+				for (int linkId : seqLinks) pathLengthInKm += linkLengthInKm[linkId];
 
 				if (pathLengthInKm > maxLengthInKm) return false;
-				if (candidate.getPathLength() > maxNumHops) return false;
+				if (seqLinks.length > maxNumHops) return false;
 
 				return true;
 			}
 
 			@Override
-			public boolean compareCandidateToShortestPath(GraphPath<Integer> candidate, GraphPath<Integer> shortestPath)
+			public boolean compareCandidateToShortestPath(int[] seqLinks, double pathWeight, double shortestPathWeight)
 			{
-				if (candidate.getPathWeight() > maxWeight) return false;
-				if (candidate.getPathWeight() > shortestPath.getPathWeight() * maxWeightFactorRespectToShortestPath) return false;
-				if (candidate.getPathWeight() > shortestPath.getPathWeight() + maxWeightRespectToShortestPath) return false;
+				if (pathWeight > maxWeight) return false;
+				if (pathWeight > shortestPathWeight * maxWeightFactorRespectToShortestPath) return false;
+				if (pathWeight > shortestPathWeight + maxWeightRespectToShortestPath) return false;
 
 				return true;
 			}
-				};
-
-				for (int a_p = 0; a_p < N; a_p++)
-				{
-					for (int b_p = 0; b_p < N; b_p++)
-					{
-						if (a_p == b_p) continue;
-
-						int[] demandIdsThisNodePair = netPlan.getNodePairDemands(a_p, b_p);
-
-						List<List<Integer>> pathsThisNodePair = paths.getPaths(a_p, b_p, K);
-
-						for (List<Integer> seqLinks : pathsThisNodePair)
-						{
-							for (int cont = 0; cont < demandIdsThisNodePair.length; cont++)
-							{
-								int dId = demandIdsThisNodePair[cont];
-								addPath(dId, seqLinks);
-							}
-						}
-					}
-				}
+		};
 	}
 
 	private int addPath(int demandId, List<Integer> sequenceOfLinks)
@@ -972,173 +1103,48 @@ public class CandidatePathList
 		return s.toString();
 	}
 
-	/**
-	 * Class to calculate the (loopless) <i>k</i>-shortest paths between a node pair using Yen's algorithm [1].
-	 *
-	 * @author Pablo Pavon-Marino, Jose-Luis Izquierdo Zaragoza
-	 * @since 0.2.0
-	 * @see <code>[1] J.Y. Yen, "Finding the K Shortest Loopless Paths in a Network", <i>Management Science</i>, vol. 17, no. 11, pp. 712-716, Jul. 1971</code>
-	 */
-	static class YenLoopLessKShortestPathsAlgorithm<V, E>
+	private final static class PathCacheKey
 	{
-		private Graph<V, E> graph;
-		private Transformer<E, Double> nev;
-		private DijkstraShortestPath<V, E> dijkstra;
-
-		/**
-		 * Creates an object to calculate the (loopless) <i>k</i>-shortest paths between the start vertex and others vertices.
-		 *
-		 * @param graph Graph on which shortest paths are searched
-		 * @param nev The class responsible for returning weights for edges
-		 * @since 0.2.0
-		 */
-		public YenLoopLessKShortestPathsAlgorithm(Graph<V, E> graph, Transformer<E, Double> nev)
-		{
-			this.graph = graph;
-			this.nev = nev;
-
-			dijkstra = new DijkstraShortestPath<V, E>(graph, nev);
-		}
-
-		/**
-		 * <p>Returns the (loopless) <i>k</i>-shortest simple paths in increasing order of weight.</p>
-		 * <p><b>Important</b>: If only <i>n</i> < <i>k</i> paths can be found, only that <i>n</i> paths will be returned.</p>
-		 *
-		 * @param startVertex Start vertex of the calculated paths
-		 * @param endVertex Target vertex of the calculated paths
-		 * @param k Number of paths to be computed
-		 * @return List of paths in increasing order of weight
-		 * @since 0.2.0
-		 */
-		public List<List<E>> getPaths(V startVertex, V endVertex, int k)
+		private final int N;
+		private final int[] linkTable;
+		private final double[] linkLengthInKm;
+		private final double[] weights;
+		private final double[] options;
+		private final int hash;
+
+		private PathCacheKey(int[][] linkTable, int N, double[] linkLengthInKm, double[] weights, int K, double maxLengthInKm, int maxNumHops, double maxWeight, double maxWeightFactorRespectToShortestPath, double maxWeightRespectToShortestPath)
 		{
-			if (!graph.containsVertex(startVertex)) throw new Net2PlanException("'startVertex' is not within the graph");
-			if (!graph.containsVertex(endVertex)) throw new Net2PlanException("'endVertex' is not within the graph");
-
-			LinkedList<List<E>> paths = new LinkedList<List<E>>();
-
-			if (startVertex.equals(endVertex)) return paths;
-
-			PriorityQueue<GraphPath> priorityQueue = new PriorityQueue<GraphPath>();
-
-			if (dijkstra.getDistance(startVertex, endVertex) == null) return paths;
-			List<E> aux = dijkstra.getPath(startVertex, endVertex);
-			double cost = JUNGUtils.getPathWeight(aux, nev);
-			GraphPath<E> shortestPath = new GraphPath<E>(aux, cost);
-
-			if(!acceptPath(shortestPath))
+			this.N = N;
+			this.linkTable = new int[2 * linkTable.length];
+			for (int linkId = 0; linkId < linkTable.length; linkId++)
 			{
-				return paths;
+				this.linkTable[2 * linkId] = linkTable[linkId][0];
+				this.linkTable[2 * linkId + 1] = linkTable[linkId][1];
 			}
 
-			paths.add(aux);
-
-			DijkstraShortestPath<V, E> blockedDijkstra;
-
-			while (paths.size() < k)
-			{
-				List<E> curShortestPath = paths.getLast();
-
-				int currentPathLength = curShortestPath.size();
-
-				// Split path into Head and NextEdge
-				for (int deviationId = 0; deviationId < currentPathLength; deviationId++)
-				{
-					List<E> head = curShortestPath.subList(0, deviationId);
-					V deviationVertex = head.isEmpty() ? startVertex : graph.getDest(head.get(deviationId - 1));
-
-					// 1. Block edges.
-					Graph<V, E> blocked = blockFilter(head, deviationVertex, paths);
-
-					// 2. Get shortest path in graph with blocked edges.
-					blockedDijkstra = new DijkstraShortestPath<V, E>(blocked, nev);
-
-					Number dist = blockedDijkstra.getDistance(deviationVertex, endVertex);
-					if (dist == null) continue;
+			this.linkLengthInKm = DoubleUtils.copy(linkLengthInKm);
+			this.weights = DoubleUtils.copy(weights);
+			options = new double[] { K, maxLengthInKm, maxNumHops, maxWeight, maxWeightFactorRespectToShortestPath, maxWeightRespectToShortestPath };
 
-					List<E> tail = blockedDijkstra.getPath(deviationVertex, endVertex);
-
-					// 3. Combine head and tail into new path.
-					List<E> candidatePath = new ArrayList<E>(deviationId + tail.size());
-					candidatePath.addAll(head);
-					candidatePath.addAll(tail);
-
-					GraphPath<E> candidate = new GraphPath<E>(candidatePath, JUNGUtils.getPathWeight(candidatePath, nev));
-
-					// Check if we already found this solution
-					if (priorityQueue.contains(candidate)) continue;
-
-					if (!acceptPath(candidate) || !compareCandidateToShortestPath(candidate, shortestPath)) continue;
-
-					priorityQueue.add(candidate);
-				}
-
-				if (priorityQueue.isEmpty()) break; // No more candidate paths
-
-				paths.add(priorityQueue.poll().getPath());
-			}
-
-			return paths;
+			int h = N;
+			h = 31 * h + Arrays.hashCode(this.linkTable);
+			h = 31 * h + Arrays.hashCode(this.linkLengthInKm);
+			h = 31 * h + Arrays.hashCode(this.weights);
+			h = 31 * h + Arrays.hashCode(options);
+			hash = h;
 		}
 
-		/**
-		 * Blocks all incident edges of the vertices in head as well as the edge connecting head to the next node by creating a new filtered graph.
-		 *
-		 * @param head The current head, from source to deviation node
-		 * @param deviation The edge to the next node
-		 * @param foundPaths The solutions already found and to check against
-		 * @return The filtered graph without the blocked edges
-		 * @since 0.2.0
-		 */
-		private Graph<V, E> blockFilter(List<E> head, V deviation, List<List<E>> foundPaths)
+		@Override
+		public boolean equals(Object o)
 		{
-			final Set<E> blocked = new HashSet<E>();
+			if (o == this) return true;
+			if (!(o instanceof PathCacheKey)) return false;
 
-			// Block incident edges to make all vertices in head unreachable.
-			for (E e : head)
-			{
-				for (E e2 : graph.getIncidentEdges(graph.getSource(e)))
-				{
-					blocked.add(e2);
-				}
-			}
-
-			// Block all outgoing edges that have been used at deviation vertex
-			for (List<E> path : foundPaths)
-			{
-				if (path.size() > head.size() && ListUtils.isEqualList(path.subList(0, head.size()), head))
-				{
-					for (E e : path)
-					{
-						if (graph.isSource(deviation, e))
-						{
-							blocked.add(e);
-							break; // Continue with next path.
-						}
-					}
-				}
-			}
-
-			EdgePredicateFilter<V, E> filter = new EdgePredicateFilter<V, E>(new Predicate<E>()
-					{
-				@Override
-				public boolean evaluate(E e)
-				{
-					return !blocked.contains(e);
-				}
-					});
-
-			return filter.transform(graph);
-		}
-
-		public boolean acceptPath(GraphPath<E> candidate)
-		{
-			return true;
+			PathCacheKey k = (PathCacheKey) o;
+			return hash == k.hash && N == k.N && Arrays.equals(linkTable, k.linkTable) && Arrays.equals(options, k.options) && Arrays.equals(weights, k.weights) && Arrays.equals(linkLengthInKm, k.linkLengthInKm);
 		}
 
-		public boolean compareCandidateToShortestPath(GraphPath<E> candidate, GraphPath<E> shortestPath)
-		{
-			return true;
-		}
+		@Override
+		public int hashCode() { return hash; }
 	}
 }
\ No newline at end of file
@@ -0,0 +1,455 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.libraries;
+
+import cern.colt.list.tint.IntArrayList;
+import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
+import com.tejas.engine.utils.DoubleUtils;
+import java.util.Arrays;
+
+/**
+ * <p>Dynamic all-pairs shortest path distances under changes of link weights
+ * (links with weight equal to <code>Double.MAX_VALUE</code> are forbidden).
+ * Distances towards each destination node are computed once with a reverse
+ * Dijkstra's algorithm, and then maintained after each link weight change
+ * following the approach of Ramalingam and Reps [1]:</p>
+ *
+ * <ul>
+ * <li>When a link weight decreases, the new distances are propagated backwards
+ * from the origin node of the link, visiting only the nodes whose distance improves.</li>
+ * <li>When a link weight increases, and the link lies in some shortest path, the
+ * nodes all whose shortest paths traverse the link are identified first, and then
+ * their distances are computed again using a Dijkstra's algorithm restricted to them.</li>
+ * </ul>
+ *
+ * <p>In both cases, destination nodes not affected by the change are discarded
+ * in constant time. This class is intended for local-search heuristics which
+ * evaluate many single-weight moves (e.g. IGP weight setting).</p>
+ *
+ * <p><b>Important</b>: Link weights must be strictly positive.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ * @see <code>[1] G. Ramalingam, T. Reps, "An incremental algorithm for a generalization of the shortest-path problem", <i>Journal of Algorithms</i>, vol. 21, no. 2, pp. 267-305, Sep. 1996</code>
+ */
+public class DynamicAllPairsShortestPaths
+{
+    private final int N;
+    private final int E;
+    private final CSRGraph graph;
+    private final double[] linkWeights;
+
+    /* Distance from each node to each destination node: distanceToDestination[t][n] */
+    private final double[][] distanceToDestination;
+
+    /* Scratch arrays: indexed binary heap keyed by the distance to the current destination, and node marks */
+    private double[] key;
+    private final int[] heap;
+    private final int[] heapPosition;
+    private int heapSize;
+    private final int[] queuedStamp;
+    private final int[] affectedStamp;
+    private int stamp;
+
+    /**
+     * Default constructor.
+     *
+     * @param linkTable Set of links defining a physical topology
+     * @param linkWeights Set of link weights (must be greater than zero)
+     * @param N Number of nodes in the network
+     * @since 0.2.3
+     */
+    public DynamicAllPairsShortestPaths(int[][] linkTable, double[] linkWeights, int N)
+    {
+	if (linkWeights.length != linkTable.length) throw new Net2PlanException("Link weight vector does not match the number of links");
+	for (double linkWeight : linkWeights) checkLinkWeight(linkWeight);
+
+	graph = new CSRGraph(linkTable, N);
+	this.N = graph.getNumberOfNodes();
+	this.E = graph.getNumberOfLinks();
+	this.linkWeights = DoubleUtils.copy(linkWeights);
+
+	distanceToDestination = new double[this.N][];
+	CSRGraph.PathFinder pathFinder = graph.getPathFinder();
+	for (int destinationNodeId = 0; destinationNodeId < this.N; destinationNodeId++)
+	    distanceToDestination[destinationNodeId] = pathFinder.getShortestPathDistancesTo(destinationNodeId, this.linkWeights);
+
+	heap = new int[this.N];
+	heapPosition = new int[this.N];
+	queuedStamp = new int[this.N];
+	affectedStamp = new int[this.N];
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return Number of nodes
+     * @since 0.2.3
+     */
+    public int getNumberOfNodes() { return N; }
+
+    /**
+     * Returns the number of links.
+     *
+     * @return Number of links
+     * @since 0.2.3
+     */
+    public int getNumberOfLinks() { return E; }
+
+    /**
+     * Returns the current weight of a link.
+     *
+     * @param linkId Link identifier
+     * @return Link weight
+     * @since 0.2.3
+     */
+    public double getLinkWeight(int linkId) { return linkWeights[linkId]; }
+
+    /**
+     * Returns the current link weights.
+     *
+     * @return Link weights
+     * @since 0.2.3
+     */
+    public double[] getLinkWeights() { return DoubleUtils.copy(linkWeights); }
+
+    /**
+     * Returns the shortest-path distance between two nodes.
+     *
+     * @param originNodeId Origin node
+     * @param destinationNodeId Destination node
+     * @return Shortest-path distance (<code>Double.MAX_VALUE</code> if the destination node is not reachable)
+     * @since 0.2.3
+     */
+    public double getDistance(int originNodeId, int destinationNodeId)
+    {
+	return distanceToDestination[destinationNodeId][originNodeId];
+    }
+
+    /**
+     * Returns the shortest-path distance between every node pair.
+     *
+     * @return Distance matrix, where element (<i>i</i>, <i>j</i>) is the distance from node <i>i</i> to node <i>j</i> (<code>Double.MAX_VALUE</code> if node <i>j</i> is not reachable)
+     * @since 0.2.3
+     */
+    public double[][] getDistanceMatrix()
+    {
+	double[][] out = new double[N][N];
+	for (int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
+	    for (int originNodeId = 0; originNodeId < N; originNodeId++)
+		out[originNodeId][destinationNodeId] = distanceToDestination[destinationNodeId][originNodeId];
+
+	return out;
+    }
+
+    /**
+     * Indicates whether a link lies in some shortest path towards a destination node.
+     *
+     * @param linkId Link identifier
+     * @param destinationNodeId Destination node
+     * @return <code>true</code> if the link lies in some shortest path, and <code>false</code> otherwise
+     * @since 0.2.3
+     */
+    public boolean isInShortestPath(int linkId, int destinationNodeId)
+    {
+	double[] distance = distanceToDestination[destinationNodeId];
+	return isTight(distance[graph.getLinkOriginNode(linkId)], distance[graph.getLinkDestinationNode(linkId)], linkWeights[linkId]);
+    }
+
+    /**
+     * Returns a shortest path between two nodes. Among the output links lying in
+     * some shortest path, the one with the lowest identifier is chosen at each node.
+     *
+     * @param originNodeId Origin node
+     * @param destinationNodeId Destination node
+     * @return Sequence of links in the shortest path (empty, if destination not reachable from origin, or origin and destination are the same)
+     * @since 0.2.3
+     */
+    public int[] getShortestPath(int originNodeId, int destinationNodeId)
+    {
+	IntArrayList seqLinks = new IntArrayList();
+	if (distanceToDestination[destinationNodeId][originNodeId] == Double.MAX_VALUE) return new int[0];
+
+	int nodeId = originNodeId;
+	while (nodeId != destinationNodeId)
+	{
+	    int nextLinkId = -1;
+	    for (int linkId : graph.getOutgoingLinks(nodeId))
+	    {
+		if (isInShortestPath(linkId, destinationNodeId))
+		{
+		    nextLinkId = linkId;
+		    break;
+		}
+	    }
+
+	    if (nextLinkId == -1) throw new Net2PlanException("No output link of node " + nodeId + " lies in a shortest path to node " + destinationNodeId + " (inconsistent distances)");
+
+	    seqLinks.add(nextLinkId);
+	    nodeId = graph.getLinkDestinationNode(nextLinkId);
+	}
+
+	seqLinks.trimToSize();
+	return seqLinks.elements();
+    }
+
+    /**
+     * Changes the weight of a link, and updates the distances towards every destination node.
+     *
+     * @param linkId Link identifier
+     * @param linkWeight New link weight (must be greater than zero)
+     * @return Destination nodes for which some distance changed, in increasing order
+     * @since 0.2.3
+     */
+    public int[] setLinkWeight(int linkId, double linkWeight)
+    {
+	checkLinkWeight(linkWeight);
+
+	double oldLinkWeight = linkWeights[linkId];
+	if (linkWeight == oldLinkWeight) return new int[0];
+
+	linkWeights[linkId] = linkWeight;
+
+	IntArrayList changedDestinations = new IntArrayList();
+	for (int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
+	{
+	    boolean changed = linkWeight < oldLinkWeight ? decreaseLinkWeight(destinationNodeId, linkId) : increaseLinkWeight(destinationNodeId, linkId, oldLinkWeight);
+	    if (changed) changedDestinations.add(destinationNodeId);
+	}
+
+	changedDestinations.trimToSize();
+	return changedDestinations.elements();
+    }
+
+    /**
+     * Changes the weight of the links whose weight differs from the current one,
+     * updating the distances after each single change.
+     *
+     * @param linkWeights New link weights (must be greater than zero)
+     * @return Destination nodes for which some distance changed, in increasing order
+     * @since 0.2.3
+     */
+    public int[] setLinkWeights(double[] linkWeights)
+    {
+	if (linkWeights.length != E) throw new Net2PlanException("Link weight vector does not match the number of links");
+	for (double linkWeight : linkWeights) checkLinkWeight(linkWeight);
+
+	boolean[] changed = new boolean[N];
+	for (int linkId = 0; linkId < E; linkId++)
+	    for (int destinationNodeId : setLinkWeight(linkId, linkWeights[linkId]))
+		changed[destinationNodeId] = true;
+
+	IntArrayList changedDestinations = new IntArrayList();
+	for (int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
+	    if (changed[destinationNodeId])
+		changedDestinations.add(destinationNodeId);
+
+	changedDestinations.trimToSize();
+	return changedDestinations.elements();
+    }
+
+    /* Propagates backwards the improvement of the distance of the origin node of the link, if any */
+    private boolean decreaseLinkWeight(int destinationNodeId, int linkId)
+    {
+	double[] distance = distanceToDestination[destinationNodeId];
+	int originNodeId = graph.getLinkOriginNode(linkId);
+	double d_b = distance[graph.getLinkDestinationNode(linkId)];
+
+	if (d_b == Double.MAX_VALUE || d_b + linkWeights[linkId] >= distance[originNodeId]) return false;
+
+	distance[originNodeId] = d_b + linkWeights[linkId];
+
+	initializeHeap(distance);
+	heapPush(originNodeId);
+	while (heapSize > 0)
+	{
+	    int nodeId = heapPop();
+	    for (int inLinkId : graph.getIncomingLinks(nodeId))
+	    {
+		if (linkWeights[inLinkId] == Double.MAX_VALUE) continue;
+
+		int previousNodeId = graph.getLinkOriginNode(inLinkId);
+		double newDistance = distance[nodeId] + linkWeights[inLinkId];
+		if (newDistance >= distance[previousNodeId]) continue;
+
+		distance[previousNodeId] = newDistance;
+		if (heapPosition[previousNodeId] >= 0 && queuedStamp[previousNodeId] == stamp) heapSiftUp(heapPosition[previousNodeId]);
+		else heapPush(previousNodeId);
+	    }
+	}
+
+	return true;
+    }
+
+    /* Identifies the nodes all whose shortest paths traverse the link, and computes their distance again */
+    private boolean increaseLinkWeight(int destinationNodeId, int linkId, double oldLinkWeight)
+    {
+	double[] distance = distanceToDestination[destinationNodeId];
+	int originNodeId = graph.getLinkOriginNode(linkId);
+	if (!isTight(distance[originNodeId], distance[graph.getLinkDestinationNode(linkId)], oldLinkWeight)) return false;
+
+	/* 1. Affected nodes, in increasing order of (old) distance, so that their successors are decided first */
+	IntArrayList affectedNodes = new IntArrayList();
+	initializeHeap(distance);
+	heapPush(originNodeId);
+	while (heapSize > 0)
+	{
+	    int nodeId = heapPop();
+	    if (hasUnaffectedSuccessor(distance, nodeId)) continue;
+
+	    affectedStamp[nodeId] = stamp;
+	    affectedNodes.add(nodeId);
+
+	    for (int inLinkId : graph.getIncomingLinks(nodeId))
+	    {
+		int previousNodeId = graph.getLinkOriginNode(inLinkId);
+		if (queuedStamp[previousNodeId] == stamp) continue;
+		if (isTight(distance[previousNodeId], distance[nodeId], linkWeights[inLinkId])) heapPush(previousNodeId);
+	    }
+	}
+
+	if (affectedNodes.isEmpty()) return false;
+
+	/* 2. New distances of affected nodes, starting from their links towards unaffected nodes */
+	heapSize = 0;
+	for (int i = 0; i < affectedNodes.size(); i++)
+	{
+	    int nodeId = affectedNodes.getQuick(i);
+	    distance[nodeId] = Double.MAX_VALUE;
+	    heapPosition[nodeId] = -1;
+
+	    for (int outLinkId : graph.getOutgoingLinks(nodeId))
+	    {
+		int nextNodeId = graph.getLinkDestinationNode(outLinkId);
+		if (affectedStamp[nextNodeId] == stamp || linkWeights[outLinkId] == Double.MAX_VALUE || distance[nextNodeId] == Double.MAX_VALUE) continue;
+
+		distance[nodeId] = Math.min(distance[nodeId], distance[nextNodeId] + linkWeights[outLinkId]);
+	    }
+
+	    if (distance[nodeId] != Double.MAX_VALUE) heapPush(nodeId);
+	}
+
+	while (heapSize > 0)
+	{
+	    int nodeId = heapPop();
+	    for (int inLinkId : graph.getIncomingLinks(nodeId))
+	    {
+		int previousNodeId = graph.getLinkOriginNode(inLinkId);
+		if (affectedStamp[previousNodeId] != stamp || linkWeights[inLinkId] == Double.MAX_VALUE) continue;
+
+		double newDistance = distance[nodeId] + linkWeights[inLinkId];
+		if (newDistance >= distance[previousNodeId]) continue;
+
+		distance[previousNodeId] = newDistance;
+		if (heapPosition[previousNodeId] >= 0) heapSiftUp(heapPosition[previousNodeId]);
+		else heapPush(previousNodeId);
+	    }
+	}
+
+	return true;
+    }
+
+    private boolean hasUnaffectedSuccessor(double[] distance, int nodeId)
+    {
+	for (int outLinkId : graph.getOutgoingLinks(nodeId))
+	{
+	    int nextNodeId = graph.getLinkDestinationNode(outLinkId);
+	    if (affectedStamp[nextNodeId] != stamp && isTight(distance[nodeId], distance[nextNodeId], linkWeights[outLinkId]))
+		return true;
+	}
+
+	return false;
+    }
+
+    private static void checkLinkWeight(double linkWeight)
+    {
+	if (!(linkWeight > 0)) throw new Net2PlanException("Link weights must be greater than zero");
+    }
+
+    /* Indicates whether a link (a, b) lies in some shortest path, given the distances from a and b to the destination */
+    private static boolean isTight(double d_a, double d_b, double linkWeight)
+    {
+	return linkWeight != Double.MAX_VALUE && d_a != Double.MAX_VALUE && d_b != Double.MAX_VALUE && d_b + linkWeight == d_a;
+    }
+
+    private void initializeHeap(double[] distance)
+    {
+	key = distance;
+	heapSize = 0;
+
+	if (++stamp == Integer.MAX_VALUE)
+	{
+	    Arrays.fill(queuedStamp, 0);
+	    Arrays.fill(affectedStamp, 0);
+	    stamp = 1;
+	}
+    }
+
+    private void heapPush(int nodeId)
+    {
+	queuedStamp[nodeId] = stamp;
+	heap[heapSize] = nodeId;
+	heapPosition[nodeId] = heapSize;
+	heapSiftUp(heapSize++);
+    }
+
+    private int heapPop()
+    {
+	int nodeId = heap[0];
+	heapPosition[nodeId] = -1;
+
+	if (--heapSize > 0)
+	{
+	    heap[0] = heap[heapSize];
+	    heapPosition[heap[0]] = 0;
+	    heapSiftDown(0);
+	}
+
+	return nodeId;
+    }
+
+    private void heapSiftUp(int position)
+    {
+	int nodeId = heap[position];
+	while (position > 0)
+	{
+	    int parent = (position - 1) >>> 1;
+	    if (key[heap[parent]] <= key[nodeId]) break;
+
+	    heap[position] = heap[parent];
+	    heapPosition[heap[position]] = position;
+	    position = parent;
+	}
+
+	heap[position] = nodeId;
+	heapPosition[nodeId] = position;
+    }
+
+    private void heapSiftDown(int position)
+    {
+	int nodeId = heap[position];
+	while (true)
+	{
+	    int child = 2 * position + 1;
+	    if (child >= heapSize) break;
+	    if (child + 1 < heapSize && key[heap[child + 1]] < key[heap[child]]) child++;
+	    if (key[nodeId] <= key[heap[child]]) break;
+
+	    heap[position] = heap[child];
+	    heapPosition[heap[position]] = position;
+	    position = child;
+	}
+
+	heap[position] = nodeId;
+	heapPosition[nodeId] = position;
+    }
+}
@@ -13,14 +13,21 @@ package com.tejas.engine.libraries;
 
 import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
 import com.tejas.engine.libraries.ModulationFormatUtils.ModulationFormat;
+import com.tejas.engine.utils.DoubleUtils;
 import com.tejas.engine.utils.Pair;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
 /**
- * Class implementing some static methods to assist in creating algorithms for 
- * flex-grid networks.
+ * <p>Class implementing some static methods to assist in creating algorithms for 
+ * flex-grid networks.</p>
+ * 
+ * <p>Routing and spectrum assignment (RSA) is supported by the {@link SpectrumOccupancy}
+ * class, which stores the occupied frequency slots per fiber as bitmaps, and
+ * the {@link #RSA RSA()} method, which selects the first candidate path with
+ * enough contiguous and continuous slots according to a {@link SpectrumAssignmentPolicy}.</p>
  * 
  * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
  * @since 0.2.3
@@ -172,4 +179,538 @@ public class FlexGridUtils
         
         return pathSlotAvailabilityVector;
     }
+
+    /**
+     * <p>Routing and spectrum assignment algorithm. Candidate paths are tried in
+     * order, and for each one the modulation format with the maximum spectral
+     * efficiency fulfilling the optical reach constraint is selected (see
+     * {@link ModulationFormatUtils#computeModulationFormat ModulationFormatUtils.computeModulationFormat()}),
+     * which determines the number of slots (see {@link #computeNumberOfSlots computeNumberOfSlots()}). The request is allocated
+     * in the first path having a block of contiguous slots, free in every traversed
+     * fiber, chosen according to the given policy. Paths longer than the optical
+     * reach of every modulation format are skipped.</p>
+     *
+     * <p><b>Important</b>: Loop-free paths should be employed, but it is not 
+     * checked by the method.</p>
+     *
+     * @param candidatePaths Sequence of fibers of each candidate path, in order of preference
+     * @param bandwidthInGbps Requested bandwidth (in Gbps)
+     * @param l_e Link length vector (in kilometers)
+     * @param availableModulationFormats Set of candidate modulation formats
+     * @param slotGranularityInGHz Slot granularity (in GHz)
+     * @param guardBandInGHz Guard-band size (in GHz)
+     * @param spectrumOccupancy Occupied slots per fiber, which is updated if the request is allocated
+     * @param policy Spectrum assignment policy
+     * @return Three-element array with the index of the selected path within <code>candidatePaths</code>, the initial slot and the number of slots, or an empty array if the request cannot be allocated
+     * @since 0.2.3
+     */
+    public static int[] RSA(List<int[]> candidatePaths, double bandwidthInGbps, double[] l_e, ModulationFormat[] availableModulationFormats, double slotGranularityInGHz, double guardBandInGHz, SpectrumOccupancy spectrumOccupancy, SpectrumAssignmentPolicy policy)
+    {
+        if (availableModulationFormats == null || availableModulationFormats.length == 0) throw new Net2PlanException("Available modulation formats cannot be null");
+
+        double maxOpticalReachInKm = 0;
+        for(ModulationFormat modulationFormat : availableModulationFormats)
+            maxOpticalReachInKm = Math.max(maxOpticalReachInKm, modulationFormat.opticalReachInKm);
+
+        int pathIndex = 0;
+        for(int[] seqFibers : candidatePaths)
+        {
+            if (DoubleUtils.sum(DoubleUtils.select(l_e, seqFibers)) <= maxOpticalReachInKm)
+            {
+                ModulationFormat modulationFormat = ModulationFormatUtils.computeModulationFormat(seqFibers, l_e, availableModulationFormats);
+                int numSlots = computeNumberOfSlots(bandwidthInGbps, slotGranularityInGHz, guardBandInGHz, modulationFormat);
+
+                int initialSlotId = spectrumOccupancy.findSlots(seqFibers, numSlots, policy);
+                if (initialSlotId != -1)
+                {
+                    spectrumOccupancy.allocate(seqFibers, initialSlotId, numSlots);
+                    return new int[] { pathIndex, initialSlotId, numSlots };
+                }
+            }
+
+            pathIndex++;
+        }
+
+        return new int[0];
+    }
+
+    /**
+     * Policies to select the block of contiguous slots for a request among the
+     * spectrum voids (maximal blocks of contiguous free slots) of a path.
+     *
+     * @since 0.2.3
+     */
+    public enum SpectrumAssignmentPolicy
+    {
+        /**
+         * Lowest slots in the first spectrum void large enough for the request.
+         *
+         * @since 0.2.3
+         */
+        FIRST_FIT,
+
+        /**
+         * First spectrum void with exactly the slots of the request, or first-fit if there is no such void.
+         *
+         * @since 0.2.3
+         */
+        EXACT_FIT,
+
+        /**
+         * Smallest spectrum void large enough for the request (ties are broken by the lowest slot).
+         *
+         * @since 0.2.3
+         */
+        BEST_FIT
+    }
+
+    /**
+     * <p>Occupied frequency slots per fiber, stored as a bitmap of <code>long</code>
+     * words (one bit per slot). The slots free along a path are obtained with
+     * word-wide operations, spectrum voids are traversed word by word, and
+     * allocation and release of blocks of slots are incremental, so that
+     * allocation algorithms (e.g. in connection-admission-control simulations)
+     * do not need to rebuild the occupancy on each request.</p>
+     *
+     * <p>Every fiber has the same number of slots.</p>
+     *
+     * @since 0.2.3
+     */
+    public static class SpectrumOccupancy
+    {
+        private final int E;
+        private final int S;
+        private final int numWords;
+        private final long[] occupied;
+        private final int[] numOccupiedSlots;
+
+        /* Scratch array for the slots free along a path */
+        private final long[] pathFree;
+
+        /**
+         * Creates an empty occupancy.
+         *
+         * @param E Number of fibers
+         * @param S Number of slots per fiber
+         * @since 0.2.3
+         */
+        public SpectrumOccupancy(int E, int S)
+        {
+            if (E < 0) throw new Net2PlanException("Number of fibers must be non-negative");
+            if (S <= 0) throw new Net2PlanException("Number of slots per fiber must be greater than zero");
+
+            this.E = E;
+            this.S = S;
+            numWords = (S + 63) >>> 6;
+            occupied = new long[E * numWords];
+            numOccupiedSlots = new int[E];
+            pathFree = new long[numWords];
+        }
+
+        /**
+         * Creates an occupancy from a slot availability matrix.
+         *
+         * @param slotAvailabilityMatrix An <i>E</i>x<i>S</i> matrix, where each element <i>a_<sub>es</sub></i> is equal to <code>true</code> if the frequency slot <i>s</i> is available on fiber <i>e</i>; otherwise, false
+         * @since 0.2.3
+         */
+        public SpectrumOccupancy(boolean[][] slotAvailabilityMatrix)
+        {
+            this(slotAvailabilityMatrix.length, slotAvailabilityMatrix.length == 0 ? 1 : slotAvailabilityMatrix[0].length);
+
+            for(int fiberId = 0; fiberId < E; fiberId++)
+            {
+                if (slotAvailabilityMatrix[fiberId].length != S) throw new Net2PlanException("Every fiber must have the same number of slots");
+
+                for(int slotId = 0; slotId < S; slotId++)
+                    if (!slotAvailabilityMatrix[fiberId][slotId])
+                        allocate(fiberId, slotId, 1);
+            }
+        }
+
+        /**
+         * Returns the number of fibers.
+         *
+         * @return Number of fibers
+         * @since 0.2.3
+         */
+        public int getNumberOfFibers() { return E; }
+
+        /**
+         * Returns the number of slots per fiber.
+         *
+         * @return Number of slots per fiber
+         * @since 0.2.3
+         */
+        public int getNumberOfSlots() { return S; }
+
+        /**
+         * Returns the number of occupied slots in a fiber.
+         *
+         * @param fiberId Fiber identifier
+         * @return Number of occupied slots
+         * @since 0.2.3
+         */
+        public int getNumberOfOccupiedSlots(int fiberId) { return numOccupiedSlots[fiberId]; }
+
+        /**
+         * Indicates whether a slot is occupied in a fiber.
+         *
+         * @param fiberId Fiber identifier
+         * @param slotId Slot identifier
+         * @return <code>true</code> if the slot is occupied, and <code>false</code> otherwise
+         * @since 0.2.3
+         */
+        public boolean isOccupied(int fiberId, int slotId)
+        {
+            if (slotId < 0 || slotId >= S) throw new Net2PlanException("Wrong slot identifier");
+            return (occupied[fiberId * numWords + (slotId >>> 6)] & (1L << slotId)) != 0;
+        }
+
+        /**
+         * Returns the slot availability vector of a path, where each position indicates whether or not
+         * its corresponding frequency slot is available along the path. It is equivalent to
+         * {@link FlexGridUtils#computePathSlotAvailabilityVector FlexGridUtils.computePathSlotAvailabilityVector()}.
+         *
+         * @param seqFibers Sequence of traversed fibers
+         * @return Slot availability vector
+         * @since 0.2.3
+         */
+        public boolean[] getPathSlotAvailabilityVector(int[] seqFibers)
+        {
+            computePathFreeSlots(seqFibers);
+
+            boolean[] out = new boolean[S];
+            for(int slotId = 0; slotId < S; slotId++)
+                out[slotId] = (pathFree[slotId >>> 6] & (1L << slotId)) != 0;
+
+            return out;
+        }
+
+        /**
+         * Returns the initial slot of a block of contiguous slots free in every traversed fiber.
+         *
+         * @param seqFibers (Loop-free) Sequence of traversed fibers
+         * @param numSlots Number of contiguous slots
+         * @param policy Spectrum assignment policy
+         * @return Initial slot identifier, or -1 if there is no such block
+         * @since 0.2.3
+         */
+        public int findSlots(int[] seqFibers, int numSlots, SpectrumAssignmentPolicy policy)
+        {
+            if (numSlots <= 0) throw new Net2PlanException("Number of slots must be greater than zero");
+            if (numSlots > S) return -1;
+
+            computePathFreeSlots(seqFibers);
+
+            int firstFitSlotId = -1;
+            int bestFitSlotId = -1;
+            int bestFitSize = Integer.MAX_VALUE;
+
+            int end = 0;
+            while (true)
+            {
+                int start = nextSetBit(pathFree, end, S);
+                if (start == -1) break;
+
+                end = nextClearBit(pathFree, start, S);
+                int size = end - start;
+                if (size < numSlots) continue;
+
+                switch (policy)
+                {
+                    case FIRST_FIT:
+                        return start;
+
+                    case EXACT_FIT:
+                        if (size == numSlots) return start;
+                        if (firstFitSlotId == -1) firstFitSlotId = start;
+                        break;
+
+                    case BEST_FIT:
+                        if (size == numSlots) return start;
+                        if (size < bestFitSize)
+                        {
+                            bestFitSize = size;
+                            bestFitSlotId = start;
+                        }
+                        break;
+
+                    default:
+                        throw new RuntimeException("Bad");
+                }
+            }
+
+            return policy == SpectrumAssignmentPolicy.EXACT_FIT ? firstFitSlotId : bestFitSlotId;
+        }
+
+        /**
+         * Occupies a block of contiguous slots in a fiber.
+         *
+         * @param fiberId Fiber identifier
+         * @param initialSlotId Initial slot identifier
+         * @param numSlots Number of contiguous slots
+         * @since 0.2.3
+         */
+        public void allocate(int fiberId, int initialSlotId, int numSlots)
+        {
+            checkBlock(initialSlotId, numSlots);
+
+            int offset = fiberId * numWords;
+            for(int word = initialSlotId >>> 6; word <= (initialSlotId + numSlots - 1) >>> 6; word++)
+                if ((occupied[offset + word] & blockMask(word, initialSlotId, numSlots)) != 0)
+                    throw new Net2PlanException(String.format("Two connections cannot share a frequency slot (fiber %d, slots %d-%d)", fiberId, initialSlotId, initialSlotId + numSlots - 1));
+
+            for(int word = initialSlotId >>> 6; word <= (initialSlotId + numSlots - 1) >>> 6; word++)
+                occupied[offset + word] |= blockMask(word, initialSlotId, numSlots);
+
+            numOccupiedSlots[fiberId] += numSlots;
+        }
+
+        /**
+         * Occupies a block of contiguous slots in every traversed fiber.
+         *
+         * @param seqFibers (Loop-free) Sequence of traversed fibers
+         * @param initialSlotId Initial slot identifier
+         * @param numSlots Number of contiguous slots
+         * @since 0.2.3
+         */
+        public void allocate(int[] seqFibers, int initialSlotId, int numSlots)
+        {
+            for(int fiberId : seqFibers) allocate(fiberId, initialSlotId, numSlots);
+        }
+
+        /**
+         * Releases a block of contiguous slots in a fiber. Releasing free slots has no effect.
+         *
+         * @param fiberId Fiber identifier
+         * @param initialSlotId Initial slot identifier
+         * @param numSlots Number of contiguous slots
+         * @since 0.2.3
+         */
+        public void release(int fiberId, int initialSlotId, int numSlots)
+        {
+            checkBlock(initialSlotId, numSlots);
+
+            int offset = fiberId * numWords;
+            for(int word = initialSlotId >>> 6; word <= (initialSlotId + numSlots - 1) >>> 6; word++)
+            {
+                long mask = blockMask(word, initialSlotId, numSlots);
+                numOccupiedSlots[fiberId] -= Long.bitCount(occupied[offset + word] & mask);
+                occupied[offset + word] &= ~mask;
+            }
+        }
+
+        /**
+         * Releases a block of contiguous slots in every traversed fiber.
+         *
+         * @param seqFibers (Loop-free) Sequence of traversed fibers
+         * @param initialSlotId Initial slot identifier
+         * @param numSlots Number of contiguous slots
+         * @since 0.2.3
+         */
+        public void release(int[] seqFibers, int initialSlotId, int numSlots)
+        {
+            for(int fiberId : seqFibers) release(fiberId, initialSlotId, numSlots);
+        }
+
+        /**
+         * Returns the spectrum voids (maximal blocks of contiguous free slots) of a fiber.
+         * It is equivalent to {@link FlexGridUtils#computeAvailableSpectrumVoids FlexGridUtils.computeAvailableSpectrumVoids()}.
+         *
+         * @param fiberId Fiber identifier
+         * @return List of spectrum voids, each one with a pair indicating both the initial slot id and the number of consecutive slots within the void
+         * @since 0.2.3
+         */
+        public List<Pair<Integer, Integer>> getSpectrumVoids(int fiberId)
+        {
+            computeFiberFreeSlots(fiberId);
+
+            List<Pair<Integer, Integer>> result = new LinkedList<Pair<Integer, Integer>>();
+            int end = 0;
+            while (true)
+            {
+                int start = nextSetBit(pathFree, end, S);
+                if (start == -1) break;
+
+                end = nextClearBit(pathFree, start, S);
+                result.add(Pair.of(start, end - start));
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns the number of spectrum voids (maximal blocks of contiguous free slots) of a fiber.
+         *
+         * @param fiberId Fiber identifier
+         * @return Number of spectrum voids
+         * @since 0.2.3
+         */
+        public int getNumberOfSpectrumVoids(int fiberId)
+        {
+            int offset = fiberId * numWords;
+
+            /* A void starts at each free slot whose previous slot is occupied (or does not exist) */
+            int numVoids = 0;
+            long previousWordLastBitFree = 0;
+            for(int word = 0; word < numWords; word++)
+            {
+                long free = ~occupied[offset + word] & validMask(word);
+                long previousFree = (free << 1) | previousWordLastBitFree;
+                numVoids += Long.bitCount(free & ~previousFree);
+                previousWordLastBitFree = free >>> 63;
+            }
+
+            return numVoids;
+        }
+
+        /**
+         * Returns the size of the largest spectrum void (maximal block of contiguous free slots) of a fiber.
+         *
+         * @param fiberId Fiber identifier
+         * @return Number of slots of the largest spectrum void (zero if the fiber is full)
+         * @since 0.2.3
+         */
+        public int getLargestSpectrumVoid(int fiberId)
+        {
+            computeFiberFreeSlots(fiberId);
+
+            int largest = 0;
+            int end = 0;
+            while (true)
+            {
+                int start = nextSetBit(pathFree, end, S);
+                if (start == -1) break;
+
+                end = nextClearBit(pathFree, start, S);
+                largest = Math.max(largest, end - start);
+            }
+
+            return largest;
+        }
+
+        /**
+         * <p>Returns the external fragmentation of a fiber, defined as one minus the
+         * ratio between the largest spectrum void and the number of free slots.
+         * It is zero when free slots are contiguous (or the fiber is full), and
+         * tends to one as free slots are scattered.</p>
+         *
+         * @param fiberId Fiber identifier
+         * @return External fragmentation, in range [0, 1)
+         * @since 0.2.3
+         */
+        public double getExternalFragmentation(int fiberId)
+        {
+            int numFreeSlots = S - numOccupiedSlots[fiberId];
+            if (numFreeSlots == 0) return 0;
+
+            return 1 - (double) getLargestSpectrumVoid(fiberId) / numFreeSlots;
+        }
+
+        /**
+         * Returns the external fragmentation of every fiber.
+         *
+         * @return External fragmentation per fiber
+         * @see #getExternalFragmentation(int)
+         * @since 0.2.3
+         */
+        public double[] getExternalFragmentation()
+        {
+            double[] out = new double[E];
+            for(int fiberId = 0; fiberId < E; fiberId++) out[fiberId] = getExternalFragmentation(fiberId);
+
+            return out;
+        }
+
+        /**
+         * Returns the fraction of occupied slots in every fiber.
+         *
+         * @return Spectrum utilization per fiber, in range [0, 1]
+         * @since 0.2.3
+         */
+        public double[] getSpectrumUtilization()
+        {
+            double[] out = new double[E];
+            for(int fiberId = 0; fiberId < E; fiberId++) out[fiberId] = (double) numOccupiedSlots[fiberId] / S;
+
+            return out;
+        }
+
+        /* Slots free in every traversed fiber (into pathFree) */
+        private void computePathFreeSlots(int[] seqFibers)
+        {
+            Arrays.fill(pathFree, 0);
+            for(int fiberId : seqFibers)
+            {
+                int offset = fiberId * numWords;
+                for(int word = 0; word < numWords; word++) pathFree[word] |= occupied[offset + word];
+            }
+
+            for(int word = 0; word < numWords; word++) pathFree[word] = ~pathFree[word] & validMask(word);
+        }
+
+        /* Slots free in a fiber (into pathFree) */
+        private void computeFiberFreeSlots(int fiberId)
+        {
+            int offset = fiberId * numWords;
+            for(int word = 0; word < numWords; word++) pathFree[word] = ~occupied[offset + word] & validMask(word);
+        }
+
+        private void checkBlock(int initialSlotId, int numSlots)
+        {
+            if (numSlots <= 0) throw new Net2PlanException("Number of slots must be greater than zero");
+            if (initialSlotId < 0 || initialSlotId + numSlots > S) throw new Net2PlanException(String.format("Slots %d-%d are out of range (%d slots per fiber)", initialSlotId, initialSlotId + numSlots - 1, S));
+        }
+
+        /* Bits of a word corresponding to existing slots */
+        private long validMask(int word)
+        {
+            int remainingSlots = S - (word << 6);
+            return remainingSlots >= 64 ? -1L : (1L << remainingSlots) - 1;
+        }
+
+        /* Bits of a word within block [initialSlotId, initialSlotId + numSlots) */
+        private static long blockMask(int word, int initialSlotId, int numSlots)
+        {
+            int from = Math.max(initialSlotId, word << 6) - (word << 6);
+            int to = Math.min(initialSlotId + numSlots, (word + 1) << 6) - (word << 6);
+            long upper = to == 64 ? -1L : (1L << to) - 1;
+            return upper & (-1L << from);
+        }
+
+        /* Lowest set bit in range [fromIndex, toIndex), or -1 if none */
+        private static int nextSetBit(long[] bitmap, int fromIndex, int toIndex)
+        {
+            if (fromIndex >= toIndex) return -1;
+
+            int word = fromIndex >>> 6;
+            long bits = bitmap[word] & (-1L << fromIndex);
+            while (true)
+            {
+                if (bits != 0)
+                {
+                    int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    return index < toIndex ? index : -1;
+                }
+
+                if (++word << 6 >= toIndex) return -1;
+                bits = bitmap[word];
+            }
+        }
+
+        /* Lowest clear bit in range [fromIndex, toIndex), or toIndex if none */
+        private static int nextClearBit(long[] bitmap, int fromIndex, int toIndex)
+        {
+            if (fromIndex >= toIndex) return toIndex;
+
+            int word = fromIndex >>> 6;
+            long bits = ~bitmap[word] & (-1L << fromIndex);
+            while (true)
+            {
+                if (bits != 0) return Math.min(toIndex, (word << 6) + Long.numberOfTrailingZeros(bits));
+                if (++word << 6 >= toIndex) return toIndex;
+                bits = ~bitmap[word];
+            }
+        }
+    }
 }
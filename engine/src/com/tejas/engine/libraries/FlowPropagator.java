@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.libraries;
+
+import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
+
+import java.util.Arrays;
+
+/**
+ * <p>Computes the traffic carried by each link under a destination-based
+ * routing in the form of fractions <i>f<sub>te</sub></i>, without expanding it
+ * into explicit paths. For each destination node, the links with a positive
+ * fraction form a directed acyclic graph, whose nodes are visited in
+ * topological order, so that each node forwards the whole traffic it receives
+ * (or generates) towards the destination at once. The cost is O(<i>N</i>(<i>N</i>+<i>E</i>)+<i>D</i>)
+ * per call, independently of the number of paths in the routing (which may be
+ * exponential, e.g. under ECMP).</p>
+ *
+ * <p>Scratch arrays are allocated once and reused among calls, so that
+ * heuristics evaluating many routings (e.g. OSPF weight setting) can reuse a
+ * single object. Instances are not thread-safe.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ * @see GraphUtils#convert_fte2xp(int[][], int[][], double[], double[][], java.util.List, java.util.List, java.util.List)
+ */
+public class FlowPropagator
+{
+    private final CSRGraph graph;
+    private final int N;
+    private final int E;
+
+    /* Scratch arrays */
+    private final double[] traffic;
+    private final int[] pendingInLinks;
+    private final int[] queue;
+    private final int[] demandOffset;
+    private int[] demandsByDestination;
+
+    /**
+     * Default constructor.
+     *
+     * @param linkTable Set of installed links (first column: origin node, second column: destination node)
+     * @param N Number of nodes
+     * @since 0.2.3
+     */
+    public FlowPropagator(int[][] linkTable, int N)
+    {
+	graph = new CSRGraph(linkTable, N);
+	this.N = graph.getNumberOfNodes();
+	this.E = graph.getNumberOfLinks();
+
+	traffic = new double[this.N];
+	pendingInLinks = new int[this.N];
+	queue = new int[this.N];
+	demandOffset = new int[this.N + 1];
+	demandsByDestination = new int[0];
+    }
+
+    /**
+     * Returns the carried traffic per link.
+     *
+     * @param demandTable The table of demands in the network: one row per demand, first column input node, second column output node
+     * @param h_d The amount of traffic offered for each demand
+     * @param f_te For each destination node t, and each link e, f_te[t][e] sets the fraction of the traffic targeted to node t that arrives
+     * (or is generated in) node a(e) (the initial node of link e), that is forwarded through link e
+     * @return Carried traffic per link
+     * @since 0.2.3
+     */
+    public double[] computeCarriedTrafficPerLink(int[][] demandTable, double[] h_d, double[][] f_te)
+    {
+	double[] y_e = new double[E];
+	computeCarriedTrafficPerLink(demandTable, h_d, f_te, y_e);
+	return y_e;
+    }
+
+    /**
+     * Computes the carried traffic per link into a given array, so that no memory is allocated.
+     *
+     * @param demandTable The table of demands in the network: one row per demand, first column input node, second column output node
+     * @param h_d The amount of traffic offered for each demand
+     * @param f_te For each destination node t, and each link e, f_te[t][e] sets the fraction of the traffic targeted to node t that arrives
+     * (or is generated in) node a(e) (the initial node of link e), that is forwarded through link e
+     * @param y_e Output array (one element per link), which is overwritten with the carried traffic per link
+     * @since 0.2.3
+     */
+    public void computeCarriedTrafficPerLink(int[][] demandTable, double[] h_d, double[][] f_te, double[] y_e)
+    {
+	if (y_e.length != E) throw new Net2PlanException("Carried traffic vector does not match the number of links");
+
+	Arrays.fill(y_e, 0);
+	propagate(demandTable, h_d, f_te, y_e, null);
+    }
+
+    /**
+     * Returns the traffic targeted to each destination node carried by each link.
+     *
+     * @param demandTable The table of demands in the network: one row per demand, first column input node, second column output node
+     * @param h_d The amount of traffic offered for each demand
+     * @param f_te For each destination node t, and each link e, f_te[t][e] sets the fraction of the traffic targeted to node t that arrives
+     * (or is generated in) node a(e) (the initial node of link e), that is forwarded through link e
+     * @return Destination-based routing in the form x_te (amount of traffic targeted to node t, transmitted through link e)
+     * @since 0.2.3
+     */
+    public double[][] computeTrafficPerDestinationAndLink(int[][] demandTable, double[] h_d, double[][] f_te)
+    {
+	double[][] x_te = new double[N][E];
+	propagate(demandTable, h_d, f_te, null, x_te);
+	return x_te;
+    }
+
+    private void propagate(int[][] demandTable, double[] h_d, double[][] f_te, double[] y_e, double[][] x_te)
+    {
+	int D = demandTable.length;
+	if (h_d.length != D) throw new Net2PlanException("Offered traffic vector does not match the number of demands");
+	if (f_te.length > N) throw new Net2PlanException("Routing table matrix does not match the number of nodes");
+
+	groupDemandsByDestination(demandTable, h_d);
+
+	for (int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
+	{
+	    if (demandOffset[destinationNodeId] == demandOffset[destinationNodeId + 1]) continue;
+	    if (destinationNodeId >= f_te.length || f_te[destinationNodeId].length != E) throw new Net2PlanException("Routing table matrix does not match the number of links");
+
+	    double[] f_e = f_te[destinationNodeId];
+	    double[] x_e = x_te == null ? y_e : x_te[destinationNodeId];
+
+	    /* Traffic generated in each node, and number of incoming links with a positive fraction */
+	    Arrays.fill(traffic, 0);
+	    Arrays.fill(pendingInLinks, 0);
+	    for (int i = demandOffset[destinationNodeId]; i < demandOffset[destinationNodeId + 1]; i++)
+	    {
+		int demandId = demandsByDestination[i];
+		traffic[demandTable[demandId][0]] += h_d[demandId];
+	    }
+
+	    for (int linkId = 0; linkId < E; linkId++)
+		if (f_e[linkId] > 0 && graph.linkOriginNode[linkId] != destinationNodeId)
+		    pendingInLinks[graph.linkDestinationNode[linkId]]++;
+
+	    /* Topological order (Kahn's algorithm) */
+	    int head = 0;
+	    int tail = 0;
+	    for (int nodeId = 0; nodeId < N; nodeId++)
+		if (pendingInLinks[nodeId] == 0)
+		    queue[tail++] = nodeId;
+
+	    while (head < tail)
+	    {
+		int nodeId = queue[head++];
+		if (nodeId == destinationNodeId) continue;
+
+		boolean forwarded = false;
+		for (int i = graph.outOffset[nodeId]; i < graph.outOffset[nodeId + 1]; i++)
+		{
+		    int linkId = graph.outLinks[i];
+		    if (!(f_e[linkId] > 0)) continue;
+
+		    int nextNodeId = graph.linkDestinationNode[linkId];
+		    double x = traffic[nodeId] * f_e[linkId];
+		    x_e[linkId] += x;
+		    traffic[nextNodeId] += x;
+		    forwarded = true;
+
+		    if (--pendingInLinks[nextNodeId] == 0) queue[tail++] = nextNodeId;
+		}
+
+		if (!forwarded && traffic[nodeId] > 0) throw new RuntimeException("Some nodes are not reachable");
+	    }
+
+	    /* Nodes never visited belong to (or are downstream of) a routing cycle, which is only an error if traffic enters it */
+	    if (tail < N)
+		for (int nodeId = 0; nodeId < N; nodeId++)
+		    if (pendingInLinks[nodeId] > 0 && traffic[nodeId] > 0)
+			throw new RuntimeException("Routing has cycles");
+	}
+    }
+
+    /* Counting sort of the demands by their destination node */
+    private void groupDemandsByDestination(int[][] demandTable, double[] h_d)
+    {
+	int D = demandTable.length;
+	if (demandsByDestination.length < D) demandsByDestination = new int[D];
+
+	Arrays.fill(demandOffset, 0);
+	for (int demandId = 0; demandId < D; demandId++)
+	{
+	    int ingressNodeId = demandTable[demandId][0];
+	    int egressNodeId = demandTable[demandId][1];
+	    if (ingressNodeId < 0 || ingressNodeId >= N || egressNodeId < 0 || egressNodeId >= N) throw new Net2PlanException("Demand table does not match the number of nodes");
+
+	    if (h_d[demandId] != 0 && ingressNodeId != egressNodeId) demandOffset[egressNodeId + 1]++;
+	}
+
+	for (int nodeId = 0; nodeId < N; nodeId++) demandOffset[nodeId + 1] += demandOffset[nodeId];
+
+	int[] fill = Arrays.copyOf(demandOffset, N);
+	for (int demandId = 0; demandId < D; demandId++)
+	    if (h_d[demandId] != 0 && demandTable[demandId][0] != demandTable[demandId][1])
+		demandsByDestination[fill[demandTable[demandId][1]]++] = demandId;
+    }
+}
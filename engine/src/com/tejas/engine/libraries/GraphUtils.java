@@ -451,33 +451,16 @@ public class GraphUtils
      */
     public static List<int[]> getAllLooplessShortestPaths(int[][] linkTable, int originNodeId, int destinationNodeId, int N, double[] weights)
     {
-	Graph<Integer, Integer> g = JUNGUtils.getGraphFromLinkTable(linkTable, N);
-	final Transformer<Integer, Double> nev = JUNGUtils.getEdgeWeightTransformer(weights);
-	EdgePredicateFilter<Integer, Integer> linkFilter = new EdgePredicateFilter<Integer, Integer>(new Predicate<Integer>()
-	    {
-		@Override
-		public boolean evaluate(Integer linkId)
-		{
-		    return (nev.transform(linkId) == Double.MAX_VALUE) ? false : true;
-		}
-	    });
-	g = linkFilter.transform(g);
-
-	CandidatePathList.YenLoopLessKShortestPathsAlgorithm<Integer, Integer> paths = new CandidatePathList.YenLoopLessKShortestPathsAlgorithm<Integer, Integer>(g, nev)
+	CSRGraph.PathFinder pathFinder = new CSRGraph.PathFinder(new CSRGraph(linkTable, N))
 	{
 	    @Override
-	    public boolean compareCandidateToShortestPath(JUNGUtils.GraphPath<Integer> candidate, JUNGUtils.GraphPath<Integer> shortestPath)
+	    public boolean compareCandidateToShortestPath(int[] seqLinks, double pathWeight, double shortestPathWeight)
 	    {
-		return candidate.getPathWeight() == shortestPath.getPathWeight();
+		return pathWeight == shortestPathWeight;
 	    }
 	};
 
-	List<List<Integer>> aux = paths.getPaths(originNodeId, destinationNodeId, Integer.MAX_VALUE);
-	List<int[]> pathList = new LinkedList<int[]>();
-	for(List<Integer> path : aux)
-	    pathList.add(IntUtils.toArray(path));
-
-	return pathList;
+	return pathFinder.getKLooplessShortestPaths(originNodeId, destinationNodeId, Integer.MAX_VALUE, weights);
     }
 
     /**
@@ -495,24 +478,7 @@ public class GraphUtils
      */
     public static List<int[]> getKLooplessShortestPaths(int[][] linkTable, int originNodeId, int destinationNodeId, int N, int K, double[] weights)
     {
-	Graph<Integer, Integer> g = JUNGUtils.getGraphFromLinkTable(linkTable, N);
-	final Transformer<Integer, Double> nev = JUNGUtils.getEdgeWeightTransformer(weights);
-	EdgePredicateFilter<Integer, Integer> linkFilter = new EdgePredicateFilter<Integer, Integer>(new Predicate<Integer>()
-	    {
-		@Override
-		public boolean evaluate(Integer linkId)
-		{
-		    return (nev.transform(linkId) == Double.MAX_VALUE) ? false : true;
-		}
-	    });
-	g = linkFilter.transform(g);
-
-	CandidatePathList.YenLoopLessKShortestPathsAlgorithm<Integer, Integer> paths = new CandidatePathList.YenLoopLessKShortestPathsAlgorithm<Integer, Integer>(g, nev);
-	List<int[]> pathList = new ArrayList<int[]>();
-	for(List<Integer> path : paths.getPaths(originNodeId, destinationNodeId, K))
-	    pathList.add(IntUtils.toArray(path));
-
-	return pathList;
+	return new CSRGraph(linkTable, N).getPathFinder().getKLooplessShortestPaths(originNodeId, destinationNodeId, K, weights);
     }
 
     /**
@@ -790,6 +756,46 @@ public class GraphUtils
 	}
     }
 
+    /**
+     * Given a destination-based routing in the form f_te (fractions of traffic in a node, that is forwarded through each of its output links), and
+     * an offered traffic to the network, it returns the carried traffic per link, without generating the set of paths
+     * (see {@link FlowPropagator}). When many routings are evaluated, a single {@link FlowPropagator} should be reused instead.
+     *
+     * @param linkTable Set of installed links (first column: origin node, second column: destination node)
+     * @param demandTable The table of demands in the network: one row per demand, first column input node, second column output node
+     * @param h_d The amount of traffic offered for each demand
+     * @param f_te For each destination node t, and each link e, f_te[t][e] sets the fraction of the traffic targeted to node t that arrives
+     * (or is generated in) node a(e) (the initial node of link e), that is forwarded through link e.
+     * It must hold that for every node n different of t, the sum of the fractions f_te along its outgoing links
+     * must be 1. For every destination t, f_te = 0 for all the links e that are outgoing links of t
+     * @return Carried traffic per link
+     * @since 0.2.3
+     */
+    public static double[] convert_fte2ye(int[][] linkTable, int[][] demandTable, double[] h_d, double[][] f_te)
+    {
+	return new FlowPropagator(linkTable, f_te.length).computeCarriedTrafficPerLink(demandTable, h_d, f_te);
+    }
+
+    /**
+     * Given a destination-based routing in the form f_te (fractions of traffic in a node, that is forwarded through each of its output links), and
+     * an offered traffic to the network, it returns the amount of traffic targeted to each node carried by each link, without generating the set of paths
+     * (see {@link FlowPropagator}).
+     *
+     * @param linkTable Set of installed links (first column: origin node, second column: destination node)
+     * @param demandTable The table of demands in the network: one row per demand, first column input node, second column output node
+     * @param h_d The amount of traffic offered for each demand
+     * @param f_te For each destination node t, and each link e, f_te[t][e] sets the fraction of the traffic targeted to node t that arrives
+     * (or is generated in) node a(e) (the initial node of link e), that is forwarded through link e.
+     * It must hold that for every node n different of t, the sum of the fractions f_te along its outgoing links
+     * must be 1. For every destination t, f_te = 0 for all the links e that are outgoing links of t
+     * @return Destination-based routing in the form x_te (amount of traffic targeted to node t, transmitted through link e)
+     * @since 0.2.3
+     */
+    public static double[][] convert_fte2xte(int[][] linkTable, int[][] demandTable, double[] h_d, double[][] f_te)
+    {
+	return new FlowPropagator(linkTable, f_te.length).computeTrafficPerDestinationAndLink(demandTable, h_d, f_te);
+    }
+
     /**
      * Given a link table, with a row per link and two columns (first the origin node, second the destination node), and given a node n, it
      * returns the links that leave the node. Note that we can use this function passing demand tables or path tables, to get the outgoing demands/paths of a node.
@@ -875,26 +881,13 @@ public class GraphUtils
 	int N = IntUtils.maxValue(linkTable);
 	N = Math.max(N, Math.max(originNodeId, destinationNodeId));
 
-	Graph<Integer, Integer> graph = JUNGUtils.getGraphFromLinkTable(linkTable, N);
-	Transformer<Integer, Double> nev = JUNGUtils.getEdgeWeightTransformer(costVector);
-
-	EdgePredicateFilter<Integer, Integer> linkFilter = new EdgePredicateFilter<Integer, Integer>(new Predicate<Integer>()
-	    {
-		@Override
-		public boolean evaluate(Integer object)
-		{
-		    return (costVector[object] == Double.MAX_VALUE || capacityVector[object] < capacityGoal) ? false : true;
-		}
-	    });
-
-	graph = linkFilter.transform(graph);
-
-	if (!graph.containsVertex(originNodeId) || !graph.containsVertex(destinationNodeId))
-	    return new int[0];
+	int E = linkTable.length;
+	double[] weights = DoubleUtils.copy(costVector);
+	for(int linkId = 0; linkId < E; linkId++)
+	    if (capacityVector[linkId] < capacityGoal)
+		weights[linkId] = Double.MAX_VALUE;
 
-	DijkstraShortestPath<Integer, Integer> dsp = new DijkstraShortestPath<Integer, Integer>(graph, nev);
-	List<Integer> path = dsp.getPath(originNodeId, destinationNodeId);
-	return IntUtils.toArray(path);
+	return new CSRGraph(linkTable, N + 1).getPathFinder().getShortestPath(originNodeId, destinationNodeId, weights);
     }
 
     /**
@@ -1227,25 +1220,7 @@ public class GraphUtils
 	int N = IntUtils.maxValue(linkTable);
 	N = Math.max(N, Math.max(originNodeId, destinationNodeId));
 
-	Graph<Integer, Integer> graph = JUNGUtils.getGraphFromLinkTable(linkTable, N);
-	final Transformer<Integer, Double> nev = JUNGUtils.getEdgeWeightTransformer(costVector);
-	EdgePredicateFilter<Integer, Integer> linkFilter = new EdgePredicateFilter<Integer, Integer>(new Predicate<Integer>()
-	    {
-		@Override
-		public boolean evaluate(Integer linkId)
-		{
-		    return (nev.transform(linkId) == Double.MAX_VALUE) ? false : true;
-		}
-	    });
-	graph = linkFilter.transform(graph);
-
-	if (!graph.containsVertex(originNodeId) || !graph.containsVertex(destinationNodeId))
-	    return new int[0];
-
-
-	DijkstraShortestPath<Integer, Integer> dsp = new DijkstraShortestPath<Integer, Integer>(graph, nev);
-	List<Integer> path = dsp.getPath(originNodeId, destinationNodeId);
-	return IntUtils.toArray(path);
+	return new CSRGraph(linkTable, N + 1).getPathFinder().getShortestPath(originNodeId, destinationNodeId, costVector);
     }
 
     /**
@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.libraries;
+
+import cern.colt.list.tint.IntArrayList;
+import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
+import com.tejas.engine.utils.DoubleUtils;
+
+/**
+ * <p>Routing tables of an OSPF-like (or IS-IS) protocol for a given set of
+ * link weights (links with weight equal to <code>Double.MAX_VALUE</code> are
+ * forbidden). For each destination node, the shortest-path directed acyclic
+ * graph (the set of links lying in some shortest path towards the destination)
+ * is derived from the distances towards the destination, and stored sparsely.
+ * Both the ECMP (traffic equally split among output links) and the OMP
+ * (traffic equally split among shortest paths) splitting rules are derived from
+ * this graph.</p>
+ *
+ * <p>Link weights can be changed afterwards: distances are updated incrementally
+ * (see {@link DynamicAllPairsShortestPaths}), and only the destinations whose
+ * shortest-path graph may be affected by the change are computed again.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ * @see IPUtils#computeECMPRoutingTableMatrix(int[][], double[], int)
+ * @see IPUtils#computeOMPRoutingTableMatrix(int[][], double[], int)
+ */
+public class IGPRoutingTable
+{
+    private final int N;
+    private final int E;
+    private final CSRGraph graph;
+    private final double[] linkWeights;
+    private final DynamicAllPairsShortestPaths distances;
+
+    /* Links in the shortest-path graph towards each destination node, in increasing order of identifier */
+    private final int[][] forwardingLinks;
+
+    /* Scratch array */
+    private final int[] count;
+
+    /**
+     * Default constructor.
+     *
+     * @param linkTable Set of links defining a physical topology
+     * @param linkWeights Set of link weights (must be greater or equal than one)
+     * @param N Number of nodes in the network
+     * @since 0.2.3
+     */
+    public IGPRoutingTable(int[][] linkTable, double[] linkWeights, int N)
+    {
+	if (linkWeights.length != linkTable.length) throw new Net2PlanException("Link weight vector does not match the number of links");
+	if (DoubleUtils.minValue(linkWeights) < 1) throw new Net2PlanException("Link weights must be greater or equal than 1");
+
+	graph = new CSRGraph(linkTable, N);
+	distances = new DynamicAllPairsShortestPaths(linkTable, linkWeights, N);
+
+	this.N = graph.getNumberOfNodes();
+	this.E = graph.getNumberOfLinks();
+	this.linkWeights = DoubleUtils.copy(linkWeights);
+
+	forwardingLinks = new int[this.N][];
+	count = new int[this.N];
+
+	for (int destinationNodeId = 0; destinationNodeId < this.N; destinationNodeId++)
+	    computeDestination(destinationNodeId);
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return Number of nodes
+     * @since 0.2.3
+     */
+    public int getNumberOfNodes() { return N; }
+
+    /**
+     * Returns the number of links.
+     *
+     * @return Number of links
+     * @since 0.2.3
+     */
+    public int getNumberOfLinks() { return E; }
+
+    /**
+     * Returns the current link weights.
+     *
+     * @return Link weights
+     * @since 0.2.3
+     */
+    public double[] getLinkWeights() { return DoubleUtils.copy(linkWeights); }
+
+    /**
+     * Returns the shortest-path distance from a node to a destination node.
+     *
+     * @param nodeId Node identifier
+     * @param destinationNodeId Destination node
+     * @return Shortest-path distance (<code>Double.MAX_VALUE</code> if the destination node is not reachable)
+     * @since 0.2.3
+     */
+    public double getDistance(int nodeId, int destinationNodeId)
+    {
+	return distances.getDistance(nodeId, destinationNodeId);
+    }
+
+    /**
+     * Returns the links lying in some shortest path towards a destination node.
+     *
+     * @param destinationNodeId Destination node
+     * @return Links in the shortest-path graph, in increasing order of identifier
+     * @since 0.2.3
+     */
+    public int[] getForwardingLinks(int destinationNodeId)
+    {
+	return forwardingLinks[destinationNodeId].clone();
+    }
+
+    /**
+     * Returns the fraction of the traffic targeted to a destination node that
+     * each link in the shortest-path graph forwards, according to the ECMP rule
+     * (traffic is equally split among the output links in some shortest path).
+     *
+     * @param destinationNodeId Destination node
+     * @return Splitting fractions, in the same order as {@link #getForwardingLinks getForwardingLinks()}
+     * @since 0.2.3
+     */
+    public double[] getECMPSplittingFractions(int destinationNodeId)
+    {
+	int[] links = forwardingLinks[destinationNodeId];
+
+	for (int linkId : links) count[graph.getLinkOriginNode(linkId)] = 0;
+	for (int linkId : links) count[graph.getLinkOriginNode(linkId)]++;
+
+	double[] out = new double[links.length];
+	for (int i = 0; i < links.length; i++)
+	    out[i] = 1.0 / count[graph.getLinkOriginNode(links[i])];
+
+	return out;
+    }
+
+    /**
+     * Returns the fraction of the traffic targeted to a destination node that
+     * each link in the shortest-path graph forwards, according to the OMP rule
+     * (traffic is equally split among the shortest paths).
+     *
+     * @param destinationNodeId Destination node
+     * @return Splitting fractions, in the same order as {@link #getForwardingLinks getForwardingLinks()}
+     * @since 0.2.3
+     */
+    public double[] getOMPSplittingFractions(int destinationNodeId)
+    {
+	int[] links = forwardingLinks[destinationNodeId];
+	double[] numPaths = getNumberOfShortestPaths(destinationNodeId);
+
+	double[] out = new double[links.length];
+	for (int i = 0; i < links.length; i++)
+	    out[i] = numPaths[graph.getLinkDestinationNode(links[i])] / numPaths[graph.getLinkOriginNode(links[i])];
+
+	return out;
+    }
+
+    /**
+     * Returns the ECMP routing in the form of fractions <i>f<sub>te</sub></i>. It is equivalent to {@link IPUtils#computeECMPRoutingTableMatrix IPUtils.computeECMPRoutingTableMatrix()}.
+     *
+     * @return A destination-based routing in the form of fractions <i>f<sub>te</sub></i> (fraction of the traffic targeted to node <i>t</i> that arrives (or is generated in) node <i>a</i>(<i>e</i>) (the initial node of link <i>e</i>), that is forwarded through link <i>e</i>)
+     * @since 0.2.3
+     */
+    public double[][] getECMPRoutingTableMatrix()
+    {
+	double[][] f_te = new double[N][E];
+	for (int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
+	{
+	    int[] links = forwardingLinks[destinationNodeId];
+	    double[] fractions = getECMPSplittingFractions(destinationNodeId);
+	    for (int i = 0; i < links.length; i++)
+		f_te[destinationNodeId][links[i]] = fractions[i];
+	}
+
+	return f_te;
+    }
+
+    /**
+     * Returns the OMP routing in the form of fractions <i>f<sub>te</sub></i>. It is equivalent to {@link IPUtils#computeOMPRoutingTableMatrix IPUtils.computeOMPRoutingTableMatrix()}.
+     *
+     * @return A destination-based routing in the form of fractions <i>f<sub>te</sub></i> (fraction of the traffic targeted to node <i>t</i> that arrives (or is generated in) node <i>a</i>(<i>e</i>) (the initial node of link <i>e</i>), that is forwarded through link <i>e</i>)
+     * @since 0.2.3
+     */
+    public double[][] getOMPRoutingTableMatrix()
+    {
+	double[][] f_te = new double[N][E];
+	for (int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
+	{
+	    int[] links = forwardingLinks[destinationNodeId];
+	    double[] fractions = getOMPSplittingFractions(destinationNodeId);
+	    for (int i = 0; i < links.length; i++)
+		f_te[destinationNodeId][links[i]] = fractions[i];
+	}
+
+	return f_te;
+    }
+
+    /**
+     * Changes the weight of a link, and updates the routing towards the
+     * destination nodes whose shortest-path graph may change.
+     *
+     * @param linkId Link identifier
+     * @param linkWeight New link weight (must be greater or equal than one)
+     * @return Destination nodes whose routing was computed again, in increasing order
+     * @since 0.2.3
+     */
+    public int[] setLinkWeight(int linkId, double linkWeight)
+    {
+	double[] newLinkWeights = DoubleUtils.copy(linkWeights);
+	newLinkWeights[linkId] = linkWeight;
+
+	return setLinkWeights(newLinkWeights);
+    }
+
+    /**
+     * Changes the weight of the links, and updates the routing towards the
+     * destination nodes whose shortest-path graph may change. A destination node
+     * is not affected if, with respect to the current distances, no link whose weight
+     * increases is in its shortest-path graph, and no link whose weight decreases
+     * becomes part of (or shortcuts) a shortest path.
+     *
+     * @param linkWeights New link weights (must be greater or equal than one)
+     * @return Destination nodes whose routing was computed again, in increasing order
+     * @since 0.2.3
+     */
+    public int[] setLinkWeights(double[] linkWeights)
+    {
+	if (linkWeights.length != E) throw new Net2PlanException("Link weight vector does not match the number of links");
+	if (DoubleUtils.minValue(linkWeights) < 1) throw new Net2PlanException("Link weights must be greater or equal than 1");
+
+	IntArrayList changedLinks = new IntArrayList();
+	for (int linkId = 0; linkId < E; linkId++)
+	    if (linkWeights[linkId] != this.linkWeights[linkId])
+		changedLinks.add(linkId);
+
+	if (changedLinks.isEmpty()) return new int[0];
+
+	IntArrayList affectedDestinations = new IntArrayList();
+	for (int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
+	{
+	    for (int i = 0; i < changedLinks.size(); i++)
+	    {
+		int linkId = changedLinks.getQuick(i);
+		double d_a = distances.getDistance(graph.getLinkOriginNode(linkId), destinationNodeId);
+		double d_b = distances.getDistance(graph.getLinkDestinationNode(linkId), destinationNodeId);
+		if (d_b == Double.MAX_VALUE) continue;
+
+		double oldLinkWeight = this.linkWeights[linkId];
+		double newLinkWeight = linkWeights[linkId];
+
+		boolean affected = newLinkWeight > oldLinkWeight ? isTight(d_a, d_b, oldLinkWeight) : d_b + newLinkWeight <= d_a;
+		if (affected)
+		{
+		    affectedDestinations.add(destinationNodeId);
+		    break;
+		}
+	    }
+	}
+
+	System.arraycopy(linkWeights, 0, this.linkWeights, 0, E);
+	distances.setLinkWeights(linkWeights);
+
+	for (int i = 0; i < affectedDestinations.size(); i++)
+	    computeDestination(affectedDestinations.getQuick(i));
+
+	affectedDestinations.trimToSize();
+	return affectedDestinations.elements();
+    }
+
+    private void computeDestination(int destinationNodeId)
+    {
+	IntArrayList links = new IntArrayList();
+	for (int linkId = 0; linkId < E; linkId++)
+	    if (distances.isInShortestPath(linkId, destinationNodeId))
+		links.add(linkId);
+
+	links.trimToSize();
+	forwardingLinks[destinationNodeId] = links.elements();
+    }
+
+    /* Number of shortest paths from each node to the destination node, processing the shortest-path graph backwards from the destination */
+    private double[] getNumberOfShortestPaths(int destinationNodeId)
+    {
+	int[] links = forwardingLinks[destinationNodeId];
+
+	/* Pending output links of each node, whose head has not been processed yet */
+	for (int linkId : links) count[graph.getLinkOriginNode(linkId)] = 0;
+	for (int linkId : links) count[graph.getLinkOriginNode(linkId)]++;
+
+	double[] numPaths = new double[N];
+	numPaths[destinationNodeId] = 1;
+
+	int[] queue = new int[N];
+	int head = 0;
+	int tail = 0;
+	queue[tail++] = destinationNodeId;
+
+	while (head < tail)
+	{
+	    int nodeId = queue[head++];
+	    for (int linkId : graph.getIncomingLinks(nodeId))
+	    {
+		int originNodeId = graph.getLinkOriginNode(linkId);
+		if (!distances.isInShortestPath(linkId, destinationNodeId)) continue;
+
+		numPaths[originNodeId] += numPaths[nodeId];
+		if (--count[originNodeId] == 0) queue[tail++] = originNodeId;
+	    }
+	}
+
+	return numPaths;
+    }
+
+    /* Indicates whether a link (a, b) lies in some shortest path, given the distances from a and b to the destination */
+    private static boolean isTight(double d_a, double d_b, double linkWeight)
+    {
+	return linkWeight != Double.MAX_VALUE && d_a != Double.MAX_VALUE && d_b != Double.MAX_VALUE && d_b + linkWeight == d_a;
+    }
+}
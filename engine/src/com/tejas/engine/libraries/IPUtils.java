@@ -18,13 +18,7 @@ import com.tejas.engine.interfaces.networkDesign.NetPlan;
 import com.tejas.engine.utils.DoubleUtils;
 import com.tejas.engine.utils.StringUtils;
 
-import edu.uci.ics.jung.algorithms.filters.EdgePredicateFilter;
-import edu.uci.ics.jung.algorithms.shortestpath.DijkstraShortestPath;
-import edu.uci.ics.jung.graph.Graph;
-import java.util.Map.Entry;
 import java.util.*;
-import org.apache.commons.collections15.Predicate;
-import org.apache.commons.collections15.Transformer;
 
 /**
  * Class for destination-based routing (IP-like).
@@ -88,6 +82,8 @@ public class IPUtils
      *
      * <p><b>Important</b>: Although non-integer values are allowed, usage of positive integer values is encouraged to follow the OSPF standard</p>
      *
+     * <p>To update the routing after changing some link weights, without computing it from scratch, use an {@link IGPRoutingTable} object.</p>
+     *
      * @param linkTable   Set of links defining a physical topology
      * @param linkWeights Set of link weights (must be greater or equal than one)
      * @param N           Number of nodes in the network
@@ -98,62 +94,7 @@ public class IPUtils
     {
 	if (DoubleUtils.minValue(linkWeights) < 1) throw new Net2PlanException("Link weights must be greater or equal than 1");
 
-	int E = linkTable.length;
-	double[][] f_te = new double[N][E];
-
-	Graph<Integer, Integer> g = GraphUtils.JUNGUtils.getGraphFromLinkTable(linkTable, N);
-	final Transformer<Integer, Double> nev = GraphUtils.JUNGUtils.getEdgeWeightTransformer(linkWeights);
-	EdgePredicateFilter<Integer, Integer> linkFilter = new EdgePredicateFilter<Integer, Integer>(new Predicate<Integer>()
-	    {
-		@Override
-		public boolean evaluate(Integer linkId)
-		{
-		    return (nev.transform(linkId) == Double.MAX_VALUE) ? false : true;
-		}
-	    });
-	g = linkFilter.transform(g);
-
-	DijkstraShortestPath<Integer, Integer> dsp = new DijkstraShortestPath<Integer, Integer>(g, nev);
-
-	for(int b_d = 0; b_d < N; b_d++)
-	{
-	    for(int a_d = 0; a_d < N; a_d++)
-	    {
-		if (a_d == b_d) continue;
-
-		Number dist = dsp.getDistance(a_d, b_d);
-		if (dist == null) continue;
-
-		double distIngressToEgress = dist.doubleValue();
-
-		Set<Integer> A_t = new HashSet<Integer>();
-
-		for(int c_d = 0; c_d < N; c_d++)
-		{
-		    if (a_d == c_d) continue;
-
-		    if (dsp.getDistance(a_d, c_d) == null) continue;
-
-		    Number dist2 = dsp.getDistance(c_d, b_d);
-		    if (dist2 == null) continue;
-
-		    double distIntermediateToEgress = dist2.doubleValue();
-
-		    Collection<Integer> linksFromIngressToIntermediate = g.findEdgeSet(a_d, c_d);
-		    for(int linkId : linksFromIngressToIntermediate)
-			if (linkWeights[linkId] == distIngressToEgress - distIntermediateToEgress)
-			    A_t.add(linkId);
-		}
-
-		int outdegree = A_t.size();
-
-		if (outdegree > 0)
-		    for(int linkId : A_t)
-			f_te[b_d][linkId] = 1.0 / outdegree;
-	    }
-	}
-
-	return f_te;
+	return new IGPRoutingTable(linkTable, linkWeights, N).getECMPRoutingTableMatrix();
     }
 
     /**
@@ -171,35 +112,7 @@ public class IPUtils
     {
 	if (DoubleUtils.minValue(linkWeights) < 1) throw new Net2PlanException("Link weights must be greater or equal than 1");
 
-	int E = linkTable.length;
-	double[][] f_te = new double[N][E];
-
-	for(int originNodeId = 0; originNodeId < N; originNodeId++)
-	{
-	    for(int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
-	    {
-		if (originNodeId == destinationNodeId) continue;
-
-		List<int[]> allSPs = GraphUtils.getAllLooplessShortestPaths(linkTable, originNodeId, destinationNodeId, N, linkWeights);
-		if(allSPs.isEmpty()) continue;
-
-		Map<Integer, Integer> aux = new HashMap<Integer, Integer>();
-
-		Iterator<int[]> it = allSPs.iterator();
-		while(it.hasNext())
-		{
-		    int linkId = it.next()[0];
-
-		    if (aux.containsKey(linkId)) aux.put(linkId, aux.get(linkId) + 1);
-		    else aux.put(linkId, 1);
-		}
-
-		for(Entry<Integer, Integer> entry : aux.entrySet())
-		    f_te[destinationNodeId][entry.getKey()] = (double) entry.getValue() / allSPs.size();
-	    }
-	}
-
-	return f_te;
+	return new IGPRoutingTable(linkTable, linkWeights, N).getOMPRoutingTableMatrix();
     }
 
     /**
@@ -156,14 +156,14 @@ public final class NetworkPerformanceMetrics
         S = netPlan.getNumberOfProtectionSegments();
         numSRGs = netPlan.getNumberOfSRGs();
 
-        u_e = DoubleFactory1D.dense.make(netPlan.getLinkCapacityInErlangsVector());
+        u_e = netPlan.getLinkCapacityInErlangsVectorView();
 	u_e_noProtection = DoubleFactory1D.dense.make(netPlan.getLinkCapacityNotReservedForProtectionInErlangsVector());
 	y_e = DoubleFactory1D.dense.make(netPlan.getLinkCarriedTrafficInErlangsVector());
 	rho_e = DoubleFactory1D.dense.make(netPlan.getLinkUtilizationVector());
-	d_e = DoubleFactory1D.dense.make(netPlan.getLinkLengthInKmVector());
-        h_d = DoubleFactory1D.dense.make(netPlan.getDemandOfferedTrafficInErlangsVector());
+	d_e = netPlan.getLinkLengthInKmVectorView();
+        h_d = netPlan.getDemandOfferedTrafficInErlangsVectorView();
         r_d = DoubleFactory1D.dense.make(netPlan.getDemandCarriedTrafficInErlangsVector());
-	x_p = DoubleFactory1D.dense.make(netPlan.getRouteCarriedTrafficInErlangsVector());
+	x_p = netPlan.getRouteCarriedTrafficInErlangsVectorView();
         u_s_reservedForProtection = DoubleFactory1D.dense.make(netPlan.getProtectionSegmentReservedBandwithInErlangsVector());
         
         bottleneckLinks = DoubleUtils.maxIndexes(rho_e.toArray(), Constants.SearchType.ALL, PRECISIONFACTOR);
@@ -171,24 +171,145 @@ public class SRGUtils
     }
 
     /**
-     * Computes the probability to find the network on each failure state.
+     * Returns an iterator over the failure states, in the same order as
+     * {@link #enumerateFailureStates enumerateFailureStates()}, where each state is
+     * represented by the sorted array of SRGs going down. States are generated
+     * on demand, so that they are never stored altogether.
      * 
-     * @param F_s Set of SRGs failing per each failure state
+     * @param numSRGs Number of defined SRGs
+     * @param considerNoFailureState Flag to indicate whether or not no failure state is included
+     * @param considerDoubleFailureStates Flag to indicate whether or not double failure states are included
+     * @return Iterator over the SRGs going down on each failure state
+     * @since 0.2.3
+     */
+    public static Iterator<int[]> iterateFailureStates(final int numSRGs, final boolean considerNoFailureState, final boolean considerDoubleFailureStates)
+    {
+	if (numSRGs < 0) throw new RuntimeException("Number of SRGs must be greater or equal than zero");
+
+	return new Iterator<int[]>()
+	{
+	    /* Next state: no failure (-1, -1), single failure (srgId_1, -1), or double failure (srgId_1, srgId_2) */
+	    private int srgId_1 = considerNoFailureState ? -1 : 0;
+	    private int srgId_2 = -1;
+	    private boolean noFailurePending = considerNoFailureState;
+
+	    @Override
+	    public boolean hasNext()
+	    {
+		if (noFailurePending) return true;
+		if (srgId_2 == -1) return srgId_1 < numSRGs || (considerDoubleFailureStates && numSRGs >= 2);
+		return srgId_1 < numSRGs - 1;
+	    }
+
+	    @Override
+	    public int[] next()
+	    {
+		if (!hasNext()) throw new NoSuchElementException();
+
+		if (noFailurePending)
+		{
+		    noFailurePending = false;
+		    srgId_1 = 0;
+		    return new int[0];
+		}
+
+		if (srgId_2 == -1)
+		{
+		    if (srgId_1 < numSRGs) return new int[] { srgId_1++ };
+
+		    /* Single failures are finished */
+		    srgId_1 = 0;
+		    srgId_2 = 1;
+		}
+
+		int[] state = new int[] { srgId_1, srgId_2 };
+		if (++srgId_2 == numSRGs)
+		{
+		    srgId_1++;
+		    srgId_2 = srgId_1 + 1;
+		}
+
+		return state;
+	    }
+
+	    @Override
+	    public void remove() { throw new UnsupportedOperationException(); }
+	};
+    }
+
+    /**
+     * Computes the probability to find the network on a given failure state.
+     * 
+     * @param failingSRGs Sorted array of SRGs going down in the failure state
      * @param A_f Availability value per SRG
-     * @return Probability to find the network in each failure state
+     * @return Probability to find the network in the failure state
      * @since 0.2.3
      */
-    public static double[] computeStateProbabilities(List<Set<Integer>> F_s, double[] A_f)
+    public static double computeStateProbability(int[] failingSRGs, double[] A_f)
     {
-	Set<Integer> noFaultyItems = new HashSet<Integer>();
+	double pi = 1;
 
+	int i = 0;
 	int F = A_f.length;
 	for(int failureGroupId = 0; failureGroupId < F; failureGroupId++)
 	{
 	    if (A_f[failureGroupId] <= 0 || A_f[failureGroupId] > 1) throw new RuntimeException("Availability for SRG " + failureGroupId + " must be in range (0, 1] (current " + A_f[failureGroupId] + ")");
-	    if (A_f[failureGroupId] == 1) noFaultyItems.add(failureGroupId);
+
+	    boolean isFailing = i < failingSRGs.length && failingSRGs[i] == failureGroupId;
+	    if (isFailing)
+	    {
+		if (A_f[failureGroupId] == 1) throw new RuntimeException("SRG " + failureGroupId + " is always up, but it is in failure state " + Arrays.toString(failingSRGs));
+		i++;
+	    }
+
+	    pi *= isFailing ? (1 - A_f[failureGroupId]) : A_f[failureGroupId];
 	}
 
+	if (i != failingSRGs.length) throw new RuntimeException("Bad - Failure state " + Arrays.toString(failingSRGs) + " is not a sorted set of SRGs");
+
+	return pi;
+    }
+
+    /**
+     * Computes the natural logarithm of the probability to find the network on
+     * a given failure state. Contrary to {@link #computeStateProbability computeStateProbability()},
+     * the result does not underflow when there are many SRGs.
+     * 
+     * @param failingSRGs Sorted array of SRGs going down in the failure state
+     * @param A_f Availability value per SRG
+     * @return Logarithm of the probability to find the network in the failure state (<code>Double.NEGATIVE_INFINITY</code> means zero probability)
+     * @since 0.2.3
+     */
+    public static double computeStateLogProbability(int[] failingSRGs, double[] A_f)
+    {
+	double logPi = computeNoFailureStateLogProbability(A_f);
+
+	int previousSRGId = -1;
+	for(int srgId : failingSRGs)
+	{
+	    if (srgId <= previousSRGId || srgId >= A_f.length) throw new RuntimeException("Bad - Failure state " + Arrays.toString(failingSRGs) + " is not a sorted set of SRGs");
+	    if (A_f[srgId] == 1) throw new RuntimeException("SRG " + srgId + " is always up, but it is in failure state " + Arrays.toString(failingSRGs));
+
+	    logPi += Math.log1p(-A_f[srgId]) - Math.log(A_f[srgId]);
+	    previousSRGId = srgId;
+	}
+
+	return logPi;
+    }
+
+    /**
+     * Computes the probability to find the network on each failure state.
+     * 
+     * @param F_s Set of SRGs failing per each failure state
+     * @param A_f Availability value per SRG
+     * @return Probability to find the network in each failure state
+     * @since 0.2.3
+     */
+    public static double[] computeStateProbabilities(List<Set<Integer>> F_s, double[] A_f)
+    {
+	/* Each state probability is that of the no-failure state, times (1 - A_f) / A_f for each failing SRG */
+	double logPi_0 = computeNoFailureStateLogProbability(A_f);
+
 	int S = F_s.size();
 	double[] pi_s = new double[S];
         
@@ -197,20 +318,321 @@ public class SRGUtils
         {
             int stateId = it.nextIndex();
             Set<Integer> aux = it.next();
-            
-            for(int failureGroupId : noFaultyItems)
-                if (aux.contains(failureGroupId))
-		    throw new RuntimeException("SRG " + failureGroupId + " is always up, but it is in failure state " + stateId);
-            
-	    pi_s[stateId] = 1;
-
-	    for (int failureGroupId = 0; failureGroupId < A_f.length; failureGroupId++)
-		pi_s[stateId] *= aux.contains(failureGroupId) ? (1 - A_f[failureGroupId]) : A_f[failureGroupId];
+
+	    double logPi = logPi_0;
+	    for(int failureGroupId : aux)
+	    {
+		if (A_f[failureGroupId] == 1) throw new RuntimeException("SRG " + failureGroupId + " is always up, but it is in failure state " + stateId);
+		logPi += Math.log1p(-A_f[failureGroupId]) - Math.log(A_f[failureGroupId]);
+	    }
+
+	    pi_s[stateId] = Math.exp(logPi);
         }
         
 	double aux = DoubleUtils.sum(pi_s);
-	if (aux > 1) throw new RuntimeException("Bad - Summation of state probabilities is greater than one (repeated states?)");
+	if (aux > 1 + 1E-10) throw new RuntimeException("Bad - Summation of state probabilities is greater than one (repeated states?)");
 
 	return pi_s;
     }
+
+    /**
+     * <p>Returns an iterator over the failure states with up to a given number of
+     * simultaneous SRG failures, in decreasing order of probability, stopping
+     * when the probability of the next state would fall below a threshold.
+     * Each state is represented by the sorted array of SRGs going down.</p>
+     * 
+     * <p>States are generated on demand from a priority queue, whose size is at
+     * most twice the number of states returned, so that the whole state space
+     * is never stored (nor visited). Probabilities are handled in logarithmic
+     * scale. The iterator also reports the probability mass (and number) of the
+     * states not returned yet, which, once the iterator is exhausted, bound the
+     * error committed by pruning.</p>
+     * 
+     * @param A_f Availability value per SRG (at least 0.5, so that failing is never more likely than being up)
+     * @param maxNumSimultaneousFailures Maximum number of SRGs failing at the same time
+     * @param probabilityThreshold Minimum probability of a state to be returned (zero means no pruning)
+     * @return Iterator over the most probable failure states
+     * @since 0.2.3
+     */
+    public static MostProbableFailureStateIterator iterateMostProbableFailureStates(double[] A_f, int maxNumSimultaneousFailures, double probabilityThreshold)
+    {
+	return new MostProbableFailureStateIterator(A_f, maxNumSimultaneousFailures, probabilityThreshold);
+    }
+
+    /* Logarithm of the probability that no SRG is down */
+    private static double computeNoFailureStateLogProbability(double[] A_f)
+    {
+	double logPi_0 = 0;
+
+	int F = A_f.length;
+	for(int failureGroupId = 0; failureGroupId < F; failureGroupId++)
+	{
+	    if (A_f[failureGroupId] <= 0 || A_f[failureGroupId] > 1) throw new RuntimeException("Availability for SRG " + failureGroupId + " must be in range (0, 1] (current " + A_f[failureGroupId] + ")");
+	    logPi_0 += Math.log(A_f[failureGroupId]);
+	}
+
+	return logPi_0;
+    }
+
+    /**
+     * Iterator over failure states in decreasing order of probability.
+     *
+     * @see SRGUtils#iterateMostProbableFailureStates(double[], int, double)
+     * @since 0.2.3
+     */
+    public static class MostProbableFailureStateIterator implements Iterator<int[]>
+    {
+	private final int maxNumSimultaneousFailures;
+	private final double logProbabilityThreshold;
+
+	/* SRGs which may fail, sorted by decreasing failure ratio (1 - A_f) / A_f */
+	private final int[] sortedSRGIds;
+	private final double[] sortedLogFailureRatio;
+
+	private final PriorityQueue<Candidate> candidates;
+
+	private final double probabilityUpToMaxNumSimultaneousFailures;
+	private final double probabilityBeyondMaxNumSimultaneousFailures;
+	private final double numStatesUpToMaxNumSimultaneousFailures;
+
+	private double enumeratedProbability;
+	private long numEnumeratedStates;
+	private double lastLogProbability;
+
+	private MostProbableFailureStateIterator(double[] A_f, int maxNumSimultaneousFailures, double probabilityThreshold)
+	{
+	    if (maxNumSimultaneousFailures < 0) throw new Net2PlanException("Maximum number of simultaneous failures must be greater or equal than zero");
+	    if (probabilityThreshold < 0 || probabilityThreshold > 1) throw new Net2PlanException("Probability threshold must be in range [0, 1]");
+
+	    double logPi_0 = computeNoFailureStateLogProbability(A_f);
+
+	    int F = A_f.length;
+	    List<Integer> failingSRGIds = new ArrayList<Integer>();
+	    final double[] logFailureRatio = new double[F];
+	    for(int srgId = 0; srgId < F; srgId++)
+	    {
+		if (A_f[srgId] < 0.5) throw new Net2PlanException("Availability for SRG " + srgId + " must be at least 0.5 to enumerate failure states by decreasing probability (current " + A_f[srgId] + ")");
+		if (A_f[srgId] == 1) continue;
+
+		logFailureRatio[srgId] = Math.log1p(-A_f[srgId]) - Math.log(A_f[srgId]);
+		failingSRGIds.add(srgId);
+	    }
+
+	    Collections.sort(failingSRGIds, new Comparator<Integer>()
+	    {
+		@Override
+		public int compare(Integer srgId_1, Integer srgId_2)
+		{
+		    int cmp = Double.compare(logFailureRatio[srgId_2], logFailureRatio[srgId_1]);
+		    return cmp != 0 ? cmp : Integer.compare(srgId_1, srgId_2);
+		}
+	    });
+
+	    int numFailingSRGs = failingSRGIds.size();
+	    this.maxNumSimultaneousFailures = Math.min(maxNumSimultaneousFailures, numFailingSRGs);
+	    this.logProbabilityThreshold = Math.log(probabilityThreshold);
+
+	    sortedSRGIds = new int[numFailingSRGs];
+	    sortedLogFailureRatio = new double[numFailingSRGs];
+	    for(int i = 0; i < numFailingSRGs; i++)
+	    {
+		sortedSRGIds[i] = failingSRGIds.get(i);
+		sortedLogFailureRatio[i] = logFailureRatio[sortedSRGIds[i]];
+	    }
+
+	    /* Distribution of the number of failing SRGs (states beyond the maximum are accumulated in the last position) */
+	    int K = this.maxNumSimultaneousFailures;
+	    double[] p_k = new double[K + 2];
+	    p_k[0] = 1;
+	    for(int srgId : sortedSRGIds)
+	    {
+		double u = 1 - A_f[srgId];
+		p_k[K + 1] += p_k[K] * u;
+		for(int k = K; k > 0; k--) p_k[k] = p_k[k] * A_f[srgId] + p_k[k - 1] * u;
+		p_k[0] *= A_f[srgId];
+	    }
+
+	    double auxProbability = 0;
+	    double auxNumStates = 0;
+	    double binomialCoefficient = 1;
+	    for(int k = 0; k <= K; k++)
+	    {
+		auxProbability += p_k[k];
+		auxNumStates += binomialCoefficient;
+		binomialCoefficient = binomialCoefficient * (numFailingSRGs - k) / (k + 1);
+	    }
+
+	    probabilityUpToMaxNumSimultaneousFailures = auxProbability;
+	    probabilityBeyondMaxNumSimultaneousFailures = p_k[K + 1];
+	    numStatesUpToMaxNumSimultaneousFailures = auxNumStates;
+
+	    candidates = new PriorityQueue<Candidate>();
+	    enumeratedProbability = 0;
+	    numEnumeratedStates = 0;
+	    lastLogProbability = Double.NaN;
+
+	    if (logPi_0 >= logProbabilityThreshold) candidates.add(new Candidate(new int[0], logPi_0));
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+	    return !candidates.isEmpty();
+	}
+
+	/**
+	 * Returns the next failure state.
+	 *
+	 * @return Sorted array of SRGs going down
+	 * @since 0.2.3
+	 */
+	@Override
+	public int[] next()
+	{
+	    if (!hasNext()) throw new NoSuchElementException();
+
+	    Candidate candidate = candidates.poll();
+	    int[] positions = candidate.positions;
+	    int k = positions.length;
+
+	    /* Each subset of positions is generated once: by appending the next position, or by moving the last one forward. Both moves never increase the probability */
+	    int nextPosition = k == 0 ? 0 : positions[k - 1] + 1;
+	    if (nextPosition < sortedSRGIds.length)
+	    {
+		if (k < maxNumSimultaneousFailures)
+		{
+		    int[] extended = Arrays.copyOf(positions, k + 1);
+		    extended[k] = nextPosition;
+		    offer(extended, candidate.logProbability + sortedLogFailureRatio[nextPosition]);
+		}
+
+		if (k > 0)
+		{
+		    int[] moved = Arrays.copyOf(positions, k);
+		    moved[k - 1] = nextPosition;
+		    offer(moved, candidate.logProbability - sortedLogFailureRatio[nextPosition - 1] + sortedLogFailureRatio[nextPosition]);
+		}
+	    }
+
+	    lastLogProbability = candidate.logProbability;
+	    enumeratedProbability += Math.exp(candidate.logProbability);
+	    numEnumeratedStates++;
+
+	    int[] failingSRGs = new int[k];
+	    for(int i = 0; i < k; i++) failingSRGs[i] = sortedSRGIds[positions[i]];
+	    Arrays.sort(failingSRGs);
+
+	    return failingSRGs;
+	}
+
+	@Override
+	public void remove() { throw new UnsupportedOperationException(); }
+
+	/**
+	 * Returns the logarithm of the probability of the last state returned by {@link #next()}.
+	 *
+	 * @return Logarithm of the state probability
+	 * @since 0.2.3
+	 */
+	public double getLastStateLogProbability()
+	{
+	    if (numEnumeratedStates == 0) throw new IllegalStateException("No state was returned yet");
+	    return lastLogProbability;
+	}
+
+	/**
+	 * Returns the probability of the last state returned by {@link #next()}.
+	 *
+	 * @return State probability
+	 * @since 0.2.3
+	 */
+	public double getLastStateProbability()
+	{
+	    return Math.exp(getLastStateLogProbability());
+	}
+
+	/**
+	 * Returns the number of states returned so far.
+	 *
+	 * @return Number of states
+	 * @since 0.2.3
+	 */
+	public long getNumberOfEnumeratedStates()
+	{
+	    return numEnumeratedStates;
+	}
+
+	/**
+	 * Returns the total probability of the states returned so far.
+	 *
+	 * @return Probability mass
+	 * @since 0.2.3
+	 */
+	public double getEnumeratedProbability()
+	{
+	    return enumeratedProbability;
+	}
+
+	/**
+	 * Returns the number of states, with up to the maximum number of simultaneous
+	 * failures, not returned so far. Once the iterator is exhausted, it is the
+	 * number of states pruned by the probability threshold. States involving
+	 * SRGs always up (zero probability) are not considered.
+	 *
+	 * @return Number of states (as a <code>double</code>, since it may be huge)
+	 * @since 0.2.3
+	 */
+	public double getNumberOfRemainingStates()
+	{
+	    return numStatesUpToMaxNumSimultaneousFailures - numEnumeratedStates;
+	}
+
+	/**
+	 * Returns the total probability of the states, with up to the maximum number
+	 * of simultaneous failures, not returned so far. Once the iterator is
+	 * exhausted, it is the probability mass pruned by the probability threshold.
+	 *
+	 * @return Probability mass
+	 * @since 0.2.3
+	 */
+	public double getRemainingProbability()
+	{
+	    return Math.max(0, probabilityUpToMaxNumSimultaneousFailures - enumeratedProbability);
+	}
+
+	/**
+	 * Returns the total probability of the states with more simultaneous failures than the maximum, which are never returned.
+	 *
+	 * @return Probability mass
+	 * @since 0.2.3
+	 */
+	public double getProbabilityBeyondMaxNumSimultaneousFailures()
+	{
+	    return probabilityBeyondMaxNumSimultaneousFailures;
+	}
+
+	private void offer(int[] positions, double logProbability)
+	{
+	    /* Descendants are not more probable, so the whole subtree is pruned */
+	    if (logProbability >= logProbabilityThreshold) candidates.add(new Candidate(positions, logProbability));
+	}
+
+	private static class Candidate implements Comparable<Candidate>
+	{
+	    private final int[] positions;
+	    private final double logProbability;
+
+	    private Candidate(int[] positions, double logProbability)
+	    {
+		this.positions = positions;
+		this.logProbability = logProbability;
+	    }
+
+	    @Override
+	    public int compareTo(Candidate o)
+	    {
+		return Double.compare(o.logProbability, logProbability);
+	    }
+	}
+    }
 }
@@ -455,16 +455,24 @@ public class WDMUtils
      */
     public static List<Set<Integer>> getWavelengthOccupancy(NetPlan physicalLayer)
     {
-        int F = physicalLayer.getNumberOfLinks();
+	return getWavelengthOccupancyBitmap(physicalLayer).toSetList();
+    }
+
+    /**
+     * <p>Returns the used wavelengths per fiber as a {@link WavelengthOccupancy} bitmap.</p>
+     *
+     * @param physicalLayer A {@link com.tejas.engine.interfaces.networkDesign.NetPlan} representing a physical topology
+     * @return Used wavelengths per fiber
+     * @since 0.2.3
+     */
+    public static WavelengthOccupancy getWavelengthOccupancyBitmap(NetPlan physicalLayer)
+    {
         int LP = physicalLayer.getNumberOfRoutes();
 	int S = physicalLayer.getNumberOfProtectionSegments();
 
         int[] w_f = getFiberNumWavelengthsAttributes(physicalLayer);
 
-        List<Set<Integer>> wavelengthOccupancy = new ArrayList<Set<Integer>>();
-
-        for(int fiberId = 0; fiberId < F; fiberId++)
-            wavelengthOccupancy.add(new HashSet<Integer>());
+        WavelengthOccupancy wavelengthOccupancy = new WavelengthOccupancy(w_f);
 
         for(int lightpathId = 0; lightpathId < LP; lightpathId++)
         {
@@ -479,10 +487,10 @@ public class WDMUtils
                 if (w_f[fiberId] <= wavelengthId)
                     throw new WDMException(String.format("Fiber %d only has %d wavelengths (lightpath %d, wavelength %d)", fiberId, w_f[fiberId], lightpathId, wavelengthId));
 
-                if (wavelengthOccupancy.get(fiberId).contains(wavelengthId))
+                if (wavelengthOccupancy.isOccupied(fiberId, wavelengthId))
                     throw new WDMException(String.format("Two lightpaths/segments cannot share a wavelength (fiber %d, wavelength %d)", fiberId, wavelengthId));
 
-                wavelengthOccupancy.get(fiberId).add(wavelengthId);
+                wavelengthOccupancy.occupy(fiberId, wavelengthId);
             }
         }
 
@@ -499,10 +507,10 @@ public class WDMUtils
                 if (w_f[fiberId] <= wavelengthId)
                     throw new WDMException(String.format("Fiber %d only has %d wavelengths (segment %d, wavelength %d)", fiberId, w_f[fiberId], segmentId, wavelengthId));
 
-                if (wavelengthOccupancy.get(fiberId).contains(wavelengthId))
+                if (wavelengthOccupancy.isOccupied(fiberId, wavelengthId))
                     throw new WDMException(String.format("Two lightpaths/segments cannot share a wavelength (fiber %d, wavelength %d)", fiberId, wavelengthId));
 
-                wavelengthOccupancy.get(fiberId).add(wavelengthId);
+                wavelengthOccupancy.occupy(fiberId, wavelengthId);
             }
         }
 
@@ -621,6 +629,56 @@ public class WDMUtils
         return seqWavelengths;
     }
 
+    /**
+     * <p>Wavelength assignment algorithm based on a first-fit fashion, using
+     * a {@link WavelengthOccupancy} bitmap. The free-wavelength set common to
+     * all traversed fibers is computed word by word (64 wavelengths at once),
+     * and the assigned wavelength is occupied in the bitmap.</p>
+     *
+     * <p>In case a lightpath cannot be allocated, an empty array is returned.</p>
+     *
+     * @param fiberTable Set of installed fibers (first column: origin node, second column: destination node)
+     * @param seqFibers Sequence of traversed fibers
+     * @param wavelengthOccupancy Used wavelengths per fiber
+     * @return Sequence of wavelengths traversed by the lightpath
+     * @since 0.2.3
+     */
+    public static int[] WA_firstFit(int[][] fiberTable, int[] seqFibers, WavelengthOccupancy wavelengthOccupancy)
+    {
+        GraphUtils.checkRouteContinuity(fiberTable, seqFibers, GraphUtils.CheckRoutingCycleType.NO_REPEAT_LINK);
+
+        int wavelengthId = wavelengthOccupancy.getFirstFitWavelength(seqFibers);
+        if (wavelengthId == -1) return new int[0];
+
+        int[] seqWavelengths = new int[seqFibers.length];
+        Arrays.fill(seqWavelengths, wavelengthId);
+        wavelengthOccupancy.occupy(seqFibers, seqWavelengths);
+
+        return seqWavelengths;
+    }
+
+    /**
+     * <p>Wavelength assignment algorithm based on a first-fit fashion, using
+     * a {@link WavelengthOccupancy} bitmap. Lightpaths are allocated in order.</p>
+     *
+     * <p>In case a lightpath cannot be allocated, the corresponding sequence of
+     * wavelengths will be an empty array.</p>
+     *
+     * @param fiberTable Set of installed fibers (first column: origin node, second column: destination node)
+     * @param lightpaths Sequence of fibers traversed by each lightpath
+     * @param wavelengthOccupancy Used wavelengths per fiber
+     * @return Sequence of wavelengths traversed by each lightpath
+     * @since 0.2.3
+     */
+    public static List<int[]> WA_firstFit(int[][] fiberTable, List<int[]> lightpaths, WavelengthOccupancy wavelengthOccupancy)
+    {
+        List<int[]> seqWavelengths = new LinkedList<int[]>();
+        for(int[] seqFibers : lightpaths)
+            seqWavelengths.add(WA_firstFit(fiberTable, seqFibers, wavelengthOccupancy));
+
+        return seqWavelengths;
+    }
+
     /**
      * <p>Wavelength assignment algorithm based on a first-fit fashion assuming
      * full wavelength conversion and regeneration. Each node selects the first
@@ -779,6 +837,492 @@ public class WDMUtils
 	}
     }
     
+    /**
+     * <p>Wavelength assignment algorithm based on a first-fit fashion assuming
+     * full wavelength conversion and regeneration, using a {@link WavelengthOccupancy}
+     * bitmap. It is equivalent to {@link #WA_RPP_firstFit(int[][], List, int[], List, List, double[], int[], List, double) WA_RPP_firstFit()},
+     * but the wavelengths occupied along each subpath are kept as a bitmap.</p>
+     *
+     * <p>In case a lightpath cannot be allocated, the corresponding sequence of
+     * wavelengths (<code>seqWavelengths</code> parameter) will be an empty array.</p>
+     *
+     * @param fiberTable Set of installed fibers (first column: origin node, second column: destination node)
+     * @param lightpaths Sequence of fibers traversed by each lightpath
+     * @param wavelengthOccupancy Used wavelengths per fiber
+     * @param seqWavelengths Sequence of wavelengths traversed by each lightpath
+     * @param l_f Physical length in km per fiber
+     * @param regeneratorOccupancy Number of regenerators installed per node
+     * @param seqRegenerators A vector with as many elements as traversed links in the route/segment. Each element is a 1 if an optical regenerator is used at the origin node of the corresponding link, and a 0 if not. First element is always 0
+     * @param maxRegeneratorDistanceInKm Maximum regeneration distance
+     * @since 0.2.3
+     */
+    public static void WA_RPP_firstFit(int[][] fiberTable, List<int[]> lightpaths, WavelengthOccupancy wavelengthOccupancy, List<int[]> seqWavelengths, double[] l_f, int[] regeneratorOccupancy, List<int[]> seqRegenerators, double maxRegeneratorDistanceInKm)
+    {
+	final int numWords = wavelengthOccupancy.getNumberOfWords();
+
+	for (int[] seqFibers : lightpaths)
+	{
+	    IntArrayList aux_seqWavelengths = new IntArrayList();
+	    IntArrayList aux_seqRegenerators = new IntArrayList();
+
+	    double control_accumDistance = 0;
+	    long[] control_occupied_w = new long[numWords];
+	    int control_firstFitValidWavelengthForSubpath = -1;
+	    IntArrayList control_currentSubpathSeqLinks = new IntArrayList();
+	    long[] plusLink_occupied_w = new long[numWords];
+
+	    boolean lpAllocated = true;
+
+	    Map<Integer, long[]> avoidLoopWavelengthClash = new HashMap<Integer, long[]>();
+
+	    for (int fiberId : seqFibers)
+	    {
+		if (l_f[fiberId] > maxRegeneratorDistanceInKm)
+		    throw new WDMException(String.format("Fiber %d is longer (%f km) than the maximum distance without regenerators (%f km)", fiberId, l_f[fiberId], maxRegeneratorDistanceInKm));
+
+		/* update the info as if this link was included in the subpath */
+		final double plusLink_accumDistance = control_accumDistance + l_f[fiberId];
+		System.arraycopy(control_occupied_w, 0, plusLink_occupied_w, 0, numWords);
+		wavelengthOccupancy.orOccupiedWavelengths(fiberId, plusLink_occupied_w);
+		WavelengthOccupancy.setRange(plusLink_occupied_w, wavelengthOccupancy.getNumberOfWavelengths(fiberId), numWords << 6);
+		if (avoidLoopWavelengthClash.containsKey(fiberId))
+		    WavelengthOccupancy.or(plusLink_occupied_w, avoidLoopWavelengthClash.get(fiberId));
+
+		int plusLink_firstFitValidWavelengthForSubpath = WavelengthOccupancy.nextClearBit(plusLink_occupied_w, 0, wavelengthOccupancy.getNumberOfWavelengths(fiberId));
+
+		if (!control_currentSubpathSeqLinks.contains(fiberId) && plusLink_accumDistance <= maxRegeneratorDistanceInKm && plusLink_firstFitValidWavelengthForSubpath != -1)
+		{
+		    /* we do not have to put a regenerator in the origin node of e: the subpath is valid up to now */
+		    control_accumDistance = plusLink_accumDistance;
+		    long[] aux = control_occupied_w;
+		    control_occupied_w = plusLink_occupied_w;
+		    plusLink_occupied_w = aux;
+		    control_firstFitValidWavelengthForSubpath = plusLink_firstFitValidWavelengthForSubpath;
+		    control_currentSubpathSeqLinks.add(fiberId);
+		    aux_seqRegenerators.add(0);
+		    continue;
+		}
+
+		/* Here if we have to put a regenerator in initial node of this link, add a subpath */
+		if (control_firstFitValidWavelengthForSubpath == -1)
+		{
+		    lpAllocated = false;
+		    break;
+		}
+
+		aux_seqRegenerators.add(1);
+		int numFibersSubPath = control_currentSubpathSeqLinks.size();
+		for (int cont = 0; cont < numFibersSubPath; cont++)
+		{
+		    aux_seqWavelengths.add(control_firstFitValidWavelengthForSubpath);
+
+		    int aux_fiberId = control_currentSubpathSeqLinks.get(cont);
+		    if (!avoidLoopWavelengthClash.containsKey(aux_fiberId))
+			avoidLoopWavelengthClash.put(aux_fiberId, new long[numWords]);
+
+		    WavelengthOccupancy.setRange(avoidLoopWavelengthClash.get(aux_fiberId), control_firstFitValidWavelengthForSubpath, control_firstFitValidWavelengthForSubpath + 1);
+		}
+
+		/* new span includes just this link */
+		control_accumDistance = l_f[fiberId];
+		control_currentSubpathSeqLinks = new IntArrayList();
+		control_currentSubpathSeqLinks.add(fiberId);
+		Arrays.fill(control_occupied_w, 0);
+		wavelengthOccupancy.orOccupiedWavelengths(fiberId, control_occupied_w);
+		WavelengthOccupancy.setRange(control_occupied_w, wavelengthOccupancy.getNumberOfWavelengths(fiberId), numWords << 6);
+		if (avoidLoopWavelengthClash.containsKey(fiberId))
+		    WavelengthOccupancy.or(control_occupied_w, avoidLoopWavelengthClash.get(fiberId));
+
+		control_firstFitValidWavelengthForSubpath = WavelengthOccupancy.nextClearBit(control_occupied_w, 0, wavelengthOccupancy.getNumberOfWavelengths(fiberId));
+		if (control_firstFitValidWavelengthForSubpath == -1)
+		{
+		    lpAllocated = false;
+		    break;
+		}
+	    }
+
+	    /* Add the last subpath */
+	    if (control_firstFitValidWavelengthForSubpath == -1)
+		lpAllocated = false;
+
+	    if (!lpAllocated)
+	    {
+		seqWavelengths.add(new int[0]);
+		seqRegenerators.add(new int[0]);
+
+		continue;
+	    }
+
+	    int numFibersSubPath = control_currentSubpathSeqLinks.size();
+	    for (int cont = 0; cont < numFibersSubPath; cont++)
+		aux_seqWavelengths.add(control_firstFitValidWavelengthForSubpath);
+
+	    aux_seqWavelengths.trimToSize();
+	    seqWavelengths.add(aux_seqWavelengths.elements());
+
+	    aux_seqRegenerators.trimToSize();
+	    seqRegenerators.add(aux_seqRegenerators.elements());
+
+	    for (int hopId = 0; hopId < seqFibers.length; hopId++)
+	    {
+		int fiberId = seqFibers[hopId];
+		wavelengthOccupancy.occupy(fiberId, aux_seqWavelengths.getQuick(hopId));
+
+		if (aux_seqRegenerators.get(hopId) == 1)
+		{
+		    int nodeId = fiberTable[fiberId][0];
+		    regeneratorOccupancy[nodeId]++;
+		}
+	    }
+	}
+    }
+
+    /**
+     * <p>Used wavelengths per fiber, stored as a bitmap of <code>long</code>
+     * words (one bit per wavelength). Free wavelengths common to a sequence of
+     * fibers are obtained with word-wide operations, and occupation and release
+     * are incremental, so that allocation algorithms do not need to rebuild the
+     * occupancy on each request.</p>
+     *
+     * <p>The number of fibers using each wavelength is also tracked, for
+     * most-used wavelength assignment.</p>
+     *
+     * @since 0.2.3
+     */
+    public static class WavelengthOccupancy
+    {
+	private final int F;
+	private final int[] w_f;
+	private final int numWords;
+	private final long[] occupied;
+	private final int[] numOccupiedWavelengths;
+	private final int[] wavelengthUsage;
+
+	/* Scratch array for the wavelengths occupied along a path */
+	private final long[] pathOccupied;
+
+	/**
+	 * Creates an empty occupancy.
+	 *
+	 * @param w_f Number of wavelengths per fiber
+	 * @since 0.2.3
+	 */
+	public WavelengthOccupancy(int[] w_f)
+	{
+	    this.F = w_f.length;
+	    this.w_f = IntUtils.copy(w_f);
+
+	    int W = F == 0 ? 0 : IntUtils.maxValue(w_f);
+	    if (F > 0 && IntUtils.minValue(w_f) < 0) throw new WDMException("Number of wavelengths per fiber must be non-negative");
+
+	    numWords = (W + 63) >>> 6;
+	    occupied = new long[F * numWords];
+	    numOccupiedWavelengths = new int[F];
+	    wavelengthUsage = new int[W];
+	    pathOccupied = new long[numWords];
+	}
+
+	/**
+	 * Creates an occupancy from the set of used wavelengths per fiber.
+	 *
+	 * @param w_f Number of wavelengths per fiber
+	 * @param wavelengthOccupancy Set of used wavelengths per fiber
+	 * @since 0.2.3
+	 */
+	public WavelengthOccupancy(int[] w_f, List<Set<Integer>> wavelengthOccupancy)
+	{
+	    this(w_f);
+
+	    if (wavelengthOccupancy.size() != F) throw new WDMException("Wavelength occupancy does not match the number of fibers");
+
+	    int fiberId = 0;
+	    for (Set<Integer> wavelengths : wavelengthOccupancy)
+	    {
+		for (int wavelengthId : wavelengths) occupy(fiberId, wavelengthId);
+		fiberId++;
+	    }
+	}
+
+	/**
+	 * Returns the number of fibers.
+	 *
+	 * @return Number of fibers
+	 * @since 0.2.3
+	 */
+	public int getNumberOfFibers() { return F; }
+
+	/**
+	 * Returns the number of wavelengths of a fiber.
+	 *
+	 * @param fiberId Fiber identifier
+	 * @return Number of wavelengths
+	 * @since 0.2.3
+	 */
+	public int getNumberOfWavelengths(int fiberId) { return w_f[fiberId]; }
+
+	/**
+	 * Returns the number of used wavelengths in a fiber.
+	 *
+	 * @param fiberId Fiber identifier
+	 * @return Number of used wavelengths
+	 * @since 0.2.3
+	 */
+	public int getNumberOfOccupiedWavelengths(int fiberId) { return numOccupiedWavelengths[fiberId]; }
+
+	/**
+	 * Returns the number of fibers where a wavelength is used.
+	 *
+	 * @param wavelengthId Wavelength identifier
+	 * @return Number of fibers
+	 * @since 0.2.3
+	 */
+	public int getWavelengthUsage(int wavelengthId) { return wavelengthUsage[wavelengthId]; }
+
+	/**
+	 * Indicates whether a wavelength is used in a fiber.
+	 *
+	 * @param fiberId Fiber identifier
+	 * @param wavelengthId Wavelength identifier
+	 * @return <code>true</code> if the wavelength is used, and <code>false</code> otherwise
+	 * @since 0.2.3
+	 */
+	public boolean isOccupied(int fiberId, int wavelengthId)
+	{
+	    checkWavelength(fiberId, wavelengthId);
+	    return (occupied[fiberId * numWords + (wavelengthId >>> 6)] & (1L << wavelengthId)) != 0;
+	}
+
+	/**
+	 * Returns the used wavelengths in a fiber.
+	 *
+	 * @param fiberId Fiber identifier
+	 * @return Used wavelengths, in increasing order
+	 * @since 0.2.3
+	 */
+	public int[] getOccupiedWavelengths(int fiberId)
+	{
+	    int[] out = new int[numOccupiedWavelengths[fiberId]];
+	    int i = 0;
+	    for (int word = 0; word < numWords; word++)
+	    {
+		long bits = occupied[fiberId * numWords + word];
+		while (bits != 0)
+		{
+		    out[i++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+		    bits &= bits - 1;
+		}
+	    }
+
+	    return out;
+	}
+
+	/**
+	 * Returns the set of used wavelengths per fiber.
+	 *
+	 * @return Set of used wavelengths per fiber
+	 * @since 0.2.3
+	 */
+	public List<Set<Integer>> toSetList()
+	{
+	    List<Set<Integer>> out = new ArrayList<Set<Integer>>(F);
+	    for (int fiberId = 0; fiberId < F; fiberId++)
+	    {
+		Set<Integer> wavelengths = new HashSet<Integer>();
+		for (int wavelengthId : getOccupiedWavelengths(fiberId)) wavelengths.add(wavelengthId);
+		out.add(wavelengths);
+	    }
+
+	    return out;
+	}
+
+	/**
+	 * Marks a wavelength as used in a fiber.
+	 *
+	 * @param fiberId Fiber identifier
+	 * @param wavelengthId Wavelength identifier
+	 * @since 0.2.3
+	 */
+	public void occupy(int fiberId, int wavelengthId)
+	{
+	    checkWavelength(fiberId, wavelengthId);
+
+	    int index = fiberId * numWords + (wavelengthId >>> 6);
+	    long mask = 1L << wavelengthId;
+	    if ((occupied[index] & mask) != 0)
+		throw new WDMException(String.format("Two lightpaths/segments cannot share a wavelength (fiber %d, wavelength %d)", fiberId, wavelengthId));
+
+	    occupied[index] |= mask;
+	    numOccupiedWavelengths[fiberId]++;
+	    wavelengthUsage[wavelengthId]++;
+	}
+
+	/**
+	 * Marks the wavelengths of a lightpath as used.
+	 *
+	 * @param seqFibers Sequence of traversed fibers
+	 * @param seqWavelengths Sequence of wavelengths (one per traversed fiber)
+	 * @since 0.2.3
+	 */
+	public void occupy(int[] seqFibers, int[] seqWavelengths)
+	{
+	    if (seqFibers.length != seqWavelengths.length) throw new WDMException("Sequence of wavelengths does not match the sequence of fibers");
+	    for (int hopId = 0; hopId < seqFibers.length; hopId++) occupy(seqFibers[hopId], seqWavelengths[hopId]);
+	}
+
+	/**
+	 * Marks a wavelength as free in a fiber. Releasing a free wavelength has no effect.
+	 *
+	 * @param fiberId Fiber identifier
+	 * @param wavelengthId Wavelength identifier
+	 * @since 0.2.3
+	 */
+	public void release(int fiberId, int wavelengthId)
+	{
+	    checkWavelength(fiberId, wavelengthId);
+
+	    int index = fiberId * numWords + (wavelengthId >>> 6);
+	    long mask = 1L << wavelengthId;
+	    if ((occupied[index] & mask) == 0) return;
+
+	    occupied[index] &= ~mask;
+	    numOccupiedWavelengths[fiberId]--;
+	    wavelengthUsage[wavelengthId]--;
+	}
+
+	/**
+	 * Marks the wavelengths of a lightpath as free.
+	 *
+	 * @param seqFibers Sequence of traversed fibers
+	 * @param seqWavelengths Sequence of wavelengths (one per traversed fiber)
+	 * @since 0.2.3
+	 */
+	public void release(int[] seqFibers, int[] seqWavelengths)
+	{
+	    if (seqFibers.length != seqWavelengths.length) throw new WDMException("Sequence of wavelengths does not match the sequence of fibers");
+	    for (int hopId = 0; hopId < seqFibers.length; hopId++) release(seqFibers[hopId], seqWavelengths[hopId]);
+	}
+
+	/**
+	 * Returns the lowest wavelength free in every traversed fiber.
+	 *
+	 * @param seqFibers Sequence of traversed fibers
+	 * @return Wavelength identifier, or -1 if there is no free wavelength along the path
+	 * @since 0.2.3
+	 */
+	public int getFirstFitWavelength(int[] seqFibers)
+	{
+	    int num_w = computePathOccupancy(seqFibers);
+	    return nextClearBit(pathOccupied, 0, num_w);
+	}
+
+	/**
+	 * Returns the highest wavelength free in every traversed fiber.
+	 *
+	 * @param seqFibers Sequence of traversed fibers
+	 * @return Wavelength identifier, or -1 if there is no free wavelength along the path
+	 * @since 0.2.3
+	 */
+	public int getLastFitWavelength(int[] seqFibers)
+	{
+	    int num_w = computePathOccupancy(seqFibers);
+	    for (int word = (num_w - 1) >> 6; word >= 0; word--)
+	    {
+		long free = ~pathOccupied[word];
+		if (word == num_w >>> 6) free &= (1L << num_w) - 1;
+		if (free != 0) return (word << 6) + 63 - Long.numberOfLeadingZeros(free);
+	    }
+
+	    return -1;
+	}
+
+	/**
+	 * Returns the wavelength free in every traversed fiber which is used in the
+	 * highest number of fibers (ties are broken by the lowest identifier).
+	 *
+	 * @param seqFibers Sequence of traversed fibers
+	 * @return Wavelength identifier, or -1 if there is no free wavelength along the path
+	 * @since 0.2.3
+	 */
+	public int getMostUsedWavelength(int[] seqFibers)
+	{
+	    int num_w = computePathOccupancy(seqFibers);
+
+	    int bestWavelengthId = -1;
+	    for (int word = 0; word < numWords && (word << 6) < num_w; word++)
+	    {
+		long free = ~pathOccupied[word];
+		if (word == num_w >>> 6) free &= (1L << num_w) - 1;
+		while (free != 0)
+		{
+		    int wavelengthId = (word << 6) + Long.numberOfTrailingZeros(free);
+		    if (bestWavelengthId == -1 || wavelengthUsage[wavelengthId] > wavelengthUsage[bestWavelengthId]) bestWavelengthId = wavelengthId;
+		    free &= free - 1;
+		}
+	    }
+
+	    return bestWavelengthId;
+	}
+
+	/* Number of words per fiber */
+	int getNumberOfWords() { return numWords; }
+
+	/* Adds the used wavelengths of a fiber to a bitmap */
+	void orOccupiedWavelengths(int fiberId, long[] bitmap)
+	{
+	    int offset = fiberId * numWords;
+	    for (int word = 0; word < numWords; word++) bitmap[word] |= occupied[offset + word];
+	}
+
+	/* Union of the used wavelengths along the path (into pathOccupied), returning the number of wavelengths available in every fiber */
+	private int computePathOccupancy(int[] seqFibers)
+	{
+	    Arrays.fill(pathOccupied, 0);
+	    if (seqFibers.length == 0) return 0;
+
+	    int num_w = Integer.MAX_VALUE;
+	    for (int fiberId : seqFibers)
+	    {
+		orOccupiedWavelengths(fiberId, pathOccupied);
+		num_w = Math.min(num_w, w_f[fiberId]);
+	    }
+
+	    return num_w;
+	}
+
+	private void checkWavelength(int fiberId, int wavelengthId)
+	{
+	    if (wavelengthId < 0 || wavelengthId >= w_f[fiberId])
+		throw new WDMException(String.format("Fiber %d only has %d wavelengths (wavelength %d)", fiberId, w_f[fiberId], wavelengthId));
+	}
+
+	/* Lowest clear bit in range [fromIndex, toIndex), or -1 if all of them are set */
+	static int nextClearBit(long[] bitmap, int fromIndex, int toIndex)
+	{
+	    for (int word = fromIndex >>> 6; (word << 6) < toIndex; word++)
+	    {
+		long free = ~bitmap[word];
+		if (word == fromIndex >>> 6) free &= -1L << fromIndex;
+		if (free == 0) continue;
+
+		int index = (word << 6) + Long.numberOfTrailingZeros(free);
+		return index < toIndex ? index : -1;
+	    }
+
+	    return -1;
+	}
+
+	/* Sets the bits in range [fromIndex, toIndex) */
+	static void setRange(long[] bitmap, int fromIndex, int toIndex)
+	{
+	    for (int index = fromIndex; index < toIndex; index++) bitmap[index >>> 6] |= 1L << index;
+	}
+
+	static void or(long[] bitmap, long[] other)
+	{
+	    for (int word = 0; word < bitmap.length; word++) bitmap[word] |= other[word];
+	}
+    }
+
     private static class WDMException extends Net2PlanException
     {
         public WDMException(String message) { super("WDM: " + message); }
@@ -65,11 +65,9 @@ import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
 import java.io.Closeable;
 import java.io.File;
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.JButton;
@@ -843,12 +841,11 @@ public abstract class GUISimulationTemplate extends IGUIModule implements Action
 //            }
 //        }
 
-        PriorityQueue<SimEvent> futureEventList = simKernel.getSimCore().getFutureEventList().getPendingEvents();
+        List<SimEvent> futureEventList = simKernel.getSimCore().getFutureEventList().getPendingEvents();
         if (!futureEventList.isEmpty())
         {
             int numEvents = futureEventList.size();
             SimEvent[] futureEventList_array = futureEventList.toArray(new SimEvent[numEvents]);
-            Arrays.sort(futureEventList_array, futureEventList.comparator());
             data = new Object[numEvents][tableHeader.length];
             
             for(int eventId = 0; eventId < numEvents; eventId++)
@@ -52,13 +52,14 @@ public class FileChooserNetworkDesign extends FileChooserConfirmOverwrite
 
 	boolean isPredefinedFilter = false;
 
+	for(FileFilter existingFilter : super.getChoosableFileFilters()) super.removeChoosableFileFilter(existingFilter);
+
 	Set<Class<? extends __IOImporterExporter>> classes = __IOImporterExporter.implementingClasses;
 	for(Class<? extends __IOImporterExporter> _class : classes)
 	{
 	    try
 	    {
 		__IOImporterExporter filter = _class.newInstance();
-                for(FileFilter existingFilter : super.getChoosableFileFilters()) super.removeChoosableFileFilter(existingFilter);
 		super.addChoosableFileFilter(filter);
 
 		if (!isPredefinedFilter)
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.io;
+
+import com.tejas.engine.interfaces.networkDesign.NetPlan;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Locale;
+
+/**
+ * <p>Compares load/save time and peak heap usage of the DOM-based
+ * <code>.n2p</code> reader/writer ({@link NetPlan#NetPlan(File) NetPlan(File)},
+ * {@link NetPlan#saveToFile(File) saveToFile(File)}) against the streaming one
+ * ({@link NetPlanXMLStream}).</p>
+ *
+ * <p>Usage: <code>java com.tejas.engine.internal.io.NetPlanXMLStreamBenchmark file1.n2p [file2.n2p ...]</code></p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public class NetPlanXMLStreamBenchmark
+{
+    private final static int NUM_REPETITIONS = 5;
+
+    public static void main(String[] args) throws Exception
+    {
+	if (args.length == 0)
+	{
+	    System.out.println("Usage: java " + NetPlanXMLStreamBenchmark.class.getName() + " file1.n2p [file2.n2p ...]");
+	    return;
+	}
+
+	System.out.println(String.format(Locale.ENGLISH, "%-40s %-6s %-5s %12s %14s", "File", "Parser", "Op", "Time (ms)", "Peak heap (MB)"));
+
+	for (String fileName : args)
+	{
+	    final File file = new File(fileName);
+	    final NetPlan netPlan = NetPlanXMLStream.readNetPlan(file);
+	    final NetPlan domNetPlan = new NetPlan(file);
+
+	    if (netPlan.getNumberOfNodes() != domNetPlan.getNumberOfNodes() || netPlan.getNumberOfLinks() != domNetPlan.getNumberOfLinks() || netPlan.getNumberOfDemands() != domNetPlan.getNumberOfDemands() || netPlan.getNumberOfProtectionSegments() != domNetPlan.getNumberOfProtectionSegments() || netPlan.getNumberOfRoutes() != domNetPlan.getNumberOfRoutes() || netPlan.getNumberOfSRGs() != domNetPlan.getNumberOfSRGs())
+		throw new RuntimeException("DOM and streaming readers disagree for file " + file);
+
+	    final File outFile = File.createTempFile("benchmark", ".n2p");
+	    outFile.deleteOnExit();
+
+	    measure(file, "DOM", "load", new Runnable() { @Override public void run() { new NetPlan(file); } });
+	    measure(file, "StAX", "load", new Runnable() { @Override public void run() { NetPlanXMLStream.readNetPlan(file); } });
+	    measure(file, "DOM", "save", new Runnable() { @Override public void run() { netPlan.saveToFile(outFile); } });
+	    measure(file, "StAX", "save", new Runnable() { @Override public void run() { NetPlanXMLStream.writeNetPlan(outFile, netPlan); } });
+	}
+    }
+
+    private static void measure(File file, String parser, String operation, Runnable task)
+    {
+	/* Warm-up */
+	task.run();
+
+	long bestTime = Long.MAX_VALUE;
+	long peakHeap = 0;
+	for (int rep = 0; rep < NUM_REPETITIONS; rep++)
+	{
+	    System.gc();
+	    resetPeakHeapUsage();
+	    long baseHeap = getPeakHeapUsage();
+
+	    long start = System.nanoTime();
+	    task.run();
+	    bestTime = Math.min(bestTime, System.nanoTime() - start);
+	    peakHeap = Math.max(peakHeap, getPeakHeapUsage() - baseHeap);
+	}
+
+	System.out.println(String.format(Locale.ENGLISH, "%-40s %-6s %-5s %12.1f %14.1f", file.getName(), parser, operation, bestTime / 1e6, peakHeap / 1048576.0));
+    }
+
+    private static void resetPeakHeapUsage()
+    {
+	for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+	    if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+    }
+
+    private static long getPeakHeapUsage()
+    {
+	long peak = 0;
+	for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+	    if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+
+	return peak;
+    }
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.internal.sim;
+
+import com.tejas.engine.interfaces.cacSimulation.CACEvent;
+import com.tejas.engine.interfaces.resilienceSimulation.ResilienceEvent;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * <p>Compares the data structures available for the future event list
+ * ({@link FutureEventList.QueueType}) using the classical hold model: the list
+ * is filled with <i>N</i> pending events, and then each hold operation
+ * extracts the earliest event and schedules a new one at a random
+ * increment from the current simulation time, so that the number of
+ * pending events stays constant.</p>
+ *
+ * <p>Two workloads are evaluated:</p>
+ * <ul>
+ * <li><code>CAC</code>: connection releases ({@link CACEvent}) with exponentially-distributed holding times (Poisson arrivals).</li>
+ * <li><code>Resilience</code>: alternating link failures and reparations ({@link ResilienceEvent}), with exponentially-distributed times to failure and to repair differing in four orders of magnitude (bimodal increments).</li>
+ * </ul>
+ *
+ * <p>Usage: <code>java com.tejas.engine.internal.sim.FutureEventListBenchmark [numPendingEvents1 numPendingEvents2 ...]</code></p>
+ *
+ * <p>By default, 10<sup>4</sup>, 10<sup>5</sup> and 10<sup>6</sup> pending events
+ * are evaluated. Sizes of 10<sup>7</sup> events require a large maximum heap
+ * (e.g. <code>-Xmx8g</code>).</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public class FutureEventListBenchmark
+{
+    private final static int NUM_REPETITIONS = 5;
+    private final static int NUM_HOLD_OPERATIONS = 1000000;
+    private final static double MEAN_HOLDING_TIME = 1;
+    private final static double MTTF = 10000;
+    private final static double MTTR = 1;
+
+    private enum Workload { CAC, Resilience }
+
+    public static void main(String[] args)
+    {
+	int[] sizes = args.length == 0 ? new int[] { 10000, 100000, 1000000 } : new int[args.length];
+	for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+
+	System.out.println(String.format(Locale.ENGLISH, "%-12s %-14s %10s %16s", "Workload", "Structure", "Pending", "Hold (ns/op)"));
+
+	for (Workload workload : Workload.values())
+	    for (int size : sizes)
+		for (FutureEventList.QueueType queueType : FutureEventList.QueueType.values())
+		    measure(workload, queueType, size);
+    }
+
+    private static void measure(Workload workload, FutureEventList.QueueType queueType, int numPendingEvents)
+    {
+	/* Warm-up */
+	hold(workload, queueType, numPendingEvents, 0);
+
+	long bestTime = Long.MAX_VALUE;
+	for (int rep = 0; rep < NUM_REPETITIONS; rep++)
+	{
+	    System.gc();
+	    bestTime = Math.min(bestTime, hold(workload, queueType, numPendingEvents, rep + 1));
+	}
+
+	System.out.println(String.format(Locale.ENGLISH, "%-12s %-14s %10d %16.1f", workload, queueType.getName(), numPendingEvents, (double) bestTime / NUM_HOLD_OPERATIONS));
+    }
+
+    private static long hold(Workload workload, FutureEventList.QueueType queueType, int numPendingEvents, long seed)
+    {
+	Random rng = new Random(seed);
+	FutureEventList futureEventList = new FutureEventList(queueType);
+
+	for (int i = 0; i < numPendingEvents; i++)
+	    futureEventList.addEvent(nextEvent(workload, rng, 0, i, null));
+
+	long start = System.nanoTime();
+	for (int i = 0; i < NUM_HOLD_OPERATIONS; i++)
+	{
+	    SimEvent event = futureEventList.getNextEvent();
+	    futureEventList.addEvent(nextEvent(workload, rng, futureEventList.getCurrentSimulationTime(), i, event));
+	}
+
+	return System.nanoTime() - start;
+    }
+
+    private static SimEvent nextEvent(Workload workload, Random rng, double currentTime, int id, SimEvent previousEvent)
+    {
+	switch (workload)
+	{
+	    case CAC:
+		return new CACEvent(currentTime + exponential(rng, MEAN_HOLDING_TIME), id);
+
+	    case Resilience:
+		if (previousEvent == null)
+		    return new ResilienceEvent(currentTime + exponential(rng, MTTF), id, ResilienceEvent.EventType.LINK_FAILURE);
+
+		ResilienceEvent resilienceEvent = (ResilienceEvent) previousEvent;
+		if (resilienceEvent.getEventType() == ResilienceEvent.EventType.LINK_FAILURE)
+		    return new ResilienceEvent(currentTime + exponential(rng, MTTR), resilienceEvent.getId(), ResilienceEvent.EventType.LINK_REPARATION);
+		else
+		    return new ResilienceEvent(currentTime + exponential(rng, MTTF), resilienceEvent.getId(), ResilienceEvent.EventType.LINK_FAILURE);
+
+	    default:
+		throw new RuntimeException("Bad");
+	}
+    }
+
+    private static double exponential(Random rng, double mean)
+    {
+	return -mean * Math.log(1 - rng.nextDouble());
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2014 Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v3
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Contributors:
+ *     Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza - initial API and implementation
+ ******************************************************************************/
+
+package com.tejas.engine.libraries;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * <p>Measures the cost of evaluating a single link-weight move, as done by
+ * local-search heuristics for IGP weight setting, comparing the computation
+ * of all-pairs shortest-path distances from scratch (one reverse Dijkstra's
+ * algorithm per destination node) with the incremental update of
+ * {@link DynamicAllPairsShortestPaths}.</p>
+ *
+ * <p>Topologies are random bidirectional graphs (a ring plus random chords,
+ * with an average node degree of four), and link weights are integers in
+ * range [1, 20]. Each move changes the weight of a random link to a random value.
+ * At the end, incremental distances are checked against those computed from scratch.</p>
+ *
+ * <p>Usage: <code>java com.tejas.engine.libraries.DynamicAllPairsShortestPathsBenchmark [N1 N2 ...]</code></p>
+ *
+ * <p>By default, topologies of 100, 300 and 1000 nodes are evaluated.</p>
+ *
+ * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
+ * @since 0.2.3
+ */
+public class DynamicAllPairsShortestPathsBenchmark
+{
+    private final static int NUM_MOVES_FROM_SCRATCH = 20;
+    private final static int NUM_MOVES_DYNAMIC = 5000;
+    private final static int AVERAGE_NODE_DEGREE = 4;
+    private final static int MAX_LINK_WEIGHT = 20;
+
+    public static void main(String[] args)
+    {
+	int[] sizes = args.length == 0 ? new int[] { 100, 300, 1000 } : new int[args.length];
+	for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+
+	System.out.println(String.format(Locale.ENGLISH, "%6s %6s %20s %20s %10s %22s", "N", "E", "From scratch (ms)", "Dynamic (us)", "Speed-up", "Changed destinations"));
+
+	for (int N : sizes)
+	    measure(N, N);
+    }
+
+    private static void measure(int N, long seed)
+    {
+	Random rng = new Random(seed);
+	int[][] linkTable = randomTopology(N, rng);
+	int E = linkTable.length;
+
+	double[] linkWeights = new double[E];
+	for (int linkId = 0; linkId < E; linkId++) linkWeights[linkId] = 1 + rng.nextInt(MAX_LINK_WEIGHT);
+
+	int[] moveLinks = new int[NUM_MOVES_DYNAMIC];
+	double[] moveWeights = new double[NUM_MOVES_DYNAMIC];
+	for (int i = 0; i < NUM_MOVES_DYNAMIC; i++)
+	{
+	    moveLinks[i] = rng.nextInt(E);
+	    moveWeights[i] = 1 + rng.nextInt(MAX_LINK_WEIGHT);
+	}
+
+	/* From scratch: all-pairs distances after each move */
+	CSRGraph.PathFinder pathFinder = new CSRGraph(linkTable, N).getPathFinder();
+	double[] scratchLinkWeights = Arrays.copyOf(linkWeights, E);
+	allPairsFromScratch(pathFinder, scratchLinkWeights, N);
+
+	long start = System.nanoTime();
+	for (int i = 0; i < NUM_MOVES_FROM_SCRATCH; i++)
+	{
+	    scratchLinkWeights[moveLinks[i]] = moveWeights[i];
+	    allPairsFromScratch(pathFinder, scratchLinkWeights, N);
+	}
+	double fromScratchTime = (double) (System.nanoTime() - start) / NUM_MOVES_FROM_SCRATCH;
+
+	/* Dynamic: incremental update after each move */
+	DynamicAllPairsShortestPaths dynamicDistances = new DynamicAllPairsShortestPaths(linkTable, linkWeights, N);
+	long numChangedDestinations = 0;
+
+	start = System.nanoTime();
+	for (int i = 0; i < NUM_MOVES_DYNAMIC; i++)
+	{
+	    linkWeights[moveLinks[i]] = moveWeights[i];
+	    numChangedDestinations += dynamicDistances.setLinkWeight(moveLinks[i], moveWeights[i]).length;
+	}
+	double dynamicTime = (double) (System.nanoTime() - start) / NUM_MOVES_DYNAMIC;
+
+	double[][] distances = allPairsFromScratch(pathFinder, linkWeights, N);
+	for (int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
+	    for (int originNodeId = 0; originNodeId < N; originNodeId++)
+		if (distances[destinationNodeId][originNodeId] != dynamicDistances.getDistance(originNodeId, destinationNodeId))
+		    throw new RuntimeException("Bad");
+
+	System.out.println(String.format(Locale.ENGLISH, "%6d %6d %20.3f %20.3f %10.1f %22.1f", N, E, fromScratchTime / 1e6, dynamicTime / 1e3, fromScratchTime / dynamicTime, (double) numChangedDestinations / NUM_MOVES_DYNAMIC));
+    }
+
+    private static double[][] allPairsFromScratch(CSRGraph.PathFinder pathFinder, double[] linkWeights, int N)
+    {
+	double[][] distanceToDestination = new double[N][];
+	for (int destinationNodeId = 0; destinationNodeId < N; destinationNodeId++)
+	    distanceToDestination[destinationNodeId] = pathFinder.getShortestPathDistancesTo(destinationNodeId, linkWeights);
+
+	return distanceToDestination;
+    }
+
+    /* Ring plus random chords, each one as a pair of opposite links */
+    private static int[][] randomTopology(int N, Random rng)
+    {
+	int numBidirectionalLinks = N * AVERAGE_NODE_DEGREE / 2;
+	int[][] linkTable = new int[2 * numBidirectionalLinks][];
+
+	for (int i = 0; i < numBidirectionalLinks; i++)
+	{
+	    int nodeA;
+	    int nodeB;
+	    if (i < N)
+	    {
+		nodeA = i;
+		nodeB = (i + 1) % N;
+	    }
+	    else
+	    {
+		nodeA = rng.nextInt(N);
+		do { nodeB = rng.nextInt(N); } while (nodeB == nodeA);
+	    }
+
+	    linkTable[2 * i] = new int[] { nodeA, nodeB };
+	    linkTable[2 * i + 1] = new int[] { nodeB, nodeA };
+	}
+
+	return linkTable;
+    }
+}
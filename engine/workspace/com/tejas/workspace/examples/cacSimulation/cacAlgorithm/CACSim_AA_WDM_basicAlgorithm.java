@@ -23,13 +23,10 @@ import com.tejas.engine.utils.IntUtils;
 import com.tejas.engine.utils.StringUtils;
 import com.tejas.engine.utils.Triple;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * <p>This algorithm receives lightpath connection requests and releases. For each 
@@ -58,7 +55,7 @@ public class CACSim_AA_WDM_basicAlgorithm implements ICACAlgorithm
     private int[] w_f;
     private double binaryRatePerChannel_Gbps;
     private int[][] fiberTable;
-    private List<Set<Integer>> wavelengthOccupancy;
+    private WDMUtils.WavelengthOccupancy wavelengthOccupancy;
     
     @Override
     public void initialize(NetPlan netPlan, ConnectionNetState netState, Map<String, String> algorithmParameters, Map<String, String> net2planParameters)
@@ -73,9 +70,7 @@ public class CACSim_AA_WDM_basicAlgorithm implements ICACAlgorithm
         fiberTable = netPlan.getLinkTable();
         w_f = WDMUtils.getFiberNumWavelengthsAttributes(netPlan);
 
-        int E = netPlan.getNumberOfLinks();
-        wavelengthOccupancy = new ArrayList<Set<Integer>>();
-        for(int fiberId = 0; fiberId < E ; fiberId++) wavelengthOccupancy.add(new HashSet<Integer>());
+        wavelengthOccupancy = new WDMUtils.WavelengthOccupancy(w_f);
     }
 
     @Override
@@ -102,20 +97,14 @@ public class CACSim_AA_WDM_basicAlgorithm implements ICACAlgorithm
                     for (int pathId : cpl.getPathsPerDemand(demandId))
                     {
                         int[] seqFibers_thisLp = cpl.getSequenceOfLinks(pathId);
-                        int[] seqWavelengths_thisLp = WDMUtils.WA_firstFit(fiberTable, seqFibers_thisLp, w_f, wavelengthOccupancy);
+                        /* wavelength occupation is updated by the wavelength assignment */
+                        int[] seqWavelengths_thisLp = WDMUtils.WA_firstFit(fiberTable, seqFibers_thisLp, wavelengthOccupancy);
                         
                         if (seqWavelengths_thisLp.length == 0) continue;
 
                         failToAllocate = false;
                         
-                        /* add this route, updating wavelength occupation */
-                        for(int hopId = 0; hopId < seqFibers_thisLp.length; hopId++)
-                        {
-                            int fiberId = seqFibers_thisLp[hopId];
-                            int wavelengthId = seqWavelengths_thisLp[hopId];
-                            wavelengthOccupancy.get(fiberId).add(wavelengthId);
-                        }
-                        
+                        /* add this route */
                         seqFibers.add(seqFibers_thisLp);
                         Map<String, String> attributes_thisLp = new HashMap<String, String>();
                         attributes_thisLp.put("seqWavelengths", IntUtils.join(seqWavelengths_thisLp, " "));
@@ -146,15 +135,9 @@ public class CACSim_AA_WDM_basicAlgorithm implements ICACAlgorithm
                 long[] lpIds = connectionNetState.getConnectionRoutes(connId);
                 for(long lpId : lpIds)
                 {
-                    int[] seqFibers_thisLp = connectionNetState.getConnectionRouteSequenceOfLinks(connId);
+                    int[] seqFibers_thisLp = connectionNetState.getConnectionRouteSequenceOfLinks(lpId);
                     int[] seqWavelengths_thisLp = StringUtils.toIntArray(StringUtils.split(connectionNetState.getConnectionRouteAttribute(lpId, "seqWavelengths"), " "));
-                    
-                    for(int hopId = 0; hopId < seqFibers_thisLp.length; hopId++)
-                    {
-                        int fiberId = seqFibers_thisLp[hopId];
-                        int wavelengthId = seqWavelengths_thisLp[hopId];
-                        wavelengthOccupancy.get(fiberId).remove(wavelengthId);
-                    }
+                    wavelengthOccupancy.release(seqFibers_thisLp, seqWavelengths_thisLp);
                 }
                 
                 break;
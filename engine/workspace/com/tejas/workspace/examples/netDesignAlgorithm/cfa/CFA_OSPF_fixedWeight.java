@@ -14,7 +14,9 @@ package com.tejas.workspace.examples.netDesignAlgorithm.cfa;
 import com.tejas.engine.interfaces.networkDesign.IAlgorithm;
 import com.tejas.engine.interfaces.networkDesign.Net2PlanException;
 import com.tejas.engine.interfaces.networkDesign.NetPlan;
+import com.tejas.engine.libraries.FlowPropagator;
 import com.tejas.engine.libraries.GraphUtils;
+import com.tejas.engine.libraries.IGPRoutingTable;
 import com.tejas.engine.libraries.IPUtils;
 import com.tejas.engine.utils.DoubleUtils;
 import com.tejas.engine.utils.Triple;
@@ -207,6 +209,13 @@ public class CFA_OSPF_fixedWeight implements IAlgorithm
         final double [] ospfWeights_channel = DoubleUtils.mult(DoubleUtils.ones(E_channels), fixedOSPFWeight);
         double [] y_e_worseCase = new double [E_channels];
 
+        /* The routing is updated incrementally on each failure: only destinations affected by the failing links are computed again */
+        final IGPRoutingTable routing = new IGPRoutingTable(linkTable_channels, ospfWeights_channel, N);
+
+        /* Traffic per link is obtained by propagating the traffic along the routing tables, without generating the routes */
+        final FlowPropagator flowPropagator = new FlowPropagator(linkTable_channels, N);
+        double[] y_e_withoutFailingLinks = new double [E_channels];
+
         /* Loop: all the links between n1 and n2 fail */
         for (int n1 = 0 ; n1 < N ; n1 ++)
         {
@@ -220,14 +229,11 @@ public class CFA_OSPF_fixedWeight implements IAlgorithm
                 for(int linkId : failingLinks) current_ospfWeights[linkId] = Double.MAX_VALUE;
 
                 /* Compute the new routing */
-                final double [][] f_te_withoutFailingLinks = IPUtils.computeECMPRoutingTableMatrix(linkTable_channels, current_ospfWeights , N);
-                List<Integer> demands_p = new ArrayList<Integer>();
-                List<int[]> seqLinks_p = new ArrayList<int[]>();
-                List<Double> x_p = new ArrayList<Double>();
-                GraphUtils.convert_fte2xp(linkTable_channels, demandTable, h_d, f_te_withoutFailingLinks , demands_p, seqLinks_p, x_p);
+                routing.setLinkWeights(current_ospfWeights);
+                final double [][] f_te_withoutFailingLinks = routing.getECMPRoutingTableMatrix();
 
                 /* Take the traffic per link in this routing */
-                double[] y_e_withoutFailingLinks = GraphUtils.convert_xp2ye(DoubleUtils.toArray(x_p) , seqLinks_p , E_channels);
+                flowPropagator.computeCarriedTrafficPerLink(demandTable, h_d, f_te_withoutFailingLinks, y_e_withoutFailingLinks);
 
                 for (int e : failingLinks) if (y_e_withoutFailingLinks [e] != 0) throw new RuntimeException("Bad");
 
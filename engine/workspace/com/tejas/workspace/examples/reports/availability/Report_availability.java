@@ -12,6 +12,7 @@
 package com.tejas.workspace.examples.reports.availability;
 
 import cern.colt.matrix.tdouble.DoubleFactory1D;
+import cern.jet.stat.tdouble.Probability;
 
 import com.tejas.engine.utils.ClassLoaderUtils;
 import com.tejas.engine.utils.Constants;
@@ -35,6 +36,12 @@ import java.io.Closeable;
 import java.io.File;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This report analyzes a network design in terms of average availability under a set of failures.
@@ -55,6 +62,32 @@ public class Report_availability implements IReport
     
     private double pi_excess;
 
+    /* Half-width of the confidence intervals (zero under exhaustive enumeration) */
+    private double[] A_d_1_halfWidth;
+    private double[] A_d_2_halfWidth;
+    private double A_D_1_halfWidth;
+    private double A_D_2_halfWidth;
+
+    private double averageA_d_1, averageA_d_1_halfWidth;
+    private double averageA_d_2, averageA_d_2_halfWidth;
+
+    private long numMonteCarloSamples;
+    private double monteCarloConfidenceLevel;
+    private String monteCarloStoppingRule;
+
+    private long numMostProbableStates;
+    private double mostProbableProbabilityThreshold;
+
+    /* Number of Monte Carlo samples drawn from the same random stream */
+    private final static int MONTE_CARLO_BATCH_SIZE = 100;
+
+    /* Parameters of the failure-state sweep, shared (read-only) by every thread */
+    private boolean assumeOverSubscribedLinksAsFailedLinks, assumeUnprotectedRoutes, allowExcessCarriedTraffic, allowLinkOversubscription;
+    private File algorithmFile;
+    private String algorithmName;
+    private Map<String, String> algorithmParameters;
+    private Map<String, String> net2planParameters;
+
     @Override
     public String getDescription()
     {
@@ -72,12 +105,23 @@ public class Report_availability implements IReport
     {
 	List<Triple<String, String, String>> reportParameters = new ArrayList<Triple<String, String, String>>();
 	reportParameters.add(Triple.of("alg_provisioning", "", "Algorithm to process failure events"));
+	reportParameters.add(Triple.of("analysisMode", "exhaustive", "Availability analysis mode: exhaustive (enumeration of single, and optionally double, failure states), monteCarlo (random sampling of failure states, with any number of simultaneous failures), mostProbable (enumeration of failure states, with any number of simultaneous failures, in decreasing order of probability)"));
 	reportParameters.add(Triple.of("analyzeDoubleFailures", "true", "Indicates whether double failures are studied"));
         reportParameters.add(Triple.of("assumeOverSubscribedLinksAsFailedLinks", "false", "Indicates whether over-subscribed links are assumed as failed links in metrics. Each route traversing a over-subscribed link will be assumed to carry no traffic"));
 	reportParameters.add(Triple.of("assumeUnprotectedRoutes", "false", "Do not apply the recovery algorithm"));
 	reportParameters.add(Triple.of("defaultMTTFInHours", "8748", "Default value for Mean Time To Fail (hours)"));
 	reportParameters.add(Triple.of("defaultMTTRInHours", "12", "Default value for Mean Time To Repair (hours)"));
 	reportParameters.add(Triple.of("failureModel", "perBidirectionalLinkBundle", "Failure model selection: SRGfromNetPlan, perNode, perLink, perDirectionalLinkBundle, perBidirectionalLinkBundle"));
+	reportParameters.add(Triple.of("monteCarloAbsolutePrecision", "0", "(Only in monteCarlo mode) Sampling stops when the half-width of the confidence intervals for network unavailability (classic and weighted) falls below this value, once some loss has been observed. Zero means no absolute-precision rule"));
+	reportParameters.add(Triple.of("monteCarloConfidenceLevel", "0.95", "(Only in monteCarlo mode) Confidence level of the intervals"));
+	reportParameters.add(Triple.of("monteCarloExpectedFailuresPerSample", "1", "(Only in monteCarlo mode) Failure biasing: SRG failure probabilities are scaled up (up to 0.5) so that this number of SRGs is expected to fail per sample, and samples are weighted accordingly. Zero means no biasing"));
+	reportParameters.add(Triple.of("monteCarloMaxNumSamples", "1000000", "(Only in monteCarlo mode) Maximum number of samples"));
+	reportParameters.add(Triple.of("monteCarloMaxTimeInSeconds", "600", "(Only in monteCarlo mode) Maximum running time (in seconds)"));
+	reportParameters.add(Triple.of("monteCarloMinNumSamplesWithoutLoss", "0", "(Only in monteCarlo mode) Sampling stops when no network loss has been observed after this number of samples (availability is then bounded from below by the rule of three, about 1 - 3/n at 95% confidence). Zero means no zero-loss rule"));
+	reportParameters.add(Triple.of("monteCarloRelativePrecision", "0.05", "(Only in monteCarlo mode) Sampling stops when the half-width of the confidence intervals for network unavailability (classic and weighted) falls below this fraction of the estimated value"));
+	reportParameters.add(Triple.of("monteCarloSeed", "1", "(Only in monteCarlo mode) Seed of the random number generator"));
+	reportParameters.add(Triple.of("mostProbableProbabilityThreshold", "1E-9", "(Only in mostProbable mode) Failure states less probable than this value are not analyzed, and their total probability is reported"));
+	reportParameters.add(Triple.of("numThreads", "0", "Number of failure states analyzed in parallel (zero or negative means one per available processor)"));
 	reportParameters.add(Triple.of("omitProtectionSegments", "false", "Remove protection segments from the network plan to free their reserved bandwidth"));
         reportParameters.add(Triple.of("allowLinkOversubscription","true","Indicates whether or not links may be over-subscripted"));
         reportParameters.add(Triple.of("allowExcessCarriedTraffic","true","Indicates whether or not is enforced that carried traffic cannot be greater than the offered one for any demand"));
@@ -96,9 +140,8 @@ public class Report_availability implements IReport
 	boolean allowExcessCarriedTraffic, allowLinkOversubscription, analyzeDoubleFailures, assumeOverSubscribedLinksAsFailedLinks, assumeUnprotectedRoutes, omitProtectionSegments;
 	double defaultMTTFInHours;
 	double defaultMTTRInHours;
-	String failureModel;
-
-	IProvisioningAlgorithm algorithm = null;
+	String analysisMode, failureModel;
+	int numThreads;
 
 	// Check report parameters
         try { allowExcessCarriedTraffic = Boolean.parseBoolean(reportParameters.get("allowExcessCarriedTraffic")); }
@@ -140,8 +183,23 @@ public class Report_availability implements IReport
 	}
         
 
+	try
+	{
+	    numThreads = Integer.parseInt(reportParameters.get("numThreads"));
+	    if (numThreads <= 0) numThreads = Runtime.getRuntime().availableProcessors();
+	}
+	catch (Exception ex)
+	{
+	    throw new Net2PlanException("Parameter 'numThreads' value must be a valid integer");
+	}
+
 	failureModel = reportParameters.get("failureModel");
 
+	analysisMode = reportParameters.get("analysisMode");
+	if (analysisMode == null) analysisMode = "exhaustive";
+	if (!analysisMode.equals("exhaustive") && !analysisMode.equals("monteCarlo") && !analysisMode.equals("mostProbable"))
+	    throw new Net2PlanException("Parameter 'analysisMode' value must be exhaustive, monteCarlo or mostProbable");
+
 	if (!reportParameters.containsKey("alg_provisioning_File") || reportParameters.get("alg_provisioning_File").isEmpty())
 	    throw new Net2PlanException("A provisioning algorithm must be defined");
 
@@ -157,9 +215,6 @@ public class Report_availability implements IReport
 	    algorithmParameters.put(paramValue[0], paramValue[1]);
 	}
 
-        int D = netPlan.getNumberOfDemands();
-        int R = netPlan.getNumberOfRoutes();
-        
         if (omitProtectionSegments) netPlan.removeAllProtectionSegments();
 
         switch (failureModel)
@@ -188,233 +243,648 @@ public class Report_availability implements IReport
         }
         
         int numSRGs = netPlan.getNumberOfSRGs();
-        int[][] N_f = netPlan.getSRGNodesVector();
-        int[][] E_f = netPlan.getSRGLinksVector();
         double[] A_f = netPlan.getSRGAvailabilityVector();
-        
-        List<Set<Integer>> F_s = defineFailureStates(numSRGs, analyzeDoubleFailures);
-        
-        // Compute state probabilities (pi_s)
-        double[] pi_s = defineStateProbabilities(F_s, A_f);
-        double sum_pi_s = DoubleUtils.sum(pi_s);
-        pi_excess = 1 - sum_pi_s;
-
-//        System.out.println("pi_s " + Arrays.toString(pi_s));
-//        System.out.println("sum(pi_s) " + sum_pi_s);
-//        System.out.println("pi_excess " + pi_excess);
 
-        A_d_1 = new double[D];
-        A_d_2 = new double[D];
+        this.assumeOverSubscribedLinksAsFailedLinks = assumeOverSubscribedLinksAsFailedLinks;
+        this.assumeUnprotectedRoutes = assumeUnprotectedRoutes;
+        this.allowExcessCarriedTraffic = allowExcessCarriedTraffic;
+        this.allowLinkOversubscription = allowLinkOversubscription;
+        this.algorithmFile = algorithmFile;
+        this.algorithmName = algorithmName;
+        this.algorithmParameters = algorithmParameters;
+        this.net2planParameters = net2planParameters;
 
-        A_D_1 = 0;
-        A_D_2 = 0;
-        
         y_d_0 = netPlan.getDemandCarriedTrafficInErlangsVector();
         y_D_0 = DoubleUtils.sum(y_d_0);
 
-        double[] y_d_s = new double[D];
-        double y_D_s;
+        if (analysisMode.equals("monteCarlo"))
+        {
+            double confidenceLevel, expectedFailuresPerSample, maxTimeInSeconds, relativePrecision, absolutePrecision;
+            long maxNumSamples, minNumSamplesWithoutLoss, seed;
 
-        ListIterator<Set<Integer>> stateIterator = F_s.listIterator();
+            try
+            {
+                confidenceLevel = Double.parseDouble(reportParameters.get("monteCarloConfidenceLevel"));
+                if (confidenceLevel <= 0 || confidenceLevel >= 1) throw new Exception("Bad");
+            }
+            catch (Exception ex)
+            {
+                throw new Net2PlanException("Parameter 'monteCarloConfidenceLevel' value must be in range (0, 1)");
+            }
 
-        ResilienceNetState template = new ResilienceNetState(netPlan);
+            try { expectedFailuresPerSample = Double.parseDouble(reportParameters.get("monteCarloExpectedFailuresPerSample")); }
+            catch (Exception ex) { throw new Net2PlanException("Parameter 'monteCarloExpectedFailuresPerSample' value must be a valid number"); }
 
-        while (stateIterator.hasNext())
-        {
-            int stateId = stateIterator.nextIndex();
+            try
+            {
+                maxNumSamples = Long.parseLong(reportParameters.get("monteCarloMaxNumSamples"));
+                if (maxNumSamples < 2) throw new Exception("Bad");
+            }
+            catch (Exception ex)
+            {
+                throw new Net2PlanException("Parameter 'monteCarloMaxNumSamples' value must be an integer greater than one");
+            }
 
-            Set<Integer> aux_affectedSRGs = stateIterator.next();
-            int[] affectedSRGs = IntUtils.toArray(aux_affectedSRGs);
+            try
+            {
+                maxTimeInSeconds = Double.parseDouble(reportParameters.get("monteCarloMaxTimeInSeconds"));
+                if (maxTimeInSeconds <= 0) throw new Exception("Bad");
+            }
+            catch (Exception ex)
+            {
+                throw new Net2PlanException("Parameter 'monteCarloMaxTimeInSeconds' value must be greater than zero");
+            }
 
-            Arrays.fill(y_d_s, 0);
+            try
+            {
+                relativePrecision = Double.parseDouble(reportParameters.get("monteCarloRelativePrecision"));
+                if (relativePrecision <= 0) throw new Exception("Bad");
+            }
+            catch (Exception ex)
+            {
+                throw new Net2PlanException("Parameter 'monteCarloRelativePrecision' value must be greater than zero");
+            }
 
-            if (affectedSRGs.length == 0)
+            try
             {
-                y_d_s = DoubleUtils.copy(y_d_0);
+                absolutePrecision = Double.parseDouble(reportParameters.get("monteCarloAbsolutePrecision"));
+                if (absolutePrecision < 0) throw new Exception("Bad");
             }
-            else
+            catch (Exception ex)
             {
-                if (assumeUnprotectedRoutes)
-                {
-                    Set<Integer> nodesDown = new HashSet<Integer>();
-                    Set<Integer> linksDown = new HashSet<Integer>();
-                    Set<Integer> routesDown = new HashSet<Integer>();
+                throw new Net2PlanException("Parameter 'monteCarloAbsolutePrecision' value must be greater or equal than zero");
+            }
 
-                    for(int srgId : affectedSRGs)
-                    {
-                        for(int nodeId : N_f[srgId]) nodesDown.add(nodeId);
-                        for(int linkId : E_f[srgId]) linksDown.add(linkId);
-                    }
+            try
+            {
+                minNumSamplesWithoutLoss = Long.parseLong(reportParameters.get("monteCarloMinNumSamplesWithoutLoss"));
+                if (minNumSamplesWithoutLoss < 0) throw new Exception("Bad");
+            }
+            catch (Exception ex)
+            {
+                throw new Net2PlanException("Parameter 'monteCarloMinNumSamplesWithoutLoss' value must be a non-negative integer");
+            }
 
-                    for(int nodeId : nodesDown)
-                    {
-                        int[] routeIds = netPlan.getNodeTraversingRoutes(nodeId);
-                        for(int routeId : routeIds) routesDown.add(routeId);
-                    }
+            try { seed = Long.parseLong(reportParameters.get("monteCarloSeed")); }
+            catch (Exception ex) { throw new Net2PlanException("Parameter 'monteCarloSeed' value must be a valid integer"); }
+
+            estimateAvailabilityByMonteCarlo(netPlan, A_f, numThreads, precisionFactor, confidenceLevel, expectedFailuresPerSample, maxNumSamples, maxTimeInSeconds, relativePrecision, absolutePrecision, minNumSamplesWithoutLoss, seed);
+        }
+        else if (analysisMode.equals("mostProbable"))
+        {
+            double probabilityThreshold;
+            try
+            {
+                probabilityThreshold = Double.parseDouble(reportParameters.get("mostProbableProbabilityThreshold"));
+                if (probabilityThreshold < 0 || probabilityThreshold > 1) throw new Exception("Bad");
+            }
+            catch (Exception ex)
+            {
+                throw new Net2PlanException("Parameter 'mostProbableProbabilityThreshold' value must be in range [0, 1]");
+            }
 
-                    for(int linkId : linksDown)
+            SRGUtils.MostProbableFailureStateIterator stateIterator = SRGUtils.iterateMostProbableFailureStates(A_f, numSRGs, probabilityThreshold);
+            sweepAllFailureStates(netPlan, stateIterator, A_f, numThreads, precisionFactor);
+
+            /* The iterator keeps track of the probability left out, which is more accurate than one minus the (nearly one) probability analyzed */
+            pi_excess = stateIterator.getRemainingProbability() + stateIterator.getProbabilityBeyondMaxNumSimultaneousFailures();
+            numMostProbableStates = stateIterator.getNumberOfEnumeratedStates();
+            mostProbableProbabilityThreshold = probabilityThreshold;
+        }
+        else
+        {
+            sweepAllFailureStates(netPlan, defineFailureStates(numSRGs, analyzeDoubleFailures), A_f, numThreads, precisionFactor);
+        }
+        
+        String html = generateReport(netPlan);
+
+	return html;
+    }
+    
+    /* Enumeration of the failure states given by an iterator (those of defineFailureStates(), or the most probable ones) */
+    private void sweepAllFailureStates(NetPlan netPlan, final Iterator<int[]> stateIterator, final double[] A_f, int numThreads, final double precisionFactor)
+    {
+        int D = netPlan.getNumberOfDemands();
+
+        /* Failure states are generated lazily, and shared among the threads. Each thread works on its own copy of the design, and accumulates its own availability values, which are merged at the end */
+        List<Future<AvailabilityAccumulator>> futures = new ArrayList<Future<AvailabilityAccumulator>>();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try
+        {
+            for (int threadId = 0; threadId < numThreads; threadId++)
+            {
+                final NetPlan netPlan_thisThread = netPlan.copy();
+                futures.add(executor.submit(new Callable<AvailabilityAccumulator>()
+                {
+                    @Override
+                    public AvailabilityAccumulator call()
                     {
-                        int[] routeIds = netPlan.getLinkTraversingRoutes(linkId);
-                        for(int routeId : routeIds) routesDown.add(routeId);
+                        return sweepFailureStates(netPlan_thisThread, stateIterator, A_f, precisionFactor);
                     }
+                }));
+            }
 
-                    for (int routeId = 0; routeId < R; routeId++)
-                    {
-                        if (routesDown.contains(routeId)) continue;
+            AvailabilityAccumulator total = new AvailabilityAccumulator(D);
+            for (Future<AvailabilityAccumulator> future : futures)
+                total.merge(future.get());
+
+            A_d_1 = total.A_d_1;
+            A_d_2 = total.A_d_2;
+            A_D_1 = total.A_D_1;
+            A_D_2 = total.A_D_2;
+            pi_excess = 1 - total.sum_pi_s;
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
 
-                        int demandId = netPlan.getRouteDemand(routeId);
-                        double carriedTraffic = netPlan.getRouteCarriedTrafficInErlangs(routeId);
+        A_d_1_halfWidth = new double[D];
+        A_d_2_halfWidth = new double[D];
+        A_D_1_halfWidth = 0;
+        A_D_2_halfWidth = 0;
+        averageA_d_1 = DoubleUtils.average(A_d_1);
+        averageA_d_2 = DoubleUtils.average(A_d_2);
+        averageA_d_1_halfWidth = 0;
+        averageA_d_2_halfWidth = 0;
+        numMonteCarloSamples = 0;
+        numMostProbableStates = 0;
+    }
 
-                        y_d_s[demandId] += carriedTraffic;
-                    }
-                }
-                else
-                {
-                    ResilienceNetState netState = (ResilienceNetState) template.copy();
+    /* Monte Carlo estimation with failure biasing: SRG failure probabilities u_f are raised to q_f, and each sample is weighted by its likelihood ratio, so that availability is estimated as one minus the (weighted) average loss */
+    private void estimateAvailabilityByMonteCarlo(NetPlan netPlan, double[] A_f, int numThreads, final double precisionFactor, double confidenceLevel, double expectedFailuresPerSample, long maxNumSamples, double maxTimeInSeconds, double relativePrecision, double absolutePrecision, long minNumSamplesWithoutLoss, final long seed)
+    {
+        int D = netPlan.getNumberOfDemands();
+        final int F = A_f.length;
 
-                    Set<Integer> nodesUp2Down = new HashSet<Integer>();
-                    Set<Integer> linksUp2Down = new HashSet<Integer>();
-                    netState.getNodeLinkStateChanges(affectedSRGs, new int[0], null, nodesUp2Down, null, linksUp2Down);
-                    
-                    try
-                    {
-                        algorithm = ClassLoaderUtils.getInstance(algorithmFile, algorithmName, IProvisioningAlgorithm.class);
-                        algorithm.initialize(netPlan, (ResilienceNetState) netState.unmodifiableView(), algorithmParameters, net2planParameters);
+        final double[] q_f = computeBiasedFailureProbabilities(A_f, expectedFailuresPerSample);
 
-                        // Nodes up -> down
-                        for(int nodeId : nodesUp2Down)
-                        {
-                            ResilienceEvent singleEvent = new ResilienceEvent(pi_s[stateId], nodeId, EventType.NODE_FAILURE);
+        /* Log-likelihood ratio of a sample: that of no failure, plus a correction per failing SRG. Same for the nominal log-probability */
+        double aux_logWeight_0 = 0;
+        final double[] logWeightCorrection_f = new double[F];
+        final double[] logFailureRatio_f = new double[F];
+        for (int srgId = 0; srgId < F; srgId++)
+        {
+            if (A_f[srgId] <= 0 || A_f[srgId] > 1) throw new Net2PlanException("Availability for SRG " + srgId + " must be in range (0, 1] (current " + A_f[srgId] + ")");
+            if (q_f[srgId] == 0) continue;
 
-                            List<ProvisioningAction> actions = algorithm.processEvent(netPlan, (ResilienceNetState) netState.unmodifiableView(), singleEvent);
+            double u = 1 - A_f[srgId];
+            aux_logWeight_0 += Math.log(A_f[srgId]) - Math.log1p(-q_f[srgId]);
+            logWeightCorrection_f[srgId] = Math.log(u) - Math.log(q_f[srgId]) - Math.log(A_f[srgId]) + Math.log1p(-q_f[srgId]);
+            logFailureRatio_f[srgId] = Math.log(u) - Math.log(A_f[srgId]);
+        }
 
-                            netState.update(singleEvent, actions);
-                            netState.checkValidity(net2planParameters, allowLinkOversubscription, allowExcessCarriedTraffic);
-                        }
+        final double logWeight_0 = aux_logWeight_0;
+        final double logPi_0 = SRGUtils.computeStateLogProbability(new int[0], A_f);
 
-                        // Links up -> down
-                        for(int linkId : linksUp2Down)
-                        {
-                            ResilienceEvent singleEvent = new ResilienceEvent(pi_s[stateId], linkId, EventType.LINK_FAILURE);
+        /* Batches of samples are processed in rounds, and merged in order, so that results do not depend on the number of threads */
+        long maxNumBatches = (maxNumSamples + MONTE_CARLO_BATCH_SIZE - 1) / MONTE_CARLO_BATCH_SIZE;
+        int numBatchesPerRound = 4 * numThreads;
+        long maxTimeInNanoseconds = (long) (maxTimeInSeconds * 1E9);
+        long startTime = System.nanoTime();
+        double z = Probability.normalInverse(1 - (1 - confidenceLevel) / 2);
 
-                            List<ProvisioningAction> actions = algorithm.processEvent(netPlan, (ResilienceNetState) netState.unmodifiableView(), singleEvent);
+        final NetPlan[] netPlan_thread = new NetPlan[numThreads];
+        final ResilienceNetState[] template_thread = new ResilienceNetState[numThreads];
+        for (int threadId = 0; threadId < numThreads; threadId++)
+        {
+            netPlan_thread[threadId] = netPlan.copy();
+            template_thread[threadId] = new ResilienceNetState(netPlan_thread[threadId]);
+        }
 
-                            netState.update(singleEvent, actions);
-                            netState.checkValidity(net2planParameters, allowLinkOversubscription, allowExcessCarriedTraffic);
-                        }
+        MonteCarloAccumulator total = new MonteCarloAccumulator(D);
+        long numBatches = 0;
+        String stoppingRule = "maximum number of samples";
 
-                        for(int srgId : affectedSRGs)
-                        {
-                            ResilienceEvent singleEvent = new ResilienceEvent(pi_s[stateId], srgId, EventType.SRG_FAILURE);
-                            netState.update(singleEvent, null);
-                            netState.checkValidity(net2planParameters, allowLinkOversubscription, allowExcessCarriedTraffic);
-                        }
-                        
-                        if (assumeOverSubscribedLinksAsFailedLinks)
-                        {
-                            long[] routeIds = netState.getRouteIds();
-                            int[] oversubscribedLinks = netState.getLinksOversubscribed();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try
+        {
+            while (numBatches < maxNumBatches)
+            {
+                final long firstBatchId = numBatches;
+                final int numBatchesThisRound = (int) Math.min(numBatchesPerRound, maxNumBatches - numBatches);
+                final MonteCarloAccumulator[] batchAccumulators = new MonteCarloAccumulator[numBatchesThisRound];
+                final AtomicInteger nextBatch = new AtomicInteger(0);
 
-                            for(long routeId : routeIds)
+                List<Future<Void>> futures = new ArrayList<Future<Void>>();
+                for (int threadId = 0; threadId < numThreads; threadId++)
+                {
+                    final int thisThreadId = threadId;
+                    futures.add(executor.submit(new Callable<Void>()
+                    {
+                        @Override
+                        public Void call()
+                        {
+                            int batchIndex;
+                            while ((batchIndex = nextBatch.getAndIncrement()) < numBatchesThisRound)
                             {
-                                int demandId = netState.getRouteDemand(routeId);
-
-                                double trafficVolume = netState.getRouteCurrentCarriedTrafficVolumeInErlangs(routeId);
-                                if (trafficVolume == 0) continue;
-
-                                long[] seqLinksAndSegments = netState.getRouteCurrentSequenceOfLinksAndSegments(routeId);
-
-                                boolean assumeFailed = false;
-
-                                for(long itemId : seqLinksAndSegments)
-                                {
-                                    if (itemId >= 0)
-                                    {
-                                        int linkId = (int) itemId;
-                                        if (IntUtils.contains(oversubscribedLinks, linkId))
-                                        {
-                                            assumeFailed = true;
-                                            break;
-                                        }
-                                    }
-                                    else
-                                    {
-                                        long segmentId = -1 - itemId;
-                                        if (netState.getProtectionSegmentReservedBandwidthInErlangs(segmentId) == 0)
-                                        {
-                                            int[] seqLinks = netState.getProtectionSegmentSequenceOfLinks(segmentId);
-                                            if (IntUtils.containsAny(oversubscribedLinks, seqLinks))
-                                            {
-                                                assumeFailed = true;
-                                                break;
-                                            }
-                                        }
-                                    }
-                                }
-
-                                if (!assumeFailed) y_d_s[demandId] += trafficVolume;
+                                Random rng = new Random(mixSeed(seed, firstBatchId + batchIndex));
+                                batchAccumulators[batchIndex] = sampleFailureStates(netPlan_thread[thisThreadId], template_thread[thisThreadId], rng, q_f, logWeight_0, logWeightCorrection_f, logPi_0, logFailureRatio_f, precisionFactor);
                             }
+
+                            return null;
                         }
-                        else
-                        {
-                            y_d_s = netState.getDemandCurrentCarriedTrafficInErlangsVector();
-                        }
-                    }
-                    catch(Throwable e)
-                    {
-                        try { if (algorithm != null) ((Closeable) algorithm.getClass().getClassLoader()).close(); }
-                        catch(Throwable e1) { }
+                    }));
+                }
 
-                        throw(e);
-                    }
+                for (Future<Void> future : futures) future.get();
+                for (MonteCarloAccumulator batchAccumulator : batchAccumulators) total.merge(batchAccumulator);
+                numBatches += numBatchesThisRound;
+
+                String precisionRule = total.getPrecisionStoppingRule(D, z, relativePrecision, absolutePrecision, minNumSamplesWithoutLoss);
+                if (precisionRule != null)
+                {
+                    stoppingRule = precisionRule;
+                    break;
+                }
+
+                if (System.nanoTime() - startTime >= maxTimeInNanoseconds)
+                {
+                    if (numBatches < maxNumBatches) stoppingRule = "maximum running time";
+                    break;
                 }
             }
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        /* Availability is one minus the average loss (zero if nothing is carried in the no-failure state) */
+        A_d_1 = new double[D];
+        A_d_2 = new double[D];
+        A_d_1_halfWidth = new double[D];
+        A_d_2_halfWidth = new double[D];
+        int numCarriedDemands = 0;
+        for (int demandId = 0; demandId < D; demandId++)
+        {
+            if (y_d_0[demandId] == 0) continue;
 
+            numCarriedDemands++;
+            A_d_1[demandId] = 1 - total.getMean(demandId);
+            A_d_2[demandId] = 1 - total.getMean(D + demandId);
+            A_d_1_halfWidth[demandId] = total.getHalfWidth(demandId, z, confidenceLevel);
+            A_d_2_halfWidth[demandId] = total.getHalfWidth(D + demandId, z, confidenceLevel);
+        }
+
+        double A_D_0 = y_D_0 == 0 ? 0 : 1;
+        A_D_1 = A_D_0 - total.getMean(2 * D);
+        A_D_2 = A_D_0 - total.getMean(2 * D + 1);
+        A_D_1_halfWidth = total.getHalfWidth(2 * D, z, confidenceLevel);
+        A_D_2_halfWidth = total.getHalfWidth(2 * D + 1, z, confidenceLevel);
+
+        double averageA_d_0 = D == 0 ? 0 : (double) numCarriedDemands / D;
+        averageA_d_1 = averageA_d_0 - total.getMean(2 * D + 2);
+        averageA_d_2 = averageA_d_0 - total.getMean(2 * D + 3);
+        averageA_d_1_halfWidth = total.getHalfWidth(2 * D + 2, z, confidenceLevel);
+        averageA_d_2_halfWidth = total.getHalfWidth(2 * D + 3, z, confidenceLevel);
+
+        pi_excess = 0;
+        numMostProbableStates = 0;
+        numMonteCarloSamples = total.numSamples;
+        monteCarloConfidenceLevel = confidenceLevel;
+        monteCarloStoppingRule = stoppingRule;
+    }
+
+    /* Draws a batch of samples, evaluating the losses of each one */
+    private MonteCarloAccumulator sampleFailureStates(NetPlan netPlan, ResilienceNetState template, Random rng, double[] q_f, double logWeight_0, double[] logWeightCorrection_f, double logPi_0, double[] logFailureRatio_f, double precisionFactor)
+    {
+        int D = netPlan.getNumberOfDemands();
+        int F = q_f.length;
+
+        MonteCarloAccumulator accumulator = new MonteCarloAccumulator(D);
+        double[] loss = new double[2 * D + 4];
+        int[] failingSRGs = new int[F];
+
+        for (int sampleId = 0; sampleId < MONTE_CARLO_BATCH_SIZE; sampleId++)
+        {
+            int numFailingSRGs = 0;
+            double logWeight = logWeight_0;
+            double logPi = logPi_0;
+            for (int srgId = 0; srgId < F; srgId++)
+            {
+                if (q_f[srgId] == 0 || rng.nextDouble() >= q_f[srgId]) continue;
+
+                failingSRGs[numFailingSRGs++] = srgId;
+                logWeight += logWeightCorrection_f[srgId];
+                logPi += logFailureRatio_f[srgId];
+            }
+
+            /* No failure means no loss */
+            if (numFailingSRGs == 0)
+            {
+                accumulator.numSamples++;
+                continue;
+            }
+
+            double w = Math.exp(logWeight);
+            double[] y_d_s = computeCarriedTrafficPerDemand(netPlan, template, Arrays.copyOf(failingSRGs, numFailingSRGs), Math.exp(logPi));
+
+            Arrays.fill(loss, 0);
             for (int demandId = 0; demandId < D; demandId++)
             {
                 if (y_d_0[demandId] == 0) continue;
 
-                A_d_1[demandId] += (y_d_s[demandId] - y_d_0[demandId]) >= -precisionFactor ? pi_s[stateId] : 0;
-                A_d_2[demandId] += Math.min(1, y_d_s[demandId] / y_d_0[demandId]) * pi_s[stateId];
+                loss[demandId] = (y_d_s[demandId] - y_d_0[demandId]) >= -precisionFactor ? 0 : w;
+                loss[D + demandId] = (1 - Math.min(1, y_d_s[demandId] / y_d_0[demandId])) * w;
+                loss[2 * D + 2] += loss[demandId] / D;
+                loss[2 * D + 3] += loss[D + demandId] / D;
             }
 
-            if (y_D_0 == 0) continue;
-            
-            y_D_s = DoubleUtils.sum(y_d_s);
-            
-            A_D_1 += (y_D_s - y_D_0) >= -precisionFactor ? pi_s[stateId] : 0;
-            A_D_2 += Math.min(1, y_D_s / y_D_0) * pi_s[stateId];
+            if (y_D_0 != 0)
+            {
+                double y_D_s = DoubleUtils.sum(y_d_s);
+                loss[2 * D] = (y_D_s - y_D_0) >= -precisionFactor ? 0 : w;
+                loss[2 * D + 1] = (1 - Math.min(1, y_D_s / y_D_0)) * w;
+            }
+
+            accumulator.add(loss);
         }
-        
-        String html = generateReport(netPlan);
 
-	return html;
+        return accumulator;
     }
-    
+
+    /* Failure probabilities scaled by a common factor (at least one, and capped at 0.5) so that the expected number of failing SRGs per sample is the given one */
+    private static double[] computeBiasedFailureProbabilities(double[] A_f, double expectedFailuresPerSample)
+    {
+        int F = A_f.length;
+        double[] q_f = new double[F];
+        for (int srgId = 0; srgId < F; srgId++) q_f[srgId] = 1 - A_f[srgId];
+
+        if (expectedFailuresPerSample <= 0 || DoubleUtils.sum(q_f) >= expectedFailuresPerSample) return q_f;
+
+        double lowerFactor = 1;
+        double upperFactor = 1;
+        while (sumBiasedFailureProbabilities(A_f, upperFactor) < expectedFailuresPerSample && upperFactor < 1E300) upperFactor *= 2;
+
+        for (int it = 0; it < 100; it++)
+        {
+            double factor = (lowerFactor + upperFactor) / 2;
+            if (sumBiasedFailureProbabilities(A_f, factor) < expectedFailuresPerSample) lowerFactor = factor;
+            else upperFactor = factor;
+        }
+
+        for (int srgId = 0; srgId < F; srgId++) q_f[srgId] = biasedFailureProbability(A_f[srgId], upperFactor);
+
+        return q_f;
+    }
+
+    private static double sumBiasedFailureProbabilities(double[] A_f, double factor)
+    {
+        double sum = 0;
+        for (double A : A_f) sum += biasedFailureProbability(A, factor);
+        return sum;
+    }
+
+    private static double biasedFailureProbability(double A, double factor)
+    {
+        double u = 1 - A;
+        return Math.max(u, Math.min(0.5, u * factor));
+    }
+
+    /* Independent random streams per batch */
+    private static long mixSeed(long seed, long batchId)
+    {
+        long x = seed * 0x9E3779B97F4A7C15L + batchId;
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
     /**
-     * Returns the set of SRGs going down on each failure state.
+     * Returns the set of SRGs going down on each failure state. States are
+     * requested on demand (possibly from several threads, under synchronization),
+     * so that they do not need to be stored altogether.
      * 
      * @param numSRGs Number of defined SRGs
      * @param analyzeDoubleFailures Flag to indicate whether or not double failure states are included
-     * @return Set of SRGs going down on each failure state
-     * @since 1.0
+     * @return Iterator over the (sorted) SRGs going down on each failure state
+     * @since 0.2.3
      */
-    protected List<Set<Integer>> defineFailureStates(int numSRGs, boolean analyzeDoubleFailures)
+    protected Iterator<int[]> defineFailureStates(int numSRGs, boolean analyzeDoubleFailures)
     {
-        return SRGUtils.enumerateFailureStates(numSRGs, true, analyzeDoubleFailures);
+        return SRGUtils.iterateFailureStates(numSRGs, true, analyzeDoubleFailures);
     }
 
     /**
-     * Computes the probability to find the network on each failure state.
+     * Computes the probability to find the network on a failure state.
      * 
-     * @param F_s Set of SRGs failing per each failure state
+     * @param affectedSRGs Sorted array of SRGs going down in the failure state
      * @param A_f Availability value per SRG
-     * @return Probability to find the network in each failure state
-     * @since 1.0
+     * @return Probability to find the network in the failure state
+     * @since 0.2.3
      */
-    protected double[] defineStateProbabilities(List<Set<Integer>> F_s, double[] A_f)
+    protected double defineStateProbability(int[] affectedSRGs, double[] A_f)
     {
-        return SRGUtils.computeStateProbabilities(F_s, A_f);
+        return SRGUtils.computeStateProbability(affectedSRGs, A_f);
+    }
+
+    /* Analyzes failure states taken from the shared iterator, until it is exhausted */
+    private AvailabilityAccumulator sweepFailureStates(NetPlan netPlan, Iterator<int[]> stateIterator, double[] A_f, double precisionFactor)
+    {
+        int D = netPlan.getNumberOfDemands();
+        AvailabilityAccumulator accumulator = new AvailabilityAccumulator(D);
+        ResilienceNetState template = new ResilienceNetState(netPlan);
+
+        while (true)
+        {
+            int[] affectedSRGs;
+            synchronized (stateIterator)
+            {
+                if (!stateIterator.hasNext()) break;
+                affectedSRGs = stateIterator.next();
+            }
+
+            double pi_s = defineStateProbability(affectedSRGs, A_f);
+            double[] y_d_s = computeCarriedTrafficPerDemand(netPlan, template, affectedSRGs, pi_s);
+
+            accumulator.sum_pi_s += pi_s;
+
+            for (int demandId = 0; demandId < D; demandId++)
+            {
+                if (y_d_0[demandId] == 0) continue;
+
+                accumulator.A_d_1[demandId] += (y_d_s[demandId] - y_d_0[demandId]) >= -precisionFactor ? pi_s : 0;
+                accumulator.A_d_2[demandId] += Math.min(1, y_d_s[demandId] / y_d_0[demandId]) * pi_s;
+            }
+
+            if (y_D_0 == 0) continue;
+            
+            double y_D_s = DoubleUtils.sum(y_d_s);
+            
+            accumulator.A_D_1 += (y_D_s - y_D_0) >= -precisionFactor ? pi_s : 0;
+            accumulator.A_D_2 += Math.min(1, y_D_s / y_D_0) * pi_s;
+        }
+
+        return accumulator;
+    }
+
+    /* Carried traffic per demand when the given SRGs are down */
+    private double[] computeCarriedTrafficPerDemand(NetPlan netPlan, ResilienceNetState template, int[] affectedSRGs, double pi_s)
+    {
+        int D = netPlan.getNumberOfDemands();
+        int R = netPlan.getNumberOfRoutes();
+        int[][] N_f = netPlan.getSRGNodesVector();
+        int[][] E_f = netPlan.getSRGLinksVector();
+
+        double[] y_d_s = new double[D];
+
+        if (affectedSRGs.length == 0) return DoubleUtils.copy(y_d_0);
+
+        if (assumeUnprotectedRoutes)
+        {
+            Set<Integer> nodesDown = new HashSet<Integer>();
+            Set<Integer> linksDown = new HashSet<Integer>();
+            Set<Integer> routesDown = new HashSet<Integer>();
+
+            for(int srgId : affectedSRGs)
+            {
+                for(int nodeId : N_f[srgId]) nodesDown.add(nodeId);
+                for(int linkId : E_f[srgId]) linksDown.add(linkId);
+            }
+
+            for(int nodeId : nodesDown)
+            {
+                int[] routeIds = netPlan.getNodeTraversingRoutes(nodeId);
+                for(int routeId : routeIds) routesDown.add(routeId);
+            }
+
+            for(int linkId : linksDown)
+            {
+                int[] routeIds = netPlan.getLinkTraversingRoutes(linkId);
+                for(int routeId : routeIds) routesDown.add(routeId);
+            }
+
+            for (int routeId = 0; routeId < R; routeId++)
+            {
+                if (routesDown.contains(routeId)) continue;
+
+                int demandId = netPlan.getRouteDemand(routeId);
+                double carriedTraffic = netPlan.getRouteCarriedTrafficInErlangs(routeId);
+
+                y_d_s[demandId] += carriedTraffic;
+            }
+
+            return y_d_s;
+        }
+
+        ResilienceNetState netState = (ResilienceNetState) template.copy();
+
+        Set<Integer> nodesUp2Down = new HashSet<Integer>();
+        Set<Integer> linksUp2Down = new HashSet<Integer>();
+        netState.getNodeLinkStateChanges(affectedSRGs, new int[0], null, nodesUp2Down, null, linksUp2Down);
+        
+        IProvisioningAlgorithm algorithm = null;
+        try
+        {
+            algorithm = ClassLoaderUtils.getInstance(algorithmFile, algorithmName, IProvisioningAlgorithm.class);
+            algorithm.initialize(netPlan, (ResilienceNetState) netState.unmodifiableView(), algorithmParameters, net2planParameters);
+
+            // Nodes up -> down
+            for(int nodeId : nodesUp2Down)
+            {
+                ResilienceEvent singleEvent = new ResilienceEvent(pi_s, nodeId, EventType.NODE_FAILURE);
+
+                List<ProvisioningAction> actions = algorithm.processEvent(netPlan, (ResilienceNetState) netState.unmodifiableView(), singleEvent);
+
+                netState.update(singleEvent, actions);
+                netState.checkValidity(net2planParameters, allowLinkOversubscription, allowExcessCarriedTraffic);
+            }
+
+            // Links up -> down
+            for(int linkId : linksUp2Down)
+            {
+                ResilienceEvent singleEvent = new ResilienceEvent(pi_s, linkId, EventType.LINK_FAILURE);
+
+                List<ProvisioningAction> actions = algorithm.processEvent(netPlan, (ResilienceNetState) netState.unmodifiableView(), singleEvent);
+
+                netState.update(singleEvent, actions);
+                netState.checkValidity(net2planParameters, allowLinkOversubscription, allowExcessCarriedTraffic);
+            }
+
+            for(int srgId : affectedSRGs)
+            {
+                ResilienceEvent singleEvent = new ResilienceEvent(pi_s, srgId, EventType.SRG_FAILURE);
+                netState.update(singleEvent, null);
+                netState.checkValidity(net2planParameters, allowLinkOversubscription, allowExcessCarriedTraffic);
+            }
+            
+            if (!assumeOverSubscribedLinksAsFailedLinks) return netState.getDemandCurrentCarriedTrafficInErlangsVector();
+
+            long[] routeIds = netState.getRouteIds();
+            int[] oversubscribedLinks = netState.getLinksOversubscribed();
+
+            for(long routeId : routeIds)
+            {
+                int demandId = netState.getRouteDemand(routeId);
+
+                double trafficVolume = netState.getRouteCurrentCarriedTrafficVolumeInErlangs(routeId);
+                if (trafficVolume == 0) continue;
+
+                long[] seqLinksAndSegments = netState.getRouteCurrentSequenceOfLinksAndSegments(routeId);
+
+                boolean assumeFailed = false;
+
+                for(long itemId : seqLinksAndSegments)
+                {
+                    if (itemId >= 0)
+                    {
+                        int linkId = (int) itemId;
+                        if (IntUtils.contains(oversubscribedLinks, linkId))
+                        {
+                            assumeFailed = true;
+                            break;
+                        }
+                    }
+                    else
+                    {
+                        long segmentId = -1 - itemId;
+                        if (netState.getProtectionSegmentReservedBandwidthInErlangs(segmentId) == 0)
+                        {
+                            int[] seqLinks = netState.getProtectionSegmentSequenceOfLinks(segmentId);
+                            if (IntUtils.containsAny(oversubscribedLinks, seqLinks))
+                            {
+                                assumeFailed = true;
+                                break;
+                            }
+                        }
+                    }
+                }
+
+                if (!assumeFailed) y_d_s[demandId] += trafficVolume;
+            }
+
+            return y_d_s;
+        }
+        catch(Throwable e)
+        {
+            try { if (algorithm != null) ((Closeable) algorithm.getClass().getClassLoader()).close(); }
+            catch(Throwable e1) { }
+
+            throw(e);
+        }
     }
 
     /**
@@ -439,7 +909,7 @@ public class Report_availability implements IReport
 
             double A_d_0 = y_d_0[demandId] == 0 ? 0 : 1;
 
-            perDemandInfo.append(String.format("<tr><td>%d</td><td>n%d (%s)</td><td>n%d (%s)</td><td>%.3g</td><td>%.6f - %.6f</td><td>%.6f - %.6f</td></tr>", demandId, ingressNodeId, netPlan.getNodeName(ingressNodeId), egressNodeId, netPlan.getNodeName(egressNodeId), netPlan.getDemandOfferedTrafficInErlangs(demandId), A_d_1[demandId], A_d_1[demandId] + pi_excess * A_d_0, A_d_2[demandId], A_d_2[demandId] + pi_excess * A_d_0));
+            perDemandInfo.append(String.format("<tr><td>%d</td><td>n%d (%s)</td><td>n%d (%s)</td><td>%.3g</td><td>%s</td><td>%s</td></tr>", demandId, ingressNodeId, netPlan.getNodeName(ingressNodeId), egressNodeId, netPlan.getNodeName(egressNodeId), netPlan.getDemandOfferedTrafficInErlangs(demandId), formatInterval(A_d_1[demandId], A_d_1_halfWidth[demandId], pi_excess * A_d_0), formatInterval(A_d_2[demandId], A_d_2_halfWidth[demandId], pi_excess * A_d_0)));
         }
         perDemandInfo.append("</table>");
 
@@ -452,20 +922,22 @@ public class Report_availability implements IReport
         networkInfo.append("<ul>");
         networkInfo.append(String.format("<p>Total offered traffic: %.3g Erlangs</p>", H));
         networkInfo.append(String.format("<p>Total carried traffic under no failures: %.3g Erlangs</p>", y_D_0));
+        if (numMonteCarloSamples > 0) networkInfo.append(String.format("<p>Monte Carlo estimation: %d samples, %.1f%% confidence intervals (stopped by %s)</p>", numMonteCarloSamples, 100 * monteCarloConfidenceLevel, monteCarloStoppingRule));
+        if (numMostProbableStates > 0) networkInfo.append(String.format("<p>Most probable failure states: %d states with probability of at least %.3g analyzed, probability of the states left out: %.3g</p>", numMostProbableStates, mostProbableProbabilityThreshold, pi_excess));
         networkInfo.append("</ul>");
 
         networkInfo.append("<center>");
         networkInfo.append("<table border='1'><thead><tr><th><b>Metric</b></th><th><b>Availability (classic)</b></th><th><b>Availability (weighted)</b></th></thead><tbody>");
         
-        networkInfo.append(String.format("<tr><td>Network Availability</td><td>%.6f - %.6f</td><td>%.6f - %.6f</td></tr>", A_D_1, A_D_1 + pi_excess * A_D_0, A_D_2, A_D_2 + pi_excess * A_D_0));
+        networkInfo.append(String.format("<tr><td>Network Availability</td><td>%s</td><td>%s</td></tr>", formatInterval(A_D_1, A_D_1_halfWidth, pi_excess * A_D_0), formatInterval(A_D_2, A_D_2_halfWidth, pi_excess * A_D_0)));
         
         int worstDemandId_1 = DoubleUtils.minIndexes(A_d_1, Constants.SearchType.FIRST)[0];
         int worstDemandId_2 = DoubleUtils.minIndexes(A_d_2, Constants.SearchType.FIRST)[0];
         double worst_A_d_0_1 = y_d_0[worstDemandId_1] == 0 ? 0 : 1;
         double worst_A_d_0_2 = y_d_0[worstDemandId_2] == 0 ? 0 : 1;
 
-        networkInfo.append(String.format("<tr><td>Worst Demand Availability</td><td>%.6f - %.6f</td><td>%.6f - %.6f</td></tr>", A_d_1[worstDemandId_1], A_d_1[worstDemandId_1] + pi_excess * worst_A_d_0_1, A_d_2[worstDemandId_2], A_d_2[worstDemandId_2] + pi_excess * worst_A_d_0_2));
-        networkInfo.append(String.format("<tr><td>Average Demand Availability</td><td>%.6f - %.6f</td><td>%.6f - %.6f</td></tr>", DoubleUtils.average(A_d_1), DoubleUtils.average(A_d_1) + pi_excess * A_D_0, DoubleUtils.average(A_d_2), DoubleUtils.average(A_d_2) + pi_excess * A_D_0));
+        networkInfo.append(String.format("<tr><td>Worst Demand Availability</td><td>%s</td><td>%s</td></tr>", formatInterval(A_d_1[worstDemandId_1], A_d_1_halfWidth[worstDemandId_1], pi_excess * worst_A_d_0_1), formatInterval(A_d_2[worstDemandId_2], A_d_2_halfWidth[worstDemandId_2], pi_excess * worst_A_d_0_2)));
+        networkInfo.append(String.format("<tr><td>Average Demand Availability</td><td>%s</td><td>%s</td></tr>", formatInterval(averageA_d_1, averageA_d_1_halfWidth, pi_excess * A_D_0), formatInterval(averageA_d_2, averageA_d_2_halfWidth, pi_excess * A_D_0)));
         
         networkInfo.append("</tbody></table>");
         networkInfo.append("</center>");
@@ -479,6 +951,12 @@ public class Report_availability implements IReport
         return html;
     }
     
+    /* Lower and upper bounds: confidence interval (Monte Carlo), widened by the probability of the non-analyzed states (exhaustive) */
+    private static String formatInterval(double value, double halfWidth, double excess)
+    {
+        return String.format("%.6f - %.6f", Math.max(0, value - halfWidth), Math.min(1, value + halfWidth + excess));
+    }
+
     /**
      * Returns the location of the template file for the report.
      * 
@@ -491,4 +969,110 @@ public class Report_availability implements IReport
         catch(Throwable ex) { throw new RuntimeException(ex); }
     }
 
-}
\ No newline at end of file
+    /* Availability values accumulated by a single thread */
+    private static class AvailabilityAccumulator
+    {
+        private final double[] A_d_1;
+        private final double[] A_d_2;
+        private double A_D_1;
+        private double A_D_2;
+        private double sum_pi_s;
+
+        private AvailabilityAccumulator(int D)
+        {
+            A_d_1 = new double[D];
+            A_d_2 = new double[D];
+        }
+
+        private void merge(AvailabilityAccumulator other)
+        {
+            for (int demandId = 0; demandId < A_d_1.length; demandId++)
+            {
+                A_d_1[demandId] += other.A_d_1[demandId];
+                A_d_2[demandId] += other.A_d_2[demandId];
+            }
+
+            A_D_1 += other.A_D_1;
+            A_D_2 += other.A_D_2;
+            sum_pi_s += other.sum_pi_s;
+        }
+    }
+
+    /* Sums (and sums of squares) of the weighted losses per metric: classic and weighted loss per demand, network loss (classic and weighted), and average demand loss (classic and weighted) */
+    private static class MonteCarloAccumulator
+    {
+        private final double[] sum;
+        private final double[] sumSquares;
+        private long numSamples;
+
+        private MonteCarloAccumulator(int D)
+        {
+            sum = new double[2 * D + 4];
+            sumSquares = new double[2 * D + 4];
+        }
+
+        private void add(double[] loss)
+        {
+            for (int metricId = 0; metricId < sum.length; metricId++)
+            {
+                sum[metricId] += loss[metricId];
+                sumSquares[metricId] += loss[metricId] * loss[metricId];
+            }
+
+            numSamples++;
+        }
+
+        private void merge(MonteCarloAccumulator other)
+        {
+            for (int metricId = 0; metricId < sum.length; metricId++)
+            {
+                sum[metricId] += other.sum[metricId];
+                sumSquares[metricId] += other.sumSquares[metricId];
+            }
+
+            numSamples += other.numSamples;
+        }
+
+        private double getMean(int metricId)
+        {
+            return numSamples == 0 ? 0 : sum[metricId] / numSamples;
+        }
+
+        private double getStandardError(int metricId)
+        {
+            if (numSamples < 2) return Double.POSITIVE_INFINITY;
+
+            double mean = getMean(metricId);
+            double variance = Math.max(0, (sumSquares[metricId] - numSamples * mean * mean) / (numSamples - 1));
+            return Math.sqrt(variance / numSamples);
+        }
+
+        /* Half-width of the confidence interval of a metric. If no loss has been observed, the normal interval collapses to zero, so the one-sided bound for zero events in n samples is used instead: loss below -ln(1 - confidenceLevel) / n (the rule of three, 3 / n, at 95%) */
+        private double getHalfWidth(int metricId, double z, double confidenceLevel)
+        {
+            if (sum[metricId] == 0) return numSamples == 0 ? 1 : -Math.log(1 - confidenceLevel) / numSamples;
+
+            return z * getStandardError(metricId);
+        }
+
+        /* Rule by which sampling can stop (null if none holds): network loss (classic and weighted) has been observed, and is known with the given relative or absolute precision, or no loss has been observed after the given number of samples (zero disables the absolute and zero-loss rules) */
+        private String getPrecisionStoppingRule(int D, double z, double relativePrecision, double absolutePrecision, long minNumSamplesWithoutLoss)
+        {
+            boolean lossObserved = false, relativePrecisionReached = true, absolutePrecisionReached = absolutePrecision > 0;
+            for (int metricId = 2 * D; metricId < 2 * D + 2; metricId++)
+            {
+                double mean = getMean(metricId);
+                double halfWidth = z * getStandardError(metricId);
+                if (mean != 0) lossObserved = true;
+                if (mean == 0 || halfWidth > relativePrecision * mean) relativePrecisionReached = false;
+                if (halfWidth > absolutePrecision) absolutePrecisionReached = false;
+            }
+
+            if (!lossObserved) return minNumSamplesWithoutLoss > 0 && numSamples >= minNumSamplesWithoutLoss ? "zero-loss rule, no network loss observed" : null;
+            if (relativePrecisionReached) return "relative precision";
+            if (absolutePrecisionReached) return "absolute precision";
+
+            return null;
+        }
+    }
+}
@@ -60,26 +60,24 @@ public class Report_disasterVulnerability extends Report_availability
     public String executeReport(NetPlan netPlan, Map<String, String> reportParameters, Map<String, String> net2planParameters)
     {
         reportParameters.put("analyzeDoubleFailures", "false");
+        reportParameters.put("analysisMode", "exhaustive");
         
         return super.executeReport(netPlan, reportParameters, net2planParameters);
     }
     
     @Override
-    protected List<Set<Integer>> defineFailureStates(int numSRGs, boolean analyzeDoubleFailures)
+    protected Iterator<int[]> defineFailureStates(int numSRGs, boolean analyzeDoubleFailures)
     {
-        return SRGUtils.enumerateFailureStates(numSRGs, false, false);
+        if (numSRGs == 0) throw new Net2PlanException("No failure states");
+        
+        return SRGUtils.iterateFailureStates(numSRGs, false, false);
     }
 
     @Override
-    protected double[] defineStateProbabilities(List<Set<Integer>> F_s, double[] A_f)
+    protected double defineStateProbability(int[] affectedSRGs, double[] A_f)
     {
-        if (F_s.isEmpty()) throw new Net2PlanException("No failure states");
-        
-        int S = F_s.size();
-        double[] pi_s = new double[S];
-        Arrays.fill(pi_s, 1.0 / S);
-        
-        return pi_s;
+        /* One failure state per SRG, all of them equally likely */
+        return 1.0 / A_f.length;
     }
     
     @Override